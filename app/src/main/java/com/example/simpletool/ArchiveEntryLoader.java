@@ -0,0 +1,101 @@
+package com.example.simpletool;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.Priority;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.data.DataFetcher;
+import com.bumptech.glide.load.model.ModelLoader;
+import com.bumptech.glide.load.model.ModelLoaderFactory;
+import com.bumptech.glide.load.model.MultiModelLoaderFactory;
+import com.bumptech.glide.signature.ObjectKey;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 让 Glide 直接解码压缩包内的图片：以 {@link ZipArchive.Location} 为模型，
+ * 从条目的解压流读取，不写临时文件。在 {@link SimpleToolGlideModule} 中注册。
+ */
+final class ArchiveEntryLoader implements ModelLoader<ZipArchive.Location, InputStream> {
+
+    /**
+     * path 对应的 Glide 模型：压缩包内的条目返回 Location，其他返回 File。
+     */
+    static Object model(String path) {
+        ZipArchive.Location location = ZipArchive.locate(path);
+        return location != null && !location.entry.isEmpty() ? location : new File(path);
+    }
+
+    @Override
+    public LoadData<InputStream> buildLoadData(@NonNull ZipArchive.Location model, int width, int height,
+                                               @NonNull Options options) {
+        // Location 包含压缩包的 mtime，压缩包更新后缓存自然失效
+        return new LoadData<>(new ObjectKey(model), new Fetcher(model));
+    }
+
+    @Override
+    public boolean handles(@NonNull ZipArchive.Location model) {
+        return !model.entry.isEmpty();
+    }
+
+    static final class Factory implements ModelLoaderFactory<ZipArchive.Location, InputStream> {
+        @NonNull
+        @Override
+        public ModelLoader<ZipArchive.Location, InputStream> build(@NonNull MultiModelLoaderFactory multiFactory) {
+            return new ArchiveEntryLoader();
+        }
+
+        @Override
+        public void teardown() {
+        }
+    }
+
+    private static final class Fetcher implements DataFetcher<InputStream> {
+        private final ZipArchive.Location location;
+        private InputStream stream;
+
+        Fetcher(ZipArchive.Location location) {
+            this.location = location;
+        }
+
+        @Override
+        public void loadData(@NonNull Priority priority, @NonNull DataCallback<? super InputStream> callback) {
+            try {
+                stream = ZipArchive.open(location.archive).openStream(location.entry);
+                callback.onDataReady(stream);
+            } catch (IOException e) {
+                callback.onLoadFailed(e);
+            }
+        }
+
+        @Override
+        public void cleanup() {
+            if (stream == null) return;
+            try {
+                stream.close();
+            } catch (IOException e) {
+                // 只读的流，关闭失败无需处理
+            }
+        }
+
+        @Override
+        public void cancel() {
+            // 解压读取是同步进行的，没有可中断的请求
+        }
+
+        @NonNull
+        @Override
+        public Class<InputStream> getDataClass() {
+            return InputStream.class;
+        }
+
+        @NonNull
+        @Override
+        public DataSource getDataSource() {
+            return DataSource.LOCAL;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.simpletool;
+
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 从逐块送来的正文中识别章节，配合 {@link NovelDocument#scan} 使用，不需要全文字符串。
+ * 各块都在换行处结束，标题行不会被块边界截断。
+ * <p>
+ * 规则：间距不足 100 字的相邻标题视为误匹配，保留较长的一个；第一个标题前有非空白内容时
+ * 加一个“前言”；章节结束位置去掉末尾空白；没有任何标题时整本书作为“全文”。
+ * 每个章节在下一个标题确定后就会出现在 {@link #getChapters} 中，不必等扫描结束。
+ */
+final class ChapterParser implements NovelDocument.BlockListener {
+
+    static final class Chapter {
+        final String title;
+        final int start;
+        final int end;
+
+        Chapter(String title, int start, int end) {
+            this.title = title;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    // 支持“第 三 章”“卷三”、序章/楔子/终章等格式，标题后必须有实际内容
+    private static final Pattern TITLE = Pattern.compile(
+            "(?m)^\\s*" +
+                    "(?:" +
+                    "(?:第\\s*[\\d\\u4e00-\\u9fa5]{1,10}\\s*[章回卷节篇集部])" +
+                    "|(?:[卷篇集部]\\s*[\\d\\u4e00-\\u9fa5]{1,10})" +
+                    "|(?:[序楔终][卷章]?\\s*)" +
+                    ")" +
+                    "\\s*[：:—-]?\\s*" +
+                    ".+" +
+                    "$"
+    );
+    private static final int MIN_CHAPTER_GAP = 100;
+
+    private final List<Chapter> chapters = new ArrayList<>();
+    // 尚未确定的标题（可能和下一个标题合并），end 为标题行的结束位置
+    private Chapter pending;
+    // pending 之前已确定、还没有结束位置的章节
+    private Chapter open;
+    // 至今最后一个非空白字符之后的位置，用于去掉章节末尾的空白
+    private int contentEnd;
+    // pending 之前的内容结束位置（去掉空白），即上一章的结束位置
+    private int pendingContentEnd;
+    private boolean sawTitle;
+
+    @Override
+    public synchronized void onBlock(int charStart, char[] chars, int length) {
+        Matcher matcher = TITLE.matcher(CharBuffer.wrap(chars, 0, length));
+        int scanned = 0;
+        while (matcher.find()) {
+            int start = charStart + matcher.start();
+            trackContent(chars, scanned, matcher.start(), charStart);
+            scanned = matcher.end();
+            onTitle(new Chapter(matcher.group().trim(), start, charStart + matcher.end()), contentEnd);
+            trackContent(chars, matcher.start(), matcher.end(), charStart);
+        }
+        trackContent(chars, scanned, length, charStart);
+    }
+
+    /**
+     * 扫描结束，补上最后一章。length 为全文长度。
+     */
+    synchronized List<Chapter> finish(int length) {
+        if (!sawTitle) {
+            chapters.clear();
+            chapters.add(new Chapter("全文", 0, length));
+            return getChapters();
+        }
+        settlePending();
+        closeOpen(contentEnd);
+        return getChapters();
+    }
+
+    /** 到目前为止已经确定的章节，扫描期间也可以调用。 */
+    synchronized List<Chapter> getChapters() {
+        return Collections.unmodifiableList(new ArrayList<>(chapters));
+    }
+
+    private void onTitle(Chapter title, int contentBefore) {
+        if (!sawTitle) {
+            sawTitle = true;
+            pending = title;
+            pendingContentEnd = contentBefore;
+            return;
+        }
+        if (title.start - pending.end < MIN_CHAPTER_GAP) {
+            // 两个标题离得太近，保留较长的一个
+            if (title.title.length() > pending.title.length()) {
+                pending = title;
+                pendingContentEnd = contentBefore;
+            }
+            return;
+        }
+        settlePending();
+        pending = title;
+        pendingContentEnd = contentBefore;
+    }
+
+    // pending 确定为一章：上一章在它之前结束；第一章之前有非空白内容时先加上前言
+    private void settlePending() {
+        if (pending == null) return;
+        if (open == null && chapters.isEmpty() && pendingContentEnd > 0) {
+            chapters.add(new Chapter("前言", 0, pending.start));
+        }
+        closeOpen(pendingContentEnd);
+        open = pending;
+        pending = null;
+    }
+
+    private void closeOpen(int end) {
+        if (open == null) return;
+        chapters.add(new Chapter(open.title, open.start, Math.max(open.start, end)));
+        open = null;
+    }
+
+    private void trackContent(char[] chars, int from, int to, int charStart) {
+        for (int i = to - 1; i >= from; i--) {
+            if (!Character.isWhitespace(chars[i])) {
+                contentEnd = Math.max(contentEnd, charStart + i + 1);
+                return;
+            }
+        }
+    }
+}
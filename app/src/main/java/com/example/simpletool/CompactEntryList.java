@@ -0,0 +1,193 @@
+package com.example.simpletool;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * 同一目录下条目的紧凑存储。所有文件名依次拼接在一个共享的 char 缓冲区里，每个条目只记结束偏移；
+ * 大小、时间和标志位存放在基本类型数组中。没有逐条的 FileEntry/String 对象，
+ * 二十万条目的目录也只占几个大数组。
+ * <p>
+ * {@link #get} 时才生成 FileEntry。最近访问过的位置缓存在一个小窗口里（按位置取模），
+ * 列表绑定时反复读取屏幕附近的行不会重复分配，窗口外的行随时可以被回收。
+ * <p>
+ * 只支持在末尾追加和替换同名条目的元数据。{@link #snapshot} 以 O(1) 返回只读快照，
+ * 与原列表共用数组：之后的追加写在快照范围之外，替换前会先复制元数据数组，快照都看不到。
+ */
+final class CompactEntryList extends AbstractList<FileEntry> implements RandomAccess {
+
+    // 必须是 2 的幂
+    static final int WINDOW_SIZE = 256;
+
+    private static final byte FLAG_DIRECTORY = 1;
+    private static final byte FLAG_READABLE = 2;
+
+    private final String parentPath;
+    private final boolean readOnly;
+
+    private char[] names;
+    private int nameLength;
+    // 第 i 个文件名为 names[i == 0 ? 0 : nameEnds[i - 1], nameEnds[i])
+    private int[] nameEnds;
+    private long[] sizes;
+    private long[] modified;
+    private byte[] flags;
+    private int count;
+    // 元数据数组是否与快照共用，替换条目前需要先复制
+    private boolean shared;
+
+    private final FileEntry[] window = new FileEntry[WINDOW_SIZE];
+    private final int[] windowIndex = new int[WINDOW_SIZE];
+
+    CompactEntryList(String parentPath, int initialCapacity) {
+        this(parentPath, initialCapacity, Math.max(initialCapacity, 16) * 16);
+    }
+
+    private CompactEntryList(String parentPath, int initialCapacity, int nameCapacity) {
+        this.parentPath = parentPath;
+        this.readOnly = false;
+        int capacity = Math.max(initialCapacity, 16);
+        names = new char[nameCapacity];
+        nameEnds = new int[capacity];
+        sizes = new long[capacity];
+        modified = new long[capacity];
+        flags = new byte[capacity];
+        Arrays.fill(windowIndex, -1);
+    }
+
+    private CompactEntryList(CompactEntryList source) {
+        this.parentPath = source.parentPath;
+        this.readOnly = true;
+        this.names = source.names;
+        this.nameLength = source.nameLength;
+        this.nameEnds = source.nameEnds;
+        this.sizes = source.sizes;
+        this.modified = source.modified;
+        this.flags = source.flags;
+        this.count = source.count;
+        Arrays.fill(windowIndex, -1);
+    }
+
+    /**
+     * 复制一个目录列表，entries 中所有条目必须位于同一目录。
+     */
+    static CompactEntryList copyOf(String parentPath, List<FileEntry> entries) {
+        int nameCapacity = 0;
+        for (FileEntry entry : entries) {
+            nameCapacity += entry.name.length();
+        }
+        CompactEntryList list = new CompactEntryList(parentPath, entries.size(), nameCapacity);
+        list.addAll(entries);
+        return list;
+    }
+
+    String getParentPath() {
+        return parentPath;
+    }
+
+    /**
+     * 粗略估计占用的堆内存（字节），只计各数组，供回退栈按内存上限淘汰。
+     */
+    synchronized long estimatedBytes() {
+        return names.length * 2L + nameEnds.length * 4L + sizes.length * 8L + modified.length * 8L
+                + flags.length + WINDOW_SIZE * 12L;
+    }
+
+    /**
+     * 只读快照，不复制数据。
+     */
+    synchronized CompactEntryList snapshot() {
+        if (readOnly) return this;
+        shared = true;
+        return new CompactEntryList(this);
+    }
+
+    @Override
+    public synchronized int size() {
+        return count;
+    }
+
+    @Override
+    public synchronized FileEntry get(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + count);
+        }
+        int slot = index & (WINDOW_SIZE - 1);
+        if (windowIndex[slot] == index) {
+            return window[slot];
+        }
+        int start = index == 0 ? 0 : nameEnds[index - 1];
+        FileEntry entry = new FileEntry(parentPath, new String(names, start, nameEnds[index] - start),
+                (flags[index] & FLAG_DIRECTORY) != 0, (flags[index] & FLAG_READABLE) != 0,
+                sizes[index], modified[index]);
+        window[slot] = entry;
+        windowIndex[slot] = index;
+        return entry;
+    }
+
+    @Override
+    public boolean add(FileEntry entry) {
+        if (!parentPath.equals(entry.parentPath)) {
+            throw new IllegalArgumentException("不在同一目录: " + entry.getPath());
+        }
+        append(entry.name, entry.isDirectory, entry.readable, entry.size, entry.lastModified);
+        return true;
+    }
+
+    /**
+     * 不经过 FileEntry 直接追加，供从磁盘缓存读取时使用。
+     */
+    synchronized void append(String name, boolean isDirectory, boolean readable, long size, long lastModified) {
+        checkWritable();
+        if (count == nameEnds.length) {
+            int capacity = count + (count >> 1) + 1;
+            nameEnds = Arrays.copyOf(nameEnds, capacity);
+            sizes = Arrays.copyOf(sizes, capacity);
+            modified = Arrays.copyOf(modified, capacity);
+            flags = Arrays.copyOf(flags, capacity);
+            shared = false;
+        }
+        if (nameLength + name.length() > names.length) {
+            names = Arrays.copyOf(names, Math.max(nameLength + name.length(), names.length + (names.length >> 1)));
+        }
+        name.getChars(0, name.length(), names, nameLength);
+        nameLength += name.length();
+        nameEnds[count] = nameLength;
+        sizes[count] = size;
+        modified[count] = lastModified;
+        flags[count] = (byte) ((isDirectory ? FLAG_DIRECTORY : 0) | (readable ? FLAG_READABLE : 0));
+        count++;
+        modCount++;
+    }
+
+    /**
+     * 替换条目的元数据（如写回递归计算的文件夹大小），名称必须相同。
+     */
+    @Override
+    public synchronized FileEntry set(int index, FileEntry entry) {
+        checkWritable();
+        FileEntry old = get(index);
+        if (!old.name.equals(entry.name)) {
+            throw new IllegalArgumentException("只能替换同名条目: " + entry.name);
+        }
+        if (shared) {
+            // 快照可能还在被差分或显示，写时复制；文件名不会被修改，继续共用
+            sizes = sizes.clone();
+            modified = modified.clone();
+            flags = flags.clone();
+            shared = false;
+        }
+        sizes[index] = entry.size;
+        modified[index] = entry.lastModified;
+        flags[index] = (byte) ((entry.isDirectory ? FLAG_DIRECTORY : 0) | (entry.readable ? FLAG_READABLE : 0));
+        window[index & (WINDOW_SIZE - 1)] = entry;
+        windowIndex[index & (WINDOW_SIZE - 1)] = index;
+        return old;
+    }
+
+    private void checkWritable() {
+        if (readOnly) throw new UnsupportedOperationException("快照是只读的");
+    }
+}
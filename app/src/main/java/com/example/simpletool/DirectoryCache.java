@@ -0,0 +1,290 @@
+package com.example.simpletool;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 目录列表缓存：内存中按 LRU 保留最近的目录，同时在应用缓存目录里保存一份紧凑的二进制副本。
+ * 缓存以目录自身的 mtime 校验，目录增删条目后 mtime 改变，旧列表随之失效。
+ * 注意目录 mtime 不反映子文件内容的修改，缓存中的大小/时间可能略旧。
+ * 所有方法都可能做磁盘 I/O，应在后台线程调用。
+ */
+class DirectoryCache {
+
+    private static final int MAGIC = 0x44495243; // "DIRC"
+    private static final int VERSION = 1;
+
+    private static final int FLAG_DIRECTORY = 1;
+    private static final int FLAG_READABLE = 2;
+
+    // 部分文件系统（如 SD 卡上的 FAT）mtime 精度只有 2 秒，刚修改过的目录不写入缓存
+    private static final long MTIME_GRANULARITY_MS = 2000;
+
+    private static final int MAX_DISK_FILES = 512;
+    private static final int TRIM_INTERVAL = 64;
+
+    static final class Listing {
+        final String path;
+        final long dirModified;
+        final List<FileEntry> entries;
+
+        Listing(String path, long dirModified, List<FileEntry> entries) {
+            this.path = path;
+            this.dirModified = dirModified;
+            this.entries = entries;
+        }
+    }
+
+    private final File diskDir;
+    private final int maxMemoryEntries;
+    private int memoryEntries;
+    private int putsSinceTrim;
+
+    // accessOrder=true，迭代顺序即最久未使用在前
+    private final LinkedHashMap<String, Listing> memory = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong staleHits = new AtomicLong();
+
+    /**
+     * @param diskDir          磁盘缓存目录，为 null 时只使用内存缓存
+     * @param maxMemoryEntries 内存中所有列表合计最多保留的条目数
+     */
+    DirectoryCache(File diskDir, int maxMemoryEntries) {
+        this.diskDir = diskDir;
+        this.maxMemoryEntries = maxMemoryEntries;
+    }
+
+    /**
+     * 返回与 dirModified 一致的缓存列表，没有或已过期时返回 null。
+     */
+    Listing get(String path, long dirModified) {
+        Listing listing;
+        synchronized (this) {
+            listing = memory.get(path);
+        }
+        if (listing != null) {
+            // 磁盘副本与内存同时写入，内存中的已过期则磁盘上的也一样
+            if (listing.dirModified == dirModified) {
+                memoryHits.incrementAndGet();
+                return listing;
+            }
+            misses.incrementAndGet();
+            return null;
+        }
+
+        listing = readFromDisk(path);
+        if (listing != null && listing.dirModified == dirModified) {
+            diskHits.incrementAndGet();
+            putInMemory(listing);
+            return listing;
+        }
+
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * 与 {@link #get} 做同样的校验但不计入命中统计，供预取判断是否还需要扫描。
+     * 磁盘上的副本有效时顺便读入内存。
+     */
+    boolean isFresh(String path, long dirModified) {
+        Listing listing;
+        synchronized (this) {
+            listing = memory.get(path);
+        }
+        if (listing != null) {
+            return listing.dirModified == dirModified;
+        }
+        listing = readFromDisk(path);
+        if (listing != null && listing.dirModified == dirModified) {
+            putInMemory(listing);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 返回最后一次已知的列表，不做 mtime 校验，用于在重新扫描完成前先行显示。
+     */
+    Listing getStale(String path) {
+        Listing listing;
+        synchronized (this) {
+            listing = memory.get(path);
+        }
+        if (listing == null) {
+            listing = readFromDisk(path);
+        }
+        if (listing != null) {
+            staleHits.incrementAndGet();
+        }
+        return listing;
+    }
+
+    void put(String path, long dirModified, List<FileEntry> entries) {
+        if (System.currentTimeMillis() - dirModified < MTIME_GRANULARITY_MS) {
+            // mtime 可能还会在同一个时间刻度内变化，缓存下来无法可靠校验
+            invalidate(path);
+            return;
+        }
+        // 紧凑存储，缓存中的大目录不再逐条保留 FileEntry 对象
+        String parentPath = entries.isEmpty() ? path : entries.get(0).parentPath;
+        Listing listing = new Listing(path, dirModified,
+                CompactEntryList.copyOf(parentPath, entries).snapshot());
+        putInMemory(listing);
+        writeToDisk(listing);
+    }
+
+    void invalidate(String path) {
+        synchronized (this) {
+            Listing removed = memory.remove(path);
+            if (removed != null) {
+                memoryEntries -= weight(removed);
+            }
+        }
+        if (diskDir != null) {
+            File file = diskFile(path);
+            if (file.exists() && !file.delete()) {
+                file.deleteOnExit();
+            }
+        }
+    }
+
+    long getMemoryHitCount() {
+        return memoryHits.get();
+    }
+
+    long getDiskHitCount() {
+        return diskHits.get();
+    }
+
+    long getMissCount() {
+        return misses.get();
+    }
+
+    long getStaleHitCount() {
+        return staleHits.get();
+    }
+
+    synchronized int getMemoryEntryCount() {
+        return memoryEntries;
+    }
+
+    private synchronized void putInMemory(Listing listing) {
+        Listing old = memory.put(listing.path, listing);
+        if (old != null) {
+            memoryEntries -= weight(old);
+        }
+        memoryEntries += weight(listing);
+
+        Iterator<Map.Entry<String, Listing>> it = memory.entrySet().iterator();
+        while (memoryEntries > maxMemoryEntries && it.hasNext()) {
+            Listing eldest = it.next().getValue();
+            if (eldest == listing) break;
+            memoryEntries -= weight(eldest);
+            it.remove();
+        }
+    }
+
+    private static int weight(Listing listing) {
+        return listing.entries.size() + 1;
+    }
+
+    private File diskFile(String path) {
+        // hashCode 可能冲突，文件头里还保存了完整路径用于核对
+        return new File(diskDir, Integer.toHexString(path.hashCode()) + ".lst");
+    }
+
+    private Listing readFromDisk(String path) {
+        if (diskDir == null) return null;
+        File file = diskFile(path);
+        if (!file.isFile()) return null;
+
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) return null;
+            if (!path.equals(in.readUTF())) return null;
+            long dirModified = in.readLong();
+            int count = in.readInt();
+            CompactEntryList entries = new CompactEntryList(path, count);
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                int flags = in.readByte();
+                long size = in.readLong();
+                long modified = in.readLong();
+                entries.append(name, (flags & FLAG_DIRECTORY) != 0, (flags & FLAG_READABLE) != 0, size, modified);
+            }
+            return new Listing(path, dirModified, entries.snapshot());
+        } catch (IOException e) {
+            // 缓存损坏时直接丢弃
+            file.delete();
+            return null;
+        }
+    }
+
+    private void writeToDisk(Listing listing) {
+        if (diskDir == null) return;
+        if (!diskDir.isDirectory() && !diskDir.mkdirs()) return;
+
+        File target = diskFile(listing.path);
+        File temp = new File(diskDir, target.getName() + "." + Thread.currentThread().getId() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(listing.path);
+            out.writeLong(listing.dirModified);
+            out.writeInt(listing.entries.size());
+            for (FileEntry entry : listing.entries) {
+                out.writeUTF(entry.name);
+                out.writeByte((entry.isDirectory ? FLAG_DIRECTORY : 0)
+                        | (entry.readable ? FLAG_READABLE : 0));
+                out.writeLong(entry.size);
+                out.writeLong(entry.lastModified);
+            }
+        } catch (IOException e) {
+            temp.delete();
+            return;
+        }
+        // 先写临时文件再改名，避免读到写了一半的缓存
+        if (!temp.renameTo(target)) {
+            temp.delete();
+        }
+
+        synchronized (this) {
+            if (++putsSinceTrim < TRIM_INTERVAL) return;
+            putsSinceTrim = 0;
+        }
+        trimDisk();
+    }
+
+    private void trimDisk() {
+        File[] files = diskDir.listFiles();
+        if (files == null || files.length <= MAX_DISK_FILES) return;
+
+        long[] modified = new long[files.length];
+        Integer[] order = new Integer[files.length];
+        for (int i = 0; i < files.length; i++) {
+            modified[i] = files[i].lastModified();
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(modified[a], modified[b]));
+        for (int i = 0; i < files.length - MAX_DISK_FILES; i++) {
+            files[order[i]].delete();
+        }
+    }
+}
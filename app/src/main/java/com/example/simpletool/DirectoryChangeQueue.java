@@ -0,0 +1,155 @@
+package com.example.simpletool;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 目录变化事件的防抖合并队列，不依赖 Android，时间由调用方传入。
+ * 同一文件的多次事件只保留最后一次；事件停止 {@code debounceMillis} 后，
+ * 或第一条事件之后最多 {@code maxDelayMillis}，{@link #poll} 交出一批。
+ * 待处理的文件过多时不再逐个记录，改为要求整体重新扫描。
+ */
+final class DirectoryChangeQueue {
+
+    /** 文件新建或内容/属性变化，需要重新读取元数据。 */
+    static final int KIND_CHANGED = 1;
+    /** 文件已删除或移出。 */
+    static final int KIND_REMOVED = 2;
+
+    static final class Batch {
+        /** 需要重新读取元数据的文件名。 */
+        final List<String> changed;
+        final List<String> removed;
+        /** 事件太多，逐个处理不如重新扫描。 */
+        final boolean rescan;
+        /** 目录本身被删除或移走。 */
+        final boolean directoryGone;
+
+        Batch(List<String> changed, List<String> removed, boolean rescan, boolean directoryGone) {
+            this.changed = changed;
+            this.removed = removed;
+            this.rescan = rescan;
+            this.directoryGone = directoryGone;
+        }
+    }
+
+    private final long debounceMillis;
+    private final long maxDelayMillis;
+    private final int maxPending;
+
+    private final LinkedHashMap<String, Integer> pending = new LinkedHashMap<>();
+    private boolean rescan;
+    private boolean directoryGone;
+    private long firstEventTime = -1;
+    private long lastEventTime;
+
+    DirectoryChangeQueue(long debounceMillis, long maxDelayMillis, int maxPending) {
+        this.debounceMillis = debounceMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.maxPending = maxPending;
+    }
+
+    synchronized void offer(int kind, String name, long now) {
+        touch(now);
+        if (rescan || directoryGone) return;
+        // 重新插入使顺序反映最后一次事件
+        pending.remove(name);
+        pending.put(name, kind);
+        if (pending.size() > maxPending) {
+            rescan = true;
+            pending.clear();
+        }
+    }
+
+    synchronized void offerDirectoryGone(long now) {
+        touch(now);
+        directoryGone = true;
+        pending.clear();
+    }
+
+    synchronized boolean isEmpty() {
+        return firstEventTime < 0;
+    }
+
+    /**
+     * 下一批可交出的时间，队列为空时返回 -1。
+     */
+    synchronized long nextDeadline() {
+        if (firstEventTime < 0) return -1;
+        return Math.min(lastEventTime + debounceMillis, firstEventTime + maxDelayMillis);
+    }
+
+    /**
+     * 到期时取出合并后的一批事件并清空队列，未到期或为空时返回 null。
+     */
+    synchronized Batch poll(long now) {
+        if (firstEventTime < 0 || now < nextDeadline()) return null;
+
+        List<String> changed = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : pending.entrySet()) {
+            if (entry.getValue() == KIND_REMOVED) {
+                removed.add(entry.getKey());
+            } else {
+                changed.add(entry.getKey());
+            }
+        }
+        Batch batch = new Batch(changed, removed, rescan, directoryGone);
+        pending.clear();
+        rescan = false;
+        directoryGone = false;
+        firstEventTime = -1;
+        return batch;
+    }
+
+    synchronized void clear() {
+        pending.clear();
+        rescan = false;
+        directoryGone = false;
+        firstEventTime = -1;
+    }
+
+    private void touch(long now) {
+        if (firstEventTime < 0) firstEventTime = now;
+        lastEventTime = now;
+    }
+
+    /**
+     * 把一批变化合并进已按 comparator 排好序的列表，返回新列表，原列表不变。
+     *
+     * @param updated      重新读取到的条目（新建或已变化）
+     * @param removedNames 已不存在的文件名
+     */
+    static List<FileEntry> patch(List<FileEntry> sorted, List<FileEntry> updated, Set<String> removedNames,
+                                 Comparator<FileEntry> comparator) {
+        Map<String, FileEntry> replacements = new HashMap<>();
+        for (FileEntry entry : updated) {
+            replacements.put(entry.name, entry);
+        }
+
+        List<FileEntry> result = new ArrayList<>(sorted.size() + updated.size());
+        for (FileEntry entry : sorted) {
+            FileEntry replacement = replacements.get(entry.name);
+            if (replacement != null) {
+                // 文件夹的大小是递归计算出来的，元数据变化不影响它
+                if (entry.isDirectory && replacement.isDirectory) {
+                    replacements.put(entry.name, replacement.withSize(entry.size));
+                }
+            } else if (!removedNames.contains(entry.name)) {
+                result.add(entry);
+            }
+        }
+        // 变化的条目可能改变排序位置（如按大小排序），删除后按二分查找重新插入
+        for (FileEntry entry : replacements.values()) {
+            int index = Collections.binarySearch(result, entry, comparator);
+            result.add(index < 0 ? -index - 1 : index, entry);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,371 @@
+package com.example.simpletool;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 后台目录加载器：在工作线程完成 list/stat/排序，再分批把结果投递到回调线程。
+ * 每个条目只 stat 一次，结果以 {@link FileEntry} 快照的形式交给界面。
+ * 配置了 {@link DirectoryCache} 时，目录 mtime 未变则直接使用缓存列表；
+ * 缓存已过期但存在旧列表时，先投递旧列表，扫描完成后再投递新列表。
+ * 每次 {@link #load} 都会使上一次扫描失效，离开目录后旧的扫描会被中断，
+ * 已经排队的分批结果也不会再投递。
+ * <p>
+ * 压缩包内的虚拟目录（见 {@link ZipArchive}）直接从中央目录列出，不使用缓存。
+ * <p>
+ * {@link #prefetch} 在单独的低优先级线程上预先扫描可能要进入的目录并写入缓存。
+ * 加载时该目录的预取正在进行就等它完成，还没开始就取消预取、直接扫描。
+ */
+class DirectoryLoader {
+
+    interface Callback {
+        /**
+         * 分批回调，first 为 true 表示新目录的第一批（可能为空），应先清空旧列表。
+         */
+        void onChunk(String path, List<FileEntry> chunk, boolean first);
+
+        void onComplete(String path, int total);
+    }
+
+    static final int DEFAULT_CHUNK_SIZE = 500;
+
+    // 每扫描多少个条目检查一次是否已被取消
+    private static final int CANCEL_CHECK_INTERVAL = 256;
+    // 预取过但还没被加载用上的目录最多记录这么多，更早的算作浪费
+    private static final int MAX_UNUSED_PREFETCHES = 16;
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "DirectoryLoader");
+        t.setPriority(Thread.NORM_PRIORITY - 1);
+        return t;
+    });
+    private final Executor callbackExecutor;
+    private final DirectoryCache cache;
+    private final int chunkSize;
+    private final AtomicInteger generation = new AtomicInteger();
+    private Future<?> running;
+
+    private final ExecutorService prefetchWorker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "DirectoryPrefetch");
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+    private final ConcurrentHashMap<String, PrefetchTask> prefetching = new ConcurrentHashMap<>();
+    // 按完成顺序排列，只在 synchronized (unusedPrefetches) 内访问
+    private final LinkedHashSet<String> unusedPrefetches = new LinkedHashSet<>();
+    private VisitFrequencyTable visits;
+    private final AtomicLong prefetchRequests = new AtomicLong();
+    private final AtomicLong prefetchScans = new AtomicLong();
+    private final AtomicLong prefetchHits = new AtomicLong();
+    private final AtomicLong prefetchWasted = new AtomicLong();
+
+    private static final class PrefetchTask {
+        // 预取线程和加载线程谁先抢到谁扫描
+        final AtomicBoolean claimed = new AtomicBoolean();
+        Future<?> future;
+    }
+
+    DirectoryLoader(Executor callbackExecutor) {
+        this(callbackExecutor, null, DEFAULT_CHUNK_SIZE);
+    }
+
+    DirectoryLoader(Executor callbackExecutor, DirectoryCache cache) {
+        this(callbackExecutor, cache, DEFAULT_CHUNK_SIZE);
+    }
+
+    DirectoryLoader(Executor callbackExecutor, DirectoryCache cache, int chunkSize) {
+        this.callbackExecutor = callbackExecutor;
+        this.cache = cache;
+        this.chunkSize = chunkSize;
+    }
+
+    DirectoryCache getCache() {
+        return cache;
+    }
+
+    /**
+     * 设置访问次数表，之后 {@link #recordVisit} 和 {@link #prefetchPopularChildren} 才生效。
+     */
+    void setVisitTable(VisitFrequencyTable visits) {
+        this.visits = visits;
+    }
+
+    /**
+     * 预先扫描 path 并写入缓存，缓存仍有效时什么也不做。没有配置缓存时无效。
+     */
+    void prefetch(String path) {
+        if (cache == null) return;
+        PrefetchTask task = new PrefetchTask();
+        // 加载线程拿到 task 后要在同一把锁上读 future，放进表之前先持有锁
+        synchronized (task) {
+            if (prefetching.putIfAbsent(path, task) != null) return;
+            prefetchRequests.incrementAndGet();
+            task.future = prefetchWorker.submit(() -> runPrefetch(path, task));
+        }
+    }
+
+    /** 记录一次进入目录，访问记录的读写都在预取线程上进行。 */
+    void recordVisit(String path) {
+        VisitFrequencyTable table = visits;
+        if (table == null) return;
+        prefetchWorker.execute(() -> table.recordVisit(path));
+    }
+
+    /** 预取 parentPath 下最常进入的几个子目录。 */
+    void prefetchPopularChildren(String parentPath, int limit) {
+        VisitFrequencyTable table = visits;
+        if (table == null) return;
+        prefetchWorker.execute(() -> {
+            for (String child : table.topChildren(parentPath, limit)) {
+                prefetch(child);
+            }
+        });
+    }
+
+    void saveVisits() {
+        VisitFrequencyTable table = visits;
+        if (table == null) return;
+        prefetchWorker.execute(table::save);
+    }
+
+    long getPrefetchRequestCount() {
+        return prefetchRequests.get();
+    }
+
+    long getPrefetchScanCount() {
+        return prefetchScans.get();
+    }
+
+    /** 加载时直接用上了预取结果的次数。 */
+    long getPrefetchHitCount() {
+        return prefetchHits.get();
+    }
+
+    /** 预取扫描了但没有被用上（一直没进入或进入时已过期）的次数。 */
+    long getPrefetchWastedCount() {
+        return prefetchWasted.get();
+    }
+
+    /**
+     * 异步加载目录，取消之前尚未完成的加载。
+     */
+    synchronized void load(String path, Comparator<FileEntry> comparator, Callback callback) {
+        cancel();
+        final int token = generation.get();
+        running = worker.submit(() -> scan(token, path, comparator, callback));
+    }
+
+    /**
+     * 对已有的快照重新排序并投递，不会再访问文件系统。
+     */
+    synchronized void sort(String path, List<FileEntry> entries, Comparator<FileEntry> comparator,
+                           Callback callback) {
+        cancel();
+        final int token = generation.get();
+        final List<FileEntry> copy = new ArrayList<>(entries);
+        running = worker.submit(() -> {
+            FileSorter.sort(copy, comparator);
+            if (isCancelled(token)) return;
+            deliver(token, path, copy, callback, true);
+        });
+    }
+
+    /**
+     * 取消正在进行的扫描，并丢弃所有尚未投递的分批结果。
+     */
+    synchronized void cancel() {
+        generation.incrementAndGet();
+        if (running != null) {
+            running.cancel(true);
+            running = null;
+        }
+    }
+
+    void shutdown() {
+        cancel();
+        worker.shutdownNow();
+        prefetchWorker.shutdownNow();
+    }
+
+    private boolean isCancelled(int token) {
+        return token != generation.get() || Thread.currentThread().isInterrupted();
+    }
+
+    private void scan(int token, String path, Comparator<FileEntry> comparator, Callback callback) {
+        ZipArchive.Location archive = ZipArchive.locate(path);
+        if (archive != null) {
+            scanArchive(token, path, archive, comparator, callback);
+            return;
+        }
+        if (!awaitPrefetch(path)) return;
+        boolean prefetched;
+        synchronized (unusedPrefetches) {
+            prefetched = unusedPrefetches.remove(path);
+        }
+
+        File dir = new File(path);
+        // 先取目录 mtime 再列目录，扫描期间发生的修改会让下次校验失败而不是被漏掉
+        long dirModified = dir.lastModified();
+
+        if (cache != null) {
+            DirectoryCache.Listing cached = cache.get(path, dirModified);
+            if (prefetched) {
+                (cached != null ? prefetchHits : prefetchWasted).incrementAndGet();
+            }
+            if (cached != null) {
+                sortAndDeliver(token, path, cached.entries, comparator, callback, true);
+                return;
+            }
+            DirectoryCache.Listing stale = cache.getStale(path);
+            if (stale != null) {
+                sortAndDeliver(token, path, stale.entries, comparator, callback, false);
+            }
+        }
+
+        String[] names = dir.list();
+        List<FileEntry> files = statAll(dir, names, () -> isCancelled(token));
+        if (files == null) return;
+        if (cache != null && names != null) {
+            cache.put(path, dirModified, files);
+        }
+        sortAndDeliver(token, path, files, comparator, callback, true);
+    }
+
+    // 压缩包内的目录只读中央目录，不经过目录缓存
+    private void scanArchive(int token, String path, ZipArchive.Location location,
+                             Comparator<FileEntry> comparator, Callback callback) {
+        List<FileEntry> files = null;
+        try {
+            files = ZipArchive.open(location.archive).list(location.entry);
+        } catch (IOException e) {
+            // 损坏的压缩包按空目录显示
+        }
+        if (isCancelled(token)) return;
+        sortAndDeliver(token, path, files != null ? files : new ArrayList<>(), comparator, callback, true);
+    }
+
+    /**
+     * stat names 中的每个条目，跳过失效的和不可读的目录；被取消时返回 null。
+     */
+    private static List<FileEntry> statAll(File dir, String[] names, BooleanSupplier cancelled) {
+        List<FileEntry> files = new ArrayList<>(names != null ? names.length : 0);
+        if (names != null) {
+            for (int i = 0; i < names.length; i++) {
+                if (i % CANCEL_CHECK_INTERVAL == 0 && cancelled.getAsBoolean()) return null;
+
+                FileEntry entry = FileEntry.stat(dir, names[i]);
+                if (entry == null) continue;
+                if (!entry.isDirectory || entry.readable) {
+                    files.add(entry);
+                }
+            }
+        }
+        return cancelled.getAsBoolean() ? null : files;
+    }
+
+    /**
+     * 加载前处理同一目录的预取：已经开始就等它写完缓存，还没开始就抢过来由加载线程自己扫描。
+     * 等待期间加载被取消时返回 false。
+     */
+    private boolean awaitPrefetch(String path) {
+        PrefetchTask task = prefetching.get(path);
+        if (task == null || task.claimed.compareAndSet(false, true)) return true;
+        Future<?> future;
+        synchronized (task) {
+            future = task.future;
+        }
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            return false;
+        } catch (ExecutionException | CancellationException e) {
+            // 预取失败不影响加载，照常扫描
+        }
+        return !Thread.currentThread().isInterrupted();
+    }
+
+    private void runPrefetch(String path, PrefetchTask task) {
+        try {
+            if (!task.claimed.compareAndSet(false, true)) return;
+            File dir = new File(path);
+            long dirModified = dir.lastModified();
+            if (dirModified == 0 || cache.isFresh(path, dirModified)) return;
+
+            String[] names = dir.list();
+            if (names == null) return;
+            List<FileEntry> files = statAll(dir, names, () -> Thread.currentThread().isInterrupted());
+            if (files == null) return;
+            cache.put(path, dirModified, files);
+            prefetchScans.incrementAndGet();
+            markUnused(path);
+        } finally {
+            prefetching.remove(path, task);
+        }
+    }
+
+    private void markUnused(String path) {
+        synchronized (unusedPrefetches) {
+            unusedPrefetches.remove(path);
+            unusedPrefetches.add(path);
+            Iterator<String> it = unusedPrefetches.iterator();
+            while (unusedPrefetches.size() > MAX_UNUSED_PREFETCHES && it.hasNext()) {
+                it.next();
+                it.remove();
+                prefetchWasted.incrementAndGet();
+            }
+        }
+    }
+
+    private void sortAndDeliver(int token, String path, List<FileEntry> entries,
+                                Comparator<FileEntry> comparator, Callback callback, boolean complete) {
+        List<FileEntry> files = entries;
+        if (comparator != null) {
+            files = new ArrayList<>(entries);
+            FileSorter.sort(files, comparator);
+        }
+        if (isCancelled(token)) return;
+        deliver(token, path, files, callback, complete);
+    }
+
+    private void deliver(int token, String path, List<FileEntry> files, Callback callback,
+                         boolean complete) {
+        final int total = files.size();
+        int start = 0;
+        do {
+            final int end = Math.min(start + chunkSize, total);
+            final List<FileEntry> chunk = Collections.unmodifiableList(files.subList(start, end));
+            final boolean first = start == 0;
+            // 每批单独投递，主线程在两批之间仍能处理输入和绘制
+            callbackExecutor.execute(() -> {
+                if (token == generation.get()) {
+                    callback.onChunk(path, chunk, first);
+                }
+            });
+            start = end;
+        } while (start < total);
+
+        if (!complete) return;
+        callbackExecutor.execute(() -> {
+            if (token == generation.get()) {
+                callback.onComplete(path, total);
+            }
+        });
+    }
+}
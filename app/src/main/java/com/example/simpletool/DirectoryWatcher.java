@@ -0,0 +1,180 @@
+package com.example.simpletool;
+
+import android.os.Build;
+import android.os.FileObserver;
+
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用 FileObserver 监听当前目录。事件经 {@link DirectoryChangeQueue} 防抖合并后，
+ * 在后台线程只重新读取有变化的条目，再把增量交给回调线程，不重新扫描整个目录。
+ */
+final class DirectoryWatcher {
+
+    interface Listener {
+        void onChanges(String dirPath, List<FileEntry> changed, List<String> removedNames);
+
+        /** 变化太多或目录本身被删除/移走，应重新加载。 */
+        void onRescanNeeded(String dirPath);
+    }
+
+    private static final long DEBOUNCE_MS = 150;
+    private static final long MAX_DELAY_MS = 1000;
+    private static final int MAX_PENDING = 2000;
+
+    private static final int MASK = FileObserver.CREATE | FileObserver.DELETE | FileObserver.MODIFY
+            | FileObserver.CLOSE_WRITE | FileObserver.ATTRIB | FileObserver.MOVED_FROM
+            | FileObserver.MOVED_TO | FileObserver.DELETE_SELF | FileObserver.MOVE_SELF;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            r -> new Thread(r, "DirectoryWatcher"));
+    private final Executor callbackExecutor;
+    private final Listener listener;
+
+    // 以下只在主线程访问
+    private FileObserver observer;
+    private String watchedPath;
+    private Session session;
+
+    DirectoryWatcher(Executor callbackExecutor, Listener listener) {
+        this.callbackExecutor = callbackExecutor;
+        this.listener = listener;
+    }
+
+    /**
+     * 开始监听 path，同时停止之前的目录。重复调用同一路径不做任何事。
+     */
+    void watch(String path) {
+        if (path.equals(watchedPath)) return;
+        stop();
+        watchedPath = path;
+        session = new Session(path);
+        observer = createObserver(new File(path), session);
+        observer.startWatching();
+    }
+
+    void stop() {
+        if (observer != null) {
+            observer.stopWatching();
+            observer = null;
+        }
+        if (session != null) {
+            session.close();
+            session = null;
+        }
+        watchedPath = null;
+    }
+
+    void shutdown() {
+        stop();
+        scheduler.shutdownNow();
+    }
+
+    @SuppressWarnings("deprecation")
+    private static FileObserver createObserver(File dir, Session session) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            return new FileObserver(dir, MASK) {
+                @Override
+                public void onEvent(int event, @Nullable String name) {
+                    session.onEvent(event, name);
+                }
+            };
+        }
+        return new FileObserver(dir.getPath(), MASK) {
+            @Override
+            public void onEvent(int event, @Nullable String name) {
+                session.onEvent(event, name);
+            }
+        };
+    }
+
+    /**
+     * 一次监听。事件在 FileObserver 线程进入队列，读取和投递在 scheduler 线程，
+     * 结束后迟到的结果不再投递。
+     */
+    private final class Session {
+        private final String path;
+        private final File dir;
+        private final DirectoryChangeQueue queue =
+                new DirectoryChangeQueue(DEBOUNCE_MS, MAX_DELAY_MS, MAX_PENDING);
+        private volatile boolean closed;
+        private ScheduledFuture<?> scheduled;
+
+        Session(String path) {
+            this.path = path;
+            this.dir = new File(path);
+        }
+
+        void onEvent(int event, String name) {
+            int type = event & FileObserver.ALL_EVENTS;
+            long now = System.currentTimeMillis();
+            if ((type & (FileObserver.DELETE_SELF | FileObserver.MOVE_SELF)) != 0) {
+                queue.offerDirectoryGone(now);
+            } else if (name == null || name.isEmpty()) {
+                return;
+            } else if ((type & (FileObserver.DELETE | FileObserver.MOVED_FROM)) != 0) {
+                queue.offer(DirectoryChangeQueue.KIND_REMOVED, name, now);
+            } else {
+                queue.offer(DirectoryChangeQueue.KIND_CHANGED, name, now);
+            }
+            schedule();
+        }
+
+        private synchronized void schedule() {
+            if (closed || (scheduled != null && !scheduled.isDone())) return;
+            long delay = Math.max(0, queue.nextDeadline() - System.currentTimeMillis());
+            scheduled = scheduler.schedule(this::flush, delay, TimeUnit.MILLISECONDS);
+        }
+
+        private void flush() {
+            if (closed) return;
+            DirectoryChangeQueue.Batch batch = queue.poll(System.currentTimeMillis());
+            if (batch != null) deliver(batch);
+            synchronized (this) {
+                scheduled = null;
+            }
+            // 防抖期间又有新事件，按新的截止时间再排一次
+            if (!queue.isEmpty()) schedule();
+        }
+
+        private void deliver(DirectoryChangeQueue.Batch batch) {
+            if (batch.rescan || batch.directoryGone) {
+                post(() -> listener.onRescanNeeded(path));
+                return;
+            }
+            List<FileEntry> changed = new ArrayList<>(batch.changed.size());
+            List<String> removed = new ArrayList<>(batch.removed);
+            for (String name : batch.changed) {
+                FileEntry entry = FileEntry.stat(dir, name);
+                if (entry == null) {
+                    // 新建后又很快删除，或不是普通文件
+                    removed.add(name);
+                } else if (!entry.isDirectory || entry.readable) {
+                    changed.add(entry);
+                }
+            }
+            if (changed.isEmpty() && removed.isEmpty()) return;
+            post(() -> listener.onChanges(path, changed, removed));
+        }
+
+        private void post(Runnable action) {
+            callbackExecutor.execute(() -> {
+                if (!closed) action.run();
+            });
+        }
+
+        void close() {
+            closed = true;
+            queue.clear();
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.example.simpletool;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 重复文件查找，逐级缩小候选范围：
+ * 1. 遍历目录树，按文件大小分组，大小唯一的文件直接排除；
+ * 2. 只读取每个候选文件开头和结尾各 64 KB 计算摘要，再次分组；
+ * 3. 剩下的候选通过内存映射读取全文计算摘要，摘要相同即视为重复。
+ * 第 2、3 步在传入的有界线程池上并行执行。{@link #find} 是阻塞调用，应在后台线程执行。
+ */
+final class DuplicateFinder {
+
+    interface ProgressListener {
+        /** 在调用 find 的线程上调用。 */
+        void onProgress(int stage, int done, int total);
+    }
+
+    static final int STAGE_SCAN = 0;
+    static final int STAGE_PARTIAL_HASH = 1;
+    static final int STAGE_FULL_HASH = 2;
+
+    static final class DuplicateGroup {
+        final long size;
+        /** 按路径排序。 */
+        final List<String> paths;
+
+        DuplicateGroup(long size, List<String> paths) {
+            this.size = size;
+            this.paths = paths;
+        }
+
+        /** 只保留一份时可以释放的空间。 */
+        long wastedBytes() {
+            return size * (paths.size() - 1);
+        }
+    }
+
+    static final int PARTIAL_BYTES = 64 * 1024;
+    // 分段映射，避免大文件一次占用过多地址空间
+    private static final long MAP_CHUNK_BYTES = 32L * 1024 * 1024;
+    private static final String DIGEST = "SHA-1";
+    private static final int MAX_DEPTH = 64;
+    private static final int SCAN_PROGRESS_INTERVAL = 1000;
+    private static final int HASH_PROGRESS_INTERVAL = 64;
+
+    // 每个哈希线程复用一块直接缓冲区读取首尾数据
+    private static final ThreadLocal<ByteBuffer> PARTIAL_BUFFER =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(PARTIAL_BYTES));
+
+    private final ExecutorService hashExecutor;
+    private final AtomicInteger partialHashed = new AtomicInteger();
+    private final AtomicInteger fullHashed = new AtomicInteger();
+    private final AtomicLong bytesRead = new AtomicLong();
+    private volatile boolean cancelled;
+
+    /**
+     * @param hashExecutor 计算摘要用的线程池，线程数决定了同时读取的文件数
+     */
+    DuplicateFinder(ExecutorService hashExecutor) {
+        this.hashExecutor = hashExecutor;
+    }
+
+    /**
+     * @return 按可释放空间从大到小排列的重复文件组；被取消时返回 null
+     */
+    List<DuplicateGroup> find(File root, ProgressListener listener) throws InterruptedException {
+        Map<Long, List<String>> bySize = scan(root, listener);
+        if (cancelled) return null;
+
+        List<DuplicateGroup> sameSize = new ArrayList<>();
+        for (Map.Entry<Long, List<String>> entry : bySize.entrySet()) {
+            if (entry.getValue().size() > 1) {
+                sameSize.add(new DuplicateGroup(entry.getKey(), entry.getValue()));
+            }
+        }
+
+        // 第 2 步：首尾摘要
+        List<DuplicateGroup> partial = regroup(sameSize, STAGE_PARTIAL_HASH, listener);
+        if (partial == null) return null;
+
+        // 首尾摘要已覆盖全文的小文件无需再读
+        List<DuplicateGroup> result = new ArrayList<>();
+        List<DuplicateGroup> needFull = new ArrayList<>();
+        for (DuplicateGroup group : partial) {
+            if (group.size <= 2L * PARTIAL_BYTES) {
+                result.add(group);
+            } else {
+                needFull.add(group);
+            }
+        }
+
+        // 第 3 步：全文摘要
+        List<DuplicateGroup> full = regroup(needFull, STAGE_FULL_HASH, listener);
+        if (full == null) return null;
+        result.addAll(full);
+
+        for (DuplicateGroup group : result) {
+            Collections.sort(group.paths);
+        }
+        Collections.sort(result, (a, b) -> Long.compare(b.wastedBytes(), a.wastedBytes()));
+        return result;
+    }
+
+    void cancel() {
+        cancelled = true;
+    }
+
+    int getPartialHashCount() {
+        return partialHashed.get();
+    }
+
+    int getFullHashCount() {
+        return fullHashed.get();
+    }
+
+    long getBytesRead() {
+        return bytesRead.get();
+    }
+
+    private Map<Long, List<String>> scan(File root, ProgressListener listener) {
+        Map<Long, List<String>> bySize = new HashMap<>();
+        int files = 0;
+        ArrayDeque<File> pending = new ArrayDeque<>();
+        ArrayDeque<Integer> depths = new ArrayDeque<>();
+        pending.push(root);
+        depths.push(0);
+        while (!pending.isEmpty() && !cancelled) {
+            File dir = pending.pop();
+            int depth = depths.pop();
+            String[] names = dir.list();
+            if (names == null) continue;
+            for (String name : names) {
+                FileEntry entry = FileEntry.stat(dir, name);
+                if (entry == null || !entry.readable) continue;
+                if (entry.isDirectory) {
+                    if (depth + 1 < MAX_DEPTH) {
+                        pending.push(new File(dir, name));
+                        depths.push(depth + 1);
+                    }
+                } else if (entry.size > 0) {
+                    // 空文件内容都相同，不算作重复
+                    bySize.computeIfAbsent(entry.size, k -> new ArrayList<>()).add(entry.getPath());
+                    if (++files % SCAN_PROGRESS_INTERVAL == 0 && listener != null) {
+                        listener.onProgress(STAGE_SCAN, files, 0);
+                    }
+                }
+            }
+        }
+        return bySize;
+    }
+
+    /**
+     * 对各组成员并行计算摘要，在组内按摘要细分，返回成员不少于两个的新组。
+     */
+    private List<DuplicateGroup> regroup(List<DuplicateGroup> groups, int stage,
+                                         ProgressListener listener) throws InterruptedException {
+        List<Future<byte[]>> futures = new ArrayList<>();
+        for (DuplicateGroup group : groups) {
+            for (String path : group.paths) {
+                Callable<byte[]> task = stage == STAGE_PARTIAL_HASH
+                        ? () -> cancelled ? null : partialHash(path)
+                        : () -> cancelled ? null : fullHash(path);
+                futures.add(hashExecutor.submit(task));
+            }
+        }
+
+        List<DuplicateGroup> result = new ArrayList<>();
+        int done = 0;
+        for (DuplicateGroup group : groups) {
+            Map<ByteBuffer, List<String>> byDigest = new HashMap<>();
+            for (String path : group.paths) {
+                byte[] digest;
+                try {
+                    digest = futures.get(done++).get();
+                } catch (ExecutionException e) {
+                    // 读取失败的文件不参与比较
+                    digest = null;
+                } catch (InterruptedException e) {
+                    cancel();
+                    for (Future<byte[]> future : futures) future.cancel(true);
+                    throw e;
+                }
+                if (digest != null) {
+                    byDigest.computeIfAbsent(ByteBuffer.wrap(digest), k -> new ArrayList<>()).add(path);
+                }
+                if (listener != null && (done % HASH_PROGRESS_INTERVAL == 0 || done == futures.size())) {
+                    listener.onProgress(stage, done, futures.size());
+                }
+            }
+            for (List<String> paths : byDigest.values()) {
+                if (paths.size() > 1) result.add(new DuplicateGroup(group.size, paths));
+            }
+        }
+        return cancelled ? null : result;
+    }
+
+    private byte[] partialHash(String path) throws IOException {
+        partialHashed.incrementAndGet();
+        MessageDigest digest = newDigest();
+        ByteBuffer buffer = PARTIAL_BUFFER.get();
+        try (RandomAccessFile file = new RandomAccessFile(path, "r");
+             FileChannel channel = file.getChannel()) {
+            long size = channel.size();
+            readInto(channel, buffer, 0, digest);
+            if (size > PARTIAL_BYTES) {
+                // 文件不足 128 KB 时尾段与头段相接，不重复读取
+                readInto(channel, buffer, Math.max(PARTIAL_BYTES, size - PARTIAL_BYTES), digest);
+            }
+        }
+        return digest.digest();
+    }
+
+    private void readInto(FileChannel channel, ByteBuffer buffer, long position, MessageDigest digest)
+            throws IOException {
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) break;
+        }
+        buffer.flip();
+        bytesRead.addAndGet(buffer.remaining());
+        digest.update(buffer);
+    }
+
+    private byte[] fullHash(String path) throws IOException {
+        fullHashed.incrementAndGet();
+        MessageDigest digest = newDigest();
+        try (RandomAccessFile file = new RandomAccessFile(path, "r");
+             FileChannel channel = file.getChannel()) {
+            long size = channel.size();
+            for (long position = 0; position < size && !cancelled; position += MAP_CHUNK_BYTES) {
+                long length = Math.min(MAP_CHUNK_BYTES, size - position);
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                digest.update(mapped);
+                bytesRead.addAndGet(length);
+            }
+        }
+        return digest.digest();
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
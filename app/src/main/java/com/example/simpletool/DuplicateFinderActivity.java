@@ -0,0 +1,210 @@
+package com.example.simpletool;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.text.format.Formatter;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 重复文件页：在选定目录下查找内容相同的文件并按组列出。
+ * 点击文件返回其路径；长按删除，走主界面同一套确认和删除逻辑。
+ */
+public class DuplicateFinderActivity extends AppCompatActivity {
+
+    static final String EXTRA_ROOT = "duplicates_root";
+    static final String EXTRA_FILES_DELETED = "files_deleted";
+
+    // 同时读取的文件数，闪存上更多的并发读并不会更快
+    private static final int HASH_THREADS = 3;
+
+    private final ExecutorService searchExecutor = Executors.newSingleThreadExecutor();
+    private final ExecutorService hashExecutor = Executors.newFixedThreadPool(HASH_THREADS);
+    private final DuplicateFinder finder = new DuplicateFinder(hashExecutor);
+
+    private final List<DuplicateFinder.DuplicateGroup> groups = new ArrayList<>();
+    private TextView tvStatus;
+    private RowAdapter adapter;
+    private String rootPath;
+    private boolean filesDeleted;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_duplicates);
+
+        tvStatus = findViewById(R.id.tv_duplicates_status);
+        RecyclerView rvRows = findViewById(R.id.rv_duplicates);
+        adapter = new RowAdapter();
+        rvRows.setLayoutManager(new LinearLayoutManager(this));
+        rvRows.setAdapter(adapter);
+
+        rootPath = getIntent().getStringExtra(EXTRA_ROOT);
+        if (rootPath == null) {
+            finish();
+            return;
+        }
+        startSearch();
+    }
+
+    private void startSearch() {
+        tvStatus.setText(rootPath + "\n正在扫描…");
+        File root = new File(rootPath);
+        searchExecutor.execute(() -> {
+            List<DuplicateFinder.DuplicateGroup> found;
+            try {
+                found = finder.find(root, (stage, done, total) ->
+                        runOnUiThread(() -> tvStatus.setText(rootPath + "\n" + stageText(stage, done, total))));
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (found == null) return;
+            runOnUiThread(() -> {
+                groups.clear();
+                groups.addAll(found);
+                showGroups();
+            });
+        });
+    }
+
+    private static String stageText(int stage, int done, int total) {
+        switch (stage) {
+            case DuplicateFinder.STAGE_SCAN:
+                return String.format(Locale.getDefault(), "正在扫描… 已发现 %d 个文件", done);
+            case DuplicateFinder.STAGE_PARTIAL_HASH:
+                return String.format(Locale.getDefault(), "正在比较首尾内容… %d/%d", done, total);
+            default:
+                return String.format(Locale.getDefault(), "正在比较完整内容… %d/%d", done, total);
+        }
+    }
+
+    private void showGroups() {
+        long wasted = 0;
+        List<Row> rows = new ArrayList<>();
+        for (DuplicateFinder.DuplicateGroup group : groups) {
+            wasted += group.wastedBytes();
+            rows.add(new Row(String.format(Locale.getDefault(), "%d 个相同文件，每个 %s",
+                    group.paths.size(), Formatter.formatShortFileSize(this, group.size)), null));
+            for (String path : group.paths) {
+                rows.add(new Row(new File(path).getName(), path));
+            }
+        }
+        tvStatus.setText(String.format(Locale.getDefault(), "%s\n%d 组重复文件，可释放 %s",
+                rootPath, groups.size(), Formatter.formatShortFileSize(this, wasted)));
+        adapter.setRows(rows);
+    }
+
+    private void onFileDeleted(String path) {
+        filesDeleted = true;
+        Intent data = new Intent();
+        data.putExtra(EXTRA_FILES_DELETED, true);
+        setResult(RESULT_OK, data);
+
+        // 只剩一个文件的组不再是重复
+        for (int i = 0; i < groups.size(); i++) {
+            DuplicateFinder.DuplicateGroup group = groups.get(i);
+            if (group.paths.remove(path)) {
+                if (group.paths.size() < 2) {
+                    groups.remove(i);
+                }
+                break;
+            }
+        }
+        showGroups();
+    }
+
+    private void returnResult(String path) {
+        Intent data = new Intent();
+        data.putExtra(SearchActivity.EXTRA_RESULT_PATH, path);
+        data.putExtra(EXTRA_FILES_DELETED, filesDeleted);
+        setResult(RESULT_OK, data);
+        finish();
+    }
+
+    @Override
+    protected void onDestroy() {
+        finder.cancel();
+        searchExecutor.shutdownNow();
+        hashExecutor.shutdownNow();
+        super.onDestroy();
+    }
+
+    private static class Row {
+        final String title;
+        /** 组标题行为 null。 */
+        final String path;
+
+        Row(String title, String path) {
+            this.title = title;
+            this.path = path;
+        }
+    }
+
+    private class RowAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+        private static final int TYPE_HEADER = 0;
+        private static final int TYPE_FILE = 1;
+
+        private List<Row> rows = new ArrayList<>();
+
+        void setRows(List<Row> rows) {
+            this.rows = rows;
+            notifyDataSetChanged();
+        }
+
+        @Override
+        public int getItemViewType(int position) {
+            return rows.get(position).path == null ? TYPE_HEADER : TYPE_FILE;
+        }
+
+        @NonNull
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            LayoutInflater inflater = LayoutInflater.from(parent.getContext());
+            if (viewType == TYPE_HEADER) {
+                View view = inflater.inflate(R.layout.item_section_header, parent, false);
+                return new RecyclerView.ViewHolder(view) {
+                };
+            }
+            return new SearchActivity.ResultHolder(
+                    inflater.inflate(R.layout.item_search_result, parent, false));
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
+            Row row = rows.get(position);
+            if (row.path == null) {
+                ((TextView) holder.itemView).setText(row.title);
+                return;
+            }
+            SearchActivity.ResultHolder rh = (SearchActivity.ResultHolder) holder;
+            rh.icon.setText(FileTypes.icon(FileTypes.byName(row.title)));
+            rh.name.setText(row.title);
+            rh.path.setText(row.path);
+            rh.itemView.setOnClickListener(v -> returnResult(row.path));
+            rh.itemView.setOnLongClickListener(v -> {
+                MainActivity.showDeleteDialog(DuplicateFinderActivity.this, new File(row.path),
+                        () -> onFileDeleted(row.path));
+                return true;
+            });
+        }
+
+        @Override
+        public int getItemCount() {
+            return rows.size();
+        }
+    }
+}
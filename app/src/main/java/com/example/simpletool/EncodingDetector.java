@@ -0,0 +1,238 @@
+package com.example.simpletool;
+
+import org.mozilla.universalchardet.UniversalDetector;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 检测小说文本的字符集，直接在 {@link NovelDocument} 映射好的字节上进行，不另外读文件。
+ * <p>
+ * 先看 BOM；没有 BOM 时从开头、中间和结尾各取一段固定大小的样本，用字节级状态机校验 UTF-8，
+ * 样本里有多字节序列且全部合法就是 UTF-8；否则把样本交给 juniversalchardet，判断不出、
+ * 或给出单字节编码而样本符合 GBK 的双字节结构时按 GBK。
+ * 读取的字节数与文件大小无关。
+ * <p>
+ * 结果按路径、文件大小和 mtime 缓存在内存里，同一个文件再次打开时不再检测。
+ * {@link PaginationCache} 也保存了字符集，应用重启后同样不需要检测。
+ */
+final class EncodingDetector {
+
+    static final Charset DEFAULT_CHARSET = Charset.forName("GBK");
+    static final int SAMPLE_BYTES = 16 * 1024;
+    // 中间和结尾的样本从这个范围内的第一个换行之后开始，避开被截断的字符
+    private static final int ALIGN_WINDOW = 1024;
+    private static final int CACHE_ENTRIES = 32;
+
+    private static final Map<String, Charset> VERDICTS =
+            new LinkedHashMap<String, Charset>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Charset> eldest) {
+                    return size() > CACHE_ENTRIES;
+                }
+            };
+
+    private EncodingDetector() {
+    }
+
+    /**
+     * path 的字符集，bytes 为它的全部内容。内存里有同一文件的结果时直接返回。
+     */
+    static Charset detect(String path, ByteBuffer bytes) {
+        String key = stampKey(path);
+        synchronized (VERDICTS) {
+            Charset known = VERDICTS.get(key);
+            if (known != null) return known;
+        }
+        Charset charset = detect(bytes);
+        synchronized (VERDICTS) {
+            VERDICTS.put(key, charset);
+        }
+        return charset;
+    }
+
+    static Charset detect(ByteBuffer bytes) {
+        Charset bom = bomCharset(bytes);
+        if (bom != null) return bom;
+
+        int[][] samples = samples(bytes);
+        boolean valid = true;
+        int multiByte = 0;
+        for (int[] sample : samples) {
+            int count = countUtf8Sequences(bytes, sample[0], sample[1]);
+            if (count < 0) {
+                valid = false;
+                break;
+            }
+            multiByte += count;
+        }
+        if (valid && multiByte > 0) return StandardCharsets.UTF_8;
+
+        UniversalDetector detector = new UniversalDetector(null);
+        byte[] buffer = new byte[SAMPLE_BYTES];
+        // 小文件整个作为一段样本，可能大于 buffer，按 SAMPLE_BYTES 分块交给 chardet
+        ByteBuffer in = bytes.duplicate();
+        for (int[] sample : samples) {
+            for (int from = sample[0]; from < sample[1] && !detector.isDone(); from += SAMPLE_BYTES) {
+                int length = Math.min(SAMPLE_BYTES, sample[1] - from);
+                in.limit(from + length).position(from);
+                in.get(buffer, 0, length);
+                detector.handleData(buffer, 0, length);
+            }
+            if (detector.isDone()) break;
+        }
+        detector.dataEnd();
+        Charset detected = toCharset(detector.getDetectedCharset());
+        // chardet 对重复较多的中文常给出 KOI8-R 之类的单字节编码，样本符合 GBK 的双字节结构时仍按 GBK
+        if (isSingleByte(detected) && isGbk(bytes, samples)) return DEFAULT_CHARSET;
+        return detected;
+    }
+
+    /** BOM 对应的字符集，没有 BOM 返回 null。 */
+    static Charset bomCharset(ByteBuffer bytes) {
+        int size = bytes.capacity();
+        int b0 = size > 0 ? bytes.get(0) & 0xFF : -1;
+        int b1 = size > 1 ? bytes.get(1) & 0xFF : -1;
+        int b2 = size > 2 ? bytes.get(2) & 0xFF : -1;
+        if (b0 == 0xEF && b1 == 0xBB && b2 == 0xBF) return StandardCharsets.UTF_8;
+        if (b0 == 0xFF && b1 == 0xFE) return StandardCharsets.UTF_16LE;
+        if (b0 == 0xFE && b1 == 0xFF) return StandardCharsets.UTF_16BE;
+        return null;
+    }
+
+    /**
+     * 校验 [from, to) 是否为合法 UTF-8，返回其中多字节序列的个数，不合法返回 -1。
+     * 样本末尾被截断的序列不算错。
+     */
+    static int countUtf8Sequences(ByteBuffer bytes, int from, int to) {
+        int sequences = 0;
+        int i = from;
+        while (i < to) {
+            int c = bytes.get(i) & 0xFF;
+            if (c < 0x80) {
+                i++;
+                continue;
+            }
+            int trailing;
+            if (c >= 0xC2 && c <= 0xDF) {
+                trailing = 1;
+            } else if (c >= 0xE0 && c <= 0xEF) {
+                trailing = 2;
+            } else if (c >= 0xF0 && c <= 0xF4) {
+                trailing = 3;
+            } else {
+                // 单独的后续字节、C0/C1 过长编码、超出 U+10FFFF 的首字节
+                return -1;
+            }
+            if (i + trailing >= to) break;
+            int c1 = bytes.get(i + 1) & 0xFF;
+            // 排除过长编码、代理区和超出范围的码点
+            if ((c == 0xE0 && c1 < 0xA0) || (c == 0xED && c1 > 0x9F)
+                    || (c == 0xF0 && c1 < 0x90) || (c == 0xF4 && c1 > 0x8F)) {
+                return -1;
+            }
+            for (int k = 1; k <= trailing; k++) {
+                if ((bytes.get(i + k) & 0xC0) != 0x80) return -1;
+            }
+            sequences++;
+            i += trailing + 1;
+        }
+        return sequences;
+    }
+
+    /**
+     * 校验 [from, to) 是否符合 GBK/GB18030 的字节结构，返回其中双字节和四字节字符的个数，不合法返回 -1。
+     * 样本末尾被截断的字符不算错。
+     */
+    static int countGbkSequences(ByteBuffer bytes, int from, int to) {
+        int sequences = 0;
+        int i = from;
+        while (i < to) {
+            int c = bytes.get(i) & 0xFF;
+            if (c < 0x80) {
+                i++;
+                continue;
+            }
+            if (c == 0x80 || c == 0xFF) return -1;
+            if (i + 1 >= to) break;
+            int c1 = bytes.get(i + 1) & 0xFF;
+            if (c1 >= 0x30 && c1 <= 0x39) {
+                // GB18030 四字节：首字节、数字、首字节、数字
+                if (i + 3 >= to) break;
+                int c2 = bytes.get(i + 2) & 0xFF;
+                int c3 = bytes.get(i + 3) & 0xFF;
+                if (c2 < 0x81 || c2 > 0xFE || c3 < 0x30 || c3 > 0x39) return -1;
+                i += 4;
+            } else if (c1 >= 0x40 && c1 <= 0xFE && c1 != 0x7F) {
+                i += 2;
+            } else {
+                return -1;
+            }
+            sequences++;
+        }
+        return sequences;
+    }
+
+    /** chardet 给出的名字对应的字符集，认不出或 Java 不支持时按 GBK。 */
+    static Charset toCharset(String name) {
+        if (name == null) return DEFAULT_CHARSET;
+        try {
+            return Charset.forName(name);
+        } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+            return DEFAULT_CHARSET;
+        }
+    }
+
+    private static boolean isSingleByte(Charset charset) {
+        return charset.canEncode() && charset.newEncoder().maxBytesPerChar() <= 1f;
+    }
+
+    private static boolean isGbk(ByteBuffer bytes, int[][] samples) {
+        int sequences = 0;
+        for (int[] sample : samples) {
+            int count = countGbkSequences(bytes, sample[0], sample[1]);
+            if (count < 0) return false;
+            sequences += count;
+        }
+        return sequences > 0;
+    }
+
+    // 开头、中间、结尾三段样本，文件不大时就是整个文件
+    static int[][] samples(ByteBuffer bytes) {
+        int size = bytes.capacity();
+        if (size <= SAMPLE_BYTES * 3) {
+            return new int[][]{{0, size}};
+        }
+        int middle = size / 2 - SAMPLE_BYTES / 2;
+        int tail = size - SAMPLE_BYTES;
+        return new int[][]{
+                {0, SAMPLE_BYTES},
+                {align(bytes, middle), middle + SAMPLE_BYTES},
+                {align(bytes, tail), size},
+        };
+    }
+
+    // 从换行之后开始（GBK 的第二个字节不会是换行）；附近没有换行时跳过 UTF-8 的后续字节
+    private static int align(ByteBuffer bytes, int start) {
+        for (int i = start; i < start + ALIGN_WINDOW; i++) {
+            if (bytes.get(i) == '\n') return i + 1;
+        }
+        int i = start;
+        while (i < start + 3 && (bytes.get(i) & 0xC0) == 0x80) {
+            i++;
+        }
+        return i;
+    }
+
+    private static String stampKey(String path) {
+        ZipArchive.Location location = ZipArchive.locate(path);
+        File source = location == null ? new File(path) : location.archive;
+        return path + '\n' + source.length() + '\n' + source.lastModified();
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.simpletool;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * 目录扫描时一次性采集的文件元数据快照，之后的排序和显示都不再访问文件系统。
+ */
+final class FileEntry {
+
+    // java.nio.file 在 API 26 以下不可用，此时退回 File 的逐项查询
+    static final boolean NIO_AVAILABLE = hasNio();
+
+    final String parentPath;
+    final String name;
+    final boolean isDirectory;
+    final boolean readable;
+    final long size;
+    final long lastModified;
+
+    FileEntry(String parentPath, String name, boolean isDirectory, boolean readable,
+              long size, long lastModified) {
+        this.parentPath = parentPath;
+        this.name = name;
+        this.isDirectory = isDirectory;
+        this.readable = readable;
+        this.size = size;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * 读取 dir 下 name 的元数据；既不是目录也不是普通文件（或已失效）时返回 null。
+     */
+    static FileEntry stat(File dir, String name) {
+        File file = new File(dir, name);
+        String parentPath = dir.getPath();
+
+        if (NIO_AVAILABLE) {
+            try {
+                BasicFileAttributes attrs = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+                if (!attrs.isDirectory() && !attrs.isRegularFile()) return null;
+                return new FileEntry(parentPath, name, attrs.isDirectory(), file.canRead(),
+                        attrs.size(), attrs.lastModifiedTime().toMillis());
+            } catch (IOException | SecurityException e) {
+                return null;
+            }
+        }
+
+        boolean isDirectory = file.isDirectory();
+        if (!isDirectory && !file.isFile()) return null;
+        return new FileEntry(parentPath, name, isDirectory, file.canRead(),
+                file.length(), file.lastModified());
+    }
+
+    /**
+     * 返回只替换大小的副本，用于填入递归计算出的文件夹大小。
+     */
+    FileEntry withSize(long newSize) {
+        return new FileEntry(parentPath, name, isDirectory, readable, newSize, lastModified);
+    }
+
+    String getPath() {
+        return parentPath.endsWith(File.separator)
+                ? parentPath + name
+                : parentPath + File.separatorChar + name;
+    }
+
+    File toFile() {
+        return new File(parentPath, name);
+    }
+
+    private static boolean hasNio() {
+        try {
+            Class.forName("java.nio.file.Files");
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+}
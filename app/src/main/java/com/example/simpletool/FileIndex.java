@@ -0,0 +1,403 @@
+package com.example.simpletool;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 文件名索引。每个文件/目录用一个整数 ID 表示，所有数据都放在基本类型数组里：
+ * 名称拼接在一个 char 数组中，父目录、子节点范围、mtime 各占一列。
+ * 同一目录的子节点 ID 连续，便于增量刷新时整段复用。
+ * 前缀查询使用按小写名称排序的 ID 数组二分查找，子串查询线性扫描小写名称池。
+ */
+final class FileIndex {
+
+    private static final int MAGIC = 0x46494458; // "FIDX"
+    private static final int VERSION = 1;
+    // 每项在文件中占用的字节：flags + parent、firstChild、childCount、modified、sortedByName
+    private static final int RECORD_BYTES = 1 + 4 + 4 + 4 + 8 + 4;
+
+    private static final byte FLAG_DIRECTORY = 1;
+
+    final int size;
+    private final int[] parent;
+    private final int[] nameOffset;   // size + 1 项，名称 i 为 [nameOffset[i], nameOffset[i + 1])
+    private final char[] names;
+    private final char[] lowerNames;
+    private final byte[] flags;
+    private final int[] firstChild;
+    private final int[] childCount;
+    private final long[] modified;    // 仅目录有意义
+    private final int[] sortedByName;
+
+    private FileIndex(int[] parent, int[] nameOffset, char[] names, byte[] flags,
+                      int[] firstChild, int[] childCount, long[] modified, int[] sortedByName) {
+        this.size = parent.length;
+        this.parent = parent;
+        this.nameOffset = nameOffset;
+        this.names = names;
+        this.lowerNames = toLower(names);
+        this.flags = flags;
+        this.firstChild = firstChild;
+        this.childCount = childCount;
+        this.modified = modified;
+        this.sortedByName = sortedByName != null ? sortedByName : sortByName();
+    }
+
+    /**
+     * 索引构建过程中的临时树节点，目录的 children 为 null 表示不可读。
+     */
+    static final class Node {
+        final String name;
+        final boolean isDirectory;
+        final long modified;
+        final List<Node> children;
+
+        Node(String name, boolean isDirectory, long modified, List<Node> children) {
+            this.name = name;
+            this.isDirectory = isDirectory;
+            this.modified = modified;
+            this.children = children;
+        }
+    }
+
+    /**
+     * 把若干棵根目录树按层序展开成数组，根节点的名称为其完整路径。
+     */
+    static FileIndex fromTrees(List<Node> roots) {
+        List<Node> order = new ArrayList<>(roots);
+        int totalChars = 0;
+        // 层序遍历：处理到某个目录时，它的子节点整体追加到末尾，ID 自然连续
+        for (int i = 0; i < order.size(); i++) {
+            Node node = order.get(i);
+            totalChars += node.name.length();
+            if (node.children != null) {
+                order.addAll(node.children);
+            }
+        }
+
+        int n = order.size();
+        int[] parent = new int[n];
+        int[] nameOffset = new int[n + 1];
+        char[] names = new char[totalChars];
+        byte[] flags = new byte[n];
+        int[] firstChild = new int[n];
+        int[] childCount = new int[n];
+        long[] modified = new long[n];
+
+        for (int i = 0; i < roots.size(); i++) {
+            parent[i] = -1;
+        }
+        int next = roots.size();
+        int offset = 0;
+        for (int i = 0; i < n; i++) {
+            Node node = order.get(i);
+            nameOffset[i] = offset;
+            node.name.getChars(0, node.name.length(), names, offset);
+            offset += node.name.length();
+            flags[i] = node.isDirectory ? FLAG_DIRECTORY : 0;
+            modified[i] = node.modified;
+            firstChild[i] = next;
+            int count = node.children != null ? node.children.size() : 0;
+            childCount[i] = count;
+            for (int c = 0; c < count; c++) {
+                parent[next + c] = i;
+            }
+            next += count;
+        }
+        nameOffset[n] = offset;
+        return new FileIndex(parent, nameOffset, names, flags, firstChild, childCount, modified, null);
+    }
+
+    // ---- 访问 ----
+
+    String name(int id) {
+        return new String(names, nameOffset[id], nameOffset[id + 1] - nameOffset[id]);
+    }
+
+    boolean isDirectory(int id) {
+        return (flags[id] & FLAG_DIRECTORY) != 0;
+    }
+
+    long modified(int id) {
+        return modified[id];
+    }
+
+    int parent(int id) {
+        return parent[id];
+    }
+
+    int firstChild(int id) {
+        return firstChild[id];
+    }
+
+    int childCount(int id) {
+        return childCount[id];
+    }
+
+    int rootCount() {
+        int count = 0;
+        while (count < size && parent[count] == -1) count++;
+        return count;
+    }
+
+    String path(int id) {
+        int depth = 0;
+        int length = 0;
+        for (int p = id; p != -1; p = parent[p]) {
+            depth++;
+            length += nameOffset[p + 1] - nameOffset[p] + 1;
+        }
+        int[] chain = new int[depth];
+        int d = depth;
+        for (int p = id; p != -1; p = parent[p]) {
+            chain[--d] = p;
+        }
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < depth; i++) {
+            if (i > 0 && sb.charAt(sb.length() - 1) != File.separatorChar) {
+                sb.append(File.separatorChar);
+            }
+            int p = chain[i];
+            sb.append(names, nameOffset[p], nameOffset[p + 1] - nameOffset[p]);
+        }
+        return sb.toString();
+    }
+
+    // ---- 查询 ----
+
+    /**
+     * 名称以 query 开头（忽略大小写）的条目，按名称排序。
+     */
+    int[] searchPrefix(String query, int limit) {
+        char[] q = toLower(query.toCharArray());
+        if (q.length == 0) return new int[0];
+
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compareToQuery(sortedByName[mid], q) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+
+        int[] result = new int[Math.min(limit, size - lo)];
+        int count = 0;
+        for (int i = lo; i < size && count < result.length; i++) {
+            int id = sortedByName[i];
+            if (!startsWith(id, q)) break;
+            result[count++] = id;
+        }
+        return trim(result, count);
+    }
+
+    /**
+     * 名称包含 query（忽略大小写）的条目；前缀匹配排在前面。
+     */
+    int[] search(String query, int limit) {
+        char[] q = toLower(query.toCharArray());
+        if (q.length == 0) return new int[0];
+
+        int[] prefix = searchPrefix(query, limit);
+        int[] result = new int[limit];
+        System.arraycopy(prefix, 0, result, 0, prefix.length);
+        int count = prefix.length;
+
+        // 整个小写名称池一次线性扫描，命中后按偏移量定位条目并跳到下一个名称
+        char first = q[0];
+        int pos = 0;
+        int end = lowerNames.length - q.length;
+        while (pos <= end && count < limit) {
+            if (lowerNames[pos] != first || !regionMatches(pos, q)) {
+                pos++;
+                continue;
+            }
+            int id = idAtOffset(pos);
+            int nameEnd = nameOffset[id + 1];
+            if (pos + q.length > nameEnd) {
+                // 匹配跨越了两个名称的边界
+                pos++;
+                continue;
+            }
+            // 前缀匹配已经由 searchPrefix 给出
+            if (pos != nameOffset[id]) {
+                result[count++] = id;
+            }
+            pos = nameEnd;
+        }
+        return trim(result, count);
+    }
+
+    // 名称池偏移量所属的条目 ID（nameOffset 单调不减，空名称只出现在根以外的异常情况）
+    private int idAtOffset(int pos) {
+        int lo = 0;
+        int hi = size - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (nameOffset[mid] <= pos) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+    private boolean startsWith(int id, char[] q) {
+        int start = nameOffset[id];
+        return nameOffset[id + 1] - start >= q.length && regionMatches(start, q);
+    }
+
+    private boolean regionMatches(int pos, char[] q) {
+        for (int i = 1; i < q.length; i++) {
+            if (lowerNames[pos + i] != q[i]) return false;
+        }
+        return lowerNames[pos] == q[0];
+    }
+
+    private int compareToQuery(int id, char[] q) {
+        int start = nameOffset[id];
+        int len = Math.min(nameOffset[id + 1] - start, q.length);
+        for (int i = 0; i < len; i++) {
+            int diff = lowerNames[start + i] - q[i];
+            if (diff != 0) return diff;
+        }
+        return (nameOffset[id + 1] - start) < q.length ? -1 : 0;
+    }
+
+    private int compareNames(int a, int b) {
+        int sa = nameOffset[a];
+        int sb = nameOffset[b];
+        int la = nameOffset[a + 1] - sa;
+        int lb = nameOffset[b + 1] - sb;
+        int len = Math.min(la, lb);
+        for (int i = 0; i < len; i++) {
+            int diff = lowerNames[sa + i] - lowerNames[sb + i];
+            if (diff != 0) return diff;
+        }
+        return la - lb;
+    }
+
+    private static int[] trim(int[] array, int count) {
+        if (count == array.length) return array;
+        int[] copy = new int[count];
+        System.arraycopy(array, 0, copy, 0, count);
+        return copy;
+    }
+
+    private static char[] toLower(char[] chars) {
+        char[] lower = new char[chars.length];
+        for (int i = 0; i < chars.length; i++) {
+            lower[i] = Character.toLowerCase(chars[i]);
+        }
+        return lower;
+    }
+
+    // 在 int 数组上做归并排序，避免一百万个 Integer 装箱
+    private int[] sortByName() {
+        int[] ids = new int[size];
+        for (int i = 0; i < size; i++) ids[i] = i;
+        int[] buffer = new int[size];
+        for (int width = 1; width < size; width <<= 1) {
+            for (int lo = 0; lo < size - width; lo += width << 1) {
+                int mid = lo + width;
+                int hi = Math.min(lo + (width << 1), size);
+                int i = lo;
+                int j = mid;
+                int k = lo;
+                while (i < mid && j < hi) {
+                    buffer[k++] = compareNames(ids[i], ids[j]) <= 0 ? ids[i++] : ids[j++];
+                }
+                while (i < mid) buffer[k++] = ids[i++];
+                while (j < hi) buffer[k++] = ids[j++];
+                System.arraycopy(buffer, lo, ids, lo, hi - lo);
+            }
+        }
+        return ids;
+    }
+
+    // ---- 持久化 ----
+
+    void save(File file) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(temp), 64 * 1024))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(size);
+            // 名称池按 UTF-16 原样写出，保证偏移量在读回后依然有效
+            ByteBuffer nameBytes = ByteBuffer.allocate(names.length * 2);
+            nameBytes.asCharBuffer().put(names);
+            out.writeInt(names.length);
+            out.write(nameBytes.array());
+            for (int i = 0; i <= size; i++) out.writeInt(nameOffset[i]);
+            out.write(flags);
+            for (int i = 0; i < size; i++) {
+                out.writeInt(parent[i]);
+                out.writeInt(firstChild[i]);
+                out.writeInt(childCount[i]);
+                out.writeLong(modified[i]);
+                out.writeInt(sortedByName[i]);
+            }
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("无法写入索引文件 " + file);
+        }
+    }
+
+    static FileIndex load(File file) throws IOException {
+        long fileLength = file.length();
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file), 64 * 1024))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("索引文件版本不匹配");
+            }
+            int n = in.readInt();
+            int nameLength = in.readInt();
+            // 分配数组前先核对头部与文件长度，损坏的头部不能导致超大分配
+            if (n < 0 || nameLength < 0
+                    || 16 + 2L * nameLength + 4L * (n + 1) + (long) n * RECORD_BYTES != fileLength) {
+                throw new IOException("索引文件损坏");
+            }
+            char[] names = new char[nameLength];
+            byte[] nameBytes = new byte[names.length * 2];
+            in.readFully(nameBytes);
+            ByteBuffer.wrap(nameBytes).asCharBuffer().get(names);
+            int[] nameOffset = new int[n + 1];
+            for (int i = 0; i <= n; i++) {
+                nameOffset[i] = in.readInt();
+                if (nameOffset[i] < (i == 0 ? 0 : nameOffset[i - 1]) || nameOffset[i] > nameLength) {
+                    throw new IOException("索引文件损坏");
+                }
+            }
+            byte[] flags = new byte[n];
+            in.readFully(flags);
+            int[] parent = new int[n];
+            int[] firstChild = new int[n];
+            int[] childCount = new int[n];
+            long[] modified = new long[n];
+            int[] sortedByName = new int[n];
+            for (int i = 0; i < n; i++) {
+                parent[i] = in.readInt();
+                firstChild[i] = in.readInt();
+                childCount[i] = in.readInt();
+                modified[i] = in.readLong();
+                sortedByName[i] = in.readInt();
+            }
+            return new FileIndex(parent, nameOffset, names, flags, firstChild, childCount,
+                    modified, sortedByName);
+        }
+    }
+}
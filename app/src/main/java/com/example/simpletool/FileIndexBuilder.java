@@ -0,0 +1,144 @@
+package com.example.simpletool;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 用 ForkJoinPool 并行遍历存储根目录构建 {@link FileIndex}。
+ * 传入旧索引时做增量刷新：目录 mtime 未变说明它的直接子项没有增删，
+ * 直接复用旧索引中的子项，不再 list 和逐个 stat，只继续检查各子目录。
+ */
+final class FileIndexBuilder {
+
+    // 目录层级上限，与 RecursiveDeleter 一致
+    private static final int MAX_DEPTH = 64;
+
+    private final ForkJoinPool pool;
+    private final AtomicInteger listedDirs = new AtomicInteger();
+    private final AtomicInteger reusedDirs = new AtomicInteger();
+
+    FileIndexBuilder(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * @param roots 根目录，名称以完整路径保存
+     * @param old   上一次的索引，可为 null
+     * @return 新索引
+     */
+    FileIndex build(List<File> roots, FileIndex old) {
+        Map<String, Integer> oldRoots = new HashMap<>();
+        if (old != null) {
+            for (int id = 0; id < old.rootCount(); id++) {
+                oldRoots.put(old.name(id), id);
+            }
+        }
+
+        List<WalkTask> tasks = new ArrayList<>();
+        for (File root : roots) {
+            Integer oldId = oldRoots.get(root.getAbsolutePath());
+            tasks.add(new WalkTask(root, root.getAbsolutePath(), old, oldId != null ? oldId : -1, 0));
+        }
+
+        List<FileIndex.Node> nodes = new ArrayList<>();
+        for (WalkTask task : tasks) {
+            FileIndex.Node node = pool.invoke(task);
+            if (node != null) nodes.add(node);
+        }
+        return FileIndex.fromTrees(nodes);
+    }
+
+    int getListedDirCount() {
+        return listedDirs.get();
+    }
+
+    int getReusedDirCount() {
+        return reusedDirs.get();
+    }
+
+    private final class WalkTask extends RecursiveTask<FileIndex.Node> {
+        private final File dir;
+        private final String name;
+        private final FileIndex old;
+        private final int oldId;
+        private final int depth;
+
+        WalkTask(File dir, String name, FileIndex old, int oldId, int depth) {
+            this.dir = dir;
+            this.name = name;
+            this.old = old;
+            this.oldId = oldId;
+            this.depth = depth;
+        }
+
+        @Override
+        protected FileIndex.Node compute() {
+            long modified = dir.lastModified();
+            if (modified == 0 && !dir.exists()) return null;
+
+            List<FileIndex.Node> children = new ArrayList<>();
+            List<WalkTask> subtasks = new ArrayList<>();
+
+            if (old != null && oldId >= 0 && old.modified(oldId) == modified) {
+                reusedDirs.incrementAndGet();
+                int first = old.firstChild(oldId);
+                int count = old.childCount(oldId);
+                for (int c = first; c < first + count; c++) {
+                    String childName = old.name(c);
+                    if (old.isDirectory(c)) {
+                        addSubtask(subtasks, childName, c);
+                    } else {
+                        children.add(new FileIndex.Node(childName, false, 0, null));
+                    }
+                }
+            } else {
+                listedDirs.incrementAndGet();
+                String[] names = dir.list();
+                if (names == null) {
+                    return new FileIndex.Node(name, true, modified, null);
+                }
+                Map<String, Integer> oldDirs = oldChildDirs();
+                for (String childName : names) {
+                    // 指向目录的符号链接当作普通项收录，不进入，避免成环和重复索引
+                    if (RecursiveDeleter.isRealDirectory(new File(dir, childName))) {
+                        Integer childOldId = oldDirs.get(childName);
+                        addSubtask(subtasks, childName, childOldId != null ? childOldId : -1);
+                    } else {
+                        children.add(new FileIndex.Node(childName, false, 0, null));
+                    }
+                }
+            }
+
+            invokeAll(subtasks);
+            for (WalkTask task : subtasks) {
+                FileIndex.Node child = task.join();
+                if (child != null) children.add(child);
+            }
+            return new FileIndex.Node(name, true, modified, children);
+        }
+
+        private void addSubtask(List<WalkTask> subtasks, String childName, int childOldId) {
+            if (depth + 1 >= MAX_DEPTH) return;
+            subtasks.add(new WalkTask(new File(dir, childName), childName, old, childOldId, depth + 1));
+        }
+
+        private Map<String, Integer> oldChildDirs() {
+            if (old == null || oldId < 0) return Collections.emptyMap();
+            Map<String, Integer> map = new HashMap<>();
+            int first = old.firstChild(oldId);
+            for (int c = first; c < first + old.childCount(oldId); c++) {
+                if (old.isDirectory(c)) {
+                    map.put(old.name(c), c);
+                }
+            }
+            return map;
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package com.example.simpletool;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 复制/移动任务队列。任务在单个后台线程上依次执行，进度和结果投递到回调线程。
+ * <ul>
+ * <li>移动先尝试 rename，同一存储卷上只改目录项，不搬数据；</li>
+ * <li>同卷复制用 FileChannel.transferTo，由内核直接在文件间拷贝；</li>
+ * <li>跨卷复制（内部存储与 SD 卡之间）用一块复用的直接缓冲区读写。</li>
+ * </ul>
+ */
+final class FileOperationQueue {
+
+    interface Listener {
+        void onProgress(Job job, long doneBytes, long totalBytes, long bytesPerSecond);
+
+        /** 任务结束（完成、失败或取消）后调用一次。 */
+        void onFinished(Job job);
+    }
+
+    static final class Job {
+        final boolean move;
+        final List<File> sources;
+        final File targetDir;
+
+        private volatile boolean cancelled;
+        // 以下只在工作线程写入，onFinished 之后读取
+        volatile int failedCount;
+        volatile long doneBytes;
+        volatile long totalBytes;
+        volatile int renamedCount;
+
+        Job(boolean move, List<File> sources, File targetDir) {
+            this.move = move;
+            this.sources = Collections.unmodifiableList(new ArrayList<>(sources));
+            this.targetDir = targetDir;
+        }
+
+        void cancel() {
+            cancelled = true;
+        }
+
+        boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    static final int BUFFER_SIZE = 4 * 1024 * 1024;
+    // 每次 transferTo 的上限，便于在大文件中途检查取消和汇报进度
+    private static final long TRANSFER_CHUNK = 16L * 1024 * 1024;
+    private static final long PROGRESS_INTERVAL_NANOS = 200_000_000L;
+    private static final int MAX_DEPTH = 64;
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(
+            r -> new Thread(r, "FileOperationQueue"));
+    private final Executor callbackExecutor;
+    private final Listener listener;
+    private final long progressIntervalNanos;
+    private volatile List<File> volumeRoots = Collections.emptyList();
+    private volatile Job currentJob;
+
+    // 只在工作线程使用
+    private ByteBuffer buffer;
+    private long jobStartNanos;
+    private long lastEmitNanos;
+
+    FileOperationQueue(Executor callbackExecutor, Listener listener) {
+        this(callbackExecutor, listener, PROGRESS_INTERVAL_NANOS);
+    }
+
+    FileOperationQueue(Executor callbackExecutor, Listener listener, long progressIntervalNanos) {
+        this.callbackExecutor = callbackExecutor;
+        this.listener = listener;
+        this.progressIntervalNanos = progressIntervalNanos;
+    }
+
+    /**
+     * 设置各存储卷的根目录，用于判断源和目标是否在同一卷上。
+     */
+    void setVolumeRoots(List<File> roots) {
+        List<File> copy = new ArrayList<>();
+        for (File root : roots) {
+            if (root != null) copy.add(root);
+        }
+        volumeRoots = copy;
+    }
+
+    Job enqueue(boolean move, List<File> sources, File targetDir) {
+        Job job = new Job(move, sources, targetDir);
+        worker.execute(() -> run(job));
+        return job;
+    }
+
+    /** 正在执行的任务，没有时返回 null。 */
+    Job getCurrentJob() {
+        return currentJob;
+    }
+
+    void shutdown() {
+        Job job = currentJob;
+        if (job != null) job.cancel();
+        worker.shutdownNow();
+    }
+
+    private void run(Job job) {
+        currentJob = job;
+        try {
+            if (!job.isCancelled()) execute(job);
+        } finally {
+            currentJob = null;
+            callbackExecutor.execute(() -> listener.onFinished(job));
+        }
+    }
+
+    private void execute(Job job) {
+        jobStartNanos = System.nanoTime();
+        lastEmitNanos = jobStartNanos;
+
+        List<File> pending = new ArrayList<>();
+        for (File source : job.sources) {
+            if (isSameOrAncestor(source, job.targetDir)) {
+                // 不能把目录复制或移动到它自己里面
+                job.failedCount++;
+                continue;
+            }
+            if (job.move) {
+                // 移动到原来的目录什么也不用做
+                if (job.targetDir.equals(source.getParentFile())) continue;
+                if (source.renameTo(uniqueTarget(job.targetDir, source.getName()))) {
+                    job.renamedCount++;
+                    continue;
+                }
+            }
+            pending.add(source);
+        }
+
+        long total = 0;
+        for (File source : pending) {
+            total += measure(source, 0);
+        }
+        job.totalBytes = total;
+
+        for (File source : pending) {
+            if (job.isCancelled()) return;
+            File target = uniqueTarget(job.targetDir, source.getName());
+            boolean ok = copy(job, source, target, 0);
+            if (!ok) {
+                // 取消或失败时删掉已建的目录和已复制的文件，源保持不动
+                deleteTree(target, 0);
+            } else if (job.move) {
+                ok = deleteTree(source, 0);
+            }
+            if (!ok && !job.isCancelled()) job.failedCount++;
+        }
+        emitProgress(job, true);
+    }
+
+    private boolean copy(Job job, File source, File target, int depth) {
+        if (job.isCancelled()) return false;
+        if (RecursiveDeleter.isRealDirectory(source)) {
+            if (depth >= MAX_DEPTH || (!target.isDirectory() && !target.mkdirs())) return false;
+            String[] names = source.list();
+            if (names == null) return false;
+            boolean ok = true;
+            for (String name : names) {
+                ok &= copy(job, new File(source, name), new File(target, name), depth + 1);
+                if (job.isCancelled()) return false;
+            }
+            return ok;
+        }
+        // 指向目录的符号链接不进入，复制链接本身
+        if (source.isDirectory()) return copyLink(source, target);
+        try {
+            copyFile(job, source, target);
+            //noinspection ResultOfMethodCallIgnored
+            target.setLastModified(source.lastModified());
+            return true;
+        } catch (IOException e) {
+            // 不留下不完整的文件
+            //noinspection ResultOfMethodCallIgnored
+            target.delete();
+            return false;
+        }
+    }
+
+    private static boolean copyLink(File source, File target) {
+        if (!FileEntry.NIO_AVAILABLE) return false;
+        try {
+            Files.createSymbolicLink(target.toPath(), Files.readSymbolicLink(source.toPath()));
+            return true;
+        } catch (IOException | UnsupportedOperationException | SecurityException e) {
+            // FAT 格式的 SD 卡不支持符号链接
+            return false;
+        }
+    }
+
+    private void copyFile(Job job, File source, File target) throws IOException {
+        boolean sameVolume = sameVolume(source, target);
+        try (FileInputStream in = new FileInputStream(source);
+             FileOutputStream out = new FileOutputStream(target);
+             FileChannel src = in.getChannel();
+             FileChannel dst = out.getChannel()) {
+            long size = src.size();
+            long position = 0;
+            if (sameVolume) {
+                while (position < size) {
+                    if (job.isCancelled()) throw new IOException("cancelled");
+                    long moved = src.transferTo(position, Math.min(TRANSFER_CHUNK, size - position), dst);
+                    // 个别文件系统不支持时返回 0，剩余部分改用缓冲区复制
+                    if (moved <= 0) break;
+                    position += moved;
+                    addProgress(job, moved);
+                }
+            }
+
+            ByteBuffer buf = buffer();
+            while (position < size) {
+                if (job.isCancelled()) throw new IOException("cancelled");
+                buf.clear();
+                int read = src.read(buf, position);
+                if (read < 0) break;
+                buf.flip();
+                while (buf.hasRemaining()) {
+                    dst.write(buf);
+                }
+                position += read;
+                addProgress(job, read);
+            }
+        }
+    }
+
+    private ByteBuffer buffer() {
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        }
+        return buffer;
+    }
+
+    private void addProgress(Job job, long bytes) {
+        job.doneBytes += bytes;
+        emitProgress(job, false);
+    }
+
+    private void emitProgress(Job job, boolean force) {
+        long now = System.nanoTime();
+        if (!force && now - lastEmitNanos < progressIntervalNanos) return;
+        lastEmitNanos = now;
+        long done = job.doneBytes;
+        long total = job.totalBytes;
+        long elapsed = Math.max(1, now - jobStartNanos);
+        long bytesPerSecond = (long) (done * 1e9 / elapsed);
+        callbackExecutor.execute(() -> listener.onProgress(job, done, total, bytesPerSecond));
+    }
+
+    private boolean sameVolume(File a, File b) {
+        File rootA = volumeOf(a);
+        return rootA != null && rootA.equals(volumeOf(b));
+    }
+
+    private File volumeOf(File file) {
+        String path = file.getAbsolutePath();
+        File best = null;
+        int bestLength = -1;
+        for (File root : volumeRoots) {
+            String rootPath = root.getAbsolutePath();
+            if ((path.equals(rootPath) || path.startsWith(rootPath + File.separator))
+                    && rootPath.length() > bestLength) {
+                best = root;
+                bestLength = rootPath.length();
+            }
+        }
+        return best;
+    }
+
+    private static boolean isSameOrAncestor(File ancestor, File file) {
+        String a = ancestor.getAbsolutePath();
+        String f = file.getAbsolutePath();
+        return f.equals(a) || f.startsWith(a + File.separator);
+    }
+
+    private static long measure(File file, int depth) {
+        if (!RecursiveDeleter.isRealDirectory(file)) return file.isDirectory() ? 0 : file.length();
+        if (depth >= MAX_DEPTH) return 0;
+        String[] names = file.list();
+        if (names == null) return 0;
+        long total = 0;
+        for (String name : names) {
+            total += measure(new File(file, name), depth + 1);
+        }
+        return total;
+    }
+
+    // 与 RecursiveDeleter 一样不跟随符号链接，只删除链接本身
+    private static boolean deleteTree(File file, int depth) {
+        if (depth < MAX_DEPTH && RecursiveDeleter.isRealDirectory(file)) {
+            String[] names = file.list();
+            if (names != null) {
+                for (String name : names) {
+                    deleteTree(new File(file, name), depth + 1);
+                }
+            }
+        }
+        return file.delete();
+    }
+
+    /**
+     * 目标已存在时改名为“名称 (1).扩展名”这样的形式。
+     */
+    static File uniqueTarget(File dir, String name) {
+        File target = new File(dir, name);
+        if (!target.exists()) return target;
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        String ext = dot > 0 ? name.substring(dot) : "";
+        for (int i = 1; ; i++) {
+            target = new File(dir, base + " (" + i + ")" + ext);
+            if (!target.exists()) return target;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.simpletool;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.function.Function;
+
+/**
+ * 基于 {@link FileEntry} 快照的排序，比较过程中不做任何 I/O。
+ * 按名称排序时先为每个条目算好 {@link NameSortKey}，排序过程只比较字节数组。
+ */
+final class FileSorter {
+
+    private FileSorter() {
+    }
+
+    static Comparator<FileEntry> comparator(SortMode sortMode) {
+        switch (sortMode) {
+            case NAME_ASC:
+                return new NameComparator(false);
+            case NAME_DESC:
+                return new NameComparator(true);
+            default:
+                break;
+        }
+        return (f1, f2) -> {
+            if (f1.isDirectory && !f2.isDirectory) return -1;
+            if (!f1.isDirectory && f2.isDirectory) return 1;
+
+            switch (sortMode) {
+                case SIZE_ASC:
+                    return Long.compare(f1.size, f2.size);
+                case SIZE_DESC:
+                    return Long.compare(f2.size, f1.size);
+                case DATE_ASC:
+                    return Long.compare(f1.lastModified, f2.lastModified);
+                case DATE_DESC:
+                    return Long.compare(f2.lastModified, f1.lastModified);
+                default:
+                    return 0;
+            }
+        };
+    }
+
+    static void sort(List<FileEntry> entries, SortMode sortMode) {
+        sort(entries, comparator(sortMode));
+    }
+
+    /**
+     * 按名称比较器排序时每个条目只计算一次排序键，其他比较器直接排序。
+     */
+    static void sort(List<FileEntry> entries, Comparator<FileEntry> comparator) {
+        if (entries == null || entries.isEmpty()) return;
+        if (comparator instanceof NameComparator) {
+            boolean descending = ((NameComparator) comparator).descending;
+            // 文件夹在前
+            sortByKey(entries, entry -> entry.name,
+                    (a, b) -> Boolean.compare(b.isDirectory, a.isDirectory), descending);
+        } else {
+            Collections.sort(entries, comparator);
+        }
+    }
+
+    /**
+     * 与文件列表相同的名称顺序，供图片浏览等只按名称排序的地方使用。
+     */
+    static <T> void sortByName(List<T> items, Function<T, String> name) {
+        if (items == null || items.isEmpty()) return;
+        sortByKey(items, name, (a, b) -> 0, false);
+    }
+
+    private static <T> void sortByKey(List<T> items, Function<T, String> name, Comparator<T> group,
+                                      boolean descending) {
+        List<Keyed<T>> keyed = new ArrayList<>(items.size());
+        for (T item : items) {
+            keyed.add(new Keyed<>(item, NameSortKey.of(name.apply(item))));
+        }
+        keyed.sort((a, b) -> {
+            int result = group.compare(a.item, b.item);
+            if (result != 0) return result;
+            return descending ? b.key.compareTo(a.key) : a.key.compareTo(b.key);
+        });
+        ListIterator<T> it = items.listIterator();
+        for (Keyed<T> k : keyed) {
+            it.next();
+            it.set(k.item);
+        }
+    }
+
+    private static final class Keyed<T> {
+        final T item;
+        final NameSortKey key;
+
+        Keyed(T item, NameSortKey key) {
+            this.item = item;
+            this.key = key;
+        }
+    }
+
+    /**
+     * 文件夹在前，再按名称排序。单独比较两个条目（如二分插入）时临时计算排序键，
+     * 整体排序请用 {@link #sort(List, Comparator)}。
+     */
+    private static final class NameComparator implements Comparator<FileEntry> {
+        final boolean descending;
+
+        NameComparator(boolean descending) {
+            this.descending = descending;
+        }
+
+        @Override
+        public int compare(FileEntry f1, FileEntry f2) {
+            if (f1.isDirectory && !f2.isDirectory) return -1;
+            if (!f1.isDirectory && f2.isDirectory) return 1;
+            return descending ? NameSortKey.compare(f2.name, f1.name) : NameSortKey.compare(f1.name, f2.name);
+        }
+    }
+}
@@ -0,0 +1,373 @@
+package com.example.simpletool;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按文件内容检测类型。只读文件开头 {@value #HEADER_BYTES} 字节，用魔数前缀树匹配，
+ * 匹配不到或只能确定容器格式时再参考扩展名。
+ * 结果按路径缓存（LRU，进程内共用），文件大小和 mtime 不变时不再读取文件。
+ * 实例负责整个目录列表的后台批量检测，结果分批投递到回调线程。
+ */
+final class FileTypeDetector {
+
+    interface Listener {
+        /** 一批检测结果，键为文件名。 */
+        void onDetected(Map<String, FileTypes.Type> types);
+    }
+
+    static final int HEADER_BYTES = 32;
+
+    private static final int CACHE_ENTRIES = 4096;
+    private static final long PROGRESS_INTERVAL_NANOS = 200_000_000L;
+
+    // ISO 媒体和 Matroska 容器需要扩展名区分 mp4/3gp、mkv/webm
+    private static final FileTypes.Type EBML = new FileTypes.Type(
+            FileTypes.KIND_VIDEO, "video/x-matroska", true);
+
+    private static final MagicTrie MAGIC = new MagicTrie.Builder()
+            .add("89 50 4E 47 0D 0A 1A 0A", FileTypes.PNG)
+            .add("FF D8 FF", FileTypes.JPEG)
+            .add("47 49 46 38", FileTypes.GIF)
+            // BMP 只有两字节签名，再加上必为 0 的保留字段，避免把以“BM”开头的文本误判
+            .add("42 4D ?? ?? ?? ?? 00 00 00 00", FileTypes.BMP)
+            .add("52 49 46 46 ?? ?? ?? ?? 57 45 42 50", FileTypes.WEBP)
+            .add("52 49 46 46 ?? ?? ?? ?? 57 41 56 45", FileTypes.WAV)
+            .add("52 49 46 46 ?? ?? ?? ?? 41 56 49 20", FileTypes.AVI)
+            .add("?? ?? ?? ?? 66 74 79 70", FileTypes.ISO_MEDIA)
+            .add("?? ?? ?? ?? 66 74 79 70 4D 34 41 20", FileTypes.M4A)
+            .add("1A 45 DF A3", EBML)
+            .add("49 44 33", FileTypes.MP3)
+            .add("FF FB", FileTypes.MP3)
+            .add("66 4C 61 43", FileTypes.FLAC)
+            .add("4F 67 67 53", FileTypes.OGG)
+            .add("25 50 44 46", FileTypes.PDF)
+            .add("50 4B 03 04", FileTypes.ZIP)
+            .add("50 4B 05 06", FileTypes.ZIP)
+            .add("52 61 72 21 1A 07", FileTypes.RAR)
+            .add("37 7A BC AF 27 1C", FileTypes.SEVEN_Z)
+            .add("1F 8B", FileTypes.GZIP)
+            .add("EF BB BF", FileTypes.TEXT_BOM)
+            .add("FE FF", FileTypes.TEXT_BOM)
+            .add("FF FE", FileTypes.TEXT_BOM)
+            .build();
+
+    // 每个线程复用一块读文件头的缓冲区
+    private static final ThreadLocal<ByteBuffer> HEADER_BUFFER =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocate(HEADER_BYTES));
+
+    private static final class Cached {
+        final long modified;
+        final long size;
+        final FileTypes.Type type;
+
+        Cached(long modified, long size, FileTypes.Type type) {
+            this.modified = modified;
+            this.size = size;
+            this.type = type;
+        }
+    }
+
+    private static final LinkedHashMap<String, Cached> CACHE =
+            new LinkedHashMap<String, Cached>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Cached> eldest) {
+                    return size() > CACHE_ENTRIES;
+                }
+            };
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "FileTypeDetector");
+        t.setPriority(Thread.NORM_PRIORITY - 1);
+        return t;
+    });
+    private final Executor callbackExecutor;
+    private final AtomicInteger generation = new AtomicInteger();
+
+    FileTypeDetector(Executor callbackExecutor) {
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    /**
+     * 在后台检测一个目录列表中的所有文件（跳过文件夹），取消上一批尚未完成的检测。
+     * 已缓存的结果先一次性投递，需要读文件的按固定间隔分批投递。
+     */
+    void detectAll(List<FileEntry> entries, Listener listener) {
+        final int token = generation.incrementAndGet();
+        List<FileEntry> files = new ArrayList<>(entries.size());
+        for (FileEntry entry : entries) {
+            if (!entry.isDirectory) files.add(entry);
+        }
+        worker.execute(() -> run(token, files, listener));
+    }
+
+    void cancel() {
+        generation.incrementAndGet();
+    }
+
+    void shutdown() {
+        cancel();
+        worker.shutdownNow();
+    }
+
+    private void run(int token, List<FileEntry> files, Listener listener) {
+        Map<String, FileTypes.Type> batch = new HashMap<>();
+        List<FileEntry> misses = new ArrayList<>();
+        for (FileEntry entry : files) {
+            FileTypes.Type type = cached(entry.getPath(), entry.size, entry.lastModified);
+            if (type != null) {
+                batch.put(entry.name, type);
+            } else {
+                misses.add(entry);
+            }
+        }
+        batch = emit(token, batch, listener);
+
+        long lastEmit = System.nanoTime();
+        for (FileEntry entry : misses) {
+            if (token != generation.get()) return;
+            batch.put(entry.name, detect(entry));
+            long now = System.nanoTime();
+            if (now - lastEmit >= PROGRESS_INTERVAL_NANOS) {
+                lastEmit = now;
+                batch = emit(token, batch, listener);
+            }
+        }
+        emit(token, batch, listener);
+    }
+
+    private Map<String, FileTypes.Type> emit(int token, Map<String, FileTypes.Type> batch, Listener listener) {
+        if (batch.isEmpty() || token != generation.get()) return batch;
+        callbackExecutor.execute(() -> {
+            if (token == generation.get()) listener.onDetected(batch);
+        });
+        return new HashMap<>();
+    }
+
+    /**
+     * 检测单个文件，不存在或是文件夹时返回 {@link FileTypes#UNKNOWN}。会读文件，不要在主线程批量调用。
+     */
+    static FileTypes.Type detect(File file) {
+        long modified = file.lastModified();
+        if (modified == 0 || file.isDirectory()) return FileTypes.UNKNOWN;
+        return detect(file.getPath(), file.getName(), file.length(), modified);
+    }
+
+    static FileTypes.Type detect(FileEntry entry) {
+        if (entry.isDirectory) return FileTypes.UNKNOWN;
+        return detect(entry.getPath(), entry.name, entry.size, entry.lastModified);
+    }
+
+    private static FileTypes.Type detect(String path, String name, long size, long modified) {
+        FileTypes.Type type = cached(path, size, modified);
+        if (type != null) return type;
+
+        ByteBuffer buffer = HEADER_BUFFER.get();
+        buffer.clear();
+        try (FileInputStream in = new FileInputStream(path);
+             FileChannel channel = in.getChannel()) {
+            while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+                // 继续读满文件头
+            }
+        } catch (IOException | SecurityException e) {
+            // 读不了就只看扩展名，也不缓存，权限恢复后可以重新检测
+            return FileTypes.byName(name);
+        }
+        type = classify(name, buffer.array(), buffer.position());
+        synchronized (CACHE) {
+            CACHE.put(path, new Cached(modified, size, type));
+        }
+        return type;
+    }
+
+    private static FileTypes.Type cached(String path, long size, long modified) {
+        synchronized (CACHE) {
+            Cached cached = CACHE.get(path);
+            if (cached != null && cached.modified == modified && cached.size == size) {
+                return cached.type;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 综合文件头和文件名判断类型：
+     * 明确的魔数优先；只能确定容器格式时看扩展名；扩展名未知时交给调用方按扩展名另行查询；
+     * 没有扩展名时才用容器格式或文本判断的结果。
+     */
+    static FileTypes.Type classify(String name, byte[] header, int length) {
+        FileTypes.Type magic = MAGIC.match(header, length);
+        if (magic != null && !magic.generic) return magic;
+        FileTypes.Type byName = FileTypes.byName(name);
+        if (byName != FileTypes.UNKNOWN) return byName;
+        if (FileTypes.hasExtension(name)) return FileTypes.UNKNOWN;
+        if (magic != null) return magic;
+        return looksLikeText(header, length) ? FileTypes.TEXT : FileTypes.UNKNOWN;
+    }
+
+    // 没有 NUL 和除常见空白外的控制字符；非 ASCII 字节按 UTF-8/GBK 等多字节编码放行
+    private static boolean looksLikeText(byte[] header, int length) {
+        if (length == 0) return false;
+        for (int i = 0; i < length; i++) {
+            int b = header[i] & 0xFF;
+            if (b < 0x20 && b != '\t' && b != '\n' && b != '\r' && b != '\f' && b != 0x1B) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 魔数前缀树，节点和边都展开成数组。每个节点的子边按字节值排序，二分查找；
+     * “??” 通配一个任意字节，走单独的通配子节点。匹配取最深的终止节点，同样深时精确匹配优先。
+     */
+    static final class MagicTrie {
+        private final int[] edgeStart;
+        private final int[] edgeEnd;
+        private final int[] wildcard;
+        private final int[] depth;
+        private final FileTypes.Type[] terminal;
+        private final byte[] edgeBytes;
+        private final int[] edgeTargets;
+
+        private MagicTrie(int[] edgeStart, int[] edgeEnd, int[] wildcard, int[] depth,
+                          FileTypes.Type[] terminal, byte[] edgeBytes, int[] edgeTargets) {
+            this.edgeStart = edgeStart;
+            this.edgeEnd = edgeEnd;
+            this.wildcard = wildcard;
+            this.depth = depth;
+            this.terminal = terminal;
+            this.edgeBytes = edgeBytes;
+            this.edgeTargets = edgeTargets;
+        }
+
+        /** 没有匹配的签名时返回 null。 */
+        FileTypes.Type match(byte[] header, int length) {
+            int node = deepest(0, header, length);
+            return node < 0 ? null : terminal[node];
+        }
+
+        private int deepest(int node, byte[] header, int length) {
+            int best = terminal[node] != null ? node : -1;
+            int d = depth[node];
+            if (d >= length) return best;
+            int exact = child(node, header[d]);
+            if (exact >= 0) best = deeper(best, deepest(exact, header, length));
+            if (wildcard[node] >= 0) best = deeper(best, deepest(wildcard[node], header, length));
+            return best;
+        }
+
+        private int deeper(int a, int b) {
+            if (b < 0) return a;
+            if (a < 0) return b;
+            return depth[b] > depth[a] ? b : a;
+        }
+
+        private int child(int node, byte value) {
+            int key = value & 0xFF;
+            int lo = edgeStart[node];
+            int hi = edgeEnd[node] - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                int b = edgeBytes[mid] & 0xFF;
+                if (b < key) {
+                    lo = mid + 1;
+                } else if (b > key) {
+                    hi = mid - 1;
+                } else {
+                    return edgeTargets[mid];
+                }
+            }
+            return -1;
+        }
+
+        static final class Builder {
+            private static final class Node {
+                final TreeMap<Integer, Node> children = new TreeMap<>();
+                Node wildcard;
+                FileTypes.Type type;
+            }
+
+            private final Node root = new Node();
+
+            /**
+             * @param pattern 空格分隔的十六进制字节，“??” 表示任意字节，长度不超过文件头字节数
+             */
+            Builder add(String pattern, FileTypes.Type type) {
+                String[] tokens = pattern.trim().split("\\s+");
+                if (tokens.length > HEADER_BYTES) {
+                    throw new IllegalArgumentException("签名过长: " + pattern);
+                }
+                Node node = root;
+                for (String token : tokens) {
+                    if (token.equals("??")) {
+                        if (node.wildcard == null) node.wildcard = new Node();
+                        node = node.wildcard;
+                    } else {
+                        node = node.children.computeIfAbsent(Integer.parseInt(token, 16), k -> new Node());
+                    }
+                }
+                node.type = type;
+                return this;
+            }
+
+            MagicTrie build() {
+                // 广度优先编号，子边在数组中连续存放
+                List<Node> nodes = new ArrayList<>();
+                List<Integer> depths = new ArrayList<>();
+                nodes.add(root);
+                depths.add(0);
+                for (int i = 0; i < nodes.size(); i++) {
+                    Node node = nodes.get(i);
+                    for (Node child : node.children.values()) {
+                        nodes.add(child);
+                        depths.add(depths.get(i) + 1);
+                    }
+                    if (node.wildcard != null) {
+                        nodes.add(node.wildcard);
+                        depths.add(depths.get(i) + 1);
+                    }
+                }
+
+                int count = nodes.size();
+                int[] edgeStart = new int[count];
+                int[] edgeEnd = new int[count];
+                int[] wildcard = new int[count];
+                int[] depth = new int[count];
+                FileTypes.Type[] terminal = new FileTypes.Type[count];
+                byte[] edgeBytes = new byte[count];
+                int[] edgeTargets = new int[count];
+
+                int next = 1;
+                int edges = 0;
+                for (int i = 0; i < count; i++) {
+                    Node node = nodes.get(i);
+                    depth[i] = depths.get(i);
+                    terminal[i] = node.type;
+                    edgeStart[i] = edges;
+                    for (Map.Entry<Integer, Node> entry : node.children.entrySet()) {
+                        edgeBytes[edges] = (byte) (int) entry.getKey();
+                        edgeTargets[edges] = next++;
+                        edges++;
+                    }
+                    edgeEnd[i] = edges;
+                    wildcard[i] = node.wildcard != null ? next++ : -1;
+                }
+                return new MagicTrie(edgeStart, edgeEnd, wildcard, depth, terminal, edgeBytes, edgeTargets);
+            }
+        }
+    }
+}
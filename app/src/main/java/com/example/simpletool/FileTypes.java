@@ -0,0 +1,168 @@
+package com.example.simpletool;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 文件类型定义，以及按扩展名的分类，供列表、图片浏览和存储分析共用。
+ * 读取文件内容的检测见 {@link FileTypeDetector}。
+ */
+final class FileTypes {
+
+    static final int KIND_OTHER = 0;
+    static final int KIND_TEXT = 1;
+    static final int KIND_IMAGE = 2;
+    static final int KIND_VIDEO = 3;
+    static final int KIND_AUDIO = 4;
+    static final int KIND_ARCHIVE = 5;
+    static final int KIND_DOCUMENT = 6;
+    static final int KIND_APK = 7;
+
+    static final class Type {
+        final int kind;
+        /** 未知时为 null，由调用方按扩展名另行查询。 */
+        final String mime;
+        /**
+         * 只能说明容器格式（ZIP、带 BOM 的文本等），同一格式可能是多种文件，
+         * 扩展名已知时以扩展名为准。
+         */
+        final boolean generic;
+
+        Type(int kind, String mime, boolean generic) {
+            this.kind = kind;
+            this.mime = mime;
+            this.generic = generic;
+        }
+    }
+
+    static final Type UNKNOWN = new Type(KIND_OTHER, null, false);
+    static final Type TEXT = new Type(KIND_TEXT, "text/plain", false);
+    static final Type PNG = new Type(KIND_IMAGE, "image/png", false);
+    static final Type JPEG = new Type(KIND_IMAGE, "image/jpeg", false);
+    static final Type GIF = new Type(KIND_IMAGE, "image/gif", false);
+    static final Type BMP = new Type(KIND_IMAGE, "image/bmp", false);
+    static final Type WEBP = new Type(KIND_IMAGE, "image/webp", false);
+    static final Type MP4 = new Type(KIND_VIDEO, "video/mp4", false);
+    static final Type MKV = new Type(KIND_VIDEO, "video/x-matroska", false);
+    static final Type WEBM = new Type(KIND_VIDEO, "video/webm", false);
+    static final Type AVI = new Type(KIND_VIDEO, "video/x-msvideo", false);
+    static final Type MP3 = new Type(KIND_AUDIO, "audio/mpeg", false);
+    static final Type M4A = new Type(KIND_AUDIO, "audio/mp4", false);
+    static final Type FLAC = new Type(KIND_AUDIO, "audio/flac", false);
+    static final Type OGG = new Type(KIND_AUDIO, "audio/ogg", false);
+    static final Type WAV = new Type(KIND_AUDIO, "audio/x-wav", false);
+    static final Type ZIP = new Type(KIND_ARCHIVE, "application/zip", true);
+    static final Type RAR = new Type(KIND_ARCHIVE, "application/x-rar-compressed", false);
+    static final Type SEVEN_Z = new Type(KIND_ARCHIVE, "application/x-7z-compressed", false);
+    static final Type GZIP = new Type(KIND_ARCHIVE, "application/gzip", false);
+    static final Type PDF = new Type(KIND_DOCUMENT, "application/pdf", false);
+    static final Type EPUB = new Type(KIND_DOCUMENT, "application/epub+zip", false);
+    static final Type CBZ = new Type(KIND_ARCHIVE, "application/vnd.comicbook+zip", false);
+    static final Type APK = new Type(KIND_APK, "application/vnd.android.package-archive", false);
+    // 带 BOM 的文本和 ISO 媒体容器（mp4/m4a/3gp 共用 ftyp）都需要扩展名细分
+    static final Type TEXT_BOM = new Type(KIND_TEXT, "text/plain", true);
+    static final Type ISO_MEDIA = new Type(KIND_VIDEO, "video/mp4", true);
+
+    static final String[] IMAGE_EXTENSIONS = {
+            "jpg", "jpeg", "png", "gif", "bmp", "webp" // 基础图片格式
+    };
+
+    private static final Map<String, Type> BY_EXTENSION = new HashMap<>();
+
+    static {
+        BY_EXTENSION.put("txt", TEXT);
+        BY_EXTENSION.put("log", TEXT);
+        BY_EXTENSION.put("jpg", JPEG);
+        BY_EXTENSION.put("jpeg", JPEG);
+        BY_EXTENSION.put("png", PNG);
+        BY_EXTENSION.put("gif", GIF);
+        BY_EXTENSION.put("bmp", BMP);
+        BY_EXTENSION.put("webp", WEBP);
+        BY_EXTENSION.put("mp4", MP4);
+        BY_EXTENSION.put("m4v", MP4);
+        BY_EXTENSION.put("3gp", new Type(KIND_VIDEO, "video/3gpp", false));
+        BY_EXTENSION.put("mov", new Type(KIND_VIDEO, "video/quicktime", false));
+        BY_EXTENSION.put("mkv", MKV);
+        BY_EXTENSION.put("webm", WEBM);
+        BY_EXTENSION.put("avi", AVI);
+        BY_EXTENSION.put("mp3", MP3);
+        BY_EXTENSION.put("m4a", M4A);
+        BY_EXTENSION.put("aac", new Type(KIND_AUDIO, "audio/aac", false));
+        BY_EXTENSION.put("flac", FLAC);
+        BY_EXTENSION.put("ogg", OGG);
+        BY_EXTENSION.put("wav", WAV);
+        BY_EXTENSION.put("zip", ZIP);
+        BY_EXTENSION.put("rar", RAR);
+        BY_EXTENSION.put("7z", SEVEN_Z);
+        BY_EXTENSION.put("gz", GZIP);
+        BY_EXTENSION.put("pdf", PDF);
+        BY_EXTENSION.put("epub", EPUB);
+        BY_EXTENSION.put("cbz", CBZ);
+        BY_EXTENSION.put("apk", APK);
+    }
+
+    private FileTypes() {
+    }
+
+    /**
+     * 扩展名在 name 中的起始下标；没有扩展名时返回 name.length()。
+     */
+    static int extensionStart(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? name.length() : dot + 1;
+    }
+
+    /**
+     * 判断 name 中从 start 开始到末尾的扩展名是否为图片，不区分大小写，不分配新字符串。
+     */
+    static boolean isImageExtension(String name, int start) {
+        int length = name.length() - start;
+        for (String ext : IMAGE_EXTENSIONS) {
+            if (ext.length() == length && name.regionMatches(true, start, ext, 0, length)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean isImageName(String name) {
+        int start = extensionStart(name);
+        return start < name.length() && isImageExtension(name, start);
+    }
+
+    static boolean hasExtension(String name) {
+        return extensionStart(name) < name.length();
+    }
+
+    /**
+     * 只按扩展名判断类型，不访问文件；扩展名未知时返回 {@link #UNKNOWN}。
+     */
+    static Type byName(String name) {
+        int start = extensionStart(name);
+        if (start >= name.length()) return UNKNOWN;
+        Type type = BY_EXTENSION.get(name.substring(start).toLowerCase(Locale.ROOT));
+        return type == null ? UNKNOWN : type;
+    }
+
+    static String icon(Type type) {
+        switch (type.kind) {
+            case KIND_TEXT:
+                return "📝";
+            case KIND_IMAGE:
+                return "🖼️";
+            case KIND_VIDEO:
+                return "🎬";
+            case KIND_AUDIO:
+                return "🎵";
+            case KIND_ARCHIVE:
+                return "📦";
+            case KIND_DOCUMENT:
+                return "📕";
+            case KIND_APK:
+                return "🤖";
+            default:
+                return "📄";
+        }
+    }
+}
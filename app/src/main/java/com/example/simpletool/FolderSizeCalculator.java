@@ -0,0 +1,225 @@
+package com.example.simpletool;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 递归计算文件夹大小。每个目录一个 fork-join 任务，由 ForkJoinPool 做工作窃取。
+ * 每个目录的直接文件总大小和子目录名按目录 mtime 缓存，mtime 未变时不再 list 和 stat，
+ * 只需继续检查子目录。计算过程中按固定间隔把部分结果投递给回调线程。
+ */
+final class FolderSizeCalculator {
+
+    interface Listener {
+        void onProgress(String path, long bytes);
+
+        void onComplete(String path, long bytes);
+    }
+
+    private static final long PROGRESS_INTERVAL_NANOS = 200_000_000L;
+    private static final long MTIME_GRANULARITY_MS = 2000;
+    private static final int MAX_DEPTH = 64;
+    private static final String[] NO_CHILDREN = new String[0];
+    // 每个目录一条记录，默认约相当于几万个目录，满了淘汰最久未访问的
+    static final int DEFAULT_MAX_RECORDS = 20_000;
+
+    // 单个目录的直接内容：文件字节数和子目录名
+    private static final class DirRecord {
+        final long modified;
+        final long fileBytes;
+        final String[] childDirs;
+
+        DirRecord(long modified, long fileBytes, String[] childDirs) {
+            this.modified = modified;
+            this.fileBytes = fileBytes;
+            this.childDirs = childDirs;
+        }
+    }
+
+    private final ForkJoinPool pool;
+    private final Executor callbackExecutor;
+    private final AtomicInteger generation = new AtomicInteger();
+    private final AtomicInteger listedDirs = new AtomicInteger();
+    private final Map<String, DirRecord> records;
+    private final Map<String, Long> lastTotals;
+
+    FolderSizeCalculator(ForkJoinPool pool, Executor callbackExecutor) {
+        this(pool, callbackExecutor, DEFAULT_MAX_RECORDS);
+    }
+
+    /**
+     * @param maxRecords 目录记录和完整大小各自最多保留的条数
+     */
+    FolderSizeCalculator(ForkJoinPool pool, Executor callbackExecutor, int maxRecords) {
+        this.pool = pool;
+        this.callbackExecutor = callbackExecutor;
+        this.records = lruMap(maxRecords);
+        this.lastTotals = lruMap(maxRecords);
+    }
+
+    // 多个工作线程同时读写，整体加锁；accessOrder=true，超出上限时移除最久未使用的
+    private static <V> Map<String, V> lruMap(int maxEntries) {
+        return Collections.synchronizedMap(new LinkedHashMap<String, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    /**
+     * 计算一组文件夹的大小，取消上一批尚未完成的计算。
+     */
+    void computeAll(List<String> dirPaths, Listener listener) {
+        final int token = generation.incrementAndGet();
+        for (String path : dirPaths) {
+            pool.execute(new FolderJob(token, path, listener));
+        }
+    }
+
+    void cancel() {
+        generation.incrementAndGet();
+    }
+
+    void shutdown() {
+        cancel();
+        pool.shutdownNow();
+    }
+
+    /**
+     * 上一次计算得到的完整大小，未计算过返回 -1。只读内存，可在主线程调用。
+     */
+    long getLastKnownSize(String path) {
+        Long total = lastTotals.get(path);
+        return total != null ? total : -1;
+    }
+
+    int getListedDirCount() {
+        return listedDirs.get();
+    }
+
+    int getRecordCount() {
+        return records.size();
+    }
+
+    private boolean isStale(int token) {
+        return token != generation.get();
+    }
+
+    private final class FolderJob extends RecursiveAction {
+        private final int token;
+        private final String path;
+        private final Listener listener;
+        private final AtomicLong progress = new AtomicLong();
+        private final AtomicLong lastEmit = new AtomicLong(System.nanoTime());
+
+        FolderJob(int token, String path, Listener listener) {
+            this.token = token;
+            this.path = path;
+            this.listener = listener;
+        }
+
+        @Override
+        protected void compute() {
+            long total = new SizeTask(this, new File(path), 0).invoke();
+            if (isStale(token)) return;
+            callbackExecutor.execute(() -> {
+                if (!isStale(token)) listener.onComplete(path, total);
+            });
+        }
+
+        void addProgress(long bytes) {
+            long current = progress.addAndGet(bytes);
+            long now = System.nanoTime();
+            long last = lastEmit.get();
+            if (now - last >= PROGRESS_INTERVAL_NANOS && lastEmit.compareAndSet(last, now)) {
+                callbackExecutor.execute(() -> {
+                    if (!isStale(token)) listener.onProgress(path, current);
+                });
+            }
+        }
+    }
+
+    private final class SizeTask extends RecursiveTask<Long> {
+        private final FolderJob job;
+        private final File dir;
+        private final int depth;
+
+        SizeTask(FolderJob job, File dir, int depth) {
+            this.job = job;
+            this.dir = dir;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Long compute() {
+            if (isStale(job.token)) return 0L;
+
+            DirRecord record = readRecord(dir);
+            job.addProgress(record.fileBytes);
+
+            List<SizeTask> subtasks = new ArrayList<>(record.childDirs.length);
+            if (depth + 1 < MAX_DEPTH) {
+                for (String child : record.childDirs) {
+                    subtasks.add(new SizeTask(job, new File(dir, child), depth + 1));
+                }
+            }
+            invokeAll(subtasks);
+
+            long total = record.fileBytes;
+            for (SizeTask task : subtasks) {
+                total += task.join();
+            }
+            if (!isStale(job.token)) {
+                lastTotals.put(dir.getPath(), total);
+            }
+            return total;
+        }
+    }
+
+    private DirRecord readRecord(File dir) {
+        String path = dir.getPath();
+        long modified = dir.lastModified();
+        DirRecord record = records.get(path);
+        if (record != null && record.modified == modified) {
+            return record;
+        }
+
+        listedDirs.incrementAndGet();
+        String[] names = dir.list();
+        if (names == null) {
+            record = new DirRecord(modified, 0, NO_CHILDREN);
+        } else {
+            long bytes = 0;
+            List<String> childDirs = new ArrayList<>();
+            for (String name : names) {
+                FileEntry entry = FileEntry.stat(dir, name);
+                if (entry == null) continue;
+                if (entry.isDirectory) {
+                    childDirs.add(name);
+                } else {
+                    bytes += entry.size;
+                }
+            }
+            record = new DirRecord(modified, bytes, childDirs.toArray(NO_CHILDREN));
+        }
+
+        // 刚修改过的目录 mtime 可能在同一刻度内再次变化，不缓存
+        if (System.currentTimeMillis() - modified >= MTIME_GRANULARITY_MS) {
+            records.put(path, record);
+        } else {
+            records.remove(path);
+        }
+        return record;
+    }
+}
@@ -29,7 +29,8 @@ import java.util.Map;
 
 public class ImageListActivity extends AppCompatActivity {
     private RecyclerView recyclerView;
-    private List<File> imageFiles = new ArrayList<>();
+    // 普通文件路径或压缩包内的路径
+    private List<String> imagePaths = new ArrayList<>();
 
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
@@ -38,13 +39,9 @@ public class ImageListActivity extends AppCompatActivity {
 
         // 获取传递的图片路径
         ArrayList<String> paths = getIntent().getStringArrayListExtra("image_paths");
+        // 调用方已筛选出图片，这里不再逐个检测类型
         if (paths != null) {
-            for (String path : paths) {
-                File file = new File(path);
-                if (file.exists() && isImageFile(file)) {
-                    imageFiles.add(file);
-                }
-            }
+            imagePaths.addAll(paths);
         }
 
         setRecyclerView();
@@ -69,15 +66,6 @@ public class ImageListActivity extends AppCompatActivity {
         Glide.get(this).setMemoryCategory(MemoryCategory.HIGH);
     }
 
-    private boolean isImageFile(File file) {
-        String[] supportedExt = {".jpg", ".jpeg", ".png", ".webp"};
-        String name = file.getName().toLowerCase();
-        for (String ext : supportedExt) {
-            if (name.endsWith(ext)) return true;
-        }
-        return false;
-    }
-
     private class ImageListAdapter extends RecyclerView.Adapter<ImageViewHolder> {
         private final Map<String, Integer> sizeCache = new HashMap<>();
 
@@ -91,21 +79,25 @@ public class ImageListActivity extends AppCompatActivity {
 
         @Override
         public void onBindViewHolder(@NonNull ImageViewHolder holder, int position) {
-            File file = imageFiles.get(position);
+            Object model = ArchiveEntryLoader.model(imagePaths.get(position));
+            RequestOptions options = new RequestOptions();
+            // 压缩包内的图片没有可供 ExifInterface 读取的文件路径，不做旋转
+            if (model instanceof File) {
+                options = options.transform(new RotateTransformation((File) model)); // 传递File对象
+            }
 
             // 加载缩略图
             Glide.with(holder.itemView)
-                    .load(file)
+                    .load(model)
                     .override(200, 200) // 固定缩略图尺寸
-                    .apply(new RequestOptions()
-                            .transform(new RotateTransformation(file))) // 传递File对象
+                    .apply(options)
                     .fitCenter()
                     .diskCacheStrategy(DiskCacheStrategy.ALL)
                     .into(holder.imageView);
 
             holder.itemView.setOnClickListener(v -> {
                 Intent intent = new Intent(ImageListActivity.this, ImagePreviewActivity.class);
-                intent.putStringArrayListExtra("image_paths", new ArrayList<>(getFilePaths()));
+                intent.putStringArrayListExtra("image_paths", new ArrayList<>(imagePaths));
                 intent.putExtra("position", position);
                 startActivity(intent);
                 overridePendingTransition(R.anim.fade_in, R.anim.fade_out);
@@ -114,15 +106,7 @@ public class ImageListActivity extends AppCompatActivity {
 
         @Override
         public int getItemCount() {
-            return imageFiles.size();
-        }
-
-        private List<String> getFilePaths() {
-            List<String> paths = new ArrayList<>();
-            for (File file : imageFiles) {
-                paths.add(file.getAbsolutePath());
-            }
-            return paths;
+            return imagePaths.size();
         }
 
         private int getExifOrientation(File file) {
@@ -23,13 +23,13 @@ import com.bumptech.glide.load.engine.DiskCacheStrategy;
 import com.bumptech.glide.load.resource.bitmap.DownsampleStrategy;
 import com.github.chrisbanes.photoview.PhotoView;
 
-import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 
 public class ImagePreviewActivity extends AppCompatActivity {
     private ViewPager2 viewPager;
-    private List<File> imageFiles;
+    // 普通文件路径或压缩包内的路径
+    private List<String> imagePaths;
     private int initialPosition;
 
     @Override
@@ -54,14 +54,10 @@ public class ImagePreviewActivity extends AppCompatActivity {
         ArrayList<String> paths = intent.getStringArrayListExtra("image_paths");
         initialPosition = intent.getIntExtra("position", 0);
 
-        imageFiles = new ArrayList<>();
+        imagePaths = new ArrayList<>();
+        // 调用方已筛选出图片，这里不再逐个检测类型
         if (paths != null) {
-            for (String path : paths) {
-                File file = new File(path);
-                if (file.exists() && isImageFile(file)) {
-                    imageFiles.add(file);
-                }
-            }
+            imagePaths.addAll(paths);
         }
     }
 
@@ -74,15 +70,6 @@ public class ImagePreviewActivity extends AppCompatActivity {
         viewPager.setCurrentItem(initialPosition, false);
     }
 
-    private boolean isImageFile(File file) {
-        String[] supportedExt = {".jpg", ".jpeg", ".png", ".webp"};
-        String name = file.getName().toLowerCase();
-        for (String ext : supportedExt) {
-            if (name.endsWith(ext)) return true;
-        }
-        return false;
-    }
-
     // 手势检测（可选）
     private GestureDetector gestureDetector;
 
@@ -109,22 +96,23 @@ public class ImagePreviewActivity extends AppCompatActivity {
         @NonNull
         @Override
         public Fragment createFragment(int position) {
-            return ImageFragment.newInstance(imageFiles.get(position));
+            return ImageFragment.newInstance(imagePaths.get(position));
         }
 
         @Override
         public int getItemCount() {
-            return imageFiles.size();
+            return imagePaths.size();
         }
     }
 
     public static class ImageFragment extends Fragment {
-        private File imageFile;
+        // File 或压缩包内的 ZipArchive.Location
+        private Object imageFile;
 
-        static ImageFragment newInstance(File file) {
+        static ImageFragment newInstance(String path) {
             ImageFragment fragment = new ImageFragment();
             Bundle args = new Bundle();
-            args.putString("path", file.getAbsolutePath());
+            args.putString("path", path);
             fragment.setArguments(args);
             return fragment;
         }
@@ -133,7 +121,7 @@ public class ImagePreviewActivity extends AppCompatActivity {
         public void onCreate(@Nullable Bundle savedInstanceState) {
             super.onCreate(savedInstanceState);
             if (getArguments() != null) {
-                imageFile = new File(getArguments().getString("path"));
+                imageFile = ArchiveEntryLoader.model(getArguments().getString("path"));
             }
         }
 
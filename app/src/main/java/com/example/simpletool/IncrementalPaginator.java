@@ -0,0 +1,170 @@
+package com.example.simpletool;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按章节增量分页：先排阅读位置所在的一章，再由近及远交替排后一章和前一章。
+ * 每排好一章就投递给回调线程，已排的章节总是连续的一段，新的一章要么接在末尾，要么插在开头，
+ * 所以第一页出现的时间只取决于一章的长度，与整本书的长度无关。
+ * <p>
+ * 排版本身由 {@link PageBreaker} 完成（界面上是 StaticLayout），这里只负责顺序和取消。
+ * 提供了 {@link PageStore} 时先查已保存的分页结果，命中的章节不再排版。
+ * 每次 {@link #start} 都会使上一次分页失效，已经排队的结果也不会再投递。
+ */
+final class IncrementalPaginator {
+
+    interface PageBreaker {
+        /**
+         * text 分页后每页的起点（相对于 text，第一页为 0）。在工作线程调用。
+         */
+        int[] pageStarts(CharSequence text);
+    }
+
+    /** 按章节保存的分页结果，页起点相对于章节开头。在工作线程调用。 */
+    interface PageStore {
+        /** 没有保存过返回 null。 */
+        int[] get(int chapterIndex);
+
+        void put(int chapterIndex, int[] pageStarts);
+    }
+
+    interface Callback {
+        /**
+         * 一章排好了。pageStarts 为各页在全文中的起点，最后一页到 chapter.end 为止；
+         * before 为 true 表示这一章在已投递的页之前。
+         */
+        void onChapter(int chapterIndex, int[] pageStarts, boolean before);
+
+        void onComplete();
+    }
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "Paginator");
+        t.setPriority(Thread.NORM_PRIORITY - 1);
+        return t;
+    });
+    private final Executor callbackExecutor;
+    private final AtomicInteger generation = new AtomicInteger();
+    private Future<?> running;
+
+    IncrementalPaginator(Executor callbackExecutor) {
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    /**
+     * 从 anchor 章开始分页，取消之前尚未完成的分页。store 可以为 null。
+     */
+    synchronized void start(List<ChapterParser.Chapter> chapters, CharSequence text, PageBreaker breaker,
+                            PageStore store, int anchor, Callback callback) {
+        cancel();
+        final int token = generation.get();
+        Job job = new Job(token, chapters, text, breaker, store, callback);
+        running = worker.submit(() -> paginate(job, anchor));
+    }
+
+    synchronized void cancel() {
+        generation.incrementAndGet();
+        if (running != null) {
+            running.cancel(true);
+            running = null;
+        }
+    }
+
+    void shutdown() {
+        cancel();
+        worker.shutdownNow();
+    }
+
+    /** 包含 charOffset 的章节下标，落在两章之间的空白时取前一章。 */
+    static int chapterAt(List<ChapterParser.Chapter> chapters, int charOffset) {
+        int low = 0;
+        int high = chapters.size() - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (chapters.get(mid).start <= charOffset) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    private static final class Job {
+        final int token;
+        final List<ChapterParser.Chapter> chapters;
+        // 全文，每次只取一章
+        final CharSequence text;
+        final PageBreaker breaker;
+        final PageStore store;
+        final Callback callback;
+
+        Job(int token, List<ChapterParser.Chapter> chapters, CharSequence text, PageBreaker breaker,
+            PageStore store, Callback callback) {
+            this.token = token;
+            this.chapters = chapters;
+            this.text = text;
+            this.breaker = breaker;
+            this.store = store;
+            this.callback = callback;
+        }
+    }
+
+    private void paginate(Job job, int anchor) {
+        int count = job.chapters.size();
+        if (count > 0) {
+            layout(job, anchor, false);
+        }
+        int next = anchor + 1;
+        int previous = anchor - 1;
+        while ((next < count || previous >= 0) && !isCancelled(job.token)) {
+            // 往后翻的可能性更大，后一章先排
+            if (next < count) {
+                layout(job, next++, false);
+            }
+            if (previous >= 0 && !isCancelled(job.token)) {
+                layout(job, previous--, true);
+            }
+        }
+        if (isCancelled(job.token)) return;
+        callbackExecutor.execute(() -> {
+            if (job.token == generation.get()) {
+                job.callback.onComplete();
+            }
+        });
+    }
+
+    private void layout(Job job, int index, boolean before) {
+        ChapterParser.Chapter chapter = job.chapters.get(index);
+        // 空章节没有页，跳过后前后两段仍然连续
+        if (chapter.end <= chapter.start) return;
+        int[] saved = job.store == null ? null : job.store.get(index);
+        int[] starts;
+        if (saved != null) {
+            starts = saved.clone();
+        } else {
+            starts = job.breaker.pageStarts(job.text.subSequence(chapter.start, chapter.end));
+            if (isCancelled(job.token)) return;
+            if (job.store != null) {
+                job.store.put(index, starts.clone());
+            }
+        }
+        for (int i = 0; i < starts.length; i++) {
+            starts[i] += chapter.start;
+        }
+        callbackExecutor.execute(() -> {
+            if (job.token == generation.get()) {
+                job.callback.onChapter(index, starts, before);
+            }
+        });
+    }
+
+    private boolean isCancelled(int token) {
+        return token != generation.get() || Thread.currentThread().isInterrupted();
+    }
+}
@@ -2,6 +2,7 @@ package com.example.simpletool;
 
 import android.Manifest;
 import android.content.ActivityNotFoundException;
+import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
 import android.content.pm.PackageManager;
@@ -9,65 +10,112 @@ import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
 import android.os.Environment;
-import android.os.storage.StorageManager;
-import android.os.storage.StorageVolume;
+import android.os.Parcelable;
 import android.provider.Settings;
+import android.text.format.Formatter;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.Menu;
 import android.view.MenuItem;
+import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
 import android.webkit.MimeTypeMap;
+import android.widget.ImageView;
+import android.widget.PopupMenu;
+import android.widget.ProgressBar;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 import androidx.core.content.FileProvider;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.google.android.material.tabs.TabLayout;
+
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.IOException;
-import java.io.InputStream;
-import java.net.URLConnection;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 
 public class MainActivity extends AppCompatActivity {
 
-    private RecyclerView recyclerView;
-    private FileAdapter fileAdapter;
-    private List<Object> fileList;
     private TextView tvCurrentPath;
-    private String currentPath;
+    // 两个窗格各自有导航位置、列表和加载器；菜单、排序、多选和粘贴都作用于当前激活的窗格
+    private final Pane[] panes = new Pane[2];
+    private Pane activePane;
+    // 平板上两个窗格并排，手机上用标签切换
+    private boolean dualPane;
+    private TabLayout paneTabs;
+    // showStorageRoots 发现的存储根目录，供文件搜索建立索引
+    private final List<File> storageRoots = new ArrayList<>();
+    // 目录列表缓存、访问记录和文件夹大小的线程池由两个窗格共用
+    private ForkJoinPool folderSizePool;
+    // 打开文件前的类型检测和图片列表整理，不占用主线程
+    private final ExecutorService fileOpener = Executors.newSingleThreadExecutor(r -> new Thread(r, "FileOpener"));
+
+    private FileOperationQueue fileOperationQueue;
+    private RecursiveDeleter recursiveDeleter;
+    private StorageVolumeRegistry storageVolumes;
+    private int deletingCount;
+    // 尚未结束的复制/移动任务
+    private final List<FileOperationQueue.Job> activeJobs = new ArrayList<>();
+    // 复制或剪切后等待粘贴的文件
+    private final List<File> clipboard = new ArrayList<>();
+    private boolean clipboardMove;
+    private View layoutOperation, layoutActions;
+    private TextView tvOperationStatus, tvActionInfo;
+    private ProgressBar progressOperation;
 
     private static final int REQUEST_CODE_PERMISSIONS = 1001;
+    private static final int DIRECTORY_CACHE_ENTRIES = 100_000;
+    // 回到存储根目录时，容量数据超过这个时间才重新读取
+    private static final long VOLUME_USAGE_MAX_AGE_MS = 30_000;
+    private static final int VISIT_TABLE_ENTRIES = 256;
+    // 进入目录后预取其中最常进入的几个子目录
+    private static final int POPULAR_CHILD_PREFETCH = 3;
+    // 重新排序时条目数超过该值就不做差分（逆序等大幅调整的差分代价接近平方级）
+    private static final int RESORT_DIFF_LIMIT = 5_000;
+    // 每个窗格的回退栈中保留的列表合计占用上限
+    private static final long BACK_STACK_BYTES = 8L << 20;
     private static final String[] REQUIRED_PERMISSIONS = {
             Manifest.permission.READ_EXTERNAL_STORAGE
     };
 
-    private static final String[] IMAGE_EXTENSIONS = {
-            "jpg", "jpeg", "png", "gif", "bmp", "webp" // 基础图片格式
-    };
-
-    // 新增排序模式枚举
-    private enum SortMode {
-        NAME_ASC, NAME_DESC,
-        SIZE_ASC, SIZE_DESC,
-        DATE_ASC, DATE_DESC
-    }
-
-    private SortMode currentSortMode = SortMode.NAME_ASC;
-
+    // 搜索、存储分析和重复文件页都可能返回一个路径，由主界面跳转过去
+    private final ActivityResultLauncher<Intent> pathResultLauncher = registerForActivityResult(
+            new ActivityResultContracts.StartActivityForResult(), result -> {
+                if (result.getResultCode() == RESULT_OK && result.getData() != null) {
+                    Intent data = result.getData();
+                    String path = data.getStringExtra(SearchActivity.EXTRA_RESULT_PATH);
+                    if (path != null) {
+                        openSearchResult(new File(path));
+                    } else if (data.getBooleanExtra(DuplicateFinderActivity.EXTRA_FILES_DELETED, false)) {
+                        reloadPanes();
+                    }
+                }
+            });
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -81,20 +129,76 @@ public class MainActivity extends AppCompatActivity {
 
     private void initViews() {
         tvCurrentPath = findViewById(R.id.tv_current_path);
-        recyclerView = findViewById(R.id.recyclerView);
-        fileList = new ArrayList<>();
-        fileAdapter = new FileAdapter(this, fileList);
+        Executor mainExecutor = ContextCompat.getMainExecutor(this);
+        DirectoryCache directoryCache = new DirectoryCache(
+                new File(getCacheDir(), "dir_listing"), DIRECTORY_CACHE_ENTRIES);
+        VisitFrequencyTable visits = new VisitFrequencyTable(
+                new File(getFilesDir(), "visit_frequency.bin"), VISIT_TABLE_ENTRIES);
+        folderSizePool = new ForkJoinPool(2);
+        fileOperationQueue = new FileOperationQueue(mainExecutor, operationListener);
+        recursiveDeleter = new RecursiveDeleter(new ForkJoinPool(2), mainExecutor);
+        StorageVolumeSource volumeSource = new StorageVolumeSource(this);
+        storageVolumes = new StorageVolumeRegistry(volumeSource, volumeSource, mainExecutor,
+                Collections.singletonList(StorageVolumeSource.internalVolume()), VOLUME_USAGE_MAX_AGE_MS);
+        storageVolumes.setListener(volumes -> applyStorageVolumes(volumes, false));
+
+        panes[0] = new Pane(findViewById(R.id.recycler_pane_primary), directoryCache, visits);
+        panes[1] = new Pane(findViewById(R.id.recycler_pane_secondary), directoryCache, visits);
+        activePane = panes[0];
+        dualPane = getResources().getBoolean(R.bool.dual_pane);
+        paneTabs = findViewById(R.id.pane_tabs);
+        if (dualPane) {
+            findViewById(R.id.pane_divider).setVisibility(View.VISIBLE);
+            panes[1].recyclerView.setVisibility(View.VISIBLE);
+        } else {
+            paneTabs.setVisibility(View.VISIBLE);
+            for (int i = 0; i < panes.length; i++) {
+                paneTabs.addTab(paneTabs.newTab());
+            }
+            paneTabs.addOnTabSelectedListener(new TabLayout.OnTabSelectedListener() {
+                @Override
+                public void onTabSelected(TabLayout.Tab tab) {
+                    setActivePane(panes[tab.getPosition()]);
+                }
 
-        recyclerView.setLayoutManager(new LinearLayoutManager(this));
-        recyclerView.setAdapter(fileAdapter);
+                @Override
+                public void onTabUnselected(TabLayout.Tab tab) {
+                }
+
+                @Override
+                public void onTabReselected(TabLayout.Tab tab) {
+                }
+            });
+        }
+        updatePaneHighlight();
 
         // 绑定排序按钮点击事件
         findViewById(R.id.btn_sort).setOnClickListener(v -> showSortDialog());
+        findViewById(R.id.btn_more).setOnClickListener(this::showMoreMenu);
+
+        layoutOperation = findViewById(R.id.layout_operation);
+        layoutActions = findViewById(R.id.layout_actions);
+        tvOperationStatus = findViewById(R.id.tv_operation_status);
+        tvActionInfo = findViewById(R.id.tv_action_info);
+        progressOperation = findViewById(R.id.progress_operation);
+        findViewById(R.id.btn_operation_cancel).setOnClickListener(v -> cancelOperations());
+        findViewById(R.id.btn_action_copy).setOnClickListener(v -> copySelection(false));
+        findViewById(R.id.btn_action_cut).setOnClickListener(v -> copySelection(true));
+        findViewById(R.id.btn_action_delete).setOnClickListener(v -> deleteSelection());
+        findViewById(R.id.btn_action_paste).setOnClickListener(v -> paste());
+        findViewById(R.id.btn_action_cancel).setOnClickListener(v -> {
+            if (activePane.fileAdapter.getSelectionCount() > 0) {
+                activePane.fileAdapter.clearSelection();
+            } else {
+                clipboard.clear();
+            }
+            updateActionBar();
+        });
     }
 
     private void checkPermissions() {
         if (allPermissionsGranted()) {
-            showStorageRoots();
+            showAllStorageRoots();
         } else {
             ActivityCompat.requestPermissions(
                     this,
@@ -114,73 +218,58 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
-    private void showStorageRoots() {
-
-        Log.e("@@@", "showStorageRoots");
-        fileList.clear();
-        currentPath = null;
-
-        // 添加内置存储
-        fileList.add(new StorageVolumeItem(
-                Environment.getExternalStorageDirectory(),
-                "内部存储",
-                false
-        ));
+    private void showAllStorageRoots() {
+        for (Pane pane : panes) {
+            pane.showStorageRoots();
+        }
+    }
 
-        // 添加外置存储
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
-            StorageManager sm = getSystemService(StorageManager.class);
-            for (StorageVolume volume : sm.getStorageVolumes()) {
-                if (volume.isRemovable()) {
-                    File volumePath = null;
-                    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
-                        volumePath = volume.getDirectory();
-                    }
-                    fileList.add(new StorageVolumeItem(
-                            volumePath,
-                            "SD卡 - " + volume.getDescription(this),
-                            true
-                    ));
-                }
+    // 切换窗格只改变显示和菜单作用的对象，两个窗格的列表和加载都保持原样
+    private void setActivePane(Pane pane) {
+        if (pane == activePane) return;
+        activePane = pane;
+        if (!dualPane) {
+            int index = Arrays.asList(panes).indexOf(pane);
+            TabLayout.Tab tab = paneTabs.getTabAt(index);
+            if (tab != null && !tab.isSelected()) {
+                tab.select();
             }
         }
-
-        updatePathDisplay("存储设备");
-        fileAdapter.notifyDataSetChanged();
-
-        Log.e("@@@", "文件列表" + fileList.size());
+        updatePaneHighlight();
+        updatePathDisplay();
+        updateActionBar();
     }
 
-    private void loadDirectory(String path) {
-
-        Log.e("@@@", "loadDirectory" + path);
-
-        currentPath = path;
-        File currentDir = new File(path);
-        fileList.clear();
+    private void updatePaneHighlight() {
+        for (Pane pane : panes) {
+            if (dualPane) {
+                pane.recyclerView.setBackgroundColor(ContextCompat.getColor(this,
+                        pane == activePane ? R.color.white : R.color.pane_inactive));
+            } else {
+                pane.recyclerView.setVisibility(pane == activePane ? View.VISIBLE : View.GONE);
+            }
+        }
+    }
 
-        if (!path.equals(getParentStoragePath())) {
-            fileList.add(new BackItem());
+    // 卷列表或容量变化：更新搜索和文件操作使用的根目录，正在显示根目录页面的窗格刷新列表
+    private void applyStorageVolumes(List<StorageVolumeRegistry.Volume> volumes, boolean replace) {
+        storageRoots.clear();
+        for (StorageVolumeRegistry.Volume volume : volumes) {
+            storageRoots.add(volume.root);
         }
+        fileOperationQueue.setVolumeRoots(storageRoots);
+        for (Pane pane : panes) {
+            pane.showStorageVolumes(volumes, replace);
+        }
+    }
 
-        File[] filesArray = currentDir.listFiles();
-        if (filesArray != null) {
-            List<File> allFiles = new ArrayList<>();
-            for (File file : filesArray) {
-                if (file.isDirectory() && file.canRead()) {
-                    allFiles.add(file);
-                } else if (file.isFile()) {
-                    allFiles.add(file);
-                }
+    // 删除或重复文件页改动了文件后，重新加载正在显示目录的窗格
+    private void reloadPanes() {
+        for (Pane pane : panes) {
+            if (pane.currentPath != null) {
+                pane.loadDirectory(pane.currentPath);
             }
-            sortFiles(allFiles);
-            fileList.addAll(allFiles);
         }
-
-        Log.e("@@@", "文件列表" + fileList.size());
-
-        updatePathDisplay(path);
-        fileAdapter.notifyDataSetChanged();
     }
 
     private String getParentStoragePath() {
@@ -189,7 +278,7 @@ public class MainActivity extends AppCompatActivity {
                 "/storage";
     }
 
-    private void openFile(File file) {
+    private void openFile(Pane pane, File file) {
         // 如果是目录则直接返回
         if (file.isDirectory()) return;
 
@@ -200,52 +289,117 @@ public class MainActivity extends AppCompatActivity {
                 return;
             }
 
-            // 根据文件类型选择打开方式
-            if (isTextFile(file)) {
-                openTextReader(file);
-            } else if (isImageFile(file)) {
-                openImageGallery(file);
-            } else {
-                openWithSystemApp(file);
+            // ZIP/CBZ/EPUB 作为虚拟目录进入，只读取中央目录
+            if (ZipArchive.isArchiveName(file.getName())) {
+                pane.loadDirectory(file.getAbsolutePath());
+                return;
             }
+
+            // 文件头检测和图片列表的整理都在后台进行，同目录的文件优先用列表已检测出的类型
+            Map<String, FileTypes.Type> listedTypes = pane.listedTypes(file.getParent());
+            fileOpener.execute(() -> {
+                FileTypes.Type type;
+                ArrayList<String> imagePaths;
+                try {
+                    FileTypes.Type listed = listedTypes.get(file.getName());
+                    type = listed != null ? listed : FileTypeDetector.detect(file);
+                    imagePaths = type.kind == FileTypes.KIND_IMAGE ? galleryPaths(file, listedTypes) : null;
+                } catch (SecurityException e) {
+                    runOnUiThread(() -> handleFileAccessError(file, e));
+                    return;
+                }
+                runOnUiThread(() -> {
+                    if (isDestroyed()) return;
+                    if (type.kind == FileTypes.KIND_TEXT) {
+                        openTextReader(file);
+                    } else if (imagePaths != null) {
+                        openImageGallery(imagePaths, imagePaths.indexOf(file.getAbsolutePath()));
+                    } else {
+                        openWithSystemApp(file, type);
+                    }
+                });
+            });
         } catch (SecurityException e) {
             handleFileAccessError(file, e);
         }
     }
 
-    private void openImageGallery(File imageFile) {
-        File parentDir = imageFile.getParentFile();
-        File[] allFiles = parentDir.listFiles();
-
-        ArrayList<String> imagePaths = new ArrayList<>();
-        int position = 0;
-
-        // 过滤并排序图片文件
-        List<File> imageFiles = Arrays.stream(allFiles)
-                .filter(this::isImageFile)
-                .sorted((f1, f2) -> f1.getName().compareToIgnoreCase(f2.getName()))
-                .collect(Collectors.toList());
+    /**
+     * 与 file 同目录的图片，按与文件列表相同的名称规则排序。在后台线程调用。
+     * 不逐个读文件头：列表已检测出类型的文件直接用，其余按扩展名判断。
+     */
+    private static ArrayList<String> galleryPaths(File imageFile, Map<String, FileTypes.Type> listedTypes) {
+        File[] allFiles = imageFile.getParentFile().listFiles();
+        List<File> imageFiles = new ArrayList<>();
+        if (allFiles != null) {
+            for (File f : allFiles) {
+                FileTypes.Type type = listedTypes.get(f.getName());
+                if (type == null) {
+                    // 列表里没有类型的可能是文件夹，只对看起来像图片的名字 stat
+                    type = FileTypes.byName(f.getName());
+                    if (type.kind == FileTypes.KIND_IMAGE && f.isDirectory()) continue;
+                }
+                if (type.kind == FileTypes.KIND_IMAGE || f.equals(imageFile)) {
+                    imageFiles.add(f);
+                }
+            }
+        }
+        FileSorter.sortByName(imageFiles, File::getName);
 
-        // 收集路径并找到当前图片位置
-        for (int i = 0; i < imageFiles.size(); i++) {
-            File f = imageFiles.get(i);
+        ArrayList<String> imagePaths = new ArrayList<>(imageFiles.size());
+        for (File f : imageFiles) {
             imagePaths.add(f.getAbsolutePath());
-            if (f.equals(imageFile)) {
-                position = i;
-            }
         }
+        return imagePaths;
+    }
 
+    private void openImageGallery(ArrayList<String> imagePaths, int position) {
         // 启动预览Activity
         Intent intent = new Intent(this, ImageListActivity.class);
         intent.putStringArrayListExtra("image_paths", imagePaths);
-        intent.putExtra("position", position);
+        intent.putExtra("position", Math.max(0, position));
         startActivity(intent);
     }
 
-    // 文本文件检测方法
-    private boolean isTextFile(File file) {
-        String fileName = file.getName().toLowerCase();
-        return fileName.endsWith(".txt");
+    // 压缩包内的文件按扩展名打开，阅读器和图片浏览直接读取解压流，不写临时文件
+    private void openArchiveEntry(FileEntry entry, List<FileEntry> siblings) {
+        if (!entry.readable) {
+            Toast.makeText(this, "不支持加密的文件", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        FileTypes.Type type = FileTypes.byName(entry.name);
+        if (type.kind == FileTypes.KIND_TEXT) {
+            if (entry.size == 0) {
+                Toast.makeText(this, "无效的文本文件", Toast.LENGTH_SHORT).show();
+                return;
+            }
+            Intent intent = new Intent(this, NovelReaderActivity.class);
+            intent.putExtra("file_path", entry.getPath());
+            intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+            startActivity(intent);
+        } else if (type.kind == FileTypes.KIND_IMAGE) {
+            List<FileEntry> images = new ArrayList<>();
+            for (FileEntry e : siblings) {
+                if (!e.isDirectory && FileTypes.byName(e.name).kind == FileTypes.KIND_IMAGE) {
+                    images.add(e);
+                }
+            }
+            FileSorter.sortByName(images, e -> e.name);
+            ArrayList<String> imagePaths = new ArrayList<>(images.size());
+            int position = 0;
+            for (int i = 0; i < images.size(); i++) {
+                imagePaths.add(images.get(i).getPath());
+                if (images.get(i).name.equals(entry.name)) {
+                    position = i;
+                }
+            }
+            Intent intent = new Intent(this, ImageListActivity.class);
+            intent.putStringArrayListExtra("image_paths", imagePaths);
+            intent.putExtra("position", position);
+            startActivity(intent);
+        } else {
+            Toast.makeText(this, "压缩包内的此类文件无法直接打开", Toast.LENGTH_SHORT).show();
+        }
     }
 
     // 打开文本阅读器
@@ -269,7 +423,7 @@ public class MainActivity extends AppCompatActivity {
     }
 
     // 系统应用打开方法（原有逻辑）
-    private void openWithSystemApp(File file) {
+    private void openWithSystemApp(File file, FileTypes.Type type) {
         try {
             Uri uri = FileProvider.getUriForFile(
                     this,
@@ -278,7 +432,7 @@ public class MainActivity extends AppCompatActivity {
             );
 
             Intent intent = new Intent(Intent.ACTION_VIEW)
-                    .setDataAndType(uri, getMimeType(file))
+                    .setDataAndType(uri, getMimeType(file, type))
                     .addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION);
 
             if (intent.resolveActivity(getPackageManager()) != null) {
@@ -292,21 +446,15 @@ public class MainActivity extends AppCompatActivity {
     }
 
 
-    // 改进的MIME类型检测方法
-    private String getMimeType(File file) {
-        // 1. 通过文件扩展名检测
-        String extension = MimeTypeMap.getFileExtensionFromUrl(file.getName());
-        String mimeType = MimeTypeMap.getSingleton().getMimeTypeFromExtension(extension.toLowerCase());
-
-        // 2. 通过ContentResolver检测（更准确）
-        if (mimeType == null || mimeType.isEmpty()) {
-            try (InputStream is = new FileInputStream(file)) {
-                mimeType = URLConnection.guessContentTypeFromStream(is);
-            } catch (IOException ignored) {
-            }
+    // MIME 类型：优先用内容检测的结果，检测不出时按扩展名查系统表
+    private String getMimeType(File file, FileTypes.Type type) {
+        String mimeType = type.mime;
+        if (mimeType == null) {
+            String extension = MimeTypeMap.getFileExtensionFromUrl(file.getName());
+            mimeType = MimeTypeMap.getSingleton().getMimeTypeFromExtension(extension.toLowerCase());
         }
 
-        // 3. 最终回退方案
+        // 最终回退方案
         if (mimeType == null || mimeType.isEmpty()) {
             mimeType = "*/*"; // 通用类型
         }
@@ -326,42 +474,33 @@ public class MainActivity extends AppCompatActivity {
                 .show();
     }
 
-    public boolean isImageFile(File file) {
-        if (file == null) return false;
-
-        String fileName = file.getName();
-        int dotIndex = fileName.lastIndexOf('.');
-        if (dotIndex == -1) return false; // 无后缀名
-
-        String extension = fileName.substring(dotIndex + 1).toLowerCase();
-        for (String imgExt : IMAGE_EXTENSIONS) {
-            if (imgExt.equals(extension)) {
-                return true;
+    // 顶部显示激活窗格的路径，标签上显示各窗格所在目录的名字
+    private void updatePathDisplay() {
+        String path = activePane.currentPath;
+        tvCurrentPath.setText(path == null ? "选择存储位置" : displayPath(path));
+        if (dualPane) return;
+        for (int i = 0; i < panes.length; i++) {
+            TabLayout.Tab tab = paneTabs.getTabAt(i);
+            if (tab != null) {
+                String panePath = panes[i].currentPath;
+                tab.setText(panePath == null ? "存储设备" : new File(displayPath(panePath)).getName());
             }
         }
-        return false;
     }
 
-
-    private void updatePathDisplay(String path) {
-        String displayText = currentPath == null ?
-                "选择存储位置" :
-                path.replace(Environment.getExternalStorageDirectory().getPath(), "内部存储");
-        tvCurrentPath.setText(displayText);
+    private static String displayPath(String path) {
+        return path.replace(Environment.getExternalStorageDirectory().getPath(), "内部存储");
     }
 
     @Override
     public void onBackPressed() {
-        if (currentPath == null) {
+        if (activePane.fileAdapter.getSelectionCount() > 0) {
+            activePane.fileAdapter.clearSelection();
+            updateActionBar();
+        } else if (activePane.currentPath == null) {
             super.onBackPressed();
         } else {
-            File currentDir = new File(currentPath);
-            String parent = currentDir.getParent();
-            if (parent != null && !parent.equals(getParentStoragePath())) {
-                loadDirectory(parent);
-            } else {
-                showStorageRoots();
-            }
+            activePane.navigateUp();
         }
     }
 
@@ -376,41 +515,6 @@ public class MainActivity extends AppCompatActivity {
         return true;
     }
 
-    public void navigateTo(File target) {
-
-        if (target.isDirectory()) {
-            loadDirectory(target.getAbsolutePath());
-        } else {
-            openFile(target);
-        }
-    }
-
-    private void sortFiles(List<File> files) {
-        if (files == null || files.isEmpty()) return;
-
-        Collections.sort(files, (f1, f2) -> {
-            if (f1.isDirectory() && !f2.isDirectory()) return -1;
-            if (!f1.isDirectory() && f2.isDirectory()) return 1;
-
-            switch (currentSortMode) {
-                case NAME_ASC:
-                    return f1.getName().compareToIgnoreCase(f2.getName());
-                case NAME_DESC:
-                    return f2.getName().compareToIgnoreCase(f1.getName());
-                case SIZE_ASC:
-                    return Long.compare(f1.length(), f2.length());
-                case SIZE_DESC:
-                    return Long.compare(f2.length(), f1.length());
-                case DATE_ASC:
-                    return Long.compare(f1.lastModified(), f2.lastModified());
-                case DATE_DESC:
-                    return Long.compare(f2.lastModified(), f1.lastModified());
-                default:
-                    return 0;
-            }
-        });
-    }
-
     @Override
     public boolean onCreateOptionsMenu(Menu menu) {
         getMenuInflater().inflate(R.menu.menu_main, menu);
@@ -422,46 +526,350 @@ public class MainActivity extends AppCompatActivity {
         if (item.getItemId() == R.id.menu_sort) {
             showSortDialog();
             return true;
+        } else if (item.getItemId() == R.id.menu_search) {
+            openSearch();
+            return true;
+        } else if (item.getItemId() == R.id.menu_analyze) {
+            openStorageAnalyzer();
+            return true;
+        } else if (item.getItemId() == R.id.menu_duplicates) {
+            openDuplicateFinder();
+            return true;
         }
         return super.onOptionsItemSelected(item);
     }
 
+    // 主界面没有 ActionBar，通过弹出菜单展示 menu_main
+    private void showMoreMenu(View anchor) {
+        PopupMenu popup = new PopupMenu(this, anchor);
+        popup.getMenuInflater().inflate(R.menu.menu_main, popup.getMenu());
+        popup.setOnMenuItemClickListener(this::onOptionsItemSelected);
+        popup.show();
+    }
+
+    private void openSearch() {
+        ArrayList<String> roots = new ArrayList<>();
+        for (File root : storageRoots) {
+            if (root != null) {
+                roots.add(root.getAbsolutePath());
+            }
+        }
+        Intent intent = new Intent(this, SearchActivity.class);
+        intent.putStringArrayListExtra(SearchActivity.EXTRA_ROOTS, roots);
+        pathResultLauncher.launch(intent);
+    }
+
+    // 在目录中时分析该目录所在的存储卷，在根列表时有多个存储卷则先选择
+    private void openStorageAnalyzer() {
+        List<File> roots = availableRoots();
+        String currentPath = activePane.currentPath;
+        if (currentPath != null) {
+            for (File root : roots) {
+                String rootPath = root.getAbsolutePath();
+                if (currentPath.equals(rootPath) || currentPath.startsWith(rootPath + File.separator)) {
+                    analyzeStorage(root);
+                    return;
+                }
+            }
+        }
+        chooseRoot(roots, "选择要分析的存储", this::analyzeStorage);
+    }
+
+    // 在目录中时查找当前目录下的重复文件，在根列表时选择一个存储卷
+    private void openDuplicateFinder() {
+        if (activePane.currentPath != null) {
+            findDuplicates(new File(activePane.currentPath));
+        } else {
+            chooseRoot(availableRoots(), "选择要查找的存储", this::findDuplicates);
+        }
+    }
+
+    private List<File> availableRoots() {
+        List<File> roots = new ArrayList<>();
+        for (File root : storageRoots) {
+            if (root != null) {
+                roots.add(root);
+            }
+        }
+        return roots;
+    }
+
+    private void chooseRoot(List<File> roots, String title, Consumer<File> action) {
+        if (roots.isEmpty()) {
+            Toast.makeText(this, "没有可用的存储", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        if (roots.size() == 1) {
+            action.accept(roots.get(0));
+            return;
+        }
+
+        String[] names = new String[roots.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = roots.get(i).getAbsolutePath();
+        }
+        new AlertDialog.Builder(this)
+                .setTitle(title)
+                .setItems(names, (dialog, which) -> action.accept(roots.get(which)))
+                .show();
+    }
+
+    private void findDuplicates(File root) {
+        Intent intent = new Intent(this, DuplicateFinderActivity.class);
+        intent.putExtra(DuplicateFinderActivity.EXTRA_ROOT, root.getAbsolutePath());
+        pathResultLauncher.launch(intent);
+    }
+
+    private void analyzeStorage(File root) {
+        Intent intent = new Intent(this, StorageAnalyzerActivity.class);
+        intent.putExtra(StorageAnalyzerActivity.EXTRA_ROOT, root.getAbsolutePath());
+        pathResultLauncher.launch(intent);
+    }
+
+    // 搜索结果是目录则在激活窗格中进入该目录，是文件则进入其所在目录并打开
+    private void openSearchResult(File target) {
+        if (target.isDirectory()) {
+            activePane.loadDirectory(target.getAbsolutePath());
+        } else {
+            String parent = target.getParent();
+            if (parent != null) {
+                activePane.loadDirectory(parent);
+            }
+            openFile(activePane, target);
+        }
+    }
+
+    // 排序方式按窗格分别记录
     private void showSortDialog() {
+        Pane pane = activePane;
         String[] sortOptions = {"名称升序", "名称降序", "大小升序", "大小降序", "时间升序", "时间降序"};
         new AlertDialog.Builder(this)
                 .setTitle("排序方式")
                 .setItems(sortOptions, (dialog, which) -> {
-                    currentSortMode = SortMode.values()[which];
-                    loadDirectory(currentPath);
+                    pane.sortMode = SortMode.values()[which];
+                    if (pane.currentPath != null) {
+                        pane.resortCurrentDirectory();
+                    }
                 })
                 .show();
     }
 
-    private void showDeleteDialog(File file) {
+    // 底部栏：多选时显示复制/剪切/删除，剪贴板非空时显示粘贴（粘贴到激活的窗格）
+    void updateActionBar() {
+        int selected = activePane.fileAdapter.getSelectionCount();
+        View paste = findViewById(R.id.btn_action_paste);
+        if (selected > 0) {
+            tvActionInfo.setText("已选择 " + selected + " 项");
+            setActionsVisible(true);
+            paste.setVisibility(View.GONE);
+        } else if (!clipboard.isEmpty()) {
+            tvActionInfo.setText(clipboard.size() + " 项待" + (clipboardMove ? "移动" : "复制"));
+            setActionsVisible(false);
+            paste.setVisibility(View.VISIBLE);
+            paste.setEnabled(activePane.currentPath != null && !activePane.currentInArchive);
+        } else {
+            layoutActions.setVisibility(View.GONE);
+            return;
+        }
+        layoutActions.setVisibility(View.VISIBLE);
+    }
+
+    private void setActionsVisible(boolean visible) {
+        int visibility = visible ? View.VISIBLE : View.GONE;
+        findViewById(R.id.btn_action_copy).setVisibility(visibility);
+        findViewById(R.id.btn_action_cut).setVisibility(visibility);
+        findViewById(R.id.btn_action_delete).setVisibility(visibility);
+    }
+
+    private void copySelection(boolean move) {
+        clipboard.clear();
+        for (FileEntry entry : activePane.fileAdapter.getSelectedEntries()) {
+            clipboard.add(entry.toFile());
+        }
+        clipboardMove = move;
+        activePane.fileAdapter.clearSelection();
+        updateActionBar();
+    }
+
+    private void paste() {
+        String currentPath = activePane.currentPath;
+        if (currentPath == null || clipboard.isEmpty()) return;
+        activeJobs.add(fileOperationQueue.enqueue(clipboardMove, clipboard, new File(currentPath)));
+        // 移动只能粘贴一次，复制可以粘贴到多个位置
+        if (clipboardMove) {
+            clipboard.clear();
+        }
+        tvOperationStatus.setText("准备中…");
+        progressOperation.setIndeterminate(false);
+        progressOperation.setProgress(0);
+        layoutOperation.setVisibility(View.VISIBLE);
+        updateActionBar();
+    }
+
+    private void cancelOperations() {
+        for (FileOperationQueue.Job job : activeJobs) {
+            job.cancel();
+        }
+        recursiveDeleter.cancel();
+    }
+
+    // 多选删除，文件夹连同其内容一起在后台删除
+    private void deleteSelection() {
+        List<FileEntry> selected = activePane.fileAdapter.getSelectedEntries();
+        if (selected.isEmpty()) return;
+        List<File> targets = new ArrayList<>();
+        boolean hasDirectory = false;
+        for (FileEntry entry : selected) {
+            targets.add(entry.toFile());
+            hasDirectory |= entry.isDirectory;
+        }
+        String message = targets.size() == 1
+                ? "确定删除 " + selected.get(0).name + " 吗？"
+                : "确定删除选中的 " + targets.size() + " 项吗？";
+        if (hasDirectory) {
+            message += "\n文件夹中的所有内容都会被删除。";
+        }
         new AlertDialog.Builder(this)
+                .setTitle("删除")
+                .setMessage(message)
+                .setPositiveButton("删除", (dialog, which) -> startDelete(targets))
+                .setNegativeButton("取消", null)
+                .show();
+    }
+
+    private void startDelete(List<File> targets) {
+        activePane.fileAdapter.clearSelection();
+        updateActionBar();
+        deletingCount++;
+        tvOperationStatus.setText("正在删除…");
+        progressOperation.setIndeterminate(true);
+        layoutOperation.setVisibility(View.VISIBLE);
+        recursiveDeleter.delete(targets, deleteListener);
+    }
+
+    // 两个窗格可能显示同一目录，删除结果同步到所有窗格
+    private final RecursiveDeleter.Listener deleteListener = new RecursiveDeleter.Listener() {
+        @Override
+        public void onProgress(int deletedCount, List<String> removedPaths) {
+            tvOperationStatus.setText("正在删除… 已删除 " + deletedCount + " 项");
+            for (Pane pane : panes) {
+                pane.removeFromListing(removedPaths);
+            }
+        }
+
+        @Override
+        public void onComplete(int deletedCount, int failedCount, boolean cancelled, List<String> removedPaths) {
+            deletingCount--;
+            for (Pane pane : panes) {
+                pane.removeFromListing(removedPaths);
+            }
+            progressOperation.setIndeterminate(false);
+            hideOperationIfIdle();
+            String text = cancelled ? "已取消删除，已删除 " + deletedCount + " 项" : "已删除 " + deletedCount + " 项";
+            if (failedCount > 0) {
+                text += "，" + failedCount + " 项删除失败";
+            }
+            Toast.makeText(MainActivity.this, text, Toast.LENGTH_SHORT).show();
+            // 删除失败或被取消的文件夹仍在，但其中内容已变化
+            if (cancelled || failedCount > 0) {
+                reloadPanes();
+            }
+        }
+    };
+
+    private void hideOperationIfIdle() {
+        if (activeJobs.isEmpty() && deletingCount == 0) {
+            layoutOperation.setVisibility(View.GONE);
+        }
+    }
+
+    private final FileOperationQueue.Listener operationListener = new FileOperationQueue.Listener() {
+        @Override
+        public void onProgress(FileOperationQueue.Job job, long doneBytes, long totalBytes, long bytesPerSecond) {
+            String action = job.move ? "正在移动" : "正在复制";
+            tvOperationStatus.setText(action + "… "
+                    + Formatter.formatShortFileSize(MainActivity.this, doneBytes) + " / "
+                    + Formatter.formatShortFileSize(MainActivity.this, totalBytes) + " · "
+                    + Formatter.formatShortFileSize(MainActivity.this, bytesPerSecond) + "/s");
+            progressOperation.setProgress(totalBytes > 0 ? (int) (doneBytes * 1000 / totalBytes) : 0);
+        }
+
+        @Override
+        public void onFinished(FileOperationQueue.Job job) {
+            activeJobs.remove(job);
+            hideOperationIfIdle();
+            String action = job.move ? "移动" : "复制";
+            if (job.isCancelled()) {
+                Toast.makeText(MainActivity.this, "已取消" + action, Toast.LENGTH_SHORT).show();
+            } else if (job.failedCount > 0) {
+                Toast.makeText(MainActivity.this, job.failedCount + " 项" + action + "失败", Toast.LENGTH_SHORT).show();
+            } else {
+                Toast.makeText(MainActivity.this, action + "完成", Toast.LENGTH_SHORT).show();
+            }
+        }
+    };
+
+    // 删除确认和删除本身，重复文件页也通过这里删除
+    static void showDeleteDialog(Context context, File file, Runnable onDeleted) {
+        new AlertDialog.Builder(context)
                 .setTitle("删除文件")
                 .setMessage("确定删除 " + file.getName() + " 吗？")
-                .setPositiveButton("删除", (dialog, which) -> deleteFile(file))
+                .setPositiveButton("删除", (dialog, which) -> deleteFile(context, file, onDeleted))
                 .setNegativeButton("取消", null)
                 .show();
     }
 
-    private void deleteFile(File file) {
+    static void deleteFile(Context context, File file, Runnable onDeleted) {
         if (file.delete()) {
-            Toast.makeText(this, "删除成功", Toast.LENGTH_SHORT).show();
-            loadDirectory(currentPath);
+            Toast.makeText(context, "删除成功", Toast.LENGTH_SHORT).show();
+            onDeleted.run();
         } else {
-            Toast.makeText(this, "删除失败", Toast.LENGTH_SHORT).show();
+            Toast.makeText(context, "删除失败", Toast.LENGTH_SHORT).show();
         }
     }
 
+    @Override
+    protected void onStart() {
+        super.onStart();
+        // 停止期间可能插拔过存储卡，重新枚举一次；列表没变时不会刷新界面
+        registerReceiver(mountReceiver, StorageVolumeSource.mountFilter());
+        storageVolumes.refresh();
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        unregisterReceiver(mountReceiver);
+        // 访问记录由两个窗格共用，保存一次即可
+        panes[0].directoryLoader.saveVisits();
+    }
+
+    private final BroadcastReceiver mountReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            storageVolumes.refresh();
+        }
+    };
+
+    @Override
+    protected void onDestroy() {
+        for (Pane pane : panes) {
+            pane.shutdown();
+        }
+        folderSizePool.shutdownNow();
+        fileOpener.shutdownNow();
+        fileOperationQueue.shutdown();
+        recursiveDeleter.shutdown();
+        storageVolumes.shutdown();
+        super.onDestroy();
+    }
 
     @Override
     public void onRequestPermissionsResult(int requestCode, @NonNull String[] permissions, @NonNull int[] grantResults) {
         super.onRequestPermissionsResult(requestCode, permissions, grantResults);
         if (requestCode == REQUEST_CODE_PERMISSIONS) {
             if (allPermissionsGranted()) {
-                showStorageRoots();
+                showAllStorageRoots();
             } else {
                 Toast.makeText(this, "需要存储权限才能使用本应用", Toast.LENGTH_SHORT).show();
                 finish();
@@ -469,15 +877,443 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
+    /**
+     * 一个浏览窗格：自己的当前目录、列表快照、适配器，以及各自可取消的加载、监听、
+     * 文件夹大小和类型检测。切换窗格不会触发扫描，隐藏的窗格也保持原来的列表。
+     */
+    private final class Pane {
+        final RecyclerView recyclerView;
+        final FileAdapter fileAdapter;
+        final DirectoryLoader directoryLoader;
+        private final FolderSizeCalculator folderSizeCalculator;
+        private final DirectoryWatcher directoryWatcher;
+        private final FileTypeDetector fileTypeDetector;
+        private List<Object> fileList = new ArrayList<>();
+        String currentPath;
+        // 当前列表实际显示的目录，用于区分同一目录的刷新和进入新目录
+        private String displayedPath;
+        // 当前目录是否在压缩包内（只读的虚拟目录）
+        boolean currentInArchive;
+        SortMode sortMode = SortMode.NAME_ASC;
+        // 目录列表加载完成后开始计算其中文件夹的大小
+        private boolean folderSizesPending;
+        private int foldersRemaining;
+        private boolean replaceOnComplete;
+        // 当前目录的各级上级目录离开时的列表和滚动位置
+        private final NavigationStack<Parcelable> backStack = new NavigationStack<>(BACK_STACK_BYTES);
+        // 当前列表是否已加载完整，未完成的列表不放进回退栈
+        private boolean listingComplete;
+        // 加载完成后要恢复的滚动位置（回退栈中的列表已被淘汰时）
+        private Parcelable pendingViewState;
+
+        Pane(RecyclerView recyclerView, DirectoryCache directoryCache, VisitFrequencyTable visits) {
+            Executor mainExecutor = ContextCompat.getMainExecutor(MainActivity.this);
+            this.recyclerView = recyclerView;
+            fileAdapter = new FileAdapter(MainActivity.this, this);
+            directoryLoader = new DirectoryLoader(mainExecutor, directoryCache);
+            directoryLoader.setVisitTable(visits);
+            folderSizeCalculator = new FolderSizeCalculator(folderSizePool, mainExecutor);
+            directoryWatcher = new DirectoryWatcher(mainExecutor, watcherListener);
+            fileTypeDetector = new FileTypeDetector(mainExecutor);
+
+            recyclerView.setLayoutManager(new LinearLayoutManager(MainActivity.this));
+            recyclerView.setAdapter(fileAdapter);
+            // 平板上触碰哪个窗格就激活哪个，只观察按下事件，不拦截
+            recyclerView.addOnItemTouchListener(new RecyclerView.SimpleOnItemTouchListener() {
+                @Override
+                public boolean onInterceptTouchEvent(@NonNull RecyclerView rv, @NonNull MotionEvent e) {
+                    if (e.getActionMasked() == MotionEvent.ACTION_DOWN) {
+                        setActivePane(Pane.this);
+                    }
+                    return false;
+                }
+            });
+        }
+
+        boolean isActive() {
+            return activePane == this;
+        }
+
+        void showStorageRoots() {
+
+            Log.e("@@@", "showStorageRoots");
+            directoryLoader.cancel();
+            folderSizeCalculator.cancel();
+            fileTypeDetector.cancel();
+            directoryWatcher.stop();
+            fileList = new ArrayList<>();
+            currentPath = null;
+            currentInArchive = false;
+            displayedPath = null;
+            listingComplete = false;
+            pendingViewState = null;
+            backStack.clear();
+
+            fileAdapter.clearSelection();
+            if (isActive()) {
+                updateActionBar();
+            }
+            updatePathDisplay();
+            // 直接使用缓存的卷列表，容量在后台刷新后再更新使用量
+            showStorageVolumes(storageVolumes.getVolumes(), true);
+            storageVolumes.refreshUsage();
+
+            Log.e("@@@", "文件列表" + fileList.size());
+        }
+
+        // 只有正在显示根目录页面时才刷新列表
+        void showStorageVolumes(List<StorageVolumeRegistry.Volume> volumes, boolean replace) {
+            if (currentPath != null) return;
+            List<Object> items = new ArrayList<>(volumes.size());
+            for (StorageVolumeRegistry.Volume volume : volumes) {
+                items.add(new StorageVolumeItem(volume));
+            }
+            fileList = items;
+            fileAdapter.submitList(new ArrayList<>(items), replace);
+        }
+
+        void loadDirectory(String path) {
+
+            Log.e("@@@", "loadDirectory" + path);
+
+            if (!path.equals(currentPath)) {
+                // 选择只在当前目录内有效
+                fileAdapter.clearSelection();
+                directoryLoader.recordVisit(path);
+                rememberLevel(path);
+            }
+            currentPath = path;
+            currentInArchive = ZipArchive.locate(path) != null;
+            updatePathDisplay();
+            if (isActive()) {
+                updateActionBar();
+            }
+            folderSizeCalculator.cancel();
+            fileTypeDetector.cancel();
+            folderSizesPending = true;
+            listingComplete = false;
+
+            // 扫描和排序都在后台进行，结果分批追加到列表
+            directoryLoader.load(path, FileSorter.comparator(sortMode), listingCallback);
+        }
+
+        // 进入子目录前把当前目录的列表和滚动位置压入回退栈；跳到别处时只保留新目录的祖先
+        private void rememberLevel(String next) {
+            backStack.retainAncestorsOf(next);
+            pendingViewState = null;
+            if (currentPath == null || !NavigationStack.isAncestor(currentPath, next)) return;
+            // 列表交给回退栈后不再修改：之后的变化都会生成新列表，过期的文件夹大小结果会被丢弃
+            CompactEntryList entries = listingComplete && currentPath.equals(displayedPath)
+                    && fileList instanceof ListingRows ? ((ListingRows) fileList).entries : null;
+            backStack.push(currentPath, entries, recyclerView.getLayoutManager().onSaveInstanceState());
+        }
+
+        /**
+         * 回到回退栈里的上级目录：直接显示离开时的列表并恢复滚动位置，不重新扫描。
+         * 之后照常在后台加载一次，目录没变时只是一次缓存校验，离开期间的变化以差分合并。
+         */
+        private void restoreLevel(NavigationStack.Level<Parcelable> level) {
+            CompactEntryList entries = level.getEntries();
+            if (entries == null) {
+                // 列表已被淘汰，重新加载，完成后再恢复滚动位置
+                loadDirectory(level.path);
+                pendingViewState = level.viewState;
+                return;
+            }
+
+            fileAdapter.clearSelection();
+            directoryLoader.recordVisit(level.path);
+            currentPath = level.path;
+            currentInArchive = ZipArchive.locate(level.path) != null;
+            updatePathDisplay();
+            if (isActive()) {
+                updateActionBar();
+            }
+            folderSizeCalculator.cancel();
+            fileTypeDetector.cancel();
+
+            displayedPath = level.path;
+            listingComplete = true;
+            fileAdapter.clearFileTypes();
+            fileAdapter.clearFolderSizes();
+            showEntries(level.path.equals(getParentStoragePath()) ? null : new BackItem(), entries, true, null);
+            recyclerView.getLayoutManager().onRestoreInstanceState(level.viewState);
+            showKnownFolderSizes();
+
+            folderSizesPending = true;
+            directoryLoader.load(level.path, FileSorter.comparator(sortMode), listingCallback);
+        }
+
+        // 重新排序只使用当前列表中的快照，不重新扫描目录
+        void resortCurrentDirectory() {
+            List<FileEntry> entries = new ArrayList<>(currentEntries());
+            replaceOnComplete = entries.size() > RESORT_DIFF_LIMIT;
+            directoryLoader.sort(currentPath, entries, FileSorter.comparator(sortMode), listingCallback);
+        }
+
+        void navigateUp() {
+            File currentDir = new File(currentPath);
+            String parent = currentDir.getParent();
+            if (parent != null && !parent.equals(getParentStoragePath())) {
+                NavigationStack.Level<Parcelable> level = backStack.pop(parent);
+                if (level != null) {
+                    restoreLevel(level);
+                } else {
+                    loadDirectory(parent);
+                }
+            } else {
+                showStorageRoots();
+            }
+        }
+
+        void navigateTo(File target) {
+            setActivePane(this);
+            if (target.isDirectory()) {
+                loadDirectory(target.getAbsolutePath());
+            } else {
+                openFile(this, target);
+            }
+        }
+
+        // 列表项已带有扫描时的类型信息，无需再次 stat
+        void navigateTo(FileEntry entry) {
+            setActivePane(this);
+            if (entry.isDirectory) {
+                loadDirectory(entry.getPath());
+            } else if (currentInArchive) {
+                openArchiveEntry(entry, currentEntries());
+            } else {
+                openFile(this, entry.toFile());
+            }
+        }
+
+        // 按下文件夹时就开始扫描，松手触发点击时列表多半已经在缓存里了
+        void prefetchDirectory(String path) {
+            directoryLoader.prefetch(path);
+        }
+
+        void shutdown() {
+            directoryLoader.shutdown();
+            folderSizeCalculator.cancel();
+            directoryWatcher.shutdown();
+            fileTypeDetector.shutdown();
+        }
+
+        private final DirectoryLoader.Callback listingCallback = new DirectoryLoader.Callback() {
+            // 进入新目录时逐批显示；同一目录的刷新和重新排序则攒齐后一次性差分，只派发最小的变更
+            private boolean progressive;
+            private BackItem backItem;
+            private CompactEntryList pending;
+
+            @Override
+            public void onChunk(String dirPath, List<FileEntry> chunk, boolean first) {
+                if (first) {
+                    progressive = !dirPath.equals(displayedPath);
+                    if (progressive) {
+                        fileAdapter.clearFileTypes();
+                    }
+                    displayedPath = dirPath;
+                    backItem = dirPath.equals(getParentStoragePath()) ? null : new BackItem();
+                    pending = new CompactEntryList(
+                            chunk.isEmpty() ? new File(dirPath).getPath() : chunk.get(0).parentPath, chunk.size());
+                }
+                pending.addAll(chunk);
+
+                if (progressive) {
+                    showEntries(backItem, pending, first);
+                    if (first) {
+                        recyclerView.scrollToPosition(0);
+                    }
+                }
+            }
+
+            @Override
+            public void onComplete(String dirPath, int total) {
+                Parcelable viewState = pendingViewState;
+                pendingViewState = null;
+                if (!progressive || viewState != null) {
+                    // 恢复滚动位置要等完整的列表提交之后，否则会被限制在已显示的行数内
+                    showEntries(backItem, pending, !progressive && replaceOnComplete, viewState == null ? null
+                            : () -> recyclerView.getLayoutManager().onRestoreInstanceState(viewState));
+                }
+                replaceOnComplete = false;
+                listingComplete = true;
+                Log.e("@@@", "文件列表" + fileList.size());
+
+                startTypeDetection();
+                if (currentInArchive) {
+                    // 压缩包内容不会就地变化；文件夹大小在解析中央目录时已经算好
+                    directoryWatcher.stop();
+                    folderSizesPending = false;
+                    showArchiveFolderSizes();
+                    return;
+                }
+
+                // 列表完整后才开始监听，此后的变化以增量方式合并
+                directoryWatcher.watch(dirPath);
+
+                if (folderSizesPending) {
+                    folderSizesPending = false;
+                    startFolderSizes();
+                    directoryLoader.prefetchPopularChildren(dirPath, POPULAR_CHILD_PREFETCH);
+                }
+            }
+        };
+
+        private final DirectoryWatcher.Listener watcherListener = new DirectoryWatcher.Listener() {
+            @Override
+            public void onChanges(String dirPath, List<FileEntry> changed, List<String> removedNames) {
+                if (!dirPath.equals(displayedPath) || !dirPath.equals(currentPath)
+                        || !(fileList instanceof ListingRows)) return;
+                ListingRows rows = (ListingRows) fileList;
+                List<FileEntry> patched = DirectoryChangeQueue.patch(rows.entries, changed,
+                        new HashSet<>(removedNames), FileSorter.comparator(sortMode));
+                showEntries(rows.backItem, CompactEntryList.copyOf(rows.entries.getParentPath(), patched), false);
+                // 未变化的文件直接命中缓存，只有变化的文件需要重新读文件头
+                startTypeDetection();
+            }
+
+            @Override
+            public void onRescanNeeded(String dirPath) {
+                if (!dirPath.equals(currentPath)) return;
+                if (new File(dirPath).isDirectory()) {
+                    loadDirectory(dirPath);
+                } else {
+                    // 当前目录已被删除或移走
+                    navigateUp();
+                }
+            }
+        };
+
+        private void startTypeDetection() {
+            fileTypeDetector.detectAll(currentEntries(), fileAdapter::showFileTypes);
+        }
+
+        // dir 正是当前显示的普通目录时，返回列表已检测出的类型（按文件名）的副本，否则为空
+        Map<String, FileTypes.Type> listedTypes(String dir) {
+            if (currentInArchive || dir == null || !dir.equals(displayedPath)) {
+                return Collections.emptyMap();
+            }
+            return fileAdapter.detectedTypes();
+        }
+
+        // 当前目录的条目，不含返回上级行；显示存储根目录时为空
+        private List<FileEntry> currentEntries() {
+            return fileList instanceof ListingRows
+                    ? ((ListingRows) fileList).entries
+                    : Collections.emptyList();
+        }
+
+        private void showEntries(BackItem backItem, CompactEntryList entries, boolean replace) {
+            showEntries(backItem, entries, replace, null);
+        }
+
+        // entries 之后还可能被追加或修改，提交给适配器的是它的只读快照；committed 在列表生效后执行
+        private void showEntries(BackItem backItem, CompactEntryList entries, boolean replace, Runnable committed) {
+            fileList = new ListingRows(backItem, entries);
+            fileAdapter.submitList(new ListingRows(backItem, entries.snapshot()), replace, committed);
+        }
+
+        private void startFolderSizes() {
+            List<String> dirPaths = new ArrayList<>();
+            fileAdapter.clearFolderSizes();
+            for (FileEntry entry : currentEntries()) {
+                if (entry.isDirectory) {
+                    dirPaths.add(entry.getPath());
+                }
+            }
+            showKnownFolderSizes();
+            foldersRemaining = dirPaths.size();
+            if (!dirPaths.isEmpty()) {
+                folderSizeCalculator.computeAll(dirPaths, folderSizeListener);
+            }
+        }
+
+        // 先显示上次算出的大小，新的结果会陆续覆盖
+        private void showKnownFolderSizes() {
+            for (FileEntry entry : currentEntries()) {
+                if (!entry.isDirectory) break;
+                long known = folderSizeCalculator.getLastKnownSize(entry.getPath());
+                if (known >= 0) {
+                    fileAdapter.showFolderSize(entry.name, known, false);
+                }
+            }
+        }
+
+        private void showArchiveFolderSizes() {
+            fileAdapter.clearFolderSizes();
+            for (FileEntry entry : currentEntries()) {
+                if (entry.isDirectory) {
+                    fileAdapter.showFolderSize(entry.name, entry.size, true);
+                }
+            }
+        }
+
+        private final FolderSizeCalculator.Listener folderSizeListener = new FolderSizeCalculator.Listener() {
+            @Override
+            public void onProgress(String path, long bytes) {
+                fileAdapter.showFolderSize(new File(path).getName(), bytes, false);
+            }
+
+            @Override
+            public void onComplete(String path, long bytes) {
+                String name = new File(path).getName();
+                fileAdapter.showFolderSize(name, bytes, true);
+
+                // 把递归大小写回快照，按大小排序时文件夹也能参与比较
+                List<FileEntry> entries = currentEntries();
+                for (int i = 0; i < entries.size(); i++) {
+                    FileEntry entry = entries.get(i);
+                    // 文件夹总是排在前面
+                    if (!entry.isDirectory) break;
+                    if (entry.name.equals(name)) {
+                        entries.set(i, entry.withSize(bytes));
+                        break;
+                    }
+                }
+
+                if (--foldersRemaining == 0
+                        && (sortMode == SortMode.SIZE_ASC || sortMode == SortMode.SIZE_DESC)) {
+                    resortCurrentDirectory();
+                }
+            }
+        };
+
+        // 一批已删除的条目只提交一次列表，差分后只派发这些删除
+        void removeFromListing(List<String> paths) {
+            if (paths.isEmpty() || !(fileList instanceof ListingRows)) return;
+            Set<String> removed = new HashSet<>(paths);
+            ListingRows rows = (ListingRows) fileList;
+            CompactEntryList updated = new CompactEntryList(rows.entries.getParentPath(), rows.entries.size());
+            for (FileEntry entry : rows.entries) {
+                if (!removed.contains(entry.getPath())) {
+                    updated.add(entry);
+                }
+            }
+            if (updated.size() == rows.entries.size()) return;
+            showEntries(rows.backItem, updated, false);
+        }
+    }
+
     // 存储设备项
     private static class StorageVolumeItem extends File {
         private final String displayName;
         private final boolean isRemovable;
+        private final long totalBytes;
+        private final long freeBytes;
+        private final int usedPermille;
+
+        StorageVolumeItem(StorageVolumeRegistry.Volume volume) {
+            super(volume.root.getAbsolutePath());
+            this.displayName = volume.description;
+            this.isRemovable = volume.removable;
+            this.totalBytes = volume.totalBytes;
+            this.freeBytes = volume.freeBytes;
+            this.usedPermille = volume.usedPermille();
+        }
 
-        StorageVolumeItem(File path, String name, boolean removable) {
-            super(path.getAbsolutePath());
-            this.displayName = name;
-            this.isRemovable = removable;
+        boolean hasUsage() {
+            return totalBytes > 0;
         }
     }
 
@@ -488,6 +1324,28 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
+    // 目录列表的行：可选的返回上级行加上紧凑存储的条目，只有被访问的行才生成 FileEntry
+    private static final class ListingRows extends AbstractList<Object> implements RandomAccess {
+        final BackItem backItem;
+        final CompactEntryList entries;
+
+        ListingRows(BackItem backItem, CompactEntryList entries) {
+            this.backItem = backItem;
+            this.entries = entries;
+        }
+
+        @Override
+        public Object get(int index) {
+            if (backItem == null) return entries.get(index);
+            return index == 0 ? backItem : entries.get(index - 1);
+        }
+
+        @Override
+        public int size() {
+            return entries.size() + (backItem != null ? 1 : 0);
+        }
+    }
+
     // 适配器实现
     private static class FileAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
 
@@ -495,12 +1353,242 @@ public class MainActivity extends AppCompatActivity {
         private static final int TYPE_FILE = 1;
         private static final int TYPE_BACK = 2;
 
-        private final Context context;
-        private final List<Object> items;
+        private static final Object PAYLOAD_FOLDER_SIZE = new Object();
+        private static final Object PAYLOAD_SELECTION = new Object();
+        private static final Object PAYLOAD_FILE_TYPE = new Object();
+        private static final int OFFSCREEN_ROWS = 8;
+
+        private static final DiffUtil.ItemCallback<Object> DIFF_CALLBACK = new DiffUtil.ItemCallback<Object>() {
+            @Override
+            public boolean areItemsTheSame(@NonNull Object oldItem, @NonNull Object newItem) {
+                if (oldItem instanceof FileEntry && newItem instanceof FileEntry) {
+                    FileEntry a = (FileEntry) oldItem;
+                    FileEntry b = (FileEntry) newItem;
+                    return a.name.equals(b.name) && a.parentPath.equals(b.parentPath);
+                }
+                if (oldItem instanceof BackItem || newItem instanceof BackItem) {
+                    return oldItem instanceof BackItem && newItem instanceof BackItem;
+                }
+                return oldItem.equals(newItem);
+            }
+
+            @Override
+            public boolean areContentsTheSame(@NonNull Object oldItem, @NonNull Object newItem) {
+                if (oldItem instanceof FileEntry && newItem instanceof FileEntry) {
+                    FileEntry a = (FileEntry) oldItem;
+                    FileEntry b = (FileEntry) newItem;
+                    return a.isDirectory == b.isDirectory && a.readable == b.readable
+                            && a.size == b.size && a.lastModified == b.lastModified;
+                }
+                if (oldItem instanceof StorageVolumeItem && newItem instanceof StorageVolumeItem) {
+                    StorageVolumeItem a = (StorageVolumeItem) oldItem;
+                    StorageVolumeItem b = (StorageVolumeItem) newItem;
+                    return a.displayName.equals(b.displayName)
+                            && a.totalBytes == b.totalBytes && a.freeBytes == b.freeBytes;
+                }
+                return true;
+            }
+        };
 
-        FileAdapter(Context context, List<Object> items) {
+        private final Context context;
+        // 列表所属的窗格，点击和预取都交给它处理
+        private final Pane pane;
+        // 差分在 AsyncListDiffer 的后台线程执行，结果回到主线程派发
+        private final AsyncListDiffer<Object> differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
+        // 当前目录下各文件夹的大小（按名称），未完成的显示为计算中
+        private final Map<String, Long> folderSizes = new HashMap<>();
+        private final Set<String> completedFolders = new HashSet<>();
+        // 多选状态，按名称记录（只在当前目录内有效）
+        private final Set<String> selectedNames = new HashSet<>();
+        // 按内容检测出的文件类型（按名称），检测完成前按扩展名显示图标
+        private final Map<String, FileTypes.Type> fileTypes = new HashMap<>();
+        private final ThumbnailLoader thumbnails;
+        private RecyclerView.OnScrollListener thumbnailScrollListener;
+        private LinearLayoutManager layoutManager;
+
+        FileAdapter(Context context, Pane pane) {
             this.context = context;
-            this.items = items;
+            this.pane = pane;
+            this.thumbnails = new ThumbnailLoader(context,
+                    context.getResources().getDimensionPixelSize(R.dimen.file_icon_size));
+            setHasStableIds(true);
+        }
+
+        @Override
+        public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
+            if (recyclerView.getLayoutManager() instanceof LinearLayoutManager) {
+                layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+            }
+            thumbnailScrollListener = thumbnails.scrollListener(this::thumbnailEntryAt);
+            recyclerView.addOnScrollListener(thumbnailScrollListener);
+        }
+
+        @Override
+        public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+            recyclerView.removeOnScrollListener(thumbnailScrollListener);
+            layoutManager = null;
+        }
+
+        @Override
+        public void onViewRecycled(@NonNull RecyclerView.ViewHolder holder) {
+            // 滚出屏幕的行不再需要缩略图，取消还没完成的解码
+            if (holder instanceof FileHolder) {
+                thumbnails.clear(((FileHolder) holder).thumb);
+            }
+        }
+
+        /**
+         * 提交新列表。replace 为 true 时跳过差分直接整体替换，用于进入新目录等前后列表无关的情况。
+         */
+        void submitList(List<Object> items, boolean replace) {
+            submitList(items, replace, null);
+        }
+
+        /** committed 在这次提交的列表生效（差分派发完成）后执行，可为 null。 */
+        void submitList(List<Object> items, boolean replace, Runnable committed) {
+            if (replace) {
+                differ.submitList(null);
+            }
+            differ.submitList(items, committed);
+        }
+
+        int getSelectionCount() {
+            return selectedNames.size();
+        }
+
+        List<FileEntry> getSelectedEntries() {
+            List<FileEntry> selected = new ArrayList<>();
+            for (Object item : differ.getCurrentList()) {
+                if (item instanceof FileEntry && selectedNames.contains(((FileEntry) item).name)) {
+                    selected.add((FileEntry) item);
+                }
+            }
+            return selected;
+        }
+
+        void clearSelection() {
+            if (selectedNames.isEmpty()) return;
+            selectedNames.clear();
+            notifyItemRangeChanged(0, getItemCount(), PAYLOAD_SELECTION);
+        }
+
+        private void toggleSelection(FileEntry entry, RecyclerView.ViewHolder holder) {
+            if (!selectedNames.remove(entry.name)) {
+                selectedNames.add(entry.name);
+            }
+            int position = holder.getBindingAdapterPosition();
+            if (position != RecyclerView.NO_POSITION) {
+                notifyItemChanged(position, PAYLOAD_SELECTION);
+            }
+            if (pane.isActive()) {
+                ((MainActivity) context).updateActionBar();
+            }
+        }
+
+        void clearFolderSizes() {
+            folderSizes.clear();
+            completedFolders.clear();
+        }
+
+        void showFolderSize(String name, long bytes, boolean complete) {
+            folderSizes.put(name, bytes);
+            if (complete) {
+                completedFolders.add(name);
+            }
+            // 文件夹总是排在前面，只需扫描列表开头
+            List<Object> items = differ.getCurrentList();
+            for (int i = 0; i < items.size(); i++) {
+                Object item = items.get(i);
+                if (item instanceof BackItem) continue;
+                if (!(item instanceof FileEntry) || !((FileEntry) item).isDirectory) break;
+                if (((FileEntry) item).name.equals(name)) {
+                    notifyItemChanged(i, PAYLOAD_FOLDER_SIZE);
+                    break;
+                }
+            }
+        }
+
+        void clearFileTypes() {
+            fileTypes.clear();
+            thumbnails.clearPreloads();
+        }
+
+        void showFileTypes(Map<String, FileTypes.Type> types) {
+            fileTypes.putAll(types);
+            if (layoutManager == null) return;
+            // 只刷新屏幕附近的行（含 RecyclerView 缓存的几行，它们再次显示时不会重新绑定），
+            // 其余的行滚动进来绑定时自然会用上新类型
+            List<Object> items = differ.getCurrentList();
+            int first = Math.max(0, layoutManager.findFirstVisibleItemPosition() - OFFSCREEN_ROWS);
+            int last = Math.min(items.size() - 1, layoutManager.findLastVisibleItemPosition() + OFFSCREEN_ROWS);
+            for (int i = first; i <= last; i++) {
+                Object item = items.get(i);
+                if (item instanceof FileEntry && types.containsKey(((FileEntry) item).name)) {
+                    notifyItemChanged(i, PAYLOAD_FILE_TYPE);
+                }
+            }
+        }
+
+        Map<String, FileTypes.Type> detectedTypes() {
+            return new HashMap<>(fileTypes);
+        }
+
+        private FileTypes.Type typeOf(FileEntry entry) {
+            FileTypes.Type type = fileTypes.get(entry.name);
+            return type != null ? type : FileTypes.byName(entry.name);
+        }
+
+        private String iconText(FileEntry entry) {
+            return entry.isDirectory ? "📁" : FileTypes.icon(typeOf(entry));
+        }
+
+        private FileEntry thumbnailEntryAt(int position) {
+            List<Object> items = differ.getCurrentList();
+            if (position < 0 || position >= items.size() || !(items.get(position) instanceof FileEntry)) {
+                return null;
+            }
+            FileEntry entry = (FileEntry) items.get(position);
+            return !entry.isDirectory && ThumbnailLoader.hasThumbnail(typeOf(entry)) ? entry : null;
+        }
+
+        private void bindThumbnail(FileHolder holder, int position) {
+            FileEntry entry = thumbnailEntryAt(position);
+            if (entry == null) {
+                thumbnails.clear(holder.thumb);
+                return;
+            }
+            boolean visible = layoutManager != null
+                    && position >= layoutManager.findFirstVisibleItemPosition()
+                    && position <= layoutManager.findLastVisibleItemPosition();
+            thumbnails.load(holder.thumb, entry, visible);
+        }
+
+        private String sizeText(FileEntry entry) {
+            if (!entry.isDirectory) {
+                return Formatter.formatShortFileSize(context, entry.size);
+            }
+            Long bytes = folderSizes.get(entry.name);
+            if (bytes == null) return "";
+            String text = Formatter.formatShortFileSize(context, bytes);
+            return completedFolders.contains(entry.name) ? text : text + "…";
+        }
+
+        @Override
+        public long getItemId(int position) {
+            Object item = differ.getCurrentList().get(position);
+            if (item instanceof BackItem) return Long.MIN_VALUE;
+            if (item instanceof FileEntry) return stableId(((FileEntry) item).name);
+            return stableId(((File) item).getPath());
+        }
+
+        // 64 位 FNV-1a，同一列表内按名称区分即可
+        private static long stableId(String key) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < key.length(); i++) {
+                hash ^= key.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            return hash;
         }
 
         @NonNull
@@ -515,17 +1603,50 @@ public class MainActivity extends AppCompatActivity {
             return new FileHolder(view);
         }
 
+        @Override
+        public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position,
+                                     @NonNull List<Object> payloads) {
+            Object item = differ.getCurrentList().get(position);
+            if (!payloads.isEmpty() && holder instanceof FileHolder) {
+                if (item instanceof FileEntry) {
+                    FileEntry entry = (FileEntry) item;
+                    if (payloads.contains(PAYLOAD_FOLDER_SIZE)) {
+                        ((FileHolder) holder).info.setText(sizeText(entry));
+                    }
+                    if (payloads.contains(PAYLOAD_SELECTION)) {
+                        holder.itemView.setActivated(selectedNames.contains(entry.name));
+                    }
+                    if (payloads.contains(PAYLOAD_FILE_TYPE)) {
+                        ((FileHolder) holder).icon.setText(iconText(entry));
+                        bindThumbnail((FileHolder) holder, position);
+                    }
+                }
+                return;
+            }
+            onBindViewHolder(holder, position);
+        }
+
         @Override
         public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
-            Object item = items.get(position);
+            Object item = differ.getCurrentList().get(position);
 
             if (holder instanceof StorageHolder && item instanceof StorageVolumeItem) {
                 StorageVolumeItem storage = (StorageVolumeItem) item;
                 StorageHolder sh = (StorageHolder) holder;
                 sh.icon.setText(storage.isRemovable ? "💾" : "📱");
                 sh.name.setText(storage.displayName);
+                if (storage.hasUsage()) {
+                    sh.usage.setVisibility(View.VISIBLE);
+                    sh.usage.setProgress(storage.usedPermille);
+                    sh.info.setText(Formatter.formatShortFileSize(context, storage.freeBytes) + " 可用，共 "
+                            + Formatter.formatShortFileSize(context, storage.totalBytes));
+                } else {
+                    // 容量还在后台读取
+                    sh.usage.setVisibility(View.INVISIBLE);
+                    sh.info.setText("");
+                }
                 sh.itemView.setOnClickListener(v -> {
-                    ((MainActivity) context).navigateTo(storage);
+                    pane.navigateTo(storage);
                 });
 
             } else if (holder instanceof FileHolder) {
@@ -534,32 +1655,51 @@ public class MainActivity extends AppCompatActivity {
                 if (item instanceof BackItem) {
                     fh.icon.setText("⬆️");
                     fh.name.setText("返回上级");
+                    fh.info.setText("");
+                    thumbnails.clear(fh.thumb);
+                    fh.itemView.setActivated(false);
+                    fh.itemView.setOnTouchListener(null);
+                    fh.itemView.setOnLongClickListener(null);
+                    fh.itemView.setOnClickListener(v -> pane.navigateUp());
+                } else if (item instanceof FileEntry) {
+                    FileEntry entry = (FileEntry) item;
+                    fh.icon.setText(iconText(entry));
+                    bindThumbnail(fh, position);
+                    fh.name.setText(entry.name);
+                    fh.info.setText(sizeText(entry));
+                    fh.itemView.setActivated(selectedNames.contains(entry.name));
+                    // 长按进入多选，多选状态下点击切换选中
                     fh.itemView.setOnClickListener(v -> {
-                        File currentDir = new File(((MainActivity) context).currentPath);
-                        String parent = currentDir.getParent();
-                        if (parent != null) {
-                            ((MainActivity) context).loadDirectory(parent);
+                        if (selectedNames.isEmpty()) {
+                            pane.navigateTo(entry);
+                        } else {
+                            toggleSelection(entry, fh);
                         }
                     });
-                } else if (item instanceof File) {
-                    File file = (File) item;
-                    fh.icon.setText(file.isDirectory() ? "📁" : "📄");
-                    fh.name.setText(file.getName());
-                    fh.itemView.setOnClickListener(v -> ((MainActivity) context).navigateTo(file));
                     fh.itemView.setOnLongClickListener(v -> {
-                        if (!file.isDirectory()) {
-                            ((MainActivity) context).showDeleteDialog(file);
-                            return true;
-                        }
-                        return false;
+                        // 压缩包内是只读的，不能复制、移动或删除
+                        if (pane.currentInArchive) return false;
+                        toggleSelection(entry, fh);
+                        return true;
                     });
+                    if (entry.isDirectory) {
+                        // 只观察按下事件，返回 false 不影响点击和长按
+                        fh.itemView.setOnTouchListener((v, event) -> {
+                            if (event.getActionMasked() == MotionEvent.ACTION_DOWN && selectedNames.isEmpty()) {
+                                pane.prefetchDirectory(entry.getPath());
+                            }
+                            return false;
+                        });
+                    } else {
+                        fh.itemView.setOnTouchListener(null);
+                    }
                 }
             }
         }
 
         @Override
         public int getItemViewType(int position) {
-            Object item = items.get(position);
+            Object item = differ.getCurrentList().get(position);
             if (item instanceof StorageVolumeItem) return TYPE_STORAGE;
             if (item instanceof BackItem) return TYPE_BACK;
             return TYPE_FILE;
@@ -567,26 +1707,32 @@ public class MainActivity extends AppCompatActivity {
 
         @Override
         public int getItemCount() {
-            return items.size();
+            return differ.getCurrentList().size();
         }
 
         static class StorageHolder extends RecyclerView.ViewHolder {
-            TextView icon, name;
+            TextView icon, name, info;
+            ProgressBar usage;
 
             StorageHolder(View itemView) {
                 super(itemView);
                 icon = itemView.findViewById(R.id.storage_icon);
                 name = itemView.findViewById(R.id.storage_name);
+                info = itemView.findViewById(R.id.storage_info);
+                usage = itemView.findViewById(R.id.storage_usage);
             }
         }
 
         static class FileHolder extends RecyclerView.ViewHolder {
-            TextView icon, name;
+            TextView icon, name, info;
+            ImageView thumb;
 
             FileHolder(View itemView) {
                 super(itemView);
                 icon = itemView.findViewById(R.id.file_icon);
+                thumb = itemView.findViewById(R.id.file_thumb);
                 name = itemView.findViewById(R.id.file_name);
+                info = itemView.findViewById(R.id.file_info);
             }
         }
     }
@@ -0,0 +1,75 @@
+package com.example.simpletool;
+
+import com.ibm.icu.text.Collator;
+import com.ibm.icu.text.RawCollationKey;
+import com.ibm.icu.text.RuleBasedCollator;
+import com.ibm.icu.util.ULocale;
+
+import java.util.Arrays;
+
+/**
+ * 文件名排序键：每个名称只用 ICU 中文排序规则计算一次字节数组，排序时只比较字节。
+ * <ul>
+ * <li>中文按拼音排序，字母不区分大小写和重音；</li>
+ * <li>开启数字排序，连续的数字按数值比较，"2.jpg" 排在 "10.jpg" 之前；</li>
+ * <li>一级键相同的名称（只差大小写、重音或前导零）再用完整的排序规则区分，最后按原始字符串。</li>
+ * </ul>
+ */
+final class NameSortKey implements Comparable<NameSortKey> {
+
+    // 冻结后的 Collator 是线程安全的，加载线程和主线程可以共用
+    private static final Collator PRIMARY = collator(Collator.PRIMARY);
+    private static final Collator FULL = collator(Collator.TERTIARY);
+
+    private static final ThreadLocal<RawCollationKey> RAW_KEY = ThreadLocal.withInitial(RawCollationKey::new);
+
+    final String name;
+    private final byte[] key;
+
+    private NameSortKey(String name, byte[] key) {
+        this.name = name;
+        this.key = key;
+    }
+
+    static NameSortKey of(String name) {
+        return new NameSortKey(name, encode(name));
+    }
+
+    static int compare(String a, String b) {
+        return of(a).compareTo(of(b));
+    }
+
+    @Override
+    public int compareTo(NameSortKey other) {
+        int result = compareUnsigned(key, other.key);
+        if (result != 0) return result;
+        // 只有一级键完全相同时才走到这里，次数很少
+        result = FULL.compare(name, other.name);
+        return result != 0 ? result : name.compareTo(other.name);
+    }
+
+    private static byte[] encode(String name) {
+        RawCollationKey raw = PRIMARY.getRawCollationKey(name, RAW_KEY.get());
+        // raw.size 包含结尾的 0，比较时长度已经区分了前缀，不需要保留
+        int size = raw.size > 0 && raw.bytes[raw.size - 1] == 0 ? raw.size - 1 : raw.size;
+        return Arrays.copyOf(raw.bytes, size);
+    }
+
+    // Arrays.compareUnsigned 需要 API 33
+    private static int compareUnsigned(byte[] a, byte[] b) {
+        int n = Math.min(a.length, b.length);
+        for (int i = 0; i < n; i++) {
+            if (a[i] != b[i]) {
+                return (a[i] & 0xFF) - (b[i] & 0xFF);
+            }
+        }
+        return a.length - b.length;
+    }
+
+    private static Collator collator(int strength) {
+        RuleBasedCollator collator = (RuleBasedCollator) Collator.getInstance(ULocale.SIMPLIFIED_CHINESE);
+        collator.setStrength(strength);
+        collator.setNumericCollation(true);
+        return collator.freeze();
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.simpletool;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 一个窗格的回退栈：当前目录的各级祖先目录，每级保留离开时的列表和视图状态（滚动位置），
+ * 返回上级时直接重新显示，不必重新扫描。
+ * <p>
+ * 栈里只保留当前目录的祖先：进入子目录时压入当前目录，跳到别处时丢弃不再是祖先的层级。
+ * 所有层级的列表合计超过 {@code maxBytes} 时，从栈底（最远的祖先）开始丢弃列表，
+ * 只保留路径和视图状态，回到这些层级时重新加载并恢复滚动位置。
+ * 只在主线程使用，不做同步。
+ *
+ * @param <S> 视图状态的类型（列表的 LayoutManager 状态）
+ */
+final class NavigationStack<S> {
+
+    static final class Level<S> {
+        final String path;
+        final S viewState;
+        private CompactEntryList entries;
+
+        Level(String path, CompactEntryList entries, S viewState) {
+            this.path = path;
+            this.entries = entries;
+            this.viewState = viewState;
+        }
+
+        /** 离开时的列表，已被淘汰或离开时尚未加载完成则为 null。 */
+        CompactEntryList getEntries() {
+            return entries;
+        }
+    }
+
+    private final long maxBytes;
+    private final List<Level<S>> levels = new ArrayList<>();
+    private long retainedBytes;
+    private long evictedCount;
+
+    NavigationStack(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * 离开 path 进入其子目录时调用。entries 的所有权交给回退栈，调用方此后不应再修改它。
+     */
+    void push(String path, CompactEntryList entries, S viewState) {
+        levels.add(new Level<>(path, entries, viewState));
+        if (entries != null) {
+            retainedBytes += entries.estimatedBytes();
+            evict();
+        }
+    }
+
+    /**
+     * 栈顶正好是 path 时弹出并返回，否则返回 null（例如 path 是跳转后才经过的上级）。
+     */
+    Level<S> pop(String path) {
+        if (levels.isEmpty()) return null;
+        Level<S> top = levels.get(levels.size() - 1);
+        if (!top.path.equals(path)) return null;
+        levels.remove(levels.size() - 1);
+        release(top);
+        return top;
+    }
+
+    /** 丢弃所有不是 path 祖先的层级，path 本身也不保留。 */
+    void retainAncestorsOf(String path) {
+        for (int i = levels.size() - 1; i >= 0; i--) {
+            Level<S> level = levels.get(i);
+            if (!isAncestor(level.path, path)) {
+                levels.remove(i);
+                release(level);
+            }
+        }
+    }
+
+    void clear() {
+        levels.clear();
+        retainedBytes = 0;
+    }
+
+    int depth() {
+        return levels.size();
+    }
+
+    long getRetainedBytes() {
+        return retainedBytes;
+    }
+
+    /** 因超出内存上限被丢弃的列表个数。 */
+    long getEvictedCount() {
+        return evictedCount;
+    }
+
+    /** ancestor 是否是 path 的上级目录（不含相等）。 */
+    static boolean isAncestor(String ancestor, String path) {
+        if (path.length() <= ancestor.length() || !path.startsWith(ancestor)) return false;
+        return ancestor.endsWith(File.separator) || path.charAt(ancestor.length()) == File.separatorChar;
+    }
+
+    private void evict() {
+        for (int i = 0; i < levels.size() && retainedBytes > maxBytes; i++) {
+            Level<S> level = levels.get(i);
+            if (level.entries != null) {
+                release(level);
+                level.entries = null;
+                evictedCount++;
+            }
+        }
+    }
+
+    private void release(Level<S> level) {
+        if (level.entries != null) {
+            retainedBytes -= level.entries.estimatedBytes();
+        }
+    }
+}
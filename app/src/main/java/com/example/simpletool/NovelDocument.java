@@ -0,0 +1,444 @@
+package com.example.simpletool;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 小说文本的只读存储：文件以内存映射方式打开，按块解码，整本书不会以 String 形式常驻内存。
+ * <p>
+ * {@link #scan} 顺序解码一遍，把文件切成以换行结尾的块，记录每块的字节起点和字符起点
+ * （字节偏移与字符偏移的对照索引），并把解码出的文字交给回调（用于识别章节）。
+ * 之后 {@link #text} 按字符偏移取文字，只解码涉及的块；最近用过的块按字符总数做 LRU 缓存，
+ * 内存中只有当前阅读位置附近的内容。
+ * <p>
+ * 换行统一为 {@code \n}（{@code \r\n} 和单独的 {@code \r}），块总在换行之后结束，所以各块可以独立解码。
+ * 压缩包里未压缩（STORED）的文本直接映射它在包内的数据区；压缩过的不大时解压到内存，
+ * 更大的才解压到 {@code spoolDir} 下的临时文件，关闭时删除，进程被杀时遗留的在下次启动后第一次打开时清理。
+ * 索引由扫描线程追加，其他线程可以同时读取已索引的部分。
+ * <p>
+ * 作为 {@link CharSequence} 时长度为已索引的部分，页面和排版都通过 {@link #subSequence} 取字，
+ * 共用这一份存储；{@link #toString} 会解码全文，不应在大文件上调用。
+ */
+final class NovelDocument implements CharSequence, Closeable {
+
+    interface BlockListener {
+        /** 扫描线程上按顺序回调，chars 只在回调期间有效。 */
+        void onBlock(int charStart, char[] chars, int length);
+    }
+
+    static final int BLOCK_BYTES = 128 * 1024;
+    // 找不到换行时，块最多延伸到这么长，再在字符边界处截断
+    private static final int MAX_BLOCK_BYTES = BLOCK_BYTES * 4;
+    // 解码缓存保留的字符总数上限
+    private static final int MAX_CACHED_CHARS = 2 * 1024 * 1024;
+    // 压缩过的条目不超过这个大小时解压到内存，更大的才写临时文件
+    static final int MAX_INFLATED_BYTES = 4 * 1024 * 1024;
+    private static final String SPOOL_PREFIX = "novel";
+    private static final String SPOOL_SUFFIX = ".txt";
+    private static final AtomicBoolean SPOOL_SWEPT = new AtomicBoolean();
+
+    private final ByteBuffer bytes;
+    private final Charset charset;
+    private final int dataStart;
+    private final byte[] newline;
+    private final File spoolFile;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    // 块索引：第 i 块为字节 [blockByteStart[i], blockByteStart[i + 1])，字符 [blockCharStart[i], blockCharStart[i + 1])
+    private int[] blockByteStart = new int[64];
+    private int[] blockCharStart = new int[64];
+    private int blockCount;
+    private boolean complete;
+
+    // accessOrder=true，迭代顺序即最久未使用在前
+    private final LinkedHashMap<Integer, char[]> decoded = new LinkedHashMap<>(16, 0.75f, true);
+    private int decodedChars;
+
+    private NovelDocument(ByteBuffer bytes, Charset charset, File spoolFile) {
+        this.bytes = bytes;
+        this.charset = resolveByteOrder(bytes, charset);
+        this.spoolFile = spoolFile;
+        this.dataStart = bomLength(bytes, this.charset);
+        this.newline = newlineBytes(this.charset);
+        blockByteStart[0] = dataStart;
+    }
+
+    /**
+     * 打开 path 指向的文本，可以是普通文件，也可以是压缩包内的路径。
+     * charset 为 null 时用 {@link EncodingDetector} 在映射好的字节上检测，文件不会为检测单独读一遍。
+     */
+    static NovelDocument open(String path, Charset charset, File spoolDir) throws IOException {
+        // 每个进程第一次打开时清理，此时本进程还没有打开的文档
+        if (SPOOL_SWEPT.compareAndSet(false, true)) {
+            sweepSpool(spoolDir);
+        }
+        ZipArchive.Location location = ZipArchive.locate(path);
+        if (location == null || location.entry.isEmpty()) {
+            return create(path, map(new File(path)), charset, null);
+        }
+        ZipArchive archive = ZipArchive.open(location.archive);
+        ByteBuffer stored = archive.mapStored(location.entry);
+        if (stored != null) {
+            return create(path, stored, charset, null);
+        }
+        long size = archive.getSize(location.entry);
+        if (size <= MAX_INFLATED_BYTES) {
+            return create(path, inflate(path, (int) size), charset, null);
+        }
+
+        if (size > Integer.MAX_VALUE) throw new IOException("文件过大: " + path);
+        if (spoolDir.getUsableSpace() < size) throw new IOException("缓存空间不足: " + path);
+        File spool = File.createTempFile(SPOOL_PREFIX, SPOOL_SUFFIX, spoolDir);
+        try {
+            try (InputStream in = ZipArchive.openPath(path);
+                 OutputStream out = new FileOutputStream(spool)) {
+                byte[] buffer = new byte[64 * 1024];
+                int n;
+                while ((n = in.read(buffer)) > 0) {
+                    out.write(buffer, 0, n);
+                }
+            }
+            return create(path, map(spool), charset, spool);
+        } catch (IOException | RuntimeException e) {
+            spool.delete();
+            throw e;
+        }
+    }
+
+    private static NovelDocument create(String path, ByteBuffer bytes, Charset charset, File spoolFile) {
+        return new NovelDocument(bytes, charset != null ? charset : EncodingDetector.detect(path, bytes), spoolFile);
+    }
+
+    // 不大的压缩条目直接解压到内存
+    private static ByteBuffer inflate(String path, int size) throws IOException {
+        byte[] data = new byte[size];
+        try (InputStream in = ZipArchive.openPath(path)) {
+            int read = 0;
+            while (read < size) {
+                int n = in.read(data, read, size - read);
+                if (n < 0) throw new EOFException(path);
+                read += n;
+            }
+        }
+        return ByteBuffer.wrap(data);
+    }
+
+    /** 删除进程被杀时遗留在 spoolDir 下的解压文件。 */
+    static void sweepSpool(File spoolDir) {
+        File[] stale = spoolDir.listFiles((dir, name) -> name.startsWith(SPOOL_PREFIX) && name.endsWith(SPOOL_SUFFIX));
+        if (stale == null) return;
+        for (File file : stale) {
+            file.delete();
+        }
+    }
+
+    private static ByteBuffer map(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) throw new IOException("文件过大: " + file);
+            // 映射在通道关闭后仍然有效
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+    }
+
+    Charset getCharset() {
+        return charset;
+    }
+
+    /** 文件字节数（含 BOM）。 */
+    int byteLength() {
+        return bytes.capacity();
+    }
+
+    /** 已索引的字符数；扫描完成后即全文长度。 */
+    @Override
+    public synchronized int length() {
+        return blockCharStart[blockCount];
+    }
+
+    synchronized boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * 顺序扫描全文建立块索引，每块解码后交给 listener。在后台线程调用，只能调用一次。
+     * 文档被关闭时提前结束。
+     */
+    void scan(BlockListener listener) {
+        CharsetDecoder decoder = newDecoder();
+        int start = dataStart;
+        int end = bytes.capacity();
+        while (start < end && !closed.get()) {
+            int blockEnd = findBlockEnd(start, end, decoder);
+            char[] chars = decode(decoder, start, blockEnd);
+            int length = chars.length;
+            int charStart;
+            synchronized (this) {
+                charStart = blockCharStart[blockCount];
+                appendBlock(blockEnd, charStart + length);
+            }
+            if (listener != null) {
+                listener.onBlock(charStart, chars, length);
+            }
+            start = blockEnd;
+        }
+        synchronized (this) {
+            complete = !closed.get();
+        }
+    }
+
+    /** 块索引中各块的字节起点，最后一项为文件末尾，用于持久化。 */
+    synchronized int[] blockByteStarts() {
+        return Arrays.copyOf(blockByteStart, blockCount + 1);
+    }
+
+    /** 块索引中各块的字符起点，最后一项为全文长度。 */
+    synchronized int[] blockCharStarts() {
+        return Arrays.copyOf(blockCharStart, blockCount + 1);
+    }
+
+    /**
+     * 用之前保存的块索引代替 {@link #scan}，索引必须来自同一个文件和字符集。
+     * 索引与文件对不上时返回 false，文档保持未扫描状态。
+     */
+    synchronized boolean restoreIndex(int[] byteStarts, int[] charStarts) {
+        int count = byteStarts.length - 1;
+        if (blockCount != 0 || count < 0 || charStarts.length != byteStarts.length
+                || byteStarts[0] != dataStart || byteStarts[count] != bytes.capacity() || charStarts[0] != 0) {
+            return false;
+        }
+        for (int i = 0; i < count; i++) {
+            if (byteStarts[i + 1] <= byteStarts[i] || charStarts[i + 1] < charStarts[i]) return false;
+        }
+        blockByteStart = byteStarts.clone();
+        blockCharStart = charStarts.clone();
+        blockCount = count;
+        complete = true;
+        return true;
+    }
+
+    /**
+     * 字符区间 [start, end) 的文字，end 不能超过 {@link #length}。只解码涉及的块。
+     */
+    String text(int start, int end) {
+        if (start < 0 || end < start || end > length()) {
+            throw new IndexOutOfBoundsException("[" + start + ", " + end + "), length " + length());
+        }
+        StringBuilder sb = new StringBuilder(end - start);
+        int position = start;
+        while (position < end) {
+            int block;
+            int blockStart;
+            synchronized (this) {
+                block = blockOf(position);
+                blockStart = blockCharStart[block];
+            }
+            char[] chars = block(block);
+            int from = position - blockStart;
+            int to = Math.min(chars.length, end - blockStart);
+            sb.append(chars, from, to - from);
+            position = blockStart + to;
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length()) {
+            throw new IndexOutOfBoundsException("index " + index + ", length " + length());
+        }
+        int block;
+        int blockStart;
+        synchronized (this) {
+            block = blockOf(index);
+            blockStart = blockCharStart[block];
+        }
+        return block(block)[index - blockStart];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return text(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return text(0, length());
+    }
+
+    /** 字符偏移对应的文件字节偏移，精确到所在块的起点。 */
+    synchronized int byteOffsetOf(int charOffset) {
+        if (charOffset >= blockCharStart[blockCount]) return blockByteStart[blockCount];
+        return blockByteStart[blockOf(charOffset)];
+    }
+
+    /** 文件字节偏移对应的字符偏移，精确到所在块的起点；尚未索引到的位置返回已索引的长度。 */
+    synchronized int charOffsetAt(int byteOffset) {
+        int index = Arrays.binarySearch(blockByteStart, 0, blockCount + 1, byteOffset);
+        if (index < 0) index = Math.max(0, -index - 2);
+        return blockCharStart[index];
+    }
+
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) return;
+        synchronized (this) {
+            decoded.clear();
+            decodedChars = 0;
+        }
+        if (spoolFile != null) {
+            spoolFile.delete();
+        }
+    }
+
+    // 调用方持有锁；position 必须小于已索引的长度
+    private int blockOf(int position) {
+        int index = Arrays.binarySearch(blockCharStart, 0, blockCount + 1, position);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    private void appendBlock(int byteEnd, int charEnd) {
+        if (blockCount + 2 > blockByteStart.length) {
+            int capacity = blockByteStart.length * 2;
+            blockByteStart = Arrays.copyOf(blockByteStart, capacity);
+            blockCharStart = Arrays.copyOf(blockCharStart, capacity);
+        }
+        blockCount++;
+        blockByteStart[blockCount] = byteEnd;
+        blockCharStart[blockCount] = charEnd;
+    }
+
+    private char[] block(int block) {
+        int from;
+        int to;
+        synchronized (this) {
+            char[] chars = decoded.get(block);
+            if (chars != null) return chars;
+            from = blockByteStart[block];
+            to = blockByteStart[block + 1];
+        }
+        // 解码不持有锁，扫描线程可以继续追加索引
+        char[] chars = decode(newDecoder(), from, to);
+        synchronized (this) {
+            if (closed.get()) return chars;
+            if (decoded.put(block, chars) == null) {
+                decodedChars += chars.length;
+            }
+            Iterator<Map.Entry<Integer, char[]>> it = decoded.entrySet().iterator();
+            while (decodedChars > MAX_CACHED_CHARS && decoded.size() > 1 && it.hasNext()) {
+                Map.Entry<Integer, char[]> eldest = it.next();
+                if (eldest.getKey() == block) continue;
+                decodedChars -= eldest.getValue().length;
+                it.remove();
+            }
+        }
+        return chars;
+    }
+
+    // 块在 BLOCK_BYTES 之后的第一个换行处结束；一直没有换行时在字符边界处截断
+    private int findBlockEnd(int start, int end, CharsetDecoder decoder) {
+        if (end - start <= BLOCK_BYTES) return end;
+        int unit = newline.length;
+        int limit = Math.min(end, start + MAX_BLOCK_BYTES);
+        // 多字节换行（UTF-16）只在字符对齐的位置上匹配
+        int position = start + BLOCK_BYTES - (BLOCK_BYTES % unit);
+        for (; position + unit <= limit; position += unit) {
+            if (matchesNewline(position)) return position + unit;
+        }
+        if (limit == end) return end;
+        // 解码到输入耗尽为止，解码器停下的位置就是一个完整字符的边界
+        ByteBuffer in = bytes.duplicate();
+        in.position(start).limit(start + BLOCK_BYTES);
+        CharBuffer out = CharBuffer.allocate(BLOCK_BYTES);
+        decoder.reset();
+        decoder.decode(in, out, false);
+        return in.position() > start ? in.position() : start + BLOCK_BYTES;
+    }
+
+    private boolean matchesNewline(int position) {
+        for (int i = 0; i < newline.length; i++) {
+            if (bytes.get(position + i) != newline[i]) return false;
+        }
+        return true;
+    }
+
+    private CharsetDecoder newDecoder() {
+        return charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    // 解码并统一换行
+    private char[] decode(CharsetDecoder decoder, int from, int to) {
+        ByteBuffer in = bytes.duplicate();
+        in.position(from).limit(to);
+        CharBuffer out;
+        try {
+            decoder.reset();
+            out = decoder.decode(in);
+        } catch (CharacterCodingException e) {
+            // REPLACE 模式下不会发生
+            throw new IllegalStateException(e);
+        }
+        char[] chars = new char[out.remaining()];
+        int length = 0;
+        for (int i = 0; i < chars.length; i++) {
+            char c = out.get(i);
+            if (c == '\r') {
+                if (i + 1 < chars.length && out.get(i + 1) == '\n') continue;
+                c = '\n';
+            }
+            chars[length++] = c;
+        }
+        return length == chars.length ? chars : Arrays.copyOf(chars, length);
+    }
+
+    static int bomLength(ByteBuffer bytes, Charset charset) {
+        String name = charset.name();
+        int size = bytes.capacity();
+        if (name.equals("UTF-8") && size >= 3 && (bytes.get(0) & 0xFF) == 0xEF
+                && (bytes.get(1) & 0xFF) == 0xBB && (bytes.get(2) & 0xFF) == 0xBF) {
+            return 3;
+        }
+        if (name.startsWith("UTF-16") && size >= 2) {
+            int b0 = bytes.get(0) & 0xFF;
+            int b1 = bytes.get(1) & 0xFF;
+            if ((b0 == 0xFE && b1 == 0xFF) || (b0 == 0xFF && b1 == 0xFE)) return 2;
+        }
+        return 0;
+    }
+
+    // 各块单独解码，"UTF-16" 要按 BOM 定下字节序，否则 BOM 之后的块都会按大端解码
+    private static Charset resolveByteOrder(ByteBuffer bytes, Charset charset) {
+        if (!charset.name().equals("UTF-16")) return charset;
+        boolean littleEndian = bytes.capacity() >= 2
+                && (bytes.get(0) & 0xFF) == 0xFF && (bytes.get(1) & 0xFF) == 0xFE;
+        return Charset.forName(littleEndian ? "UTF-16LE" : "UTF-16BE");
+    }
+
+    private static byte[] newlineBytes(Charset charset) {
+        String name = charset.name();
+        if (name.equals("UTF-16BE")) return new byte[]{0, '\n'};
+        if (name.equals("UTF-16LE")) return new byte[]{'\n', 0};
+        return new byte[]{'\n'};
+    }
+}
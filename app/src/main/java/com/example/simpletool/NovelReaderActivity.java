@@ -4,14 +4,13 @@ import android.animation.Animator;
 import android.animation.AnimatorListenerAdapter;
 import android.animation.ValueAnimator;
 import android.content.DialogInterface;
+import android.content.SharedPreferences;
 import android.graphics.Color;
 import android.graphics.PorterDuff;
 import android.graphics.Rect;
 import android.graphics.drawable.GradientDrawable;
 import android.os.Bundle;
 import android.speech.tts.TextToSpeech;
-import android.text.Layout;
-import android.text.StaticLayout;
 import android.text.TextPaint;
 import android.util.DisplayMetrics;
 import android.util.Log;
@@ -31,33 +30,36 @@ import androidx.annotation.NonNull;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
+import androidx.core.content.ContextCompat;
 import androidx.recyclerview.widget.RecyclerView;
 import androidx.viewpager2.widget.ViewPager2;
 
-import org.mozilla.universalchardet.UniversalDetector;
-
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 public class NovelReaderActivity extends AppCompatActivity {
     private static final String PREFS_NAME = "NovelReaderPrefs";
-    private static final String KEY_LAST_POSITION = "last_position_";
+    // 保存的是当前页起点的字符偏移，与字号和屏幕无关
+    private static final String KEY_LAST_OFFSET = "last_offset_";
+    // 旧版本保存的页码，只有从头分页时才能换算成偏移
+    private static final String KEY_LEGACY_POSITION = "last_position_";
+    private static final int PROGRESS_STEPS = 1000;
+    private static final float LINE_SPACING = 1.2f;
     private ViewPager2 viewPager;
     private TextView tvProgress;
     private SeekBar sbProgress;
-    private List<Page> pages = new ArrayList<>();
-    private List<Chapter> chapters = new ArrayList<>();
+    private PageTable pages = new PageTable("");
+    private List<ChapterParser.Chapter> chapters = new ArrayList<>();
     private String filePath;
     private int currentPage = 0;
+    // 当前页起点在全文中的字符偏移
+    private int currentOffset = 0;
     private TextPaint textPaint;
     private int pageWidth;
     private int pageHeight;
@@ -78,8 +80,20 @@ public class NovelReaderActivity extends AppCompatActivity {
     private boolean isControlsVisible = true;
     private ValueAnimator controlsAnimator;
 
-    // 新增成员变量保存原始文本
-    private String originalContent;
+    // 正文按需从文件解码，不保存整本书的字符串
+    private NovelDocument document;
+    private IncrementalPaginator paginator;
+    // 块索引、章节和分页结果的磁盘缓存，在后台线程写回
+    private PaginationCache paginationCache;
+    private final ExecutorService cacheWriter = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "PaginationCacheWriter");
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+    // 重新分页后等第一章排好再定位到这个偏移，-1 表示没有在等
+    private int pendingOffset = -1;
+    // 待迁移的旧页码，从头分到这一页后换算成偏移，-1 表示不需要迁移
+    private int legacyPage = -1;
 
     // 字号范围调整为12sp-24sp
     private static final int MIN_TEXT_SIZE = 12;
@@ -90,9 +104,11 @@ public class NovelReaderActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_novel_reader);
         initViews();
+        // 先读字号再初始化画笔，分页和显示用同一个字号
+        loadFontSettings();
         initTextPaint();
         initTTS();
-        loadFontSettings();
+        paginator = new IncrementalPaginator(ContextCompat.getMainExecutor(this));
         loadFile();
         setupViewPager();
         setupProgressBar();
@@ -234,15 +250,34 @@ public class NovelReaderActivity extends AppCompatActivity {
         filePath = getIntent().getStringExtra("file_path");
         new Thread(() -> {
             try {
-                String encoding = detectEncoding(new File(filePath));
-                String content = readFileWithEncoding(filePath, encoding);
-                originalContent = content; // 保存原始内容
-                Log.e("@@@", originalContent.length() + "字数");
-                parseChapters(content);
-                splitPages(content);
+                PaginationCache cache = PaginationCache.open(new File(getCacheDir(), "pagination"), filePath);
+                // 分页缓存记录了这本书的字符集时不再检测，否则在映射好的字节上抽样检测
+                NovelDocument doc = NovelDocument.open(filePath, cache.getCharset(), getCacheDir());
+                runOnUiThread(() -> {
+                    if (isDestroyed()) {
+                        doc.close();
+                    } else {
+                        document = doc;
+                    }
+                });
+                List<ChapterParser.Chapter> restored = cache.restore(doc);
+                if (restored == null) {
+                    // 扫描时顺带识别章节，不需要全文字符串
+                    ChapterParser parser = new ChapterParser();
+                    doc.scan(parser);
+                    if (!doc.isComplete()) return; // 扫描期间界面已关闭
+                    restored = parser.finish(doc.length());
+                    cache.putIndex(doc, restored);
+                    cache.save();
+                }
+                List<ChapterParser.Chapter> parsed = restored;
+                Log.e("@@@", doc.length() + "字数，切分章节共：" + parsed.size());
                 runOnUiThread(() -> {
+                    if (isDestroyed()) return;
+                    paginationCache = cache;
+                    chapters = parsed;
                     viewPager.setAdapter(new PagerAdapter());
-                    restoreLastPosition();
+                    paginateFrom(loadSavedOffset());
                 });
             } catch (IOException e) {
                 runOnUiThread(this::showErrorDialog);
@@ -258,152 +293,63 @@ public class NovelReaderActivity extends AppCompatActivity {
                 .show();
     }
 
-    private void parseChapters(String content) {
-        chapters.clear();
-        if (content == null || content.isEmpty()) return;
-
-        // 增强版正则表达式，支持更多章节格式
-        Pattern pattern = Pattern.compile(
-                "(?m)^\\s*" +
-                        "(?:" +
-                        "(?:第\\s*[\\d\\u4e00-\\u9fa5]{1,10}\\s*[章回卷节篇集部])" +  // 支持带空格的格式如"第 三 章"
-                        "|(?:[卷篇集部]\\s*[\\d\\u4e00-\\u9fa5]{1,10})" +           // 支持"卷三"等格式
-                        "|(?:[序楔终][卷章]?\\s*)" +                                // 支持序章、楔子、终章
-                        ")" +
-                        "\\s*[：:—-]?\\s*" +                                       // 支持多种分隔符
-                        ".+" +                                                      // 必须包含实际标题内容
-                        "$"
-        );
-
-        Matcher matcher = pattern.matcher(content);
-        List<Chapter> titleMatches = new ArrayList<>();
-
-        // 收集所有可能的章节标题
-        while (matcher.find()) {
-            String fullTitle = matcher.group().trim();
-            titleMatches.add(new Chapter(
-                    fullTitle,
-                    matcher.start(),
-                    matcher.end()
-            ));
-        }
-
-        if (!titleMatches.isEmpty()) {
-            // 智能合并相邻标题（防止错误匹配导致的分割错误）
-            List<Chapter> validChapters = new ArrayList<>();
-            Chapter prev = null;
-            for (Chapter curr : titleMatches) {
-                if (prev == null) {
-                    prev = curr;
-                    continue;
-                }
-                // 如果两个标题间距过近（小于100字符），视为错误匹配
-                if (curr.startPos - prev.endPos < 100) {
-                    // 保留位置更合理的一个（取更长的标题）
-                    if (curr.title.length() > prev.title.length()) {
-                        prev = curr;
-                    }
-                } else {
-                    validChapters.add(prev);
-                    prev = curr;
-                }
-            }
-            validChapters.add(prev);
-
-            // 处理前言部分（首个章节前的内容）
-            Chapter first = validChapters.get(0);
-            if (first.startPos > 0) {
-                String preface = content.substring(0, first.startPos).trim();
-                if (!preface.isEmpty()) {
-                    chapters.add(new Chapter("前言", 0, first.startPos));
-                }
-            }
-
-            // 构建完整章节结构
-            for (int i = 0; i < validChapters.size(); i++) {
-                Chapter current = validChapters.get(i);
-                int endPos = (i < validChapters.size() - 1)
-                        ? validChapters.get(i + 1).startPos
-                        : content.length();
-
-                // 自动修正章节结束位置（跳过空白区域）
-                while (endPos > current.startPos &&
-                        Character.isWhitespace(content.charAt(endPos - 1))) {
-                    endPos--;
-                }
-
-                chapters.add(new Chapter(
-                        current.title,
-                        current.startPos,
-                        endPos
-                ));
-            }
-
-            // 检测尾声部分（最后章节后的有效内容）
-            Chapter last = chapters.get(chapters.size() - 1);
-            if (last.endPos < content.length()) {
-                String epilogue = content.substring(last.endPos).trim();
-                if (epilogue.length() > 50) {  // 至少50字符才视为尾声
-                    chapters.add(new Chapter(
-                            "尾声",
-                            last.endPos,
-                            content.length()
-                    ));
-                }
-            }
-        } else {
-            // 无章节时处理全文
-            chapters.add(new Chapter("全文", 0, content.length()));
-        }
-
-        Log.e("@@@", "切分章节共：" + chapters.size());
+    /**
+     * 从 offset 所在的章节开始重新分页，每章从新的一页开始。
+     * 旧的页在第一章排好之前继续显示，排好后替换掉并定位到 offset。
+     */
+    private void paginateFrom(int offset) {
+        if (document == null || chapters.isEmpty()) return;
+        pendingOffset = offset;
+        // 再留 16dp 底部空白
+        int height = measurePageHeight() - dpToPx(16);
+        PaginationCache.LayoutKey key = new PaginationCache.LayoutKey(
+                textPaint.getTextSize(), pageWidth, height, LINE_SPACING);
+        paginator.start(chapters, document, new PageSplitter(textPaint, pageWidth, height, LINE_SPACING),
+                paginationCache.pages(key), IncrementalPaginator.chapterAt(chapters, offset), paginationCallback);
     }
 
-    private void splitPages(String content) {
-        pages.clear();
-
+    private int measurePageHeight() {
         // 重新计算实际可用高度（考虑当前控件布局）
         DisplayMetrics metrics = new DisplayMetrics();
         getWindowManager().getDefaultDisplay().getMetrics(metrics);
         int toolbarHeight = findViewById(R.id.toolbar).getHeight();
         int bottomControlsHeight = findViewById(R.id.bottom_controls).getHeight();
         pageHeight = metrics.heightPixels - toolbarHeight - bottomControlsHeight - dpToPx(32); // 32dp为文本边距
-
-        Layout layout = new StaticLayout(
-                content,
-                textPaint,
-                pageWidth,
-                Layout.Alignment.ALIGN_NORMAL,
-                1.2f,
-                0f,
-                false
-        );
-
-        int lineCount = layout.getLineCount();
-        int startLine = 0;
-
-        while (startLine < lineCount) {
-            int endLine = findPageEndLine(layout, startLine);
-            int start = layout.getLineStart(startLine);
-            int end = layout.getLineEnd(endLine);
-            pages.add(new Page(content.substring(start, end), start, end));
-            startLine = endLine + 1;
-        }
+        return pageHeight;
     }
 
-    private int findPageEndLine(Layout layout, int startLine) {
-        float accumulatedHeight = 0;
-        final float pageHeightWithMargin = pageHeight - dpToPx(16); // 增加底部留白
-
-        for (int i = startLine; i < layout.getLineCount(); i++) {
-            float lineHeight = layout.getLineBottom(i) - layout.getLineTop(i);
-            if (accumulatedHeight + lineHeight > pageHeightWithMargin) {
-                return i - 1;
+    private final IncrementalPaginator.Callback paginationCallback = new IncrementalPaginator.Callback() {
+        @Override
+        public void onChapter(int chapterIndex, int[] pageStarts, boolean before) {
+            int end = chapters.get(chapterIndex).end;
+            if (pendingOffset >= 0) {
+                int target = pendingOffset;
+                pendingOffset = -1;
+                pages = new PageTable(document);
+                pages.append(pageStarts, end);
+                // 新建适配器，已有的页面按新的字号和颜色重建
+                viewPager.setAdapter(new PagerAdapter());
+                viewPager.setCurrentItem(pages.find(target), false);
+            } else if (before) {
+                // ViewPager2 会随插入调整当前页下标，onPageSelected 按页起点识别出还是同一页
+                pages.prepend(pageStarts, end);
+                viewPager.getAdapter().notifyItemRangeInserted(0, pageStarts.length);
+            } else {
+                int position = pages.size();
+                pages.append(pageStarts, end);
+                viewPager.getAdapter().notifyItemRangeInserted(position, pageStarts.length);
             }
-            accumulatedHeight += lineHeight;
+            migrateLegacyPage(false);
+            updateProgress();
         }
-        return layout.getLineCount() - 1;
-    }
+
+        @Override
+        public void onComplete() {
+            migrateLegacyPage(true);
+            PaginationCache cache = paginationCache;
+            cacheWriter.execute(cache::save);
+        }
+    };
 
     private void refreshTextDisplay() {
         // 更新文本参数后重新计算控件高度
@@ -413,9 +359,7 @@ public class NovelReaderActivity extends AppCompatActivity {
         // 获取最新控件尺寸
         findViewById(R.id.toolbar).post(() -> {
             findViewById(R.id.bottom_controls).post(() -> {
-                splitPages(originalContent);
-                viewPager.getAdapter().notifyDataSetChanged();
-                viewPager.setCurrentItem(currentPage, false);
+                paginateFrom(currentOffset);
             });
         });
     }
@@ -425,7 +369,14 @@ public class NovelReaderActivity extends AppCompatActivity {
             @Override
             public void onPageSelected(int position) {
                 currentPage = position;
+                if (position >= pages.size()) return;
                 updateProgress();
+                int start = pages.start(position);
+                // 前面插入了新排好的章节，下标变了但还是同一页
+                if (start == currentOffset) return;
+                // 迁移之前用户已经翻页，以用户的位置为准
+                legacyPage = -1;
+                currentOffset = start;
                 saveProgress();
                 handleTtsOnPageChange(position);
             }
@@ -435,14 +386,14 @@ public class NovelReaderActivity extends AppCompatActivity {
     private void handleTtsOnPageChange(int position) {
         if (isSpeaking) {
             tts.stop();
-            String text = pages.get(position).text;
+            CharSequence text = pages.text(position);
             tts.speak(text, TextToSpeech.QUEUE_FLUSH, null, "read_aloud");
             tts.setOnUtteranceCompletedListener(new TextToSpeech.OnUtteranceCompletedListener() {
                 @Override
                 public void onUtteranceCompleted(String utteranceId) {
                     runOnUiThread(() -> {
-                        if (position < pages.size() - 1) {
-                            viewPager.setCurrentItem(position + 1, true);
+                        if (currentPage < pages.size() - 1) {
+                            viewPager.setCurrentItem(currentPage + 1, true);
                         } else {
                             isSpeaking = false;
                         }
@@ -456,8 +407,10 @@ public class NovelReaderActivity extends AppCompatActivity {
         sbProgress.setOnSeekBarChangeListener(new SeekBar.OnSeekBarChangeListener() {
             @Override
             public void onProgressChanged(SeekBar seekBar, int progress, boolean fromUser) {
-                if (fromUser) {
-                    viewPager.setCurrentItem(progress, true);
+                // 拖动中只在已排好的页里跳转，松手后再为未排到的位置重新分页
+                int offset = progressToOffset(progress);
+                if (fromUser && pages.contains(offset)) {
+                    viewPager.setCurrentItem(pages.find(offset), false);
                 }
             }
 
@@ -467,20 +420,28 @@ public class NovelReaderActivity extends AppCompatActivity {
 
             @Override
             public void onStopTrackingTouch(SeekBar seekBar) {
+                goToOffset(progressToOffset(seekBar.getProgress()));
             }
         });
     }
 
+    // 后面的章节可能还没排完，进度按字符位置计算
     private void updateProgress() {
-        sbProgress.setMax(pages.size() - 1);
-        sbProgress.setProgress(currentPage);
+        if (document == null || currentPage >= pages.size()) return;
+        int length = Math.max(1, document.length());
+        sbProgress.setMax(PROGRESS_STEPS);
+        sbProgress.setProgress((int) ((long) pages.start(currentPage) * PROGRESS_STEPS / length));
         tvProgress.setText(String.format(Locale.getDefault(),
                 "%d/%d (%.1f%%)", currentPage + 1, pages.size(),
-                (currentPage + 1) * 100f / pages.size()));
+                pages.end(currentPage) * 100f / length));
+    }
+
+    private int progressToOffset(int progress) {
+        return document == null ? 0 : (int) ((long) progress * document.length() / PROGRESS_STEPS);
     }
 
     private void showChapterDialog() {
-        List<Chapter> filteredChapters = chapters.stream()
+        List<ChapterParser.Chapter> filteredChapters = chapters.stream()
                 .filter(c -> !c.title.equals("前言") && !c.title.equals("尾声"))
                 .collect(Collectors.toList());
 
@@ -495,20 +456,17 @@ public class NovelReaderActivity extends AppCompatActivity {
                 .show();
     }
 
-    private void jumpToChapter(Chapter chapter) {
-        int targetPage = findPageForPosition(chapter.startPos);
-        viewPager.setCurrentItem(targetPage, true);
+    private void jumpToChapter(ChapterParser.Chapter chapter) {
+        goToOffset(chapter.start);
     }
 
-    private int findPageForPosition(int charPosition) {
-        int totalLength = 0;
-        for (Page page : pages) {
-            if (charPosition >= totalLength && charPosition < totalLength + page.text.length()) {
-                return pages.indexOf(page);
-            }
-            totalLength += page.text.length();
+    // 已经排到的位置直接翻过去，否则从那一章重新分页
+    private void goToOffset(int offset) {
+        if (pages.contains(offset)) {
+            viewPager.setCurrentItem(pages.find(offset), false);
+        } else {
+            paginateFrom(offset);
         }
-        return 0;
     }
 
     private void initTTS() {
@@ -524,7 +482,7 @@ public class NovelReaderActivity extends AppCompatActivity {
             tts.stop();
             isSpeaking = false;
         } else {
-            String text = pages.get(currentPage).text;
+            CharSequence text = pages.text(currentPage);
             tts.speak(text, TextToSpeech.QUEUE_FLUSH, null, "read_aloud");
 
             tts.setOnUtteranceCompletedListener(new TextToSpeech.OnUtteranceCompletedListener() {
@@ -687,44 +645,38 @@ public class NovelReaderActivity extends AppCompatActivity {
                 .getInt("bg_color", 0xFFF5E6CA);
     }
 
-    private String detectEncoding(File file) throws IOException {
-        UniversalDetector detector = new UniversalDetector(null);
-        byte[] buf = new byte[4096];
-        try (FileInputStream fis = new FileInputStream(file)) {
-            int nread;
-            while ((nread = fis.read(buf)) > 0 && !detector.isDone()) {
-                detector.handleData(buf, 0, nread);
-            }
-        }
-        detector.dataEnd();
-        String encoding = detector.getDetectedCharset();
-        return encoding != null ? encoding : "GBK";
-    }
-
-    private String readFileWithEncoding(String path, String encoding) throws IOException {
-        StringBuilder sb = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(new FileInputStream(path), encoding))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                sb.append(line).append("\n");
-            }
-        }
-        return sb.toString();
-    }
-
     private void saveProgress() {
+        // 旧页码还没换算出来时什么也不写，下次打开继续迁移
+        if (legacyPage >= 0) return;
         getSharedPreferences(PREFS_NAME, MODE_PRIVATE)
                 .edit()
-                .putInt(KEY_LAST_POSITION + filePath.hashCode(), currentPage)
+                .putInt(KEY_LAST_OFFSET + filePath.hashCode(), currentOffset)
+                .remove(KEY_LEGACY_POSITION + filePath.hashCode())
                 .apply();
     }
 
-    private void restoreLastPosition() {
-        currentPage = getSharedPreferences(PREFS_NAME, MODE_PRIVATE)
-                .getInt(KEY_LAST_POSITION + filePath.hashCode(), 0);
-        viewPager.setCurrentItem(currentPage, false);
-        updateProgress();
+    private int loadSavedOffset() {
+        SharedPreferences prefs = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
+        String offsetKey = KEY_LAST_OFFSET + filePath.hashCode();
+        String legacyKey = KEY_LEGACY_POSITION + filePath.hashCode();
+        if (!prefs.contains(offsetKey) && prefs.contains(legacyKey)) {
+            // 旧版本只存了页码，先从头分页，分到那一页时再定位
+            legacyPage = prefs.getInt(legacyKey, 0);
+        }
+        currentOffset = prefs.getInt(offsetKey, 0);
+        return currentOffset;
+    }
+
+    // 从头分页的页数够了（或已分完全书）时跳到旧页码，改存为偏移并删除旧的页码
+    private void migrateLegacyPage(boolean complete) {
+        if (legacyPage < 0 || pages.isEmpty()) return;
+        if (legacyPage >= pages.size() && !complete) return;
+        int page = Math.min(legacyPage, pages.size() - 1);
+        legacyPage = -1;
+        // 先更新偏移，onPageSelected 会把这次跳转当作同一页
+        currentOffset = pages.start(page);
+        viewPager.setCurrentItem(page, false);
+        saveProgress();
     }
 
     @Override
@@ -750,6 +702,11 @@ public class NovelReaderActivity extends AppCompatActivity {
     protected void onPause() {
         super.onPause();
         saveProgress();
+        // 分页还没完成时也把已经排好的章节存下来
+        PaginationCache cache = paginationCache;
+        if (cache != null) {
+            cacheWriter.execute(cache::save);
+        }
         if (isSpeaking) tts.stop();
     }
 
@@ -759,6 +716,12 @@ public class NovelReaderActivity extends AppCompatActivity {
             tts.stop();
             tts.shutdown();
         }
+        paginator.shutdown();
+        // 不打断正在写的缓存，写完后线程自行结束
+        cacheWriter.shutdown();
+        if (document != null) {
+            document.close();
+        }
         super.onDestroy();
     }
 
@@ -770,30 +733,6 @@ public class NovelReaderActivity extends AppCompatActivity {
         return (int) (sp * getResources().getDisplayMetrics().scaledDensity);
     }
 
-    private static class Page {
-        String text;
-        int start;
-        int end;
-
-        Page(String text, int start, int end) {
-            this.text = text;
-            this.start = start;
-            this.end = end;
-        }
-    }
-
-    private static class Chapter {
-        String title;
-        int startPos;
-        int endPos;
-
-        Chapter(String title, int startPos, int endPos) {
-            this.title = title;
-            this.startPos = startPos;
-            this.endPos = endPos;
-        }
-    }
-
     private class PagerAdapter extends RecyclerView.Adapter<PagerAdapter.PageHolder> {
         @NonNull
         @Override
@@ -805,14 +744,15 @@ public class NovelReaderActivity extends AppCompatActivity {
             textView.setTextSize(TypedValue.COMPLEX_UNIT_PX, spToPx(textSizeSp));
             textView.setTextColor(textColor);
             textView.setBackgroundColor(bgColor);
-            textView.setLineSpacing(0, 1.2f);
+            textView.setLineSpacing(0, LINE_SPACING);
             textView.setPadding(dpToPx(16), dpToPx(16), dpToPx(16), dpToPx(16));
             return new PageHolder(textView);
         }
 
         @Override
         public void onBindViewHolder(@NonNull PageHolder holder, int position) {
-            holder.textView.setText(pages.get(position).text);
+            // 只在绑定时才从文档取出这一页的文字
+            holder.textView.setText(pages.text(position));
         }
 
         @Override
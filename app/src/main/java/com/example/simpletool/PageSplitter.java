@@ -4,41 +4,52 @@ import android.text.Layout;
 import android.text.StaticLayout;
 import android.text.TextPaint;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
-class PageSplitter {
+/**
+ * 用 StaticLayout 给一章文字分页，供 {@link IncrementalPaginator} 在工作线程调用。
+ * 参数在构造时固定，画笔是一份拷贝，界面之后修改字号不影响正在进行的分页。
+ */
+final class PageSplitter implements IncrementalPaginator.PageBreaker {
     private final TextPaint textPaint;
     private final int pageWidth;
     private final int pageHeight;
+    private final float lineSpacing;
 
-    public PageSplitter(TextPaint paint, int width, int height) {
-        this.textPaint = paint;
+    PageSplitter(TextPaint paint, int width, int height, float lineSpacing) {
+        this.textPaint = new TextPaint(paint);
         this.pageWidth = width;
         this.pageHeight = height;
+        this.lineSpacing = lineSpacing;
     }
 
-    public List<String> split(String text) {
-        List<String> pages = new ArrayList<>();
+    @Override
+    public int[] pageStarts(CharSequence text) {
         Layout layout = new StaticLayout(text, textPaint, pageWidth,
-                Layout.Alignment.ALIGN_NORMAL, 1.2f, 0f, false);
+                Layout.Alignment.ALIGN_NORMAL, lineSpacing, 0f, false);
 
-        int start = 0;
-        while (start < layout.getLineCount()) {
-            int end = findEndLine(layout, start);
-            pages.add(text.substring(layout.getLineStart(start),
-                    layout.getLineEnd(end)));
-            start = end + 1;
+        int lineCount = layout.getLineCount();
+        int[] starts = new int[16];
+        int count = 0;
+        int startLine = 0;
+        while (startLine < lineCount) {
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+            }
+            starts[count++] = layout.getLineStart(startLine);
+            startLine = findEndLine(layout, startLine) + 1;
         }
-        return pages;
+        return Arrays.copyOf(starts, count);
     }
 
+    // 每页至少一行，否则比页面还高的一行会让分页停不下来
     private int findEndLine(Layout layout, int startLine) {
-        int height = 0;
+        float height = 0;
         for (int i = startLine; i < layout.getLineCount(); i++) {
-            height += layout.getLineBottom(i) - layout.getLineTop(i);
-            if (height > pageHeight) return i - 1;
+            float lineHeight = layout.getLineBottom(i) - layout.getLineTop(i);
+            if (height + lineHeight > pageHeight && i > startLine) return i - 1;
+            height += lineHeight;
         }
         return layout.getLineCount() - 1;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,112 @@
+package com.example.simpletool;
+
+import java.util.Arrays;
+
+/**
+ * 已排好的页：每页只是全文中的一个字符区间，起点和终点分别存在两个 int 数组里，
+ * 文字来自共享的 {@link CharSequence}（{@link NovelDocument}），只在显示或朗读时取出。
+ * 每页只占 8 字节，不保存任何字符串。
+ * <p>
+ * {@link IncrementalPaginator} 会把章节接在末尾或插在开头，数组两端都留有空位，
+ * 在开头插入不需要每次移动已有的页。只在主线程访问。
+ */
+final class PageTable {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final CharSequence text;
+    // 有效的页为 [head, head + count)
+    private int[] starts = new int[INITIAL_CAPACITY];
+    private int[] ends = new int[INITIAL_CAPACITY];
+    private int head = INITIAL_CAPACITY / 2;
+    private int count;
+
+    PageTable(CharSequence text) {
+        this.text = text;
+    }
+
+    int size() {
+        return count;
+    }
+
+    boolean isEmpty() {
+        return count == 0;
+    }
+
+    int start(int page) {
+        return starts[head + checkIndex(page)];
+    }
+
+    int end(int page) {
+        return ends[head + checkIndex(page)];
+    }
+
+    /** 第 page 页的文字，此时才从文档解码。 */
+    CharSequence text(int page) {
+        int index = head + checkIndex(page);
+        return text.subSequence(starts[index], ends[index]);
+    }
+
+    /**
+     * 把一章的页接在末尾。pageStarts 为各页在全文中的起点，最后一页到 end 为止。
+     */
+    void append(int[] pageStarts, int end) {
+        int n = pageStarts.length;
+        ensureCapacity(0, n);
+        fill(head + count, pageStarts, end);
+        count += n;
+    }
+
+    /** 把一章的页插在开头。 */
+    void prepend(int[] pageStarts, int end) {
+        int n = pageStarts.length;
+        ensureCapacity(n, 0);
+        head -= n;
+        fill(head, pageStarts, end);
+        count += n;
+    }
+
+    /** 包含 offset 的页，落在两页之间（章节之间的空白）时取前一页。没有页时返回 0。 */
+    int find(int offset) {
+        int index = Arrays.binarySearch(starts, head, head + count, offset);
+        if (index < 0) index = Math.max(head, -index - 2);
+        return index - head;
+    }
+
+    /** offset 是否落在已排好的范围内。 */
+    boolean contains(int offset) {
+        return count > 0 && offset >= starts[head] && offset < ends[head + count - 1];
+    }
+
+    private void fill(int at, int[] pageStarts, int end) {
+        int n = pageStarts.length;
+        System.arraycopy(pageStarts, 0, starts, at, n);
+        for (int i = 0; i < n; i++) {
+            ends[at + i] = i + 1 < n ? pageStarts[i + 1] : end;
+        }
+    }
+
+    // 保证开头至少留有 front 个空位、末尾至少留有 back 个空位，不够时按当前大小加倍并重新居中
+    private void ensureCapacity(int front, int back) {
+        int tail = starts.length - head - count;
+        if (head >= front && tail >= back) return;
+        int capacity = Math.max(starts.length * 2, count + front + back + INITIAL_CAPACITY);
+        int newHead = front + (capacity - count - front - back) / 2;
+        starts = move(starts, capacity, newHead);
+        ends = move(ends, capacity, newHead);
+        head = newHead;
+    }
+
+    private int[] move(int[] values, int capacity, int newHead) {
+        int[] moved = new int[capacity];
+        System.arraycopy(values, head, moved, newHead, count);
+        return moved;
+    }
+
+    private int checkIndex(int page) {
+        if (page < 0 || page >= count) {
+            throw new IndexOutOfBoundsException("page " + page + ", size " + count);
+        }
+        return page;
+    }
+}
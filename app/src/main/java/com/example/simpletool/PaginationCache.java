@@ -0,0 +1,272 @@
+package com.example.simpletool;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一本书的分页缓存，每本书一个二进制文件，保存在应用缓存目录里。
+ * <p>
+ * 文件头以路径、文件大小、mtime 和字符集校验（字符集同时作为检测结果的缓存），其后是 {@link NovelDocument} 的块索引和章节列表，
+ * 再往后按排版参数（字号、页面宽高、行距）分组，每组保存每章的页起点数组。
+ * 同样的参数重新打开时不需要扫描也不需要排版；最多保留 {@link #MAX_LAYOUTS} 组参数，
+ * 来回切换字号时也能命中。压缩包内的书以压缩包的大小和 mtime 校验。
+ * 读写文件的方法应在后台线程调用。
+ */
+final class PaginationCache {
+
+    private static final int MAGIC = 0x50414743; // "PAGC"
+    private static final int VERSION = 1;
+    private static final int MAX_LAYOUTS = 4;
+    // 章节还没排过
+    private static final int NOT_LAID_OUT = -1;
+
+    /** 决定分页结果的排版参数。字号用像素，系统字体缩放变化后也会失效。 */
+    static final class LayoutKey {
+        final float textSizePx;
+        final int pageWidth;
+        final int pageHeight;
+        final float lineSpacing;
+
+        LayoutKey(float textSizePx, int pageWidth, int pageHeight, float lineSpacing) {
+            this.textSizePx = textSizePx;
+            this.pageWidth = pageWidth;
+            this.pageHeight = pageHeight;
+            this.lineSpacing = lineSpacing;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof LayoutKey)) return false;
+            LayoutKey other = (LayoutKey) o;
+            return Float.compare(textSizePx, other.textSizePx) == 0 && pageWidth == other.pageWidth
+                    && pageHeight == other.pageHeight && Float.compare(lineSpacing, other.lineSpacing) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = Float.floatToIntBits(textSizePx);
+            result = 31 * result + pageWidth;
+            result = 31 * result + pageHeight;
+            return 31 * result + Float.floatToIntBits(lineSpacing);
+        }
+    }
+
+    private final File file;
+    private final String path;
+    private final long size;
+    private final long modified;
+
+    private String encoding;
+    private int[] blockByteStarts;
+    private int[] blockCharStarts;
+    private List<ChapterParser.Chapter> chapters;
+    // accessOrder=true，迭代顺序即最久未使用在前；数组下标为章节，未排的章节为 null
+    private final LinkedHashMap<LayoutKey, int[][]> layouts = new LinkedHashMap<>(8, 0.75f, true);
+    private boolean dirty;
+
+    private PaginationCache(File file, String path, long size, long modified) {
+        this.file = file;
+        this.path = path;
+        this.size = size;
+        this.modified = modified;
+    }
+
+    /**
+     * 打开 path（可以在压缩包内）的缓存，没有缓存或书已经改变时返回空的缓存。
+     */
+    static PaginationCache open(File dir, String path) {
+        ZipArchive.Location location = ZipArchive.locate(path);
+        File source = location == null ? new File(path) : location.archive;
+        // hashCode 可能冲突，文件头里还保存了完整路径用于核对
+        File file = new File(dir, Integer.toHexString(path.hashCode()) + ".pag");
+        PaginationCache cache = new PaginationCache(file, path, source.length(), source.lastModified());
+        cache.load();
+        return cache;
+    }
+
+    /**
+     * 缓存里记录的字符集，文件没有变过时可以直接使用，不必再检测；没有记录时返回 null。
+     */
+    synchronized Charset getCharset() {
+        if (encoding == null) return null;
+        try {
+            return Charset.forName(encoding);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 用缓存的块索引恢复 document 并返回章节列表，代替扫描。
+     * 没有缓存、字符集不同或索引与文件对不上时返回 null，此时应正常扫描。
+     */
+    synchronized List<ChapterParser.Chapter> restore(NovelDocument document) {
+        if (chapters == null || !document.getCharset().name().equals(encoding)) return null;
+        if (!document.restoreIndex(blockByteStarts, blockCharStarts)) return null;
+        return chapters;
+    }
+
+    /**
+     * 记录扫描得到的块索引和章节。重新扫描说明章节偏移可能变了，旧的分页结果一律作废。
+     */
+    synchronized void putIndex(NovelDocument document, List<ChapterParser.Chapter> chapters) {
+        layouts.clear();
+        encoding = document.getCharset().name();
+        blockByteStarts = document.blockByteStarts();
+        blockCharStarts = document.blockCharStarts();
+        this.chapters = new ArrayList<>(chapters);
+        dirty = true;
+    }
+
+    /**
+     * key 对应的逐章分页结果，供 {@link IncrementalPaginator} 读取和填充。
+     * 必须先调用过 {@link #restore} 或 {@link #putIndex}。
+     */
+    synchronized IncrementalPaginator.PageStore pages(LayoutKey key) {
+        int[][] byChapter = layouts.get(key);
+        if (byChapter == null) {
+            byChapter = new int[chapters.size()][];
+            layouts.put(key, byChapter);
+            Iterator<Map.Entry<LayoutKey, int[][]>> it = layouts.entrySet().iterator();
+            while (layouts.size() > MAX_LAYOUTS && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+        final int[][] pages = byChapter;
+        return new IncrementalPaginator.PageStore() {
+            @Override
+            public int[] get(int chapterIndex) {
+                synchronized (PaginationCache.this) {
+                    return pages[chapterIndex];
+                }
+            }
+
+            @Override
+            public void put(int chapterIndex, int[] pageStarts) {
+                synchronized (PaginationCache.this) {
+                    pages[chapterIndex] = pageStarts;
+                    dirty = true;
+                }
+            }
+        };
+    }
+
+    /**
+     * 有新内容时写回文件。
+     */
+    synchronized void save() {
+        if (!dirty || chapters == null) return;
+        File dir = file.getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) return;
+
+        File temp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(path);
+            out.writeLong(size);
+            out.writeLong(modified);
+            out.writeUTF(encoding);
+            writeInts(out, blockByteStarts);
+            writeInts(out, blockCharStarts);
+            out.writeInt(chapters.size());
+            for (ChapterParser.Chapter chapter : chapters) {
+                out.writeUTF(chapter.title);
+                out.writeInt(chapter.start);
+                out.writeInt(chapter.end);
+            }
+            out.writeInt(layouts.size());
+            for (Map.Entry<LayoutKey, int[][]> entry : layouts.entrySet()) {
+                LayoutKey key = entry.getKey();
+                out.writeFloat(key.textSizePx);
+                out.writeInt(key.pageWidth);
+                out.writeInt(key.pageHeight);
+                out.writeFloat(key.lineSpacing);
+                for (int[] starts : entry.getValue()) {
+                    if (starts == null) {
+                        out.writeInt(NOT_LAID_OUT);
+                    } else {
+                        writeInts(out, starts);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            temp.delete();
+            return;
+        }
+        if (temp.renameTo(file)) {
+            dirty = false;
+        } else {
+            temp.delete();
+        }
+    }
+
+    private void load() {
+        if (!file.isFile()) return;
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) return;
+            if (!path.equals(in.readUTF()) || in.readLong() != size || in.readLong() != modified) return;
+            String encoding = in.readUTF();
+            int[] byteStarts = readInts(in);
+            int[] charStarts = readInts(in);
+            if (byteStarts == null || charStarts == null) return;
+            int chapterCount = in.readInt();
+            List<ChapterParser.Chapter> chapters = new ArrayList<>(chapterCount);
+            for (int i = 0; i < chapterCount; i++) {
+                chapters.add(new ChapterParser.Chapter(in.readUTF(), in.readInt(), in.readInt()));
+            }
+            int layoutCount = in.readInt();
+            for (int i = 0; i < layoutCount; i++) {
+                LayoutKey key = new LayoutKey(in.readFloat(), in.readInt(), in.readInt(), in.readFloat());
+                int[][] byChapter = new int[chapterCount][];
+                for (int c = 0; c < chapterCount; c++) {
+                    byChapter[c] = readInts(in);
+                }
+                layouts.put(key, byChapter);
+            }
+            this.encoding = encoding;
+            this.blockByteStarts = byteStarts;
+            this.blockCharStarts = charStarts;
+            this.chapters = chapters;
+        } catch (IOException e) {
+            // 缓存损坏时直接丢弃
+            layouts.clear();
+            file.delete();
+        }
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    // 长度为 NOT_LAID_OUT 时返回 null
+    private static int[] readInts(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length == NOT_LAID_OUT) return null;
+        if (length < 0) throw new IOException("bad length " + length);
+        int[] values = new int[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = in.readInt();
+        }
+        return values;
+    }
+}
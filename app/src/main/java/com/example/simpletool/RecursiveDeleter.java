@@ -0,0 +1,201 @@
+package com.example.simpletool;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 后台递归删除。每个目录一个 fork-join 任务，先删除子项再删除目录本身（后序深度优先），
+ * 各子目录由 ForkJoinPool 并行处理。符号链接只删除链接本身，不进入其指向的目录。
+ * 进度按固定间隔汇总投递，已删除的顶层条目随进度成批交给回调，避免每删一项刷新一次界面。
+ */
+final class RecursiveDeleter {
+
+    interface Listener {
+        /**
+         * @param removedPaths 自上次回调以来已完整删除的顶层条目
+         */
+        void onProgress(int deletedCount, List<String> removedPaths);
+
+        /**
+         * @param cancelled 批次被 {@link #cancel} 中止，未删除的条目既不算删除也不算失败
+         */
+        void onComplete(int deletedCount, int failedCount, boolean cancelled, List<String> removedPaths);
+    }
+
+    private static final long PROGRESS_INTERVAL_NANOS = 200_000_000L;
+    private static final int MAX_DEPTH = 64;
+
+    private final ForkJoinPool pool;
+    private final Executor callbackExecutor;
+    // cancel() 使之前开始的所有批次失效，之后开始的批次不受影响
+    private final AtomicInteger generation = new AtomicInteger();
+
+    RecursiveDeleter(ForkJoinPool pool, Executor callbackExecutor) {
+        this.pool = pool;
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    void delete(List<File> targets, Listener listener) {
+        int token = generation.get();
+        pool.execute(new Batch(token, new ArrayList<>(targets), listener));
+    }
+
+    /** 停止尚未删除的部分，已删除的无法恢复。 */
+    void cancel() {
+        generation.incrementAndGet();
+    }
+
+    void shutdown() {
+        cancel();
+        pool.shutdownNow();
+    }
+
+    private final class Batch extends RecursiveAction {
+        private final int token;
+        private final List<File> targets;
+        private final Listener listener;
+        private final AtomicInteger deleted = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final ConcurrentLinkedQueue<String> removed = new ConcurrentLinkedQueue<>();
+        private final AtomicLong lastEmit = new AtomicLong(System.nanoTime());
+
+        Batch(int token, List<File> targets, Listener listener) {
+            this.token = token;
+            this.targets = targets;
+            this.listener = listener;
+        }
+
+        boolean isStale() {
+            return token != generation.get();
+        }
+
+        @Override
+        protected void compute() {
+            List<TopLevel> tasks = new ArrayList<>(targets.size());
+            for (File target : targets) {
+                tasks.add(new TopLevel(this, target));
+            }
+            invokeAll(tasks);
+
+            int deletedCount = deleted.get();
+            int failedCount = failed.get();
+            boolean cancelled = isStale();
+            List<String> paths = drain();
+            // 取消后也要汇报，已经删除的条目需要从列表中移除
+            callbackExecutor.execute(() -> listener.onComplete(deletedCount, failedCount, cancelled, paths));
+        }
+
+        void onDeleted(boolean ok) {
+            if (ok) {
+                deleted.incrementAndGet();
+            } else {
+                failed.incrementAndGet();
+            }
+            long now = System.nanoTime();
+            long last = lastEmit.get();
+            if (now - last >= PROGRESS_INTERVAL_NANOS && lastEmit.compareAndSet(last, now) && !isStale()) {
+                int count = deleted.get();
+                List<String> paths = drain();
+                callbackExecutor.execute(() -> listener.onProgress(count, paths));
+            }
+        }
+
+        private List<String> drain() {
+            List<String> paths = new ArrayList<>();
+            String path;
+            while ((path = removed.poll()) != null) {
+                paths.add(path);
+            }
+            return paths;
+        }
+    }
+
+    private final class TopLevel extends RecursiveAction {
+        private final Batch batch;
+        private final File target;
+
+        TopLevel(Batch batch, File target) {
+            this.batch = batch;
+            this.target = target;
+        }
+
+        @Override
+        protected void compute() {
+            boolean ok = new DeleteTask(batch, target, 0).invoke();
+            if (ok) batch.removed.add(target.getPath());
+        }
+    }
+
+    private final class DeleteTask extends RecursiveTask<Boolean> {
+        private final Batch batch;
+        private final File file;
+        private final int depth;
+
+        DeleteTask(Batch batch, File file, int depth) {
+            this.batch = batch;
+            this.file = file;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Boolean compute() {
+            if (batch.isStale()) return false;
+            if (isRealDirectory(file)) {
+                if (depth >= MAX_DEPTH) {
+                    batch.onDeleted(false);
+                    return false;
+                }
+                String[] names = file.list();
+                if (names != null) {
+                    List<DeleteTask> subdirs = new ArrayList<>();
+                    for (String name : names) {
+                        File child = new File(file, name);
+                        if (isRealDirectory(child)) {
+                            subdirs.add(new DeleteTask(batch, child, depth + 1));
+                        } else if (!batch.isStale()) {
+                            batch.onDeleted(child.delete());
+                        }
+                    }
+                    invokeAll(subdirs);
+                }
+            }
+            if (batch.isStale()) return false;
+            // 子项有删除失败时这里也会失败，目录保留
+            boolean ok = file.delete();
+            batch.onDeleted(ok);
+            return ok;
+        }
+    }
+
+    // 符号链接（即使指向目录）按普通文件处理，只删除链接本身
+    static boolean isRealDirectory(File file) {
+        if (FileEntry.NIO_AVAILABLE) {
+            try {
+                return Files.readAttributes(file.toPath(), BasicFileAttributes.class,
+                        LinkOption.NOFOLLOW_LINKS).isDirectory();
+            } catch (IOException | SecurityException e) {
+                return false;
+            }
+        }
+        if (!file.isDirectory()) return false;
+        try {
+            File parent = file.getParentFile();
+            File resolved = parent == null ? file : new File(parent.getCanonicalFile(), file.getName());
+            return resolved.getCanonicalFile().equals(resolved.getAbsoluteFile());
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.example.simpletool;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.util.Log;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.EditText;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 文件名搜索页。启动时先读取磁盘上的索引立即可查，同时在后台增量刷新索引。
+ */
+public class SearchActivity extends AppCompatActivity {
+
+    static final String EXTRA_ROOTS = "storage_roots";
+    static final String EXTRA_RESULT_PATH = "result_path";
+
+    private static final String INDEX_FILE = "file_index.bin";
+    private static final int RESULT_LIMIT = 500;
+
+    // 索引在进程内共享，再次打开搜索页时无需重新读取
+    private static volatile FileIndex sharedIndex;
+    // 刷新索引属于进程而不是页面：关闭搜索页不会丢掉已经遍历的部分，下次打开接着显示结果
+    private static final ExecutorService indexExecutor = Executors.newSingleThreadExecutor(
+            r -> new Thread(r, "FileIndex"));
+    private static final ForkJoinPool walkPool = new ForkJoinPool(4);
+    private static final AtomicBoolean refreshing = new AtomicBoolean();
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // 当前打开的搜索页，只在主线程读写
+    private static SearchActivity current;
+
+    private final ExecutorService queryExecutor = Executors.newSingleThreadExecutor();
+    private final AtomicInteger queryGeneration = new AtomicInteger();
+
+    private EditText etQuery;
+    private TextView tvStatus;
+    private ResultAdapter adapter;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_search);
+
+        etQuery = findViewById(R.id.et_query);
+        tvStatus = findViewById(R.id.tv_search_status);
+        RecyclerView rvResults = findViewById(R.id.rv_results);
+        adapter = new ResultAdapter();
+        rvResults.setLayoutManager(new LinearLayoutManager(this));
+        rvResults.setAdapter(adapter);
+
+        etQuery.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                runQuery(s.toString().trim());
+            }
+        });
+
+        current = this;
+        refreshIndex();
+    }
+
+    private void refreshIndex() {
+        ArrayList<String> rootPaths = getIntent().getStringArrayListExtra(EXTRA_ROOTS);
+        List<File> roots = new ArrayList<>();
+        if (rootPaths != null) {
+            for (String path : rootPaths) {
+                roots.add(new File(path));
+            }
+        }
+        File indexFile = new File(getCacheDir(), INDEX_FILE);
+
+        // 上一个搜索页启动的刷新还在进行时不再重复遍历，等它完成后通知本页
+        boolean started = refreshing.compareAndSet(false, true);
+        FileIndex index = sharedIndex;
+        if (index != null) {
+            onIndexChanged(index, "正在更新索引…");
+        } else if (!started) {
+            tvStatus.setText("正在建立索引…");
+        }
+        if (!started) return;
+
+        indexExecutor.execute(() -> {
+            try {
+                rebuild(roots, indexFile);
+            } finally {
+                refreshing.set(false);
+            }
+        });
+    }
+
+    // 在 indexExecutor 上运行，不引用任何页面
+    private static void rebuild(List<File> roots, File indexFile) {
+        FileIndex index = sharedIndex;
+        if (index == null && indexFile.isFile()) {
+            try {
+                index = FileIndex.load(indexFile);
+                sharedIndex = index;
+            } catch (IOException e) {
+                Log.e("FileIndex", "读取索引失败", e);
+            }
+        }
+        if (index == null) {
+            postStatus("正在建立索引…");
+        } else {
+            postIndexChanged(index, "正在更新索引…");
+        }
+
+        FileIndex fresh = new FileIndexBuilder(walkPool).build(roots, index);
+        sharedIndex = fresh;
+        postIndexChanged(fresh, null);
+        try {
+            fresh.save(indexFile);
+        } catch (IOException e) {
+            Log.e("FileIndex", "保存索引失败", e);
+        }
+    }
+
+    private static void postStatus(String status) {
+        mainHandler.post(() -> {
+            if (current != null) current.tvStatus.setText(status);
+        });
+    }
+
+    private static void postIndexChanged(FileIndex index, String status) {
+        mainHandler.post(() -> {
+            if (current != null) current.onIndexChanged(index, status);
+        });
+    }
+
+    private void onIndexChanged(FileIndex index, String status) {
+        String text = String.format(Locale.getDefault(), "已索引 %d 项", index.size);
+        tvStatus.setText(status != null ? text + "，" + status : text);
+        runQuery(etQuery.getText().toString().trim());
+    }
+
+    // 只保留最新一次输入的查询，过时的查询结果直接丢弃
+    private void runQuery(String query) {
+        final int generation = queryGeneration.incrementAndGet();
+        queryExecutor.execute(() -> {
+            FileIndex index = sharedIndex;
+            if (generation != queryGeneration.get() || index == null) return;
+
+            List<Result> results = new ArrayList<>();
+            if (!query.isEmpty()) {
+                for (int id : index.search(query, RESULT_LIMIT)) {
+                    results.add(new Result(index.name(id), index.path(id), index.isDirectory(id)));
+                }
+            }
+            runOnUiThread(() -> {
+                if (generation == queryGeneration.get()) {
+                    adapter.setResults(results);
+                }
+            });
+        });
+    }
+
+    private void returnResult(Result result) {
+        Intent data = new Intent();
+        data.putExtra(EXTRA_RESULT_PATH, result.path);
+        setResult(RESULT_OK, data);
+        finish();
+    }
+
+    @Override
+    protected void onDestroy() {
+        // 索引刷新继续在后台完成并写入磁盘，这里只解除与本页的关联
+        if (current == this) current = null;
+        queryExecutor.shutdownNow();
+        super.onDestroy();
+    }
+
+    private static class Result {
+        final String name;
+        final String path;
+        final boolean isDirectory;
+
+        Result(String name, String path, boolean isDirectory) {
+            this.name = name;
+            this.path = path;
+            this.isDirectory = isDirectory;
+        }
+    }
+
+    private class ResultAdapter extends RecyclerView.Adapter<ResultHolder> {
+        private List<Result> results = new ArrayList<>();
+
+        void setResults(List<Result> results) {
+            this.results = results;
+            notifyDataSetChanged();
+        }
+
+        @NonNull
+        @Override
+        public ResultHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            View view = LayoutInflater.from(parent.getContext())
+                    .inflate(R.layout.item_search_result, parent, false);
+            return new ResultHolder(view);
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull ResultHolder holder, int position) {
+            Result result = results.get(position);
+            holder.icon.setText(result.isDirectory ? "📁" : FileTypes.icon(FileTypes.byName(result.name)));
+            holder.name.setText(result.name);
+            holder.path.setText(result.path);
+            holder.itemView.setOnClickListener(v -> returnResult(result));
+        }
+
+        @Override
+        public int getItemCount() {
+            return results.size();
+        }
+    }
+
+    static class ResultHolder extends RecyclerView.ViewHolder {
+        TextView icon, name, path;
+
+        ResultHolder(View itemView) {
+            super(itemView);
+            icon = itemView.findViewById(R.id.result_icon);
+            name = itemView.findViewById(R.id.result_name);
+            path = itemView.findViewById(R.id.result_path);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.simpletool;
+
+// 文件列表排序模式
+enum SortMode {
+    NAME_ASC, NAME_DESC,
+    SIZE_ASC, SIZE_DESC,
+    DATE_ASC, DATE_DESC
+}
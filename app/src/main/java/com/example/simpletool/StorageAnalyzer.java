@@ -0,0 +1,317 @@
+package com.example.simpletool;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 存储分析：对一个根目录做一次流式遍历，只保留最大的 N 个文件（小顶堆）和按扩展名汇总的计数。
+ * 已统计的文件不保留任何对象，内存占用与文件总数无关，只取决于 N、扩展名表容量和目录深度。
+ * {@link #analyze} 是阻塞调用，应在后台线程执行。
+ */
+final class StorageAnalyzer {
+
+    interface ProgressListener {
+        /** 在扫描线程上按固定间隔调用。 */
+        void onProgress(long fileCount, long totalBytes);
+    }
+
+    static final class LargeFile {
+        final String path;
+        final long size;
+
+        LargeFile(String path, long size) {
+            this.path = path;
+            this.size = size;
+        }
+    }
+
+    static final class ExtensionStat {
+        /** 小写扩展名；"" 表示没有扩展名，null 表示超出统计表容量的其他扩展名。 */
+        final String extension;
+        final boolean image;
+        final int count;
+        final long bytes;
+
+        ExtensionStat(String extension, boolean image, int count, long bytes) {
+            this.extension = extension;
+            this.image = image;
+            this.count = count;
+            this.bytes = bytes;
+        }
+    }
+
+    static final class Report {
+        final String rootPath;
+        final long fileCount;
+        final long dirCount;
+        final long totalBytes;
+        final long imageCount;
+        final long imageBytes;
+        /** 按大小从大到小。 */
+        final List<LargeFile> largestFiles;
+        /** 按总字节数从大到小。 */
+        final List<ExtensionStat> extensions;
+
+        Report(String rootPath, long fileCount, long dirCount, long totalBytes, long imageCount,
+               long imageBytes, List<LargeFile> largestFiles, List<ExtensionStat> extensions) {
+            this.rootPath = rootPath;
+            this.fileCount = fileCount;
+            this.dirCount = dirCount;
+            this.totalBytes = totalBytes;
+            this.imageCount = imageCount;
+            this.imageBytes = imageBytes;
+            this.largestFiles = largestFiles;
+            this.extensions = extensions;
+        }
+    }
+
+    static final int DEFAULT_TOP_N = 100;
+    static final int DEFAULT_MAX_EXTENSIONS = 256;
+
+    // 更长的“扩展名”多半是文件名中间的点，计入无扩展名
+    private static final int MAX_EXTENSION_LENGTH = 10;
+    private static final long PROGRESS_INTERVAL_NANOS = 200_000_000L;
+    // 防止符号链接成环
+    private static final int MAX_DEPTH = 64;
+
+    private final int topN;
+    private final int maxExtensions;
+    private volatile boolean cancelled;
+
+    StorageAnalyzer() {
+        this(DEFAULT_TOP_N, DEFAULT_MAX_EXTENSIONS);
+    }
+
+    StorageAnalyzer(int topN, int maxExtensions) {
+        this.topN = topN;
+        this.maxExtensions = maxExtensions;
+    }
+
+    /**
+     * @return 分析结果；被取消时返回 null
+     */
+    Report analyze(File root, ProgressListener listener) {
+        TopFiles top = new TopFiles(topN);
+        ExtensionCounters counters = new ExtensionCounters(maxExtensions);
+        long fileCount = 0;
+        long dirCount = 0;
+        long totalBytes = 0;
+        long lastEmit = System.nanoTime();
+
+        // 深度优先，待处理目录数只与目录树的宽度和深度有关
+        ArrayDeque<PendingDir> pending = new ArrayDeque<>();
+        pending.push(new PendingDir(root, 0));
+        while (!pending.isEmpty()) {
+            if (cancelled) return null;
+            PendingDir next = pending.pop();
+            File dir = next.dir;
+            String[] names = dir.list();
+            if (names == null) continue;
+            dirCount++;
+            String dirPath = dir.getPath();
+
+            for (String name : names) {
+                FileEntry entry = FileEntry.stat(dir, name);
+                if (entry == null) continue;
+                if (entry.isDirectory) {
+                    if (entry.readable && next.depth + 1 < MAX_DEPTH) {
+                        pending.push(new PendingDir(new File(dir, name), next.depth + 1));
+                    }
+                    continue;
+                }
+                fileCount++;
+                totalBytes += entry.size;
+                top.offer(entry.size, dirPath, name);
+                counters.add(name, entry.size);
+            }
+
+            long now = System.nanoTime();
+            if (listener != null && now - lastEmit >= PROGRESS_INTERVAL_NANOS) {
+                lastEmit = now;
+                listener.onProgress(fileCount, totalBytes);
+            }
+        }
+        if (cancelled) return null;
+
+        List<ExtensionStat> extensions = counters.toList();
+        long imageCount = 0;
+        long imageBytes = 0;
+        for (ExtensionStat stat : extensions) {
+            if (stat.image) {
+                imageCount += stat.count;
+                imageBytes += stat.bytes;
+            }
+        }
+        return new Report(root.getPath(), fileCount, dirCount, totalBytes, imageCount, imageBytes,
+                top.toList(), extensions);
+    }
+
+    void cancel() {
+        cancelled = true;
+    }
+
+    private static final class PendingDir {
+        final File dir;
+        final int depth;
+
+        PendingDir(File dir, int depth) {
+            this.dir = dir;
+            this.depth = depth;
+        }
+    }
+
+    /**
+     * 容量固定的小顶堆，堆顶是当前入选文件中最小的一个，新文件只需与它比较。
+     * 目录路径在同一目录的文件间共享，只有入选时才保存引用。
+     */
+    static final class TopFiles {
+        private final long[] sizes;
+        private final String[] dirs;
+        private final String[] names;
+        private int count;
+
+        TopFiles(int capacity) {
+            sizes = new long[capacity];
+            dirs = new String[capacity];
+            names = new String[capacity];
+        }
+
+        void offer(long size, String dir, String name) {
+            if (sizes.length == 0) return;
+            if (count < sizes.length) {
+                set(count, size, dir, name);
+                siftUp(count++);
+            } else if (size > sizes[0]) {
+                set(0, size, dir, name);
+                siftDown(0);
+            }
+        }
+
+        int size() {
+            return count;
+        }
+
+        List<LargeFile> toList() {
+            List<LargeFile> list = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String dir = dirs[i];
+                String path = dir.endsWith(File.separator)
+                        ? dir + names[i] : dir + File.separatorChar + names[i];
+                list.add(new LargeFile(path, sizes[i]));
+            }
+            Collections.sort(list, (a, b) -> Long.compare(b.size, a.size));
+            return list;
+        }
+
+        private void set(int i, long size, String dir, String name) {
+            sizes[i] = size;
+            dirs[i] = dir;
+            names[i] = name;
+        }
+
+        private void swap(int i, int j) {
+            long size = sizes[i];
+            String dir = dirs[i];
+            String name = names[i];
+            set(i, sizes[j], dirs[j], names[j]);
+            set(j, size, dir, name);
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (sizes[parent] <= sizes[i]) break;
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int left = 2 * i + 1;
+                if (left >= count) break;
+                int smallest = left + 1 < count && sizes[left + 1] < sizes[left] ? left + 1 : left;
+                if (sizes[i] <= sizes[smallest]) break;
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+    }
+
+    /**
+     * 扩展名到计数的开放寻址表。直接在文件名上按字符计算哈希和比较，命中已有扩展名时不分配对象；
+     * 表满后新的扩展名计入“其他”。
+     */
+    static final class ExtensionCounters {
+        private final int maxKeys;
+        private final String[] keys;
+        private final int[] counts;
+        private final long[] bytes;
+        private int keyCount;
+        private int otherCount;
+        private long otherBytes;
+
+        ExtensionCounters(int maxKeys) {
+            this.maxKeys = maxKeys;
+            int capacity = Integer.highestOneBit(Math.max(maxKeys, 1) * 2 - 1) << 1;
+            keys = new String[capacity];
+            counts = new int[capacity];
+            bytes = new long[capacity];
+        }
+
+        void add(String name, long size) {
+            int start = FileTypes.extensionStart(name);
+            int length = name.length() - start;
+            if (length > MAX_EXTENSION_LENGTH) {
+                start = name.length();
+                length = 0;
+            }
+
+            int hash = 0;
+            for (int i = start; i < name.length(); i++) {
+                hash = 31 * hash + Character.toLowerCase(name.charAt(i));
+            }
+            int mask = keys.length - 1;
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            while (keys[slot] != null) {
+                String key = keys[slot];
+                if (key.length() == length && name.regionMatches(true, start, key, 0, length)) {
+                    counts[slot]++;
+                    bytes[slot] += size;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+
+            if (keyCount >= maxKeys) {
+                otherCount++;
+                otherBytes += size;
+                return;
+            }
+            keys[slot] = name.substring(start).toLowerCase(Locale.ROOT);
+            counts[slot] = 1;
+            bytes[slot] = size;
+            keyCount++;
+        }
+
+        List<ExtensionStat> toList() {
+            List<ExtensionStat> list = new ArrayList<>(keyCount + 1);
+            for (int i = 0; i < keys.length; i++) {
+                String key = keys[i];
+                if (key != null) {
+                    boolean image = !key.isEmpty() && FileTypes.isImageExtension(key, 0);
+                    list.add(new ExtensionStat(key, image, counts[i], bytes[i]));
+                }
+            }
+            if (otherCount > 0) {
+                list.add(new ExtensionStat(null, false, otherCount, otherBytes));
+            }
+            Collections.sort(list, (a, b) -> Long.compare(b.bytes, a.bytes));
+            return list;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.simpletool;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.text.format.Formatter;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 存储分析页：扫描一个存储根目录，列出最大的文件和各扩展名占用的空间。
+ * 点击文件返回其路径，由主界面跳转到所在目录。
+ */
+public class StorageAnalyzerActivity extends AppCompatActivity {
+
+    static final String EXTRA_ROOT = "analyze_root";
+
+    private final ExecutorService scanExecutor = Executors.newSingleThreadExecutor();
+    private final StorageAnalyzer analyzer = new StorageAnalyzer();
+
+    private TextView tvStatus;
+    private RowAdapter adapter;
+    private String rootPath;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_storage_analyzer);
+
+        tvStatus = findViewById(R.id.tv_analyzer_status);
+        RecyclerView rvRows = findViewById(R.id.rv_analyzer);
+        adapter = new RowAdapter();
+        rvRows.setLayoutManager(new LinearLayoutManager(this));
+        rvRows.setAdapter(adapter);
+
+        rootPath = getIntent().getStringExtra(EXTRA_ROOT);
+        if (rootPath == null) {
+            finish();
+            return;
+        }
+        startScan();
+    }
+
+    private void startScan() {
+        tvStatus.setText(rootPath + "\n正在扫描…");
+        File root = new File(rootPath);
+        scanExecutor.execute(() -> {
+            StorageAnalyzer.Report report = analyzer.analyze(root, (fileCount, totalBytes) ->
+                    runOnUiThread(() -> tvStatus.setText(String.format(Locale.getDefault(),
+                            "%s\n正在扫描… 已统计 %d 个文件，%s", rootPath, fileCount,
+                            Formatter.formatShortFileSize(this, totalBytes)))));
+            if (report == null) return;
+            runOnUiThread(() -> showReport(report));
+        });
+    }
+
+    private void showReport(StorageAnalyzer.Report report) {
+        tvStatus.setText(String.format(Locale.getDefault(), "%s\n%d 个文件，%d 个文件夹，共 %s；图片 %d 张，%s",
+                report.rootPath, report.fileCount, report.dirCount,
+                Formatter.formatShortFileSize(this, report.totalBytes),
+                report.imageCount, Formatter.formatShortFileSize(this, report.imageBytes)));
+
+        List<Row> rows = new ArrayList<>();
+        rows.add(Row.header("最大的 " + report.largestFiles.size() + " 个文件"));
+        for (StorageAnalyzer.LargeFile file : report.largestFiles) {
+            String name = new File(file.path).getName();
+            rows.add(new Row(FileTypes.icon(FileTypes.byName(name)), name,
+                    Formatter.formatShortFileSize(this, file.size) + " · " + file.path, file.path));
+        }
+
+        rows.add(Row.header("按类型"));
+        for (StorageAnalyzer.ExtensionStat stat : report.extensions) {
+            String title;
+            if (stat.extension == null) {
+                title = "其他";
+            } else if (stat.extension.isEmpty()) {
+                title = "无扩展名";
+            } else {
+                title = "." + stat.extension;
+            }
+            rows.add(new Row(stat.image ? "🖼️" : "📦", title, String.format(Locale.getDefault(),
+                    "%d 个文件 · %s", stat.count, Formatter.formatShortFileSize(this, stat.bytes)), null));
+        }
+        adapter.setRows(rows);
+    }
+
+    private void returnResult(String path) {
+        Intent data = new Intent();
+        data.putExtra(SearchActivity.EXTRA_RESULT_PATH, path);
+        setResult(RESULT_OK, data);
+        finish();
+    }
+
+    @Override
+    protected void onDestroy() {
+        analyzer.cancel();
+        scanExecutor.shutdownNow();
+        super.onDestroy();
+    }
+
+    private static class Row {
+        final String icon;
+        final String title;
+        final String subtitle;
+        final String path;
+
+        Row(String icon, String title, String subtitle, String path) {
+            this.icon = icon;
+            this.title = title;
+            this.subtitle = subtitle;
+            this.path = path;
+        }
+
+        static Row header(String title) {
+            return new Row(null, title, null, null);
+        }
+
+        boolean isHeader() {
+            return icon == null;
+        }
+    }
+
+    private class RowAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+        private static final int TYPE_HEADER = 0;
+        private static final int TYPE_ITEM = 1;
+
+        private List<Row> rows = new ArrayList<>();
+
+        void setRows(List<Row> rows) {
+            this.rows = rows;
+            notifyDataSetChanged();
+        }
+
+        @Override
+        public int getItemViewType(int position) {
+            return rows.get(position).isHeader() ? TYPE_HEADER : TYPE_ITEM;
+        }
+
+        @NonNull
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            LayoutInflater inflater = LayoutInflater.from(parent.getContext());
+            if (viewType == TYPE_HEADER) {
+                View view = inflater.inflate(R.layout.item_section_header, parent, false);
+                return new RecyclerView.ViewHolder(view) {
+                };
+            }
+            // 与搜索结果的行布局相同：图标、名称、附加信息
+            return new SearchActivity.ResultHolder(
+                    inflater.inflate(R.layout.item_search_result, parent, false));
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
+            Row row = rows.get(position);
+            if (row.isHeader()) {
+                ((TextView) holder.itemView).setText(row.title);
+                return;
+            }
+            SearchActivity.ResultHolder rh = (SearchActivity.ResultHolder) holder;
+            rh.icon.setText(row.icon);
+            rh.name.setText(row.title);
+            rh.path.setText(row.subtitle);
+            if (row.path != null) {
+                rh.itemView.setOnClickListener(v -> returnResult(row.path));
+            } else {
+                rh.itemView.setOnClickListener(null);
+                rh.itemView.setClickable(false);
+            }
+        }
+
+        @Override
+        public int getItemCount() {
+            return rows.size();
+        }
+    }
+}
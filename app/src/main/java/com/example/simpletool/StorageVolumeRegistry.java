@@ -0,0 +1,183 @@
+package com.example.simpletool;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 存储卷列表及其容量的缓存。枚举和 statfs 都在后台线程进行，
+ * 根目录页面直接显示 {@link #getVolumes} 的快照，不再每次查询系统。
+ * <p>
+ * {@link #refresh} 重新枚举（挂载/卸载广播到来时调用），与已有列表按根目录比对：
+ * 没有变化就不通知；新出现的卷先以未知容量通知，读完容量再通知一次；仍在的卷沿用已知容量。
+ * {@link #refreshUsage} 只重新读取容量，间隔小于 {@code maxUsageAgeMs} 时什么也不做。
+ */
+final class StorageVolumeRegistry {
+
+    static final long UNKNOWN = -1;
+
+    static final class Volume {
+        final File root;
+        final String description;
+        final boolean removable;
+        final long totalBytes;
+        final long freeBytes;
+
+        Volume(File root, String description, boolean removable) {
+            this(root, description, removable, UNKNOWN, UNKNOWN);
+        }
+
+        private Volume(File root, String description, boolean removable, long totalBytes, long freeBytes) {
+            this.root = root;
+            this.description = description;
+            this.removable = removable;
+            this.totalBytes = totalBytes;
+            this.freeBytes = freeBytes;
+        }
+
+        Volume withUsage(long totalBytes, long freeBytes) {
+            return new Volume(root, description, removable, totalBytes, freeBytes);
+        }
+
+        boolean hasUsage() {
+            return totalBytes > 0;
+        }
+
+        /** 已用比例，0~1000；容量未知时返回 0。 */
+        int usedPermille() {
+            if (!hasUsage()) return 0;
+            return (int) ((totalBytes - Math.min(freeBytes, totalBytes)) * 1000 / totalBytes);
+        }
+    }
+
+    interface Source {
+        /** 当前已挂载的卷，无法确定根目录的卷不应返回。在后台线程调用。 */
+        List<Volume> enumerate();
+    }
+
+    interface UsageReader {
+        /** 返回 {总字节数, 可用字节数}，读取失败时返回 null。在后台线程调用。 */
+        long[] read(File root);
+    }
+
+    interface Listener {
+        void onVolumesChanged(List<Volume> volumes);
+    }
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "StorageVolumes");
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+    private final Source source;
+    private final UsageReader usageReader;
+    private final Executor callbackExecutor;
+    private final long maxUsageAgeMs;
+    private volatile List<Volume> volumes;
+    private volatile Listener listener;
+    // 只在 worker 线程上访问
+    private long usageReadAt;
+
+    /**
+     * @param initial 第一次枚举完成前显示的卷（通常只有内部存储）
+     */
+    StorageVolumeRegistry(Source source, UsageReader usageReader, Executor callbackExecutor,
+                          List<Volume> initial, long maxUsageAgeMs) {
+        this.source = source;
+        this.usageReader = usageReader;
+        this.callbackExecutor = callbackExecutor;
+        this.maxUsageAgeMs = maxUsageAgeMs;
+        this.volumes = Collections.unmodifiableList(new ArrayList<>(initial));
+    }
+
+    void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /** 最近一次的卷列表快照，只读内存，可在主线程调用。 */
+    List<Volume> getVolumes() {
+        return volumes;
+    }
+
+    /** 在后台重新枚举存储卷，列表有变化时通知并读取新卷的容量。 */
+    void refresh() {
+        worker.execute(() -> {
+            List<Volume> current = volumes;
+            Map<File, Volume> known = new HashMap<>();
+            for (Volume volume : current) {
+                known.put(volume.root, volume);
+            }
+
+            List<Volume> next = new ArrayList<>();
+            boolean changed = false;
+            boolean needUsage = false;
+            for (Volume volume : source.enumerate()) {
+                Volume old = known.get(volume.root);
+                if (old != null && old.description.equals(volume.description)
+                        && old.removable == volume.removable) {
+                    next.add(old);
+                    needUsage |= !old.hasUsage();
+                } else {
+                    next.add(volume);
+                    changed = true;
+                    needUsage = true;
+                }
+            }
+            changed |= next.size() != current.size();
+            if (changed) {
+                publish(next);
+            }
+            if (needUsage) {
+                readUsage(volumes);
+            }
+        });
+    }
+
+    /** 在后台重新读取各卷的容量，距上次读取不足 maxUsageAgeMs 时跳过。 */
+    void refreshUsage() {
+        worker.execute(() -> {
+            if (System.currentTimeMillis() - usageReadAt < maxUsageAgeMs) return;
+            readUsage(volumes);
+        });
+    }
+
+    void shutdown() {
+        listener = null;
+        worker.shutdownNow();
+    }
+
+    // 只在 worker 线程上调用
+    private void readUsage(List<Volume> list) {
+        List<Volume> next = new ArrayList<>(list.size());
+        boolean changed = false;
+        for (Volume volume : list) {
+            long[] usage = usageReader.read(volume.root);
+            if (usage != null && (usage[0] != volume.totalBytes || usage[1] != volume.freeBytes)) {
+                next.add(volume.withUsage(usage[0], usage[1]));
+                changed = true;
+            } else {
+                next.add(volume);
+            }
+        }
+        usageReadAt = System.currentTimeMillis();
+        // volumes 只在 worker 线程上替换，读容量期间不会变
+        if (changed) {
+            publish(next);
+        }
+    }
+
+    private void publish(List<Volume> next) {
+        List<Volume> snapshot = Collections.unmodifiableList(next);
+        volumes = snapshot;
+        callbackExecutor.execute(() -> {
+            Listener l = listener;
+            if (l != null) l.onVolumesChanged(snapshot);
+        });
+    }
+}
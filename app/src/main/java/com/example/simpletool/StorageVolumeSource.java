@@ -0,0 +1,97 @@
+package com.example.simpletool;
+
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Build;
+import android.os.Environment;
+import android.os.StatFs;
+import android.os.storage.StorageManager;
+import android.os.storage.StorageVolume;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 从系统读取存储卷和容量，供 {@link StorageVolumeRegistry} 在后台线程调用。
+ * Android R 以下 StorageVolume 没有公开的根目录接口，改从应用私有目录
+ * （.../Android/data/包名/files）反推卷根目录，找不到根目录的卷直接跳过。
+ */
+final class StorageVolumeSource implements StorageVolumeRegistry.Source, StorageVolumeRegistry.UsageReader {
+
+    private static final String APP_DATA_SEGMENT = "/Android/data/";
+
+    private final Context context;
+
+    StorageVolumeSource(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    static StorageVolumeRegistry.Volume internalVolume() {
+        return new StorageVolumeRegistry.Volume(Environment.getExternalStorageDirectory(), "内部存储", false);
+    }
+
+    /** 卷挂载、卸载和拔出时的广播，只能以 file scheme 注册。 */
+    static IntentFilter mountFilter() {
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_MEDIA_MOUNTED);
+        filter.addAction(Intent.ACTION_MEDIA_UNMOUNTED);
+        filter.addAction(Intent.ACTION_MEDIA_REMOVED);
+        filter.addAction(Intent.ACTION_MEDIA_BAD_REMOVAL);
+        filter.addAction(Intent.ACTION_MEDIA_EJECT);
+        filter.addDataScheme("file");
+        return filter;
+    }
+
+    @Override
+    public List<StorageVolumeRegistry.Volume> enumerate() {
+        List<StorageVolumeRegistry.Volume> volumes = new ArrayList<>();
+        volumes.add(internalVolume());
+
+        StorageManager sm = context.getSystemService(StorageManager.class);
+        if (sm == null) return volumes;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            for (StorageVolume volume : sm.getStorageVolumes()) {
+                File root = volume.getDirectory();
+                if (volume.isRemovable() && root != null
+                        && Environment.MEDIA_MOUNTED.equals(volume.getState())) {
+                    volumes.add(removable(root, volume));
+                }
+            }
+        } else {
+            for (File dir : context.getExternalFilesDirs(null)) {
+                // 未挂载的卷对应 null
+                if (dir == null) continue;
+                File root = volumeRoot(dir);
+                StorageVolume volume = sm.getStorageVolume(dir);
+                if (root != null && volume != null && volume.isRemovable()
+                        && Environment.MEDIA_MOUNTED.equals(volume.getState())) {
+                    volumes.add(removable(root, volume));
+                }
+            }
+        }
+        return volumes;
+    }
+
+    @Override
+    public long[] read(File root) {
+        try {
+            StatFs stat = new StatFs(root.getPath());
+            return new long[]{stat.getTotalBytes(), stat.getAvailableBytes()};
+        } catch (IllegalArgumentException e) {
+            // 卷刚被卸载
+            return null;
+        }
+    }
+
+    private StorageVolumeRegistry.Volume removable(File root, StorageVolume volume) {
+        return new StorageVolumeRegistry.Volume(root, "SD卡 - " + volume.getDescription(context), true);
+    }
+
+    private static File volumeRoot(File appDir) {
+        String path = appDir.getAbsolutePath();
+        int index = path.indexOf(APP_DATA_SEGMENT);
+        return index > 0 ? new File(path.substring(0, index)) : null;
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.simpletool;
+
+import android.content.Context;
+import android.graphics.drawable.Drawable;
+import android.widget.ImageView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.Priority;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.load.DecodeFormat;
+import com.bumptech.glide.load.engine.DiskCacheStrategy;
+import com.bumptech.glide.request.RequestOptions;
+import com.bumptech.glide.request.target.Target;
+import com.bumptech.glide.signature.ObjectKey;
+
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * 文件列表行内的图片/视频缩略图。
+ * <ul>
+ * <li>统一解码成行图标大小的 RGB_565 位图，磁盘缓存只存缩略图，内存占用与目录大小无关；</li>
+ * <li>可见行的请求优先级最高，RecyclerView 提前绑定的行次之，滚动方向前方的预取最低；</li>
+ * <li>行被回收时取消其请求，快速滑动期间暂停发起新的解码，停下后再恢复。</li>
+ * </ul>
+ * {@link RequestManager} 属于整个 Activity，暂停状态由实例自己记录，
+ * 暂停期间只推迟本列表的请求，不影响同一界面上的其他图片加载。
+ */
+final class ThumbnailLoader {
+
+    // 滚动方向前方预取的行数
+    private static final int PRELOAD_AHEAD = 12;
+
+    private final RequestManager glide;
+    private final RequestOptions options;
+    private final int sizePx;
+    private final ArrayDeque<Target<Drawable>> preloads = new ArrayDeque<>();
+    // 已发起预取的位置范围 [preloadStart, preloadEnd)，避免每次滚动都重复提交
+    private int preloadStart;
+    private int preloadEnd;
+    // 快速滑动期间绑定的行，停下后再发起请求
+    private boolean paused;
+    private final Map<ImageView, Deferred> deferred = new LinkedHashMap<>();
+
+    private static final class Deferred {
+        final FileEntry entry;
+        final boolean visible;
+
+        Deferred(FileEntry entry, boolean visible) {
+            this.entry = entry;
+            this.visible = visible;
+        }
+    }
+
+    ThumbnailLoader(Context context, int sizePx) {
+        this.glide = Glide.with(context);
+        this.sizePx = sizePx;
+        this.options = new RequestOptions()
+                .override(sizePx)
+                .centerCrop()
+                .format(DecodeFormat.PREFER_RGB_565)
+                .diskCacheStrategy(DiskCacheStrategy.RESOURCE)
+                .dontAnimate();
+    }
+
+    static boolean hasThumbnail(FileTypes.Type type) {
+        return type.kind == FileTypes.KIND_IMAGE || type.kind == FileTypes.KIND_VIDEO;
+    }
+
+    /**
+     * @param visible 行当前是否在屏幕上；RecyclerView 为即将滚入的行提前绑定时为 false
+     */
+    void load(ImageView view, FileEntry entry, boolean visible) {
+        if (paused) {
+            // 先清掉行上原来的图片，恢复后再加载
+            glide.clear(view);
+            deferred.put(view, new Deferred(entry, visible));
+            return;
+        }
+        request(entry)
+                .priority(visible ? Priority.IMMEDIATE : Priority.HIGH)
+                .into(view);
+    }
+
+    /** 取消 view 上尚未完成的请求并清空图片。 */
+    void clear(ImageView view) {
+        deferred.remove(view);
+        glide.clear(view);
+    }
+
+    private RequestBuilder<Drawable> request(FileEntry entry) {
+        // 文件内容变化后 mtime 也会变，不能复用旧缩略图；压缩包内的图片从解压流解码
+        return glide.load(ArchiveEntryLoader.model(entry.getPath()))
+                .apply(options)
+                .signature(new ObjectKey(entry.lastModified));
+    }
+
+    /**
+     * 监听列表滚动：向滚动方向前方预取缩略图，快速滑动时暂停请求。
+     *
+     * @param thumbnailAt 返回该位置需要缩略图的条目，不需要时返回 null
+     */
+    RecyclerView.OnScrollListener scrollListener(IntFunction<FileEntry> thumbnailAt) {
+        return new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+                if (newState == RecyclerView.SCROLL_STATE_SETTLING) {
+                    pause();
+                } else if (paused) {
+                    resume();
+                }
+            }
+
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy == 0 || paused || !(recyclerView.getLayoutManager() instanceof LinearLayoutManager)) return;
+                LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+                int count = layoutManager.getItemCount();
+                int start;
+                int end;
+                if (dy > 0) {
+                    start = layoutManager.findLastVisibleItemPosition() + 1;
+                    end = Math.min(count, start + PRELOAD_AHEAD);
+                } else {
+                    end = layoutManager.findFirstVisibleItemPosition();
+                    start = Math.max(0, end - PRELOAD_AHEAD);
+                }
+                preload(start, end, dy > 0, thumbnailAt);
+            }
+        };
+    }
+
+    private void preload(int start, int end, boolean forward, IntFunction<FileEntry> thumbnailAt) {
+        if (start < 0 || start >= end) return;
+        // 与上次的范围重叠时只提交新增的部分
+        int from = start;
+        int to = end;
+        if (start < preloadEnd && end > preloadStart) {
+            if (forward) {
+                from = Math.max(start, preloadEnd);
+            } else {
+                to = Math.min(end, preloadStart);
+            }
+        }
+        preloadStart = start;
+        preloadEnd = end;
+
+        // 离屏幕近的先提交
+        for (int k = 0; k < to - from; k++) {
+            FileEntry entry = thumbnailAt.apply(forward ? from + k : to - 1 - k);
+            if (entry == null) continue;
+            preloads.addLast(request(entry).priority(Priority.LOW).preload(sizePx, sizePx));
+            // 预取窗口之外的旧请求取消掉，已完成的结果留在内存缓存中
+            if (preloads.size() > PRELOAD_AHEAD) {
+                glide.clear(preloads.removeFirst());
+            }
+        }
+    }
+
+    private void pause() {
+        paused = true;
+        clearPreloads();
+    }
+
+    private void resume() {
+        paused = false;
+        for (Map.Entry<ImageView, Deferred> e : deferred.entrySet()) {
+            load(e.getKey(), e.getValue().entry, e.getValue().visible);
+        }
+        deferred.clear();
+    }
+
+    /** 切换目录时取消所有预取。 */
+    void clearPreloads() {
+        while (!preloads.isEmpty()) {
+            glide.clear(preloads.removeFirst());
+        }
+        preloadStart = 0;
+        preloadEnd = 0;
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.simpletool;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 目录访问次数表，用于预取用户常去的子目录。
+ * 只保留访问最多的 {@code maxEntries} 个目录；任一计数达到上限时所有计数减半，
+ * 很久不去的目录会逐渐让位给最近常去的。表很小，整体保存在一个二进制文件里。
+ * 首次使用时才读文件，应在后台线程调用。
+ */
+final class VisitFrequencyTable {
+
+    private static final int MAGIC = 0x56495354; // "VIST"
+    private static final int VERSION = 1;
+    private static final int DECAY_THRESHOLD = 64;
+
+    private final File file;
+    private final int maxEntries;
+    private final Map<String, Integer> counts = new HashMap<>();
+    private boolean loaded;
+    private boolean dirty;
+
+    /**
+     * @param file 保存位置，为 null 时只在内存中记录
+     */
+    VisitFrequencyTable(File file, int maxEntries) {
+        this.file = file;
+        this.maxEntries = maxEntries;
+    }
+
+    synchronized void recordVisit(String path) {
+        ensureLoaded();
+        int count = counts.merge(path, 1, Integer::sum);
+        dirty = true;
+        if (count >= DECAY_THRESHOLD) {
+            decay();
+        }
+        if (counts.size() > maxEntries) {
+            evictLeastVisited(path);
+        }
+    }
+
+    synchronized int getCount(String path) {
+        ensureLoaded();
+        Integer count = counts.get(path);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * parentPath 的直接子目录中访问最多的几个，按次数从多到少。
+     */
+    synchronized List<String> topChildren(String parentPath, int limit) {
+        ensureLoaded();
+        List<Map.Entry<String, Integer>> children = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            if (parentPath.equals(new File(entry.getKey()).getParent())) {
+                children.add(entry);
+            }
+        }
+        children.sort((a, b) -> Integer.compare(b.getValue(), a.getValue()));
+        List<String> result = new ArrayList<>(Math.min(limit, children.size()));
+        for (int i = 0; i < children.size() && i < limit; i++) {
+            result.add(children.get(i).getKey());
+        }
+        return result;
+    }
+
+    /**
+     * 有新的访问记录时写回文件。
+     */
+    synchronized void save() {
+        if (file == null || !dirty) return;
+        File dir = file.getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) return;
+
+        File temp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(counts.size());
+            for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue());
+            }
+        } catch (IOException e) {
+            temp.delete();
+            return;
+        }
+        if (temp.renameTo(file)) {
+            dirty = false;
+        } else {
+            temp.delete();
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) return;
+        loaded = true;
+        if (file == null || !file.isFile()) return;
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) return;
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                String path = in.readUTF();
+                counts.put(path, in.readInt());
+            }
+        } catch (IOException e) {
+            // 记录损坏时从头开始统计
+            counts.clear();
+        }
+    }
+
+    private void decay() {
+        Iterator<Map.Entry<String, Integer>> it = counts.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Integer> entry = it.next();
+            int halved = entry.getValue() / 2;
+            if (halved == 0) {
+                it.remove();
+            } else {
+                entry.setValue(halved);
+            }
+        }
+    }
+
+    // 刚访问的目录不参与淘汰，否则新目录永远进不了表
+    private void evictLeastVisited(String keep) {
+        String least = null;
+        int leastCount = Integer.MAX_VALUE;
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            if (entry.getValue() < leastCount && !entry.getKey().equals(keep)) {
+                least = entry.getKey();
+                leastCount = entry.getValue();
+            }
+        }
+        if (least != null) {
+            counts.remove(least);
+        }
+    }
+}
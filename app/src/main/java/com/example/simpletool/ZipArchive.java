@@ -0,0 +1,565 @@
+package com.example.simpletool;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * 把 ZIP（以及同为 ZIP 容器的 CBZ、EPUB）当作只读的虚拟目录浏览，不解压到磁盘。
+ * <p>
+ * 打开时只用 {@link FileChannel} 的随机读取定位文件末尾的中央目录并解析，
+ * 不读任何条目数据；打开某个条目时再从它的本地文件头开始边读边解压。
+ * 压缩包内的路径写作 "/sdcard/book.cbz/第1话/001.jpg"，用 {@link #locate} 拆分。
+ * 最近打开的几个压缩包按路径缓存目录结构，文件大小或 mtime 变化后重新解析。
+ */
+final class ZipArchive {
+
+    private static final int EOCD_SIGNATURE = 0x06054b50;
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+    private static final int ZIP64_EOCD_SIGNATURE = 0x06064b50;
+    private static final int CENTRAL_SIGNATURE = 0x02014b50;
+    private static final int LOCAL_SIGNATURE = 0x04034b50;
+    private static final int EOCD_SIZE = 22;
+    private static final int CENTRAL_HEADER_SIZE = 46;
+    private static final int LOCAL_HEADER_SIZE = 30;
+    private static final int MAX_COMMENT = 0xFFFF;
+
+    private static final int METHOD_STORED = 0;
+    private static final int METHOD_DEFLATED = 8;
+    private static final int FLAG_ENCRYPTED = 1;
+    private static final int FLAG_UTF8 = 0x800;
+
+    private static final String[] EXTENSIONS = {"zip", "cbz", "epub"};
+    private static final int CACHE_ENTRIES = 8;
+    // 没有标记 UTF-8 且不是合法 UTF-8 的文件名多半来自中文 Windows
+    private static final Charset LEGACY_CHARSET = legacyCharset();
+
+    private static final Map<String, ZipArchive> CACHE =
+            new LinkedHashMap<String, ZipArchive>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, ZipArchive> eldest) {
+                    return size() > CACHE_ENTRIES;
+                }
+            };
+
+    /**
+     * 压缩包内的一个位置。也用作 Glide 加载压缩包内图片的模型，因此实现了 equals/hashCode。
+     */
+    static final class Location {
+        final File archive;
+        // 压缩包内的相对路径，以 '/' 分隔；压缩包本身为空串
+        final String entry;
+        final long archiveModified;
+
+        Location(File archive, String entry, long archiveModified) {
+            this.archive = archive;
+            this.entry = entry;
+            this.archiveModified = archiveModified;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Location)) return false;
+            Location other = (Location) o;
+            return archive.equals(other.archive) && entry.equals(other.entry)
+                    && archiveModified == other.archiveModified;
+        }
+
+        @Override
+        public int hashCode() {
+            return (archive.hashCode() * 31 + entry.hashCode()) * 31 + Long.hashCode(archiveModified);
+        }
+
+        @Override
+        public String toString() {
+            return archive.getPath() + "!/" + entry + "@" + archiveModified;
+        }
+    }
+
+    private final File file;
+    private final long length;
+    private final long modified;
+
+    // 条目按中央目录顺序保存在平行数组中
+    private final String[] names;
+    private final long[] sizes;
+    private final long[] compressedSizes;
+    private final long[] localOffsets;
+    private final long[] times;
+    private final int[] methods;
+    private final boolean[] encrypted;
+    // 去掉目录条目和无效条目后实际保存的文件数
+    private int entryCount;
+
+    // 目录 -> 直接包含的文件下标和子目录名；根目录为空串
+    private final Map<String, List<Integer>> filesByDir = new HashMap<>();
+    private final Map<String, List<String>> subdirsByDir = new HashMap<>();
+    // 目录 -> 其中所有文件解压后的总大小
+    private final Map<String, Long> dirSizes = new HashMap<>();
+    private final Map<String, Integer> indexByName = new HashMap<>();
+
+    private ZipArchive(File file, long length, long modified, int count) {
+        this.file = file;
+        this.length = length;
+        this.modified = modified;
+        names = new String[count];
+        sizes = new long[count];
+        compressedSizes = new long[count];
+        localOffsets = new long[count];
+        times = new long[count];
+        methods = new int[count];
+        encrypted = new boolean[count];
+    }
+
+    /**
+     * 按扩展名判断是否可以作为虚拟目录进入。
+     */
+    static boolean isArchiveName(String name) {
+        int start = FileTypes.extensionStart(name);
+        int length = name.length() - start;
+        for (String ext : EXTENSIONS) {
+            if (ext.length() == length && name.regionMatches(true, start, ext, 0, length)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 把 path 拆成压缩包文件和包内路径；path 不在压缩包内时返回 null。
+     * 先按扩展名筛选路径中的每一段，只对可能是压缩包的那一段 stat，普通路径不访问文件系统。
+     */
+    static Location locate(String path) {
+        int end = 0;
+        while (end < path.length()) {
+            int slash = path.indexOf(File.separatorChar, end + 1);
+            end = slash < 0 ? path.length() : slash;
+            int start = path.lastIndexOf(File.separatorChar, end - 1) + 1;
+            if (!isArchiveName(path.substring(start, end))) continue;
+
+            File archive = new File(path.substring(0, end));
+            if (!archive.isFile()) continue;
+            String entry = end >= path.length() ? "" : path.substring(end + 1);
+            if (entry.endsWith("/")) {
+                entry = entry.substring(0, entry.length() - 1);
+            }
+            return new Location(archive, entry.replace(File.separatorChar, '/'), archive.lastModified());
+        }
+        return null;
+    }
+
+    /**
+     * 打开 path 处的文件，既可以是普通文件，也可以是压缩包内的条目。
+     */
+    static InputStream openPath(String path) throws IOException {
+        Location location = locate(path);
+        if (location == null || location.entry.isEmpty()) return new FileInputStream(path);
+        return open(location.archive).openStream(location.entry);
+    }
+
+    /**
+     * 解析压缩包的中央目录，最近打开过且未变化的直接返回缓存。会读文件，不要在主线程调用。
+     */
+    static ZipArchive open(File file) throws IOException {
+        String key = file.getPath();
+        long length = file.length();
+        long modified = file.lastModified();
+        synchronized (CACHE) {
+            ZipArchive cached = CACHE.get(key);
+            if (cached != null && cached.length == length && cached.modified == modified) {
+                return cached;
+            }
+        }
+        ZipArchive archive = parse(file, length, modified);
+        synchronized (CACHE) {
+            CACHE.put(key, archive);
+        }
+        return archive;
+    }
+
+    int getEntryCount() {
+        return entryCount;
+    }
+
+    boolean isDirectory(String dir) {
+        return dir.isEmpty() || subdirsByDir.containsKey(dir) || filesByDir.containsKey(dir);
+    }
+
+    /**
+     * 列出包内目录 dir 的直接子项，parentPath 为压缩包路径加包内路径。
+     * 子目录的大小是其中所有文件解压后的总和；加密的条目标记为不可读。
+     * dir 不存在时返回 null。
+     */
+    List<FileEntry> list(String dir) {
+        if (!isDirectory(dir)) return null;
+        String parentPath = dir.isEmpty()
+                ? file.getPath()
+                : file.getPath() + File.separatorChar + dir.replace('/', File.separatorChar);
+        List<String> subdirs = subdirsByDir.getOrDefault(dir, Collections.emptyList());
+        List<Integer> files = filesByDir.getOrDefault(dir, Collections.emptyList());
+        List<FileEntry> entries = new ArrayList<>(subdirs.size() + files.size());
+        String prefix = dir.isEmpty() ? "" : dir + "/";
+        for (String name : subdirs) {
+            Long size = dirSizes.get(prefix + name);
+            entries.add(new FileEntry(parentPath, name, true, true, size == null ? 0 : size, modified));
+        }
+        for (int index : files) {
+            String name = names[index].substring(prefix.length());
+            entries.add(new FileEntry(parentPath, name, false, !encrypted[index], sizes[index], times[index]));
+        }
+        return entries;
+    }
+
+    /**
+     * 边读边解压一个条目，不产生临时文件。返回的流持有自己的文件句柄，用完必须关闭。
+     */
+    InputStream openStream(String name) throws IOException {
+        int index = readableIndex(name);
+        int method = methods[index];
+        FileInputStream in = new FileInputStream(file);
+        try {
+            FileChannel channel = in.getChannel();
+            InputStream raw = new ChannelInputStream(in, channel, dataStart(channel, index), compressedSizes[index]);
+            return method == METHOD_STORED ? raw : new EntryInflaterStream(raw);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 未压缩（STORED）的条目直接映射它在压缩包中的数据区，不复制也不解压；压缩过的条目返回 null。
+     */
+    ByteBuffer mapStored(String name) throws IOException {
+        int index = readableIndex(name);
+        if (methods[index] != METHOD_STORED) return null;
+        long size = compressedSizes[index];
+        if (size > Integer.MAX_VALUE) throw new IOException("条目过大: " + name);
+        try (FileInputStream in = new FileInputStream(file);
+             FileChannel channel = in.getChannel()) {
+            long start = dataStart(channel, index);
+            if (start + size > channel.size()) throw new IOException("条目数据不完整: " + name);
+            // 映射在通道关闭后仍然有效
+            return channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+        }
+    }
+
+    private int readableIndex(String name) throws IOException {
+        Integer index = indexByName.get(name);
+        if (index == null) throw new FileNotFoundException(file.getPath() + "!/" + name);
+        if (encrypted[index]) throw new IOException("不支持加密的条目: " + name);
+        int method = methods[index];
+        if (method != METHOD_STORED && method != METHOD_DEFLATED) {
+            throw new IOException("不支持的压缩方式 " + method + ": " + name);
+        }
+        return index;
+    }
+
+    // 条目数据在压缩包中的起点；本地头里的扩展字段长度可能与中央目录不同，以本地头为准
+    private long dataStart(FileChannel channel, int index) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(LOCAL_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, header, localOffsets[index]);
+        if (header.getInt(0) != LOCAL_SIGNATURE) throw new IOException("本地文件头损坏: " + names[index]);
+        return localOffsets[index] + LOCAL_HEADER_SIZE
+                + (header.getShort(26) & 0xFFFF) + (header.getShort(28) & 0xFFFF);
+    }
+
+    long getSize(String name) {
+        Integer index = indexByName.get(name);
+        return index == null ? -1 : sizes[index];
+    }
+
+    private static ZipArchive parse(File file, long length, long modified) throws IOException {
+        try (FileInputStream in = new FileInputStream(file);
+             FileChannel channel = in.getChannel()) {
+            // 中央目录结束记录在文件末尾，后面最多跟 64KB 注释
+            int tailSize = (int) Math.min(length, EOCD_SIZE + MAX_COMMENT);
+            ByteBuffer tail = ByteBuffer.allocate(tailSize).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, tail, length - tailSize);
+            int eocd = -1;
+            for (int i = tailSize - EOCD_SIZE; i >= 0; i--) {
+                if (tail.getInt(i) == EOCD_SIGNATURE) {
+                    eocd = i;
+                    break;
+                }
+            }
+            if (eocd < 0) throw new IOException("不是 ZIP 文件: " + file);
+
+            long count = tail.getShort(eocd + 10) & 0xFFFF;
+            long centralSize = tail.getInt(eocd + 12) & 0xFFFFFFFFL;
+            long centralOffset = tail.getInt(eocd + 16) & 0xFFFFFFFFL;
+            if ((count == 0xFFFF || centralSize == 0xFFFFFFFFL || centralOffset == 0xFFFFFFFFL) && eocd >= 20
+                    && tail.getInt(eocd - 20) == ZIP64_LOCATOR_SIGNATURE) {
+                ByteBuffer zip64 = ByteBuffer.allocate(56).order(ByteOrder.LITTLE_ENDIAN);
+                readFully(channel, zip64, tail.getLong(eocd - 20 + 8));
+                if (zip64.getInt(0) != ZIP64_EOCD_SIGNATURE) throw new IOException("ZIP64 目录损坏: " + file);
+                count = zip64.getLong(32);
+                centralSize = zip64.getLong(40);
+                centralOffset = zip64.getLong(48);
+            }
+            // 每个条目至少占一个中央目录头，条目数不可能超过这个上限，先核对再按条目数分配数组
+            if (count < 0 || centralSize < 0 || centralOffset < 0 || centralSize > Integer.MAX_VALUE
+                    || count > centralSize / CENTRAL_HEADER_SIZE || centralOffset + centralSize > length) {
+                throw new IOException("中央目录损坏: " + file);
+            }
+
+            ByteBuffer central = ByteBuffer.allocate((int) centralSize).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, central, centralOffset);
+            ZipArchive archive = new ZipArchive(file, length, modified, (int) count);
+            archive.readCentralDirectory(central);
+            return archive;
+        }
+    }
+
+    private void readCentralDirectory(ByteBuffer buffer) throws IOException {
+        Calendar calendar = Calendar.getInstance();
+        int pos = 0;
+        int count = 0;
+        for (int i = 0; i < names.length; i++) {
+            if (pos + CENTRAL_HEADER_SIZE > buffer.limit() || buffer.getInt(pos) != CENTRAL_SIGNATURE) {
+                throw new IOException("中央目录损坏: " + file);
+            }
+            int flags = buffer.getShort(pos + 8) & 0xFFFF;
+            int method = buffer.getShort(pos + 10) & 0xFFFF;
+            int dosTime = buffer.getShort(pos + 12) & 0xFFFF;
+            int dosDate = buffer.getShort(pos + 14) & 0xFFFF;
+            long compressedSize = buffer.getInt(pos + 20) & 0xFFFFFFFFL;
+            long size = buffer.getInt(pos + 24) & 0xFFFFFFFFL;
+            int nameLength = buffer.getShort(pos + 28) & 0xFFFF;
+            int extraLength = buffer.getShort(pos + 30) & 0xFFFF;
+            int commentLength = buffer.getShort(pos + 32) & 0xFFFF;
+            long localOffset = buffer.getInt(pos + 42) & 0xFFFFFFFFL;
+            int nameStart = pos + CENTRAL_HEADER_SIZE;
+            int extraStart = nameStart + nameLength;
+            pos = extraStart + extraLength + commentLength;
+            if (pos > buffer.limit()) throw new IOException("中央目录损坏: " + file);
+
+            long time = -1;
+            // 扩展字段：ZIP64 的真实大小/偏移，以及 Unix 时间戳
+            for (int e = extraStart; e + 4 <= extraStart + extraLength; ) {
+                int id = buffer.getShort(e) & 0xFFFF;
+                int dataSize = buffer.getShort(e + 2) & 0xFFFF;
+                int data = e + 4;
+                if (data + dataSize > extraStart + extraLength) break;
+                if (id == 0x0001) {
+                    int p = data;
+                    if (size == 0xFFFFFFFFL && p + 8 <= data + dataSize) {
+                        size = buffer.getLong(p);
+                        p += 8;
+                    }
+                    if (compressedSize == 0xFFFFFFFFL && p + 8 <= data + dataSize) {
+                        compressedSize = buffer.getLong(p);
+                        p += 8;
+                    }
+                    if (localOffset == 0xFFFFFFFFL && p + 8 <= data + dataSize) {
+                        localOffset = buffer.getLong(p);
+                    }
+                } else if (id == 0x5455 && dataSize >= 5 && (buffer.get(data) & 1) != 0) {
+                    time = (buffer.getInt(data + 1) & 0xFFFFFFFFL) * 1000;
+                }
+                e = data + dataSize;
+            }
+            if (time < 0) {
+                time = dosToMillis(calendar, dosDate, dosTime);
+            }
+
+            String name = decodeName(buffer, nameStart, nameLength, (flags & FLAG_UTF8) != 0)
+                    .replace('\\', '/');
+            while (name.startsWith("/")) {
+                name = name.substring(1);
+            }
+            if (name.endsWith("/")) {
+                // 显式的目录条目
+                addDirectory(name.substring(0, name.length() - 1));
+                continue;
+            }
+            if (name.isEmpty() || indexByName.containsKey(name) || hasParentReference(name)) continue;
+
+            names[count] = name;
+            sizes[count] = size;
+            compressedSizes[count] = compressedSize;
+            localOffsets[count] = localOffset;
+            times[count] = time;
+            methods[count] = method;
+            encrypted[count] = (flags & FLAG_ENCRYPTED) != 0;
+            indexByName.put(name, count);
+
+            int slash = name.lastIndexOf('/');
+            String dir = slash < 0 ? "" : name.substring(0, slash);
+            addDirectory(dir);
+            filesByDir.computeIfAbsent(dir, k -> new ArrayList<>()).add(count);
+            for (String d = dir; ; d = parentOf(d)) {
+                dirSizes.merge(d, size, Long::sum);
+                if (d.isEmpty()) break;
+            }
+            count++;
+        }
+        entryCount = count;
+    }
+
+    // 登记 dir 及其所有上级目录
+    private void addDirectory(String dir) {
+        if (dir.isEmpty() || subdirsByDir.containsKey(dir)) return;
+        String parent = parentOf(dir);
+        addDirectory(parent);
+        subdirsByDir.put(dir, new ArrayList<>());
+        subdirsByDir.computeIfAbsent(parent, k -> new ArrayList<>())
+                .add(dir.substring(parent.isEmpty() ? 0 : parent.length() + 1));
+    }
+
+    private static String parentOf(String dir) {
+        int slash = dir.lastIndexOf('/');
+        return slash < 0 ? "" : dir.substring(0, slash);
+    }
+
+    // 路径里的 ".." 和空段没法映射到虚拟目录，忽略这种条目
+    private static boolean hasParentReference(String name) {
+        for (String part : name.split("/", -1)) {
+            if (part.isEmpty() || part.equals("..") || part.equals(".")) return true;
+        }
+        return false;
+    }
+
+    private static String decodeName(ByteBuffer buffer, int start, int length, boolean utf8) {
+        ByteBuffer bytes = buffer.duplicate();
+        bytes.position(start).limit(start + length);
+        if (utf8) return StandardCharsets.UTF_8.decode(bytes).toString();
+        try {
+            CharBuffer chars = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(bytes.duplicate());
+            return chars.toString();
+        } catch (CharacterCodingException e) {
+            return LEGACY_CHARSET.decode(bytes).toString();
+        }
+    }
+
+    // DOS 时间没有时区，按本地时间解释
+    private static long dosToMillis(Calendar calendar, int date, int time) {
+        calendar.clear();
+        calendar.set(1980 + ((date >> 9) & 0x7F), ((date >> 5) & 0x0F) - 1, date & 0x1F,
+                (time >> 11) & 0x1F, (time >> 5) & 0x3F, (time & 0x1F) * 2);
+        return calendar.getTimeInMillis();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position + buffer.position());
+            if (n < 0) throw new EOFException();
+        }
+    }
+
+    private static Charset legacyCharset() {
+        try {
+            return Charset.forName("GBK");
+        } catch (IllegalArgumentException e) {
+            return StandardCharsets.ISO_8859_1;
+        }
+    }
+
+    /**
+     * 用位置读取通道里的一段数据，不改变通道的当前位置。
+     */
+    private static final class ChannelInputStream extends InputStream {
+        private final FileInputStream owner;
+        private final FileChannel channel;
+        private long position;
+        private long remaining;
+
+        ChannelInputStream(FileInputStream owner, FileChannel channel, long position, long length) {
+            this.owner = owner;
+            this.channel = channel;
+            this.position = position;
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) return -1;
+            if (len == 0) return 0;
+            int n = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, remaining)), position);
+            if (n < 0) throw new EOFException("条目数据不完整");
+            position += n;
+            remaining -= n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) {
+            long skipped = Math.max(0, Math.min(n, remaining));
+            position += skipped;
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(remaining, Integer.MAX_VALUE);
+        }
+
+        @Override
+        public void close() throws IOException {
+            owner.close();
+        }
+    }
+
+    /**
+     * 解压不带 zlib 头的 deflate 数据。Inflater 在 nowrap 模式下需要输入末尾多一个字节，
+     * 与 JDK 的 ZipFile 一样在数据读完时补一个 0。
+     */
+    private static final class EntryInflaterStream extends InflaterInputStream {
+        private boolean eof;
+        private boolean closed;
+
+        EntryInflaterStream(InputStream in) {
+            super(in, new Inflater(true), 8192);
+        }
+
+        @Override
+        protected void fill() throws IOException {
+            if (eof) throw new EOFException("压缩数据不完整");
+            len = in.read(buf, 0, buf.length);
+            if (len == -1) {
+                buf[0] = 0;
+                len = 1;
+                eof = true;
+            }
+            inf.setInput(buf, 0, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) return;
+            closed = true;
+            inf.end();
+            super.close();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.simpletool;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+public class CompactEntryListTest {
+
+    private static final String DIR = "/storage/emulated/0/DCIM/Camera";
+    private static final int BENCHMARK_ENTRIES = 200_000;
+
+    @Test
+    public void roundTripsEntries() {
+        CompactEntryList list = new CompactEntryList(DIR, 4);
+        List<FileEntry> expected = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            FileEntry entry = new FileEntry(DIR, i % 3 == 0 ? "目录" + i : "IMG_" + i + ".jpg",
+                    i % 3 == 0, i % 5 != 0, i * 1000L, 1_600_000_000_000L + i);
+            expected.add(entry);
+            list.add(entry);
+        }
+        list.append("", false, true, 0, 0);
+
+        assertEquals(1001, list.size());
+        for (int i = 0; i < 1000; i++) {
+            FileEntry a = expected.get(i);
+            FileEntry b = list.get(i);
+            assertEquals(a.name, b.name);
+            assertEquals(a.parentPath, b.parentPath);
+            assertEquals(a.isDirectory, b.isDirectory);
+            assertEquals(a.readable, b.readable);
+            assertEquals(a.size, b.size);
+            assertEquals(a.lastModified, b.lastModified);
+        }
+        assertEquals("", list.get(1000).name);
+        // 窗口内的行重复读取返回同一对象
+        assertSame(list.get(999), list.get(999));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsEntriesFromOtherDirectories() {
+        new CompactEntryList(DIR, 4).add(new FileEntry("/other", "a", false, true, 1, 1));
+    }
+
+    @Test
+    public void snapshotIsIsolatedFromAppendsAndReplacements() {
+        CompactEntryList list = new CompactEntryList(DIR, 2);
+        list.add(new FileEntry(DIR, "a", true, true, 0, 1));
+        list.add(new FileEntry(DIR, "b", false, true, 10, 2));
+        CompactEntryList snapshot = list.snapshot();
+
+        list.add(new FileEntry(DIR, "c", false, true, 20, 3));
+        list.set(0, list.get(0).withSize(4096));
+
+        assertEquals(2, snapshot.size());
+        assertEquals(0, snapshot.get(0).size);
+        assertEquals(3, list.size());
+        assertEquals(4096, list.get(0).size);
+        assertEquals("c", list.get(2).name);
+        assertSame(snapshot, snapshot.snapshot());
+        try {
+            snapshot.add(new FileEntry(DIR, "d", false, true, 0, 0));
+            fail();
+        } catch (UnsupportedOperationException expected) {
+        }
+        try {
+            list.set(1, new FileEntry(DIR, "renamed", false, true, 0, 0));
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    /**
+     * 20 万条目分别以 File、FileEntry 列表和紧凑列表保存时的堆占用。
+     */
+    @Test
+    public void benchmarkHeapFor200kEntries() {
+        String[] names = new String[BENCHMARK_ENTRIES];
+        for (int i = 0; i < BENCHMARK_ENTRIES; i++) {
+            names[i] = i % 4 == 0
+                    ? String.format("照片_%06d_假日旅行.jpg", i)
+                    : String.format("IMG_20240101_%06d.jpg", i);
+        }
+
+        long fileBytes = retainedBytes(() -> {
+            List<File> files = new ArrayList<>(BENCHMARK_ENTRIES);
+            for (String name : names) {
+                files.add(new File(DIR, name));
+            }
+            return files;
+        });
+        // 新建字符串，不与 names 数组共用
+        long entryBytes = retainedBytes(() -> entries(names));
+        List<FileEntry> entries = entries(names);
+        long compactBytes = retainedBytes(() -> CompactEntryList.copyOf(DIR, entries));
+        CompactEntryList compact = CompactEntryList.copyOf(DIR, entries);
+
+        assertTrue(compactBytes < entryBytes * 3 / 4);
+        assertTrue(compactBytes < fileBytes * 3 / 5);
+        assertEquals(names[BENCHMARK_ENTRIES - 1], compact.get(BENCHMARK_ENTRIES - 1).name);
+    }
+
+    private static List<FileEntry> entries(String[] names) {
+        List<FileEntry> entries = new ArrayList<>(names.length);
+        for (int i = 0; i < names.length; i++) {
+            entries.add(new FileEntry(DIR, new String(names[i].toCharArray()), false, true, i, i));
+        }
+        return entries;
+    }
+
+    // 构造出的对象在 GC 之后仍占用的堆大小
+    private static long retainedBytes(Supplier<Object> factory) {
+        long before = usedHeap();
+        Object retained = factory.get();
+        long after = usedHeap();
+        assertNotNull(retained);
+        return after - before;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.simpletool;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DirectoryCacheTest {
+
+    // 足够早的 mtime，不会被当作“刚修改过”而拒绝缓存
+    private static final long OLD_MTIME = 1_600_000_000_000L;
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void hitsOnlyWhileDirectoryMtimeMatches() throws Exception {
+        DirectoryCache cache = new DirectoryCache(tmp.newFolder("cache"), 1000);
+        cache.put("/storage/a", OLD_MTIME, entries("/storage/a", 3));
+
+        assertNotNull(cache.get("/storage/a", OLD_MTIME));
+        assertNull(cache.get("/storage/a", OLD_MTIME + 1000));
+        assertNull(cache.get("/storage/b", OLD_MTIME));
+
+        assertEquals(1, cache.getMemoryHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void survivesRestartThroughDiskCopy() throws Exception {
+        File diskDir = tmp.newFolder("cache");
+        List<FileEntry> original = entries("/storage/a", 50);
+        new DirectoryCache(diskDir, 1000).put("/storage/a", OLD_MTIME, original);
+
+        DirectoryCache reopened = new DirectoryCache(diskDir, 1000);
+        DirectoryCache.Listing stale = reopened.getStale("/storage/a");
+        assertNotNull(stale);
+
+        DirectoryCache.Listing listing = reopened.get("/storage/a", OLD_MTIME);
+        assertNotNull(listing);
+        assertEquals(1, reopened.getDiskHitCount());
+        assertEquals(original.size(), listing.entries.size());
+        for (int i = 0; i < original.size(); i++) {
+            FileEntry expected = original.get(i);
+            FileEntry actual = listing.entries.get(i);
+            assertEquals(expected.name, actual.name);
+            assertEquals(expected.isDirectory, actual.isDirectory);
+            assertEquals(expected.readable, actual.readable);
+            assertEquals(expected.size, actual.size);
+            assertEquals(expected.lastModified, actual.lastModified);
+            assertEquals(expected.getPath(), actual.getPath());
+        }
+
+        // 第二次读取走内存
+        assertNotNull(reopened.get("/storage/a", OLD_MTIME));
+        assertEquals(1, reopened.getMemoryHitCount());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedListings() {
+        DirectoryCache cache = new DirectoryCache(null, 25);
+        cache.put("/a", OLD_MTIME, entries("/a", 10));
+        cache.put("/b", OLD_MTIME, entries("/b", 10));
+        assertNotNull(cache.get("/a", OLD_MTIME));
+
+        cache.put("/c", OLD_MTIME, entries("/c", 10));
+
+        assertNotNull(cache.get("/a", OLD_MTIME));
+        assertNull(cache.get("/b", OLD_MTIME));
+        assertNotNull(cache.get("/c", OLD_MTIME));
+        assertTrue(cache.getMemoryEntryCount() <= 25);
+    }
+
+    @Test
+    public void recentlyModifiedDirectoriesAreNotCached() {
+        DirectoryCache cache = new DirectoryCache(null, 1000);
+        long now = System.currentTimeMillis();
+        cache.put("/a", now, entries("/a", 1));
+        assertNull(cache.get("/a", now));
+    }
+
+    private static List<FileEntry> entries(String parent, int count) {
+        List<FileEntry> list = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            list.add(new FileEntry(parent, "名称_" + i, i % 3 == 0, i % 2 == 0, i * 100L, OLD_MTIME + i));
+        }
+        return list;
+    }
+}
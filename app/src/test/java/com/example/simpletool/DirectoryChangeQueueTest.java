@@ -0,0 +1,123 @@
+package com.example.simpletool;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DirectoryChangeQueueTest {
+
+    private static final long DEBOUNCE = 150;
+    private static final long MAX_DELAY = 1000;
+
+    @Test
+    public void coalescesBurstIntoOneChangePerName() {
+        DirectoryChangeQueue queue = new DirectoryChangeQueue(DEBOUNCE, MAX_DELAY, 100);
+        // 下载中的文件：一次新建，随后大量写入
+        queue.offer(DirectoryChangeQueue.KIND_CHANGED, "video.mp4", 0);
+        for (int t = 1; t <= 100; t++) {
+            queue.offer(DirectoryChangeQueue.KIND_CHANGED, "video.mp4", t);
+        }
+        queue.offer(DirectoryChangeQueue.KIND_CHANGED, "tmp", 100);
+        queue.offer(DirectoryChangeQueue.KIND_REMOVED, "tmp", 101);
+        queue.offer(DirectoryChangeQueue.KIND_REMOVED, "old.txt", 102);
+
+        assertNull(queue.poll(200));
+        assertEquals(102 + DEBOUNCE, queue.nextDeadline());
+        DirectoryChangeQueue.Batch batch = queue.poll(102 + DEBOUNCE);
+        assertNotNull(batch);
+        assertEquals(Collections.singletonList("video.mp4"), batch.changed);
+        assertEquals(Arrays.asList("tmp", "old.txt"), batch.removed);
+        assertFalse(batch.rescan);
+
+        assertTrue(queue.isEmpty());
+        assertEquals(-1, queue.nextDeadline());
+        assertNull(queue.poll(10_000));
+    }
+
+    @Test
+    public void steadyStreamIsFlushedAtMaxDelay() {
+        DirectoryChangeQueue queue = new DirectoryChangeQueue(DEBOUNCE, MAX_DELAY, 100);
+        List<DirectoryChangeQueue.Batch> batches = new ArrayList<>();
+        // 每 100ms 一个事件，永远达不到防抖的静默期
+        for (long t = 0; t <= 3000; t += 10) {
+            if (t % 100 == 0) {
+                queue.offer(DirectoryChangeQueue.KIND_CHANGED, "log" + (t / 100), t);
+            }
+            DirectoryChangeQueue.Batch batch = queue.poll(t);
+            if (batch != null) batches.add(batch);
+        }
+        // 在 1000ms 和 2100ms 各强制交出一批
+        assertEquals(2, batches.size());
+        assertEquals(11, batches.get(0).changed.size());
+        assertEquals(11, batches.get(1).changed.size());
+
+        // 事件停止后等过防抖期交出剩余部分
+        assertNull(queue.poll(3000 + DEBOUNCE - 1));
+        assertEquals(9, queue.poll(3000 + DEBOUNCE).changed.size());
+    }
+
+    @Test
+    public void overflowTurnsIntoRescan() {
+        DirectoryChangeQueue queue = new DirectoryChangeQueue(DEBOUNCE, MAX_DELAY, 100);
+        for (int i = 0; i < 500; i++) {
+            queue.offer(DirectoryChangeQueue.KIND_CHANGED, "f" + i, i / 10);
+        }
+        DirectoryChangeQueue.Batch batch = queue.poll(1000);
+        assertTrue(batch.rescan);
+        assertTrue(batch.changed.isEmpty());
+
+        // 重新扫描之后恢复逐个记录
+        queue.offer(DirectoryChangeQueue.KIND_CHANGED, "a", 2000);
+        batch = queue.poll(2000 + DEBOUNCE);
+        assertFalse(batch.rescan);
+        assertEquals(Collections.singletonList("a"), batch.changed);
+    }
+
+    @Test
+    public void directoryGoneOverridesPendingChanges() {
+        DirectoryChangeQueue queue = new DirectoryChangeQueue(DEBOUNCE, MAX_DELAY, 100);
+        queue.offer(DirectoryChangeQueue.KIND_REMOVED, "a", 0);
+        queue.offerDirectoryGone(5);
+        queue.offer(DirectoryChangeQueue.KIND_REMOVED, "b", 6);
+        DirectoryChangeQueue.Batch batch = queue.poll(1000);
+        assertTrue(batch.directoryGone);
+        assertTrue(batch.removed.isEmpty());
+    }
+
+    @Test
+    public void patchKeepsSortOrder() {
+        List<FileEntry> sorted = new ArrayList<>(Arrays.asList(
+                dir("photos", 5000), file("a.txt", 10), file("c.txt", 30), file("e.txt", 50)));
+        FileSorter.sort(sorted, SortMode.SIZE_DESC);
+
+        List<FileEntry> updated = Arrays.asList(
+                file("b.txt", 100),          // 新建
+                file("e.txt", 1),            // 变小
+                dir("photos", 4096));        // 属性变化，保留递归大小
+        List<FileEntry> patched = DirectoryChangeQueue.patch(sorted, updated,
+                new HashSet<>(Collections.singletonList("c.txt")),
+                FileSorter.comparator(SortMode.SIZE_DESC));
+
+        List<String> names = new ArrayList<>();
+        for (FileEntry entry : patched) names.add(entry.name);
+        assertEquals(Arrays.asList("photos", "b.txt", "a.txt", "e.txt"), names);
+        assertEquals(5000, patched.get(0).size);
+        // 原列表不变
+        assertEquals(4, sorted.size());
+        assertEquals("c.txt", sorted.get(2).name);
+    }
+
+    private static FileEntry file(String name, long size) {
+        return new FileEntry("/d", name, false, true, size, 0);
+    }
+
+    private static FileEntry dir(String name, long size) {
+        return new FileEntry("/d", name, true, true, size, 0);
+    }
+}
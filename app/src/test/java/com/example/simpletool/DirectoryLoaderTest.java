@@ -0,0 +1,267 @@
+package com.example.simpletool;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * 目录加载器的本地单元测试，使用合成的大目录验证分批投递和取消。
+ */
+public class DirectoryLoaderTest {
+
+    private static final int ENTRY_COUNT = 100_000;
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void listsLargeDirectoryInSortedChunks() throws Exception {
+        File dir = createSyntheticDirectory(ENTRY_COUNT);
+
+        DirectoryLoader loader = new DirectoryLoader(Runnable::run);
+        List<FileEntry> received = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger chunks = new AtomicInteger();
+        AtomicInteger firstChunks = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(1);
+        int[] total = new int[1];
+
+        loader.load(dir.getAbsolutePath(), (a, b) -> a.name.compareTo(b.name),
+                new DirectoryLoader.Callback() {
+                    @Override
+                    public void onChunk(String path, List<FileEntry> chunk, boolean first) {
+                        assertTrue(chunk.size() <= DirectoryLoader.DEFAULT_CHUNK_SIZE);
+                        if (first) firstChunks.incrementAndGet();
+                        chunks.incrementAndGet();
+                        received.addAll(chunk);
+                    }
+
+                    @Override
+                    public void onComplete(String path, int count) {
+                        total[0] = count;
+                        done.countDown();
+                    }
+                });
+
+        assertTrue("加载超时", done.await(60, TimeUnit.SECONDS));
+        loader.shutdown();
+
+        assertEquals(ENTRY_COUNT, total[0]);
+        assertEquals(ENTRY_COUNT, received.size());
+        assertEquals(1, firstChunks.get());
+        assertEquals(ENTRY_COUNT / DirectoryLoader.DEFAULT_CHUNK_SIZE, chunks.get());
+        for (int i = 1; i < received.size(); i++) {
+            assertTrue(received.get(i - 1).name.compareTo(received.get(i).name) < 0);
+        }
+    }
+
+    @Test
+    public void newLoadCancelsPreviousScan() throws Exception {
+        File big = createSyntheticDirectory(ENTRY_COUNT);
+        File small = tmp.newFolder("small");
+        new File(small, "a.txt").createNewFile();
+
+        DirectoryLoader loader = new DirectoryLoader(Runnable::run);
+        List<String> delivered = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(1);
+        DirectoryLoader.Callback callback = new DirectoryLoader.Callback() {
+            @Override
+            public void onChunk(String path, List<FileEntry> chunk, boolean first) {
+                delivered.add(path);
+            }
+
+            @Override
+            public void onComplete(String path, int total) {
+                delivered.add(path);
+                done.countDown();
+            }
+        };
+
+        loader.load(big.getAbsolutePath(), null, callback);
+        loader.load(small.getAbsolutePath(), null, callback);
+
+        assertTrue(done.await(60, TimeUnit.SECONDS));
+        loader.shutdown();
+
+        for (String path : delivered) {
+            assertEquals(small.getAbsolutePath(), path);
+        }
+    }
+
+    @Test
+    public void emptyDirectoryStillDeliversFirstChunk() throws Exception {
+        File empty = tmp.newFolder("empty");
+        DirectoryLoader loader = new DirectoryLoader(Runnable::run);
+        CountDownLatch done = new CountDownLatch(1);
+        boolean[] sawFirst = new boolean[1];
+
+        loader.load(empty.getAbsolutePath(), null, new DirectoryLoader.Callback() {
+            @Override
+            public void onChunk(String path, List<FileEntry> chunk, boolean first) {
+                sawFirst[0] = first && chunk.isEmpty();
+            }
+
+            @Override
+            public void onComplete(String path, int total) {
+                done.countDown();
+            }
+        });
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        loader.shutdown();
+        assertTrue(sawFirst[0]);
+    }
+
+    @Test
+    public void prefetchedDirectoryIsServedFromCache() throws Exception {
+        File dir = tmp.newFolder("prefetched");
+        for (int i = 0; i < 50; i++) {
+            new File(dir, "f" + i).createNewFile();
+        }
+        // 刚修改过的目录不会进缓存
+        dir.setLastModified(System.currentTimeMillis() - 60_000);
+
+        DirectoryCache cache = new DirectoryCache(null, 10_000);
+        DirectoryLoader loader = new DirectoryLoader(Runnable::run, cache);
+        loader.prefetch(dir.getPath());
+        // 第二次请求要么与第一次合并，要么在第一次完成后因缓存有效而跳过，都不会再扫描
+        loader.prefetch(dir.getPath());
+        awaitCount(loader::getPrefetchScanCount, 1);
+
+        assertEquals(50, loadAndCount(loader, dir.getPath()));
+        assertEquals(1, loader.getPrefetchScanCount());
+        assertEquals(1, loader.getPrefetchHitCount());
+        assertEquals(0, loader.getPrefetchWastedCount());
+        assertEquals(1, cache.getMemoryHitCount());
+
+        // 缓存仍有效时预取不再扫描
+        long requests = loader.getPrefetchRequestCount();
+        loader.prefetch(dir.getPath());
+        awaitCount(loader::getPrefetchRequestCount, requests + 1);
+        assertEquals(50, loadAndCount(loader, dir.getPath()));
+        assertEquals(1, loader.getPrefetchScanCount());
+        assertEquals(1, loader.getPrefetchHitCount());
+        loader.shutdown();
+    }
+
+    @Test
+    public void unusedPrefetchesCountAsWasted() throws Exception {
+        DirectoryLoader loader = new DirectoryLoader(Runnable::run, new DirectoryCache(null, 10_000));
+        List<File> dirs = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            File dir = tmp.newFolder("d" + i);
+            new File(dir, "x").createNewFile();
+            dir.setLastModified(System.currentTimeMillis() - 60_000);
+            dirs.add(dir);
+            loader.prefetch(dir.getPath());
+        }
+        awaitCount(loader::getPrefetchScanCount, 20);
+        // 最多记住 16 个未使用的预取，更早的 4 个算作浪费
+        assertEquals(4, loader.getPrefetchWastedCount());
+
+        // 预取之后目录又变了，缓存失效，也算浪费
+        File changed = dirs.get(19);
+        new File(changed, "y").createNewFile();
+        changed.setLastModified(System.currentTimeMillis() - 30_000);
+        assertEquals(2, loadAndCount(loader, changed.getPath()));
+        assertEquals(5, loader.getPrefetchWastedCount());
+
+        assertEquals(1, loadAndCount(loader, dirs.get(18).getPath()));
+        assertEquals(1, loader.getPrefetchHitCount());
+        loader.shutdown();
+    }
+
+    @Test
+    public void prefetchesPopularChildren() throws Exception {
+        File parent = tmp.newFolder("parent");
+        VisitFrequencyTable visits = new VisitFrequencyTable(null, 64);
+        DirectoryLoader loader = new DirectoryLoader(Runnable::run, new DirectoryCache(null, 10_000));
+        loader.setVisitTable(visits);
+        for (int i = 0; i < 5; i++) {
+            File child = new File(parent, "c" + i);
+            child.mkdir();
+            child.setLastModified(System.currentTimeMillis() - 60_000);
+            for (int v = 0; v <= i; v++) {
+                loader.recordVisit(child.getPath());
+            }
+        }
+
+        loader.prefetchPopularChildren(parent.getPath(), 2);
+        awaitCount(loader::getPrefetchScanCount, 2);
+        assertEquals(0, loadAndCount(loader, new File(parent, "c4").getPath()));
+        assertEquals(0, loadAndCount(loader, new File(parent, "c3").getPath()));
+        assertEquals(0, loadAndCount(loader, new File(parent, "c0").getPath()));
+        assertEquals(2, loader.getPrefetchHitCount());
+        assertEquals(2, loader.getPrefetchRequestCount());
+        loader.shutdown();
+    }
+
+    @Test
+    public void listsArchiveAsVirtualDirectory() throws Exception {
+        File zip = new File(tmp.getRoot(), "comics.cbz");
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zip))) {
+            for (String name : new String[]{"vol1/001.jpg", "vol1/002.jpg", "vol2/001.jpg", "info.txt"}) {
+                out.putNextEntry(new ZipEntry(name));
+                out.write(name.getBytes(StandardCharsets.UTF_8));
+                out.closeEntry();
+            }
+        }
+        DirectoryLoader loader = new DirectoryLoader(Runnable::run, new DirectoryCache(null, 10_000));
+        assertEquals(3, loadAndCount(loader, zip.getPath()));
+        assertEquals(2, loadAndCount(loader, new File(zip, "vol1").getPath()));
+        // 损坏或不存在的包内目录按空目录处理
+        assertEquals(0, loadAndCount(loader, new File(zip, "missing").getPath()));
+        loader.shutdown();
+    }
+
+    private static int loadAndCount(DirectoryLoader loader, String path) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        int[] total = new int[1];
+        loader.load(path, null, new DirectoryLoader.Callback() {
+            @Override
+            public void onChunk(String p, List<FileEntry> chunk, boolean first) {
+            }
+
+            @Override
+            public void onComplete(String p, int count) {
+                total[0] = count;
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        return total[0];
+    }
+
+    private static void awaitCount(LongSupplier counter, long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (counter.getAsLong() < expected) {
+            assertTrue("等待预取超时", System.currentTimeMillis() < deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    private File createSyntheticDirectory(int count) throws IOException {
+        File dir = tmp.newFolder("synthetic");
+        for (int i = 0; i < count; i++) {
+            if (!new File(dir, String.format("file_%06d.dat", i)).createNewFile()) {
+                throw new IOException("无法创建测试文件 " + i);
+            }
+        }
+        return dir;
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.simpletool;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+public class DuplicateFinderTest {
+
+    private static final int GROUPS = 500;
+    // 大于首尾两段之和，必须走到全文摘要才能确认
+    private static final long BASE_SIZE = 3L * DuplicateFinder.PARTIAL_BYTES;
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    /**
+     * 每组 6 个同样大小的文件：3 个完全相同，1 个只有中间不同（能通过首尾摘要），
+     * 2 个首或尾不同。另有一批大小唯一的文件，不应被读取。
+     */
+    @Test
+    public void findsExactDuplicatesInNearDuplicateTree() throws Exception {
+        File root = tmp.newFolder("root");
+        for (int g = 0; g < GROUPS; g++) {
+            long size = BASE_SIZE + g;
+            File dir = new File(root, "g" + (g % 20) + "/sub" + (g % 7));
+            byte marker = (byte) (g % 251 + 1);
+            for (int copy = 0; copy < 3; copy++) {
+                write(dir, g + "_same" + copy, size, marker, -1);
+            }
+            write(dir, g + "_middle", size, marker, size / 2);
+            write(dir, g + "_head", size, marker, 1);
+            write(dir, g + "_tail", size, marker, size - 1);
+            write(dir, g + "_unique", BASE_SIZE * 2 + g, marker, -1);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            DuplicateFinder finder = new DuplicateFinder(executor);
+            List<DuplicateFinder.DuplicateGroup> groups = finder.find(root, null);
+
+            assertEquals(GROUPS, groups.size());
+            for (DuplicateFinder.DuplicateGroup group : groups) {
+                assertEquals(3, group.paths.size());
+                for (String path : group.paths) {
+                    assertTrue(path, path.contains("_same"));
+                    assertEquals(group.size, new File(path).length());
+                }
+            }
+            // 大小唯一的文件不读；首尾不同的文件止步于第 2 步
+            assertEquals(GROUPS * 6, finder.getPartialHashCount());
+            assertEquals(GROUPS * 4, finder.getFullHashCount());
+            // 结果按可释放空间从大到小
+            assertTrue(groups.get(0).wastedBytes() >= groups.get(groups.size() - 1).wastedBytes());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void smallFilesAreConfirmedByPartialHash() throws Exception {
+        File root = tmp.newFolder("root");
+        write(root, "a", 1000, (byte) 1, -1);
+        write(new File(root, "nested"), "b", 1000, (byte) 1, -1);
+        write(root, "c", 1000, (byte) 1, 500);
+        write(root, "empty1", 0, (byte) 0, -1);
+        write(root, "empty2", 0, (byte) 0, -1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            DuplicateFinder finder = new DuplicateFinder(executor);
+            List<DuplicateFinder.DuplicateGroup> groups = finder.find(root, null);
+            assertEquals(1, groups.size());
+            assertEquals(2, groups.get(0).paths.size());
+            assertEquals(0, finder.getFullHashCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void cancelledSearchReturnsNull() throws Exception {
+        File root = tmp.newFolder("root");
+        write(root, "a", 10, (byte) 1, -1);
+        write(root, "b", 10, (byte) 1, -1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            DuplicateFinder finder = new DuplicateFinder(executor);
+            finder.cancel();
+            assertNull(finder.find(root, null));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // 稀疏文件：开头写入标记字节，diffAt >= 0 时在该位置再写一个不同的字节
+    private static void write(File dir, String name, long size, byte marker, long diffAt) throws Exception {
+        assertTrue(dir.isDirectory() || dir.mkdirs());
+        try (RandomAccessFile raf = new RandomAccessFile(new File(dir, name), "rw")) {
+            raf.setLength(size);
+            if (size == 0) return;
+            raf.seek(0);
+            raf.write(marker);
+            if (diffAt >= 0) {
+                raf.seek(diffAt);
+                raf.write(0x7f);
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.simpletool;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class EncodingDetectorTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private static final String LINE = "天地玄黄，宇宙洪荒。日月盈昃，辰宿列张。Chapter 1 abc\n";
+
+    @Test
+    public void bomWins() {
+        assertEquals(StandardCharsets.UTF_8, EncodingDetector.detect(bytes(0xEF, 0xBB, 0xBF, 'a')));
+        assertEquals(StandardCharsets.UTF_16LE, EncodingDetector.detect(bytes(0xFF, 0xFE, 'a', 0)));
+        assertEquals(StandardCharsets.UTF_16BE, EncodingDetector.detect(bytes(0xFE, 0xFF, 0, 'a')));
+    }
+
+    @Test
+    public void validatesUtf8ByteByByte() {
+        assertEquals(2, EncodingDetector.countUtf8Sequences(utf8("a中b文"), 0, 8));
+        assertEquals(1, EncodingDetector.countUtf8Sequences(utf8("😀"), 0, 4));
+        // 样本末尾截断的序列不算错
+        assertEquals(1, EncodingDetector.countUtf8Sequences(utf8("中文"), 0, 5));
+        // 过长编码、代理区、单独的后续字节、缺少后续字节
+        assertEquals(-1, EncodingDetector.countUtf8Sequences(bytes(0xC0, 0x80), 0, 2));
+        assertEquals(-1, EncodingDetector.countUtf8Sequences(bytes(0xE0, 0x80, 0x80), 0, 3));
+        assertEquals(-1, EncodingDetector.countUtf8Sequences(bytes(0xED, 0xA0, 0x80), 0, 3));
+        assertEquals(-1, EncodingDetector.countUtf8Sequences(bytes(0x80, 'a'), 0, 2));
+        assertEquals(-1, EncodingDetector.countUtf8Sequences(bytes(0xE4, 'a', 'b'), 0, 3));
+        assertEquals(-1, EncodingDetector.countUtf8Sequences(bytes(0xF5, 0x80, 0x80, 0x80), 0, 4));
+    }
+
+    @Test
+    public void validatesGbkStructure() {
+        assertEquals(2, EncodingDetector.countGbkSequences(
+                ByteBuffer.wrap("a中b文".getBytes(Charset.forName("GBK"))), 0, 6));
+        // GB18030 四字节字符，以及末尾截断
+        assertEquals(1, EncodingDetector.countGbkSequences(bytes(0x81, 0x30, 0x81, 0x30, 0xD6), 0, 5));
+        assertEquals(-1, EncodingDetector.countGbkSequences(bytes(0x80, 'a'), 0, 2));
+        assertEquals(-1, EncodingDetector.countGbkSequences(bytes(0xD6, 0x7F), 0, 2));
+        assertEquals(-1, EncodingDetector.countGbkSequences(bytes(0xD6, '\n'), 0, 2));
+        assertEquals(-1, EncodingDetector.countGbkSequences(bytes(0x81, 0x30, 'a', 0x30), 0, 4));
+    }
+
+    @Test
+    public void distinguishesUtf8FromGbk() {
+        String text = repeat(LINE, 5000);
+        assertEquals(StandardCharsets.UTF_8, EncodingDetector.detect(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8))));
+
+        Charset gbk = EncodingDetector.detect(ByteBuffer.wrap(text.getBytes(Charset.forName("GBK"))));
+        assertNotEquals(StandardCharsets.UTF_8, gbk);
+        assertEquals(text, new String(text.getBytes(Charset.forName("GBK")), gbk));
+
+        // 纯 ASCII 判断不出，按默认的 GBK
+        assertEquals(EncodingDetector.DEFAULT_CHARSET,
+                EncodingDetector.detect(ByteBuffer.wrap(repeat("hello\n", 100).getBytes(StandardCharsets.US_ASCII))));
+    }
+
+    @Test
+    public void smallFileLargerThanOneSampleIsFedInChunks() {
+        // 16 KB 到 48 KB 之间的文件整个作为一段样本
+        String text = repeat("天地玄黄，宇宙洪荒。日月盈昃，辰宿列张。寒来暑往，秋收冬藏。\n", 380);
+        byte[] data = text.getBytes(Charset.forName("GBK"));
+        assertTrue(data.length > EncodingDetector.SAMPLE_BYTES && data.length <= EncodingDetector.SAMPLE_BYTES * 3);
+
+        Charset charset = EncodingDetector.detect(ByteBuffer.wrap(data));
+        assertEquals(text, new String(data, charset));
+    }
+
+    @Test
+    public void readsOnlyHeadMiddleAndTailSamples() {
+        byte[] data = repeat(LINE, 150_000).getBytes(StandardCharsets.UTF_8);
+        int size = data.length;
+        int sample = EncodingDetector.SAMPLE_BYTES;
+        // 样本以外的位置放上非法字节，检测结果不受影响，说明这些字节没有被读取
+        for (int i = sample; i < size / 2 - sample; i += 4096) data[i] = (byte) 0xFF;
+        for (int i = size / 2 + sample; i < size - sample * 2; i += 4096) data[i] = (byte) 0xFF;
+        assertEquals(StandardCharsets.UTF_8, EncodingDetector.detect(ByteBuffer.wrap(data)));
+
+        // 样本总量固定，与文件大小无关
+        for (int mb : new int[]{1, 16, 64}) {
+            int sampled = 0;
+            for (int[] range : EncodingDetector.samples(ByteBuffer.allocate(mb << 20))) {
+                sampled += range[1] - range[0];
+            }
+            assertTrue(sampled <= sample * 3);
+        }
+    }
+
+    @Test
+    public void verdictIsCachedPerFileStamp() throws Exception {
+        File file = tmp.newFile("book.txt");
+        byte[] utf8 = repeat(LINE, 100).getBytes(StandardCharsets.UTF_8);
+        Files.write(file.toPath(), utf8);
+        assertEquals(StandardCharsets.UTF_8, EncodingDetector.detect(file.getPath(), ByteBuffer.wrap(utf8)));
+
+        // 文件没变时直接用缓存的结果，不再看字节
+        byte[] gbk = repeat(LINE, 100).getBytes(Charset.forName("GBK"));
+        assertEquals(StandardCharsets.UTF_8, EncodingDetector.detect(file.getPath(), ByteBuffer.wrap(gbk)));
+
+        Files.write(file.toPath(), gbk);
+        assertTrue(file.setLastModified(file.lastModified() + 10_000));
+        assertNotEquals(StandardCharsets.UTF_8, EncodingDetector.detect(file.getPath(), ByteBuffer.wrap(gbk)));
+    }
+
+    @Test
+    public void documentDetectsOnMappedBytes() throws Exception {
+        String text = repeat(LINE, 3000);
+        File file = tmp.newFile("gbk.txt");
+        Files.write(file.toPath(), text.getBytes(Charset.forName("GBK")));
+        try (NovelDocument document = NovelDocument.open(file.getPath(), null, tmp.getRoot())) {
+            document.scan(null);
+            assertEquals(text, document.text(0, document.length()));
+        }
+    }
+
+    private static ByteBuffer bytes(int... values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) bytes[i] = (byte) values[i];
+        return ByteBuffer.wrap(bytes);
+    }
+
+    private static ByteBuffer utf8(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String repeat(String text, int times) {
+        StringBuilder sb = new StringBuilder(text.length() * times);
+        for (int i = 0; i < times; i++) sb.append(text);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.simpletool;
+
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class FileIndexTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void findsFilesByPrefixAndSubstring() throws Exception {
+        File root = tmp.newFolder("root");
+        File photos = new File(root, "Photos");
+        File nested = new File(photos, "旅行");
+        assertTrue(nested.mkdirs());
+        assertTrue(new File(photos, "holiday.JPG").createNewFile());
+        assertTrue(new File(nested, "海边holiday.png").createNewFile());
+        assertTrue(new File(root, "notes.txt").createNewFile());
+
+        FileIndex index = new FileIndexBuilder(ForkJoinPool.commonPool())
+                .build(Collections.singletonList(root), null);
+
+        assertEquals(Collections.singleton(new File(photos, "holiday.JPG").getPath()),
+                paths(index, index.searchPrefix("HOLI", 10)));
+        assertEquals(new HashSet<>(Arrays.asList(
+                        new File(photos, "holiday.JPG").getPath(),
+                        new File(nested, "海边holiday.png").getPath())),
+                paths(index, index.search("holiday", 10)));
+        // 前缀匹配排在前面且不重复
+        int[] hits = index.search("holiday", 10);
+        assertEquals(2, hits.length);
+        assertEquals("holiday.JPG", index.name(hits[0]));
+        assertTrue(index.isDirectory(index.searchPrefix("旅", 10)[0]));
+        assertEquals(0, index.search("missing", 10).length);
+    }
+
+    @Test
+    public void refreshReusesUnchangedDirectories() throws Exception {
+        File root = tmp.newFolder("root");
+        File a = new File(root, "a");
+        File b = new File(root, "b");
+        assertTrue(a.mkdir());
+        assertTrue(b.mkdir());
+        assertTrue(new File(a, "one.txt").createNewFile());
+        assertTrue(new File(b, "two.txt").createNewFile());
+        // 把 mtime 调到过去，之后的修改一定会改变它
+        for (File dir : new File[]{root, a, b}) {
+            assertTrue(dir.setLastModified(1_600_000_000_000L));
+        }
+
+        FileIndex first = new FileIndexBuilder(ForkJoinPool.commonPool())
+                .build(Collections.singletonList(root), null);
+
+        assertTrue(new File(b, "three.txt").createNewFile());
+        FileIndexBuilder refresher = new FileIndexBuilder(ForkJoinPool.commonPool());
+        FileIndex second = refresher.build(Collections.singletonList(root), first);
+
+        assertEquals(2, refresher.getReusedDirCount());  // root 和 a
+        assertEquals(1, refresher.getListedDirCount());  // 只有 b 重新列出
+        assertEquals(first.size + 1, second.size);
+        assertEquals(1, second.search("three", 10).length);
+        assertEquals(1, second.search("one", 10).length);
+    }
+
+    @Test
+    public void doesNotDescendIntoSymlinkedDirectories() throws Exception {
+        File root = tmp.newFolder("root");
+        File docs = new File(root, "docs");
+        assertTrue(docs.mkdir());
+        assertTrue(new File(docs, "report.txt").createNewFile());
+        try {
+            // 指向上级目录的链接，跟随的话会一直索引到深度上限
+            Files.createSymbolicLink(new File(docs, "loop").toPath(), root.toPath());
+        } catch (IOException | UnsupportedOperationException e) {
+            Assume.assumeNoException(e);
+        }
+
+        FileIndex index = new FileIndexBuilder(ForkJoinPool.commonPool())
+                .build(Collections.singletonList(root), null);
+
+        assertEquals(1, index.search("report", 10).length);
+        int[] link = index.search("loop", 10);
+        assertEquals(1, link.length);
+        assertFalse(index.isDirectory(link[0]));
+    }
+
+    @Test
+    public void saveAndLoadRoundTrip() throws Exception {
+        FileIndex index = FileIndex.fromTrees(Collections.singletonList(syntheticTree(10, 50)));
+        File file = new File(tmp.getRoot(), "index.bin");
+        index.save(file);
+        FileIndex loaded = FileIndex.load(file);
+
+        assertEquals(index.size, loaded.size);
+        for (int id = 0; id < index.size; id += 37) {
+            assertEquals(index.path(id), loaded.path(id));
+            assertEquals(index.isDirectory(id), loaded.isDirectory(id));
+        }
+        assertArrayEquals(index.search("file_12", 100), loaded.search("file_12", 100));
+    }
+
+    @Test
+    public void loadRejectsCorruptHeaderBeforeAllocating() throws Exception {
+        FileIndex index = FileIndex.fromTrees(Collections.singletonList(syntheticTree(2, 3)));
+        File file = new File(tmp.getRoot(), "index.bin");
+        // 项数、名称长度依次改成负数和超大值，还有截断的文件
+        for (int[] patch : new int[][]{{8, -1}, {8, Integer.MAX_VALUE}, {12, -5}, {12, Integer.MAX_VALUE / 2}}) {
+            index.save(file);
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.seek(patch[0]);
+                raf.writeInt(patch[1]);
+            }
+            assertLoadFails(file);
+        }
+        index.save(file);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 1);
+        }
+        assertLoadFails(file);
+    }
+
+    private static void assertLoadFails(File file) {
+        try {
+            FileIndex.load(file);
+            fail("损坏的索引文件应该读取失败");
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void queriesOverMillionPaths() {
+        // 1000 个目录 × 1000 个文件
+        FileIndex index = FileIndex.fromTrees(Collections.singletonList(syntheticTree(1000, 1000)));
+        assertTrue(index.size > 1_000_000);
+
+        int[] prefix = index.searchPrefix("img_0042", 200);
+        int[] substring = index.search("0042_x", 200);
+        int[] none = index.search("不存在的名字", 200);
+        assertEquals(200, prefix.length);
+        assertTrue(substring.length > 0);
+        assertEquals(0, none.length);
+        for (int id : substring) {
+            assertTrue(index.name(id).toLowerCase().contains("0042_x"));
+        }
+    }
+
+    private static FileIndex.Node syntheticTree(int dirs, int filesPerDir) {
+        List<FileIndex.Node> children = new ArrayList<>(dirs);
+        for (int d = 0; d < dirs; d++) {
+            List<FileIndex.Node> files = new ArrayList<>(filesPerDir);
+            for (int f = 0; f < filesPerDir; f++) {
+                files.add(new FileIndex.Node(String.format("IMG_%04d_x%04d.jpg", f, d), false, 0, null));
+            }
+            files.add(new FileIndex.Node("file_" + d + ".txt", false, 0, null));
+            children.add(new FileIndex.Node("dir_" + d, true, d, files));
+        }
+        return new FileIndex.Node("/storage/emulated/0", true, 0, children);
+    }
+
+    private static Set<String> paths(FileIndex index, int[] ids) {
+        Set<String> set = new HashSet<>();
+        for (int id : ids) set.add(index.path(id));
+        return set;
+    }
+}
@@ -0,0 +1,286 @@
+package com.example.simpletool;
+
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class FileOperationQueueTest {
+
+    private static final long GB = 1024L * 1024 * 1024;
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void copiesTreeAndRenamesOnConflict() throws Exception {
+        File source = tmp.newFolder("src");
+        sparse(new File(source, "a/b"), "one.txt", 1000);
+        sparse(source, "two.bin", 5 * 1024 * 1024 + 3);
+        File target = tmp.newFolder("dst");
+        assertTrue(new File(target, "src").mkdir());
+
+        Recorder recorder = new Recorder();
+        FileOperationQueue queue = new FileOperationQueue(Runnable::run, recorder);
+        try {
+            FileOperationQueue.Job job = queue.enqueue(false, Collections.singletonList(source), target);
+            recorder.await();
+            assertEquals(0, job.failedCount);
+            File copy = new File(target, "src (1)");
+            assertSameContent(new File(source, "a/b/one.txt"), new File(copy, "a/b/one.txt"));
+            assertSameContent(new File(source, "two.bin"), new File(copy, "two.bin"));
+            assertEquals(1000 + 5 * 1024 * 1024 + 3, job.doneBytes);
+            assertEquals(job.totalBytes, recorder.lastDone.get());
+            assertTrue(source.isDirectory());
+        } finally {
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    public void moveWithinVolumeIsRenameEvenForHugeFiles() throws Exception {
+        File source = tmp.newFolder("src");
+        File big = sparse(source, "big.img", 4 * GB);
+        File target = tmp.newFolder("dst");
+
+        Recorder recorder = new Recorder();
+        FileOperationQueue queue = new FileOperationQueue(Runnable::run, recorder);
+        Object sourceKey = fileKey(big);
+        try {
+            FileOperationQueue.Job job = queue.enqueue(true, Arrays.asList(big), target);
+            recorder.await();
+            assertEquals(1, job.renamedCount);
+            assertEquals(0, job.doneBytes);
+            // 没有复制任何字节
+            assertTrue(recorder.lastDone.get() <= 0);
+            assertFalse(big.exists());
+            File moved = new File(target, "big.img");
+            assertEquals(4 * GB, moved.length());
+            // 重命名后还是同一个 inode
+            if (sourceKey != null) {
+                assertEquals(sourceKey, fileKey(moved));
+            }
+        } finally {
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    public void copiesMultiGigabyteSparseFile() throws Exception {
+        // 要写几个 GB，只在 ./gradlew test -PlargeFileTests 时运行
+        Assume.assumeTrue(Boolean.getBoolean("simpletool.largeFileTests"));
+        // 复制结果不再稀疏，需要真实的磁盘空间
+        long size = 3 * GB;
+        Assume.assumeTrue(tmp.getRoot().getUsableSpace() > size + 2 * GB);
+
+        File source = tmp.newFolder("src");
+        File big = sparse(source, "big.img", size);
+        File target = tmp.newFolder("dst");
+
+        for (boolean sameVolume : new boolean[]{true, false}) {
+            Recorder recorder = new Recorder();
+            FileOperationQueue queue = new FileOperationQueue(Runnable::run, recorder);
+            if (sameVolume) {
+                queue.setVolumeRoots(Collections.singletonList(tmp.getRoot()));
+            }
+            try {
+                FileOperationQueue.Job job = queue.enqueue(false, Arrays.asList(big), target);
+                recorder.await();
+                assertEquals(0, job.failedCount);
+                File copy = new File(target, "big.img");
+                assertSameContent(big, copy);
+                assertEquals(size, job.doneBytes);
+                assertTrue(copy.delete());
+            } finally {
+                queue.shutdown();
+            }
+        }
+    }
+
+    @Test
+    public void cancelStopsCopyAndRemovesPartialTarget() throws Exception {
+        File source = tmp.newFolder("src");
+        sparse(new File(source, "a"), "one.bin", 24 * 1024 * 1024);
+        sparse(new File(source, "b"), "two.bin", 24 * 1024 * 1024);
+        File target = tmp.newFolder("dst");
+
+        Recorder recorder = new Recorder() {
+            @Override
+            public void onProgress(FileOperationQueue.Job job, long doneBytes, long totalBytes,
+                                   long bytesPerSecond) {
+                super.onProgress(job, doneBytes, totalBytes, bytesPerSecond);
+                job.cancel();
+            }
+        };
+        // 不限制进度频率，第一块写完就会取消
+        FileOperationQueue queue = new FileOperationQueue(Runnable::run, recorder, 0);
+        try {
+            FileOperationQueue.Job job = queue.enqueue(false, Arrays.asList(source), target);
+            recorder.await();
+            assertTrue(job.isCancelled());
+            assertTrue(job.doneBytes < job.totalBytes);
+            assertArrayEquals(new String[0], target.list());
+            assertTrue(new File(source, "a/one.bin").exists());
+            assertTrue(new File(source, "b/two.bin").exists());
+        } finally {
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    public void refusesToCopyDirectoryIntoItself() throws Exception {
+        File source = tmp.newFolder("src");
+        File inner = new File(source, "inner");
+        assertTrue(inner.mkdir());
+
+        Recorder recorder = new Recorder();
+        FileOperationQueue queue = new FileOperationQueue(Runnable::run, recorder);
+        try {
+            FileOperationQueue.Job job = queue.enqueue(false, Arrays.asList(source), inner);
+            recorder.await();
+            assertEquals(1, job.failedCount);
+            assertArrayEquals(new String[0], inner.list());
+        } finally {
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    public void copiesSymlinkInsteadOfFollowingIt() throws Exception {
+        File source = tmp.newFolder("src");
+        sparse(source, "a.txt", 100);
+        // 指向自身所在目录的链接，跟随的话会一直复制到深度上限
+        symlink(new File(source, "loop"), source);
+        File target = tmp.newFolder("dst");
+
+        Recorder recorder = new Recorder();
+        FileOperationQueue queue = new FileOperationQueue(Runnable::run, recorder);
+        try {
+            FileOperationQueue.Job job = queue.enqueue(false, Arrays.asList(source), target);
+            recorder.await();
+            assertEquals(0, job.failedCount);
+            assertEquals(100, job.totalBytes);
+            File link = new File(target, "src/loop");
+            assertTrue(Files.isSymbolicLink(link.toPath()));
+            assertEquals(source.toPath(), Files.readSymbolicLink(link.toPath()));
+        } finally {
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    public void moveAcrossVolumesDeletesLinkButNotItsTarget() throws Exception {
+        // /dev/shm 通常是另一个文件系统，rename 失败后走复制再删除
+        File shm = new File("/dev/shm");
+        Assume.assumeTrue(shm.isDirectory() && shm.canWrite());
+        File outside = tmp.newFolder("outside");
+        File precious = sparse(outside, "precious.txt", 100);
+        File source = tmp.newFolder("src");
+        sparse(source, "a.txt", 100);
+        symlink(new File(source, "link"), outside);
+        File target = Files.createTempDirectory(shm.toPath(), "move").toFile();
+
+        Recorder recorder = new Recorder();
+        FileOperationQueue queue = new FileOperationQueue(Runnable::run, recorder);
+        try {
+            FileOperationQueue.Job job = queue.enqueue(true, Arrays.asList(source), target);
+            recorder.await();
+            assertEquals(0, job.failedCount);
+            assertFalse(source.exists());
+            assertTrue(precious.exists());
+            assertTrue(Files.isSymbolicLink(new File(target, "src/link").toPath()));
+            assertEquals(100, new File(target, "src/a.txt").length());
+        } finally {
+            queue.shutdown();
+            deleteRecursively(target);
+        }
+    }
+
+    private static class Recorder implements FileOperationQueue.Listener {
+        final CountDownLatch finished = new CountDownLatch(1);
+        final AtomicLong lastDone = new AtomicLong(-1);
+
+        @Override
+        public void onProgress(FileOperationQueue.Job job, long doneBytes, long totalBytes,
+                               long bytesPerSecond) {
+            assertTrue(doneBytes >= lastDone.get());
+            assertTrue(doneBytes <= totalBytes);
+            lastDone.set(doneBytes);
+        }
+
+        @Override
+        public void onFinished(FileOperationQueue.Job job) {
+            finished.countDown();
+        }
+
+        void await() throws InterruptedException {
+            assertTrue(finished.await(5, TimeUnit.MINUTES));
+        }
+    }
+
+    private static void symlink(File link, File target) {
+        try {
+            Files.createSymbolicLink(link.toPath(), target.toPath());
+        } catch (IOException | UnsupportedOperationException e) {
+            Assume.assumeNoException(e);
+        }
+    }
+
+    private static void deleteRecursively(File file) {
+        if (!Files.isSymbolicLink(file.toPath())) {
+            File[] children = file.listFiles();
+            if (children != null) {
+                for (File child : children) {
+                    deleteRecursively(child);
+                }
+            }
+        }
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+    }
+
+    // 文件系统的唯一标识（Linux 上是设备号和 inode），平台不支持时为 null
+    private static Object fileKey(File file) throws Exception {
+        return Files.readAttributes(file.toPath(), BasicFileAttributes.class).fileKey();
+    }
+
+    // 稀疏文件，只在开头、中间和结尾写入内容
+    private static File sparse(File dir, String name, long size) throws Exception {
+        assertTrue(dir.isDirectory() || dir.mkdirs());
+        File file = new File(dir, name);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(size);
+            for (long position : new long[]{0, size / 2, size - 1}) {
+                raf.seek(position);
+                raf.write((int) (position % 251) + 1);
+            }
+        }
+        return file;
+    }
+
+    private static void assertSameContent(File expected, File actual) throws Exception {
+        assertEquals(expected.length(), actual.length());
+        long size = expected.length();
+        try (RandomAccessFile a = new RandomAccessFile(expected, "r");
+             RandomAccessFile b = new RandomAccessFile(actual, "r")) {
+            for (long position : new long[]{0, size / 2, size - 1, size / 3}) {
+                a.seek(position);
+                b.seek(position);
+                assertEquals(a.read(), b.read());
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.simpletool;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 对比旧的 File 比较器（每次比较都 stat）和 FileEntry 快照排序的耗时，以及名称排序键的顺序和耗时。
+ */
+public class FileSorterTest {
+
+    private static final int FILE_COUNT = 5_000;
+    private static final int MIXED_NAME_COUNT = 100_000;
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void snapshotSortMatchesFileSortWithoutIo() throws IOException {
+        File dir = tmp.newFolder("bench");
+        Random random = new Random(42);
+        for (int i = 0; i < FILE_COUNT; i++) {
+            if (i % 10 == 0) {
+                assertTrue(new File(dir, "dir_" + i).mkdir());
+                continue;
+            }
+            try (FileOutputStream out = new FileOutputStream(new File(dir, "f_" + i + ".bin"))) {
+                out.write(new byte[random.nextInt(64)]);
+            }
+        }
+
+        List<File> files = new ArrayList<>();
+        List<FileEntry> entries = new ArrayList<>();
+        for (String name : dir.list()) {
+            files.add(new File(dir, name));
+            entries.add(FileEntry.stat(dir, name));
+        }
+
+        for (SortMode mode : new SortMode[]{SortMode.NAME_ASC, SortMode.SIZE_DESC}) {
+            List<File> legacy = new ArrayList<>(files);
+            Collections.sort(legacy, legacyComparator(mode));
+
+            List<FileEntry> snapshot = new ArrayList<>(entries);
+            FileSorter.sort(snapshot, mode);
+
+            // 同大小的文件顺序可能不同，只比较排序键
+            for (int i = 0; i < legacy.size(); i++) {
+                File f = legacy.get(i);
+                FileEntry e = snapshot.get(i);
+                assertEquals(f.isDirectory(), e.isDirectory);
+                if (mode == SortMode.NAME_ASC) {
+                    // 名称排序改为按数值比较数字，与旧顺序不同，只检查相邻条目有序
+                    if (i > 0 && snapshot.get(i - 1).isDirectory == e.isDirectory) {
+                        assertTrue(NameSortKey.compare(snapshot.get(i - 1).name, e.name) < 0);
+                    }
+                } else if (!e.isDirectory) {
+                    assertEquals(f.length(), e.size);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void nameOrderIsNaturalAndPinyin() {
+        List<String> names = new ArrayList<>(Arrays.asList(
+                "10.jpg", "2.jpg", "Img_2.png", "img_10.png", "IMG_1.png", "张三", "阿里", "北京",
+                "a", "B", "第12章", "第2章", "file007", "file7", "file8"));
+        Collections.shuffle(names, new Random(1));
+        FileSorter.sortByName(names, name -> name);
+
+        // 中文排序规则把汉字整体排在拉丁字母之前
+        assertEquals(Arrays.asList(
+                "2.jpg", "10.jpg", "阿里", "北京", "第2章", "第12章", "张三",
+                "a", "B", "file007", "file7", "file8", "IMG_1.png", "Img_2.png", "img_10.png"), names);
+    }
+
+    @Test
+    public void nameDescendingKeepsDirectoriesFirst() {
+        List<FileEntry> entries = new ArrayList<>();
+        for (String name : new String[]{"b2", "b10", "a"}) {
+            entries.add(new FileEntry("/x", name, false, true, 0, 0));
+            entries.add(new FileEntry("/x", "dir_" + name, true, true, 0, 0));
+        }
+        FileSorter.sort(entries, SortMode.NAME_DESC);
+        List<String> names = new ArrayList<>();
+        for (FileEntry entry : entries) {
+            names.add(entry.name);
+        }
+        assertEquals(Arrays.asList("dir_b10", "dir_b2", "dir_a", "b10", "b2", "a"), names);
+
+        // 单独比较时与整体排序一致，供二分插入使用
+        Comparator<FileEntry> comparator = FileSorter.comparator(SortMode.NAME_DESC);
+        for (int i = 1; i < entries.size(); i++) {
+            assertTrue(comparator.compare(entries.get(i - 1), entries.get(i)) < 0);
+        }
+    }
+
+    /**
+     * 10 万个中英文混合文件名按预先计算的排序键排序。
+     */
+    @Test
+    public void sortsMixedNamesWithPrecomputedKeys() {
+        Random random = new Random(7);
+        String[] words = {"照片", "旅行", "假日", "北京", "上海", "文档", "报告", "第", "章", "IMG_", "Screenshot_",
+                "report", "Final", "draft"};
+        List<FileEntry> entries = new ArrayList<>(MIXED_NAME_COUNT);
+        for (int i = 0; i < MIXED_NAME_COUNT; i++) {
+            StringBuilder name = new StringBuilder();
+            for (int k = 0, parts = 1 + random.nextInt(3); k < parts; k++) {
+                name.append(words[random.nextInt(words.length)]).append(random.nextInt(2000));
+            }
+            name.append(i % 2 == 0 ? ".jpg" : ".txt");
+            entries.add(new FileEntry("/names", name.toString(), i % 50 == 0, true, 0, 0));
+        }
+        List<FileEntry> keyed = new ArrayList<>(entries);
+        FileSorter.sort(keyed, SortMode.NAME_ASC);
+        assertEquals(MIXED_NAME_COUNT, keyed.size());
+        Comparator<FileEntry> comparator = FileSorter.comparator(SortMode.NAME_ASC);
+        for (int i = 1; i < keyed.size(); i += 97) {
+            assertTrue(comparator.compare(keyed.get(i - 1), keyed.get(i)) <= 0);
+        }
+    }
+
+    @Test
+    public void statCapturesMetadataOnce() throws IOException {
+        File dir = tmp.newFolder("meta");
+        File file = new File(dir, "a.txt");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[123]);
+        }
+        assertTrue(file.setLastModified(1_600_000_000_000L));
+
+        FileEntry entry = FileEntry.stat(dir, "a.txt");
+        assertNotNull(entry);
+        assertFalse(entry.isDirectory);
+        assertTrue(entry.readable);
+        assertEquals(123, entry.size);
+        assertEquals(1_600_000_000_000L, entry.lastModified);
+        assertEquals(file.getPath(), entry.getPath());
+
+        assertTrue(file.delete());
+        assertEquals(123, entry.size);
+        assertNull(FileEntry.stat(dir, "a.txt"));
+    }
+
+    // 原 MainActivity.sortFiles 的比较逻辑
+    private static Comparator<File> legacyComparator(SortMode mode) {
+        return (f1, f2) -> {
+            if (f1.isDirectory() && !f2.isDirectory()) return -1;
+            if (!f1.isDirectory() && f2.isDirectory()) return 1;
+            switch (mode) {
+                case NAME_ASC:
+                    return f1.getName().compareToIgnoreCase(f2.getName());
+                case SIZE_DESC:
+                    return Long.compare(f2.length(), f1.length());
+                default:
+                    return 0;
+            }
+        };
+    }
+}
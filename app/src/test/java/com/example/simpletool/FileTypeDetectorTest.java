@@ -0,0 +1,140 @@
+package com.example.simpletool;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class FileTypeDetectorTest {
+
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A, 0, 0, 0, 13};
+    private static final byte[] ZIP = {'P', 'K', 3, 4, 20, 0, 0, 0};
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void contentWinsOverMisleadingExtension() throws Exception {
+        File dir = tmp.newFolder();
+        assertSame(FileTypes.PNG, FileTypeDetector.detect(write(dir, "photo.txt", PNG)));
+        assertSame(FileTypes.PNG, FileTypeDetector.detect(write(dir, "photo", PNG)));
+        assertSame(FileTypes.JPEG, FileTypeDetector.detect(
+                write(dir, "x.bin", new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0})));
+        assertSame(FileTypes.WEBP, FileTypeDetector.detect(write(dir, "a.dat", ascii("RIFF\0\0\0\0WEBPVP8 "))));
+        assertSame(FileTypes.WAV, FileTypeDetector.detect(write(dir, "b.dat", ascii("RIFF\0\0\0\0WAVEfmt "))));
+        assertSame(FileTypes.M4A, FileTypeDetector.detect(write(dir, "c.dat", ascii("\0\0\0 ftypM4A \0\0"))));
+    }
+
+    @Test
+    public void containerFormatsDeferToExtension() throws Exception {
+        File dir = tmp.newFolder();
+        assertSame(FileTypes.APK, FileTypeDetector.detect(write(dir, "app.apk", ZIP)));
+        assertSame(FileTypes.EPUB, FileTypeDetector.detect(write(dir, "book.epub", ZIP)));
+        assertSame(FileTypes.ZIP, FileTypeDetector.detect(write(dir, "archive", ZIP)));
+        // 扩展名未知时不猜，交给系统按扩展名查 MIME
+        assertSame(FileTypes.UNKNOWN, FileTypeDetector.detect(write(dir, "report.docx", ZIP)));
+        assertSame(FileTypes.MP4, FileTypeDetector.detect(write(dir, "clip.mp4", ascii("\0\0\0\u0018ftypisom"))));
+    }
+
+    @Test
+    public void textSniffingOnlyWithoutExtension() throws Exception {
+        File dir = tmp.newFolder();
+        byte[] text = "第一章 开始\r\n\t正文".getBytes(StandardCharsets.UTF_8);
+        assertSame(FileTypes.TEXT, FileTypeDetector.detect(write(dir, "README", text)));
+        assertSame(FileTypes.TEXT, FileTypeDetector.detect(write(dir, "notes.txt", text)));
+        assertSame(FileTypes.UNKNOWN, FileTypeDetector.detect(write(dir, "page.html", text)));
+        assertSame(FileTypes.UNKNOWN, FileTypeDetector.detect(write(dir, "blob", new byte[]{1, 2, 3, 0, 5})));
+        // 以“BM”开头的文本不是位图
+        assertSame(FileTypes.TEXT, FileTypeDetector.detect(write(dir, "BMNOTES", ascii("BM is not a bitmap"))));
+        assertSame(FileTypes.BMP, FileTypeDetector.detect(write(dir, "pic", ascii("BM6\0\0\0\0\0\0\0" + "6\0\0\0"))));
+        // 空文件只能看扩展名
+        assertSame(FileTypes.TEXT, FileTypeDetector.detect(write(dir, "empty.txt", new byte[0])));
+        assertSame(FileTypes.UNKNOWN, FileTypeDetector.detect(write(dir, "empty", new byte[0])));
+    }
+
+    @Test
+    public void cacheKeyedOnSizeAndMtime() throws Exception {
+        File dir = tmp.newFolder();
+        File file = write(dir, "image", PNG);
+        file.setLastModified(1_000_000_000_000L);
+        assertSame(FileTypes.PNG, FileTypeDetector.detect(file));
+
+        // 内容变了但大小和 mtime 都没变：命中缓存，不再读文件
+        overwrite(file, new byte[]{'P', 'K', 3, 4, 0, 0, 0, 0, 0, 0, 0, 0});
+        file.setLastModified(1_000_000_000_000L);
+        assertSame(FileTypes.PNG, FileTypeDetector.detect(file));
+
+        file.setLastModified(1_000_000_002_000L);
+        assertSame(FileTypes.ZIP, FileTypeDetector.detect(file));
+
+        assertSame(FileTypes.UNKNOWN, FileTypeDetector.detect(new File(dir, "missing.png")));
+        assertSame(FileTypes.UNKNOWN, FileTypeDetector.detect(dir));
+    }
+
+    @Test
+    public void batchDetectionSkipsDirectoriesAndDeliversAll() throws Exception {
+        File dir = tmp.newFolder();
+        List<FileEntry> entries = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            String name = "f" + i + (i % 2 == 0 ? ".bin" : "");
+            write(dir, name, i % 3 == 0 ? PNG : ascii("plain text " + i));
+            entries.add(FileEntry.stat(dir, name));
+        }
+        new File(dir, "sub").mkdir();
+        entries.add(FileEntry.stat(dir, "sub"));
+
+        Map<String, FileTypes.Type> results = new HashMap<>();
+        FileTypeDetector detector = new FileTypeDetector(Runnable::run);
+        try {
+            for (int round = 0; round < 2; round++) {
+                results.clear();
+                CountDownLatch done = new CountDownLatch(1);
+                detector.detectAll(entries, types -> {
+                    synchronized (results) {
+                        results.putAll(types);
+                        if (results.size() == 300) done.countDown();
+                    }
+                });
+                assertTrue(done.await(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            detector.shutdown();
+        }
+
+        assertFalse(results.containsKey("sub"));
+        for (int i = 0; i < 300; i++) {
+            String name = "f" + i + (i % 2 == 0 ? ".bin" : "");
+            FileTypes.Type expected = i % 3 == 0 ? FileTypes.PNG
+                    : i % 2 == 0 ? FileTypes.UNKNOWN : FileTypes.TEXT;
+            assertSame(name, expected, results.get(name));
+        }
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private static File write(File dir, String name, byte[] content) throws IOException {
+        File file = new File(dir, name);
+        overwrite(file, content);
+        return file;
+    }
+
+    private static void overwrite(File file, byte[] content) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(content);
+        }
+    }
+}
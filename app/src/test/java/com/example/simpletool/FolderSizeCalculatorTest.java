@@ -0,0 +1,158 @@
+package com.example.simpletool;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class FolderSizeCalculatorTest {
+
+    private static final long OLD_MTIME = 1_600_000_000_000L;
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void sumsNestedFilesAndReusesUnchangedDirectories() throws Exception {
+        File a = tmp.newFolder("a");
+        File b = tmp.newFolder("b");
+        file(a, "one", 1000);
+        file(new File(a, "x/y/z"), "deep", 4096);
+        for (int i = 0; i < 20; i++) {
+            file(new File(b, "sub" + i), "f", 100);
+        }
+        ageDirectories(tmp.getRoot());
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        FolderSizeCalculator calculator = new FolderSizeCalculator(pool, Runnable::run);
+        try {
+            Map<String, Long> totals = run(calculator, a, b);
+            assertEquals(Long.valueOf(5096), totals.get(a.getPath()));
+            assertEquals(Long.valueOf(2000), totals.get(b.getPath()));
+            assertEquals(5096, calculator.getLastKnownSize(a.getPath()));
+            // 子目录的小计也会记下
+            assertEquals(4096, calculator.getLastKnownSize(new File(a, "x").getPath()));
+            int listed = calculator.getListedDirCount();
+            assertEquals(2 + 3 + 20, listed);
+
+            // 目录未变化，第二次不再列出任何目录
+            totals = run(calculator, a, b);
+            assertEquals(Long.valueOf(5096), totals.get(a.getPath()));
+            assertEquals(listed, calculator.getListedDirCount());
+
+            // 新增文件改变了所在目录的 mtime，只重新列出这一个目录
+            file(new File(b, "sub3"), "g", 50);
+            ageDirectories(new File(b, "sub3"));
+            new File(b, "sub3").setLastModified(OLD_MTIME + 5000);
+            totals = run(calculator, a, b);
+            assertEquals(Long.valueOf(2050), totals.get(b.getPath()));
+            assertEquals(listed + 1, calculator.getListedDirCount());
+        } finally {
+            calculator.shutdown();
+        }
+    }
+
+    @Test
+    public void cachedRecordsStayWithinLimit() throws Exception {
+        File b = tmp.newFolder("b");
+        for (int i = 0; i < 40; i++) {
+            file(new File(b, "sub" + i), "f", 100);
+        }
+        ageDirectories(tmp.getRoot());
+
+        FolderSizeCalculator calculator = new FolderSizeCalculator(new ForkJoinPool(4), Runnable::run, 10);
+        try {
+            assertEquals(Long.valueOf(4000), run(calculator, b).get(b.getPath()));
+            assertEquals(10, calculator.getRecordCount());
+            // 顶层的完整大小最后写入，不会被淘汰
+            assertEquals(4000, calculator.getLastKnownSize(b.getPath()));
+            // 淘汰后重新列出，结果不变
+            assertEquals(Long.valueOf(4000), run(calculator, b).get(b.getPath()));
+        } finally {
+            calculator.shutdown();
+        }
+    }
+
+    @Test
+    public void cancelSuppressesPendingCallbacks() throws Exception {
+        File a = tmp.newFolder("a");
+        file(a, "one", 10);
+
+        // 回调先排队，取消之后再执行
+        BlockingQueue<Runnable> posted = new LinkedBlockingQueue<>();
+        FolderSizeCalculator calculator = new FolderSizeCalculator(new ForkJoinPool(1), posted::add);
+        try {
+            Map<String, Long> totals = new ConcurrentHashMap<>();
+            calculator.computeAll(Arrays.asList(a.getPath()), new FolderSizeCalculator.Listener() {
+                @Override
+                public void onProgress(String path, long bytes) {
+                }
+
+                @Override
+                public void onComplete(String path, long bytes) {
+                    totals.put(path, bytes);
+                }
+            });
+            Runnable completion = posted.poll(10, TimeUnit.SECONDS);
+            assertNotNull(completion);
+            calculator.cancel();
+            completion.run();
+            assertTrue(totals.isEmpty());
+        } finally {
+            calculator.shutdown();
+        }
+    }
+
+    private static Map<String, Long> run(FolderSizeCalculator calculator, File... dirs)
+            throws InterruptedException {
+        Map<String, Long> totals = new ConcurrentHashMap<>();
+        CountDownLatch done = new CountDownLatch(dirs.length);
+        String[] paths = new String[dirs.length];
+        for (int i = 0; i < dirs.length; i++) {
+            paths[i] = dirs[i].getPath();
+        }
+        calculator.computeAll(Arrays.asList(paths), new FolderSizeCalculator.Listener() {
+            @Override
+            public void onProgress(String path, long bytes) {
+                assertFalse(totals.containsKey(path));
+            }
+
+            @Override
+            public void onComplete(String path, long bytes) {
+                totals.put(path, bytes);
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        return totals;
+    }
+
+    private static void file(File dir, String name, long length) throws Exception {
+        assertTrue(dir.isDirectory() || dir.mkdirs());
+        try (RandomAccessFile raf = new RandomAccessFile(new File(dir, name), "rw")) {
+            raf.setLength(length);
+        }
+    }
+
+    private static void ageDirectories(File dir) {
+        File[] children = dir.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                if (child.isDirectory()) ageDirectories(child);
+            }
+        }
+        dir.setLastModified(OLD_MTIME);
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.simpletool;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class IncrementalPaginatorTest {
+
+    // 每页固定字数，代替 StaticLayout
+    private static final class FixedBreaker implements IncrementalPaginator.PageBreaker {
+        final int charsPerPage;
+        final List<Integer> lengths = new ArrayList<>();
+
+        FixedBreaker(int charsPerPage) {
+            this.charsPerPage = charsPerPage;
+        }
+
+        @Override
+        public synchronized int[] pageStarts(CharSequence text) {
+            lengths.add(text.length());
+            int[] starts = new int[(text.length() + charsPerPage - 1) / charsPerPage];
+            for (int i = 0; i < starts.length; i++) {
+                starts[i] = i * charsPerPage;
+            }
+            return starts;
+        }
+    }
+
+    private static final class Recorder implements IncrementalPaginator.Callback {
+        final List<Integer> order = new ArrayList<>();
+        // 按投递顺序拼出的页起点，before 的章节插在开头
+        final List<Integer> pages = new ArrayList<>();
+        final CountDownLatch done = new CountDownLatch(1);
+
+        @Override
+        public synchronized void onChapter(int chapterIndex, int[] pageStarts, boolean before) {
+            order.add(chapterIndex);
+            List<Integer> starts = new ArrayList<>();
+            for (int start : pageStarts) starts.add(start);
+            pages.addAll(before ? 0 : pages.size(), starts);
+        }
+
+        @Override
+        public void onComplete() {
+            done.countDown();
+        }
+    }
+
+    @Test
+    public void startsAtAnchorAndGrowsOutward() throws Exception {
+        List<ChapterParser.Chapter> chapters = chapters(5, 250);
+        IncrementalPaginator paginator = new IncrementalPaginator(Runnable::run);
+        Recorder recorder = new Recorder();
+        FixedBreaker breaker = new FixedBreaker(100);
+
+        paginator.start(chapters, text(chapters), breaker, null,
+                IncrementalPaginator.chapterAt(chapters, 620), recorder);
+        assertTrue(recorder.done.await(5, TimeUnit.SECONDS));
+        paginator.shutdown();
+
+        // 先排所在章节，再交替排后一章和前一章
+        assertEquals(Arrays.asList(2, 3, 1, 4, 0), recorder.order);
+        // 拼起来的页连续且有序，每章从新的一页开始
+        List<Integer> expected = new ArrayList<>();
+        for (ChapterParser.Chapter chapter : chapters) {
+            for (int start = chapter.start; start < chapter.end; start += 100) expected.add(start);
+        }
+        assertEquals(expected, recorder.pages);
+        // 每次只取一章的文字
+        for (int length : breaker.lengths) assertEquals(250, length);
+    }
+
+    @Test
+    public void restartDropsResultsOfPreviousRun() throws Exception {
+        List<ChapterParser.Chapter> chapters = chapters(200, 1000);
+        CountDownLatch release = new CountDownLatch(1);
+        IncrementalPaginator paginator = new IncrementalPaginator(Runnable::run);
+        Recorder stale = new Recorder();
+        // 第一次分页卡在第一章，第二次开始后才放行
+        IncrementalPaginator.PageBreaker blocking = text -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new int[]{0};
+        };
+        paginator.start(chapters, text(chapters), blocking, null, 0, stale);
+
+        Recorder fresh = new Recorder();
+        paginator.start(chapters, text(chapters), new FixedBreaker(1000), null, 199, fresh);
+        release.countDown();
+        assertTrue(fresh.done.await(5, TimeUnit.SECONDS));
+        paginator.shutdown();
+
+        assertTrue(stale.order.isEmpty());
+        assertEquals(1, stale.done.getCount());
+        assertEquals(200, fresh.order.size());
+        assertEquals(199, (int) fresh.order.get(0));
+        assertEquals(198, (int) fresh.order.get(1));
+    }
+
+    @Test
+    public void chapterAtFindsContainingChapter() {
+        List<ChapterParser.Chapter> chapters = chapters(3, 100);
+        assertEquals(0, IncrementalPaginator.chapterAt(chapters, 0));
+        assertEquals(0, IncrementalPaginator.chapterAt(chapters, 99));
+        assertEquals(1, IncrementalPaginator.chapterAt(chapters, 100));
+        assertEquals(2, IncrementalPaginator.chapterAt(chapters, 10_000));
+        assertEquals(0, IncrementalPaginator.chapterAt(new ArrayList<>(), 5));
+    }
+
+    private static CharSequence text(List<ChapterParser.Chapter> chapters) {
+        return new String(new char[chapters.get(chapters.size() - 1).end]);
+    }
+
+    private static List<ChapterParser.Chapter> chapters(int count, int length) {
+        List<ChapterParser.Chapter> chapters = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            chapters.add(new ChapterParser.Chapter("第" + (i + 1) + "章", i * length, (i + 1) * length));
+        }
+        return chapters;
+    }
+}
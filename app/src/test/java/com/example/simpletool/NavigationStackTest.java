@@ -0,0 +1,85 @@
+package com.example.simpletool;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class NavigationStackTest {
+
+    private static final String ROOT = "/storage/emulated/0";
+
+    @Test
+    public void popReturnsRetainedListingOfParent() {
+        NavigationStack<String> stack = new NavigationStack<>(Long.MAX_VALUE);
+        CompactEntryList rootEntries = listing(ROOT, 10);
+        CompactEntryList dcimEntries = listing(ROOT + "/DCIM", 20);
+        stack.push(ROOT, rootEntries, "scroll-root");
+        stack.push(ROOT + "/DCIM", dcimEntries, "scroll-dcim");
+        assertEquals(2, stack.depth());
+
+        // 只能按顺序回到栈顶
+        assertNull(stack.pop(ROOT));
+        NavigationStack.Level<String> level = stack.pop(ROOT + "/DCIM");
+        assertSame(dcimEntries, level.getEntries());
+        assertEquals("scroll-dcim", level.viewState);
+        assertSame(rootEntries, stack.pop(ROOT).getEntries());
+        assertEquals(0, stack.getRetainedBytes());
+        assertNull(stack.pop(ROOT));
+    }
+
+    @Test
+    public void jumpKeepsOnlyAncestors() {
+        NavigationStack<String> stack = new NavigationStack<>(Long.MAX_VALUE);
+        stack.push(ROOT, listing(ROOT, 5), null);
+        stack.push(ROOT + "/a", listing(ROOT + "/a", 5), null);
+        stack.push(ROOT + "/a/b", listing(ROOT + "/a/b", 5), null);
+
+        // 从 /a/b/c 跳到 /a/bc：/a/b 不是新目录的祖先，尽管名字是前缀
+        stack.retainAncestorsOf(ROOT + "/a/bc");
+        assertEquals(2, stack.depth());
+        assertNotNull(stack.pop(ROOT + "/a"));
+
+        stack.retainAncestorsOf("/storage/1234-5678/Music");
+        assertEquals(0, stack.depth());
+        assertEquals(0, stack.getRetainedBytes());
+    }
+
+    @Test
+    public void evictsFarthestListingsFirstButKeepsViewState() {
+        long oneListing = listing(ROOT, 1000).estimatedBytes();
+        NavigationStack<String> stack = new NavigationStack<>(oneListing * 2);
+        String path = ROOT;
+        for (int i = 0; i < 4; i++) {
+            stack.push(path, listing(path, 1000), "state" + i);
+            path += "/d" + i;
+        }
+        assertEquals(2, stack.getEvictedCount());
+        assertTrue(stack.getRetainedBytes() <= oneListing * 2);
+
+        // 离得近的两级还在内存里，更远的两级只剩滚动位置
+        assertNotNull(stack.pop(ROOT + "/d0/d1/d2").getEntries());
+        assertNotNull(stack.pop(ROOT + "/d0/d1").getEntries());
+        NavigationStack.Level<String> evicted = stack.pop(ROOT + "/d0");
+        assertNull(evicted.getEntries());
+        assertEquals("state1", evicted.viewState);
+        assertEquals(0, stack.getRetainedBytes());
+    }
+
+    @Test
+    public void ancestorCheckRespectsSeparators() {
+        assertTrue(NavigationStack.isAncestor("/a", "/a/b"));
+        assertTrue(NavigationStack.isAncestor("/", "/a"));
+        assertFalse(NavigationStack.isAncestor("/a", "/a"));
+        assertFalse(NavigationStack.isAncestor("/a", "/ab"));
+        // 压缩包内的虚拟目录也按路径判断
+        assertTrue(NavigationStack.isAncestor("/x/book.zip", "/x/book.zip/chapter1"));
+    }
+
+    private static CompactEntryList listing(String dir, int count) {
+        CompactEntryList list = new CompactEntryList(dir, count);
+        for (int i = 0; i < count; i++) {
+            list.append("file_" + i + ".txt", false, true, i, 0);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,232 @@
+package com.example.simpletool;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.*;
+
+public class NovelDocumentTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void decodesLargeGbkFileBlockByBlock() throws Exception {
+        String text = novel(3000);
+        File file = write(text.replace("\n", "\r\n"), Charset.forName("GBK"), null);
+        assertTrue(file.length() > NovelDocument.BLOCK_BYTES * 3);
+
+        try (NovelDocument document = NovelDocument.open(file.getPath(), Charset.forName("GBK"), tmp.getRoot())) {
+            StringBuilder streamed = new StringBuilder();
+            int[] blocks = {0};
+            document.scan((charStart, chars, length) -> {
+                assertEquals(streamed.length(), charStart);
+                streamed.append(chars, 0, length);
+                blocks[0]++;
+            });
+            assertTrue(document.isComplete());
+            assertTrue(blocks[0] > 3);
+            // \r\n 统一成 \n
+            assertEquals(text, streamed.toString());
+            assertEquals(text.length(), document.length());
+            assertEquals(text, document.text(0, document.length()));
+
+            // 随机取跨块的片段
+            Random random = new Random(1);
+            for (int i = 0; i < 200; i++) {
+                int start = random.nextInt(text.length());
+                int end = start + random.nextInt(Math.min(300_000, text.length() - start));
+                assertEquals(text.substring(start, end), document.text(start, end));
+            }
+
+            // 字节偏移和字符偏移互相对照
+            int previous = 0;
+            for (int offset = 0; offset < text.length(); offset += 10_000) {
+                int byteOffset = document.byteOffsetOf(offset);
+                assertTrue(byteOffset >= previous);
+                assertTrue(document.charOffsetAt(byteOffset) <= offset);
+                previous = byteOffset;
+            }
+            assertEquals(file.length(), document.byteOffsetOf(document.length()));
+        }
+    }
+
+    @Test
+    public void resolvesUtf16ByteOrderFromBom() throws Exception {
+        String text = novel(1500);
+        byte[] body = text.getBytes(StandardCharsets.UTF_16LE);
+        File file = tmp.newFile("utf16.txt");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[]{(byte) 0xFF, (byte) 0xFE});
+            out.write(body);
+        }
+
+        try (NovelDocument document = NovelDocument.open(file.getPath(), StandardCharsets.UTF_16, tmp.getRoot())) {
+            assertEquals(StandardCharsets.UTF_16LE, document.getCharset());
+            document.scan(null);
+            assertEquals(text, document.text(0, document.length()));
+            assertEquals(2, document.byteOffsetOf(0));
+        }
+    }
+
+    @Test
+    public void mapsStoredArchiveEntryInPlace() throws Exception {
+        String text = novel(200);
+        byte[] data = text.getBytes(StandardCharsets.UTF_8);
+        File zip = tmp.newFile("books.zip");
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zip))) {
+            ZipEntry entry = new ZipEntry("书/小说.txt");
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(data.length);
+            CRC32 crc = new CRC32();
+            crc.update(data);
+            entry.setCrc(crc.getValue());
+            out.putNextEntry(entry);
+            out.write(data);
+            out.closeEntry();
+        }
+        File spoolDir = tmp.newFolder("spool");
+
+        try (NovelDocument document = NovelDocument.open(zip.getPath() + "/书/小说.txt", StandardCharsets.UTF_8, spoolDir)) {
+            document.scan(null);
+            assertEquals(text, document.text(0, document.length()));
+            assertEquals(data.length, document.byteLength());
+            assertEquals(0, spoolDir.list().length);
+        }
+    }
+
+    @Test
+    public void inflatesSmallArchiveEntryInMemory() throws Exception {
+        String text = novel(200);
+        File zip = writeZip("小说.txt", text);
+        File spoolDir = tmp.newFolder("spool");
+
+        try (NovelDocument document = NovelDocument.open(zip.getPath() + "/小说.txt", StandardCharsets.UTF_8, spoolDir)) {
+            document.scan(null);
+            assertEquals(text, document.text(0, document.length()));
+            assertEquals(0, spoolDir.list().length);
+        }
+    }
+
+    @Test
+    public void spoolsLargeArchiveEntryAndDeletesItOnClose() throws Exception {
+        String text = novel(12_000);
+        assertTrue(text.getBytes(StandardCharsets.UTF_8).length > NovelDocument.MAX_INFLATED_BYTES);
+        File zip = writeZip("小说.txt", text);
+        File spoolDir = tmp.newFolder("spool");
+
+        NovelDocument document = NovelDocument.open(zip.getPath() + "/小说.txt", StandardCharsets.UTF_8, spoolDir);
+        document.scan(null);
+        assertEquals(text.length(), document.length());
+        assertEquals(text.substring(1_000_000, 1_001_000), document.text(1_000_000, 1_001_000));
+        assertEquals(1, spoolDir.list().length);
+        document.close();
+        assertEquals(0, spoolDir.list().length);
+    }
+
+    @Test
+    public void sweepsStaleSpoolFiles() throws Exception {
+        File spoolDir = tmp.newFolder("spool");
+        File stale = File.createTempFile("novel", ".txt", spoolDir);
+        File other = new File(spoolDir, "novel_notes.md");
+        assertTrue(other.createNewFile());
+
+        NovelDocument.sweepSpool(spoolDir);
+        assertFalse(stale.exists());
+        assertTrue(other.exists());
+    }
+
+    @Test
+    public void findsChaptersWhileStreaming() throws Exception {
+        String preface = "这是一本书的简介。\n";
+        String chapter1 = "第一章 开端\n" + paragraph(300) + "\n";
+        // 紧跟在标题后面的目录行，不足 100 字，保留较长的标题
+        String chapter2 = "第二章 风起\n第二章 风起云涌之时\n" + paragraph(5000) + "\n";
+        String epilogue = "终章 尾声\n" + paragraph(200) + "\n  \n";
+        String text = preface + chapter1 + chapter2 + epilogue;
+        File file = write(text, StandardCharsets.UTF_8, null);
+
+        try (NovelDocument document = NovelDocument.open(file.getPath(), StandardCharsets.UTF_8, tmp.getRoot())) {
+            ChapterParser parser = new ChapterParser();
+            document.scan(parser);
+            List<ChapterParser.Chapter> chapters = parser.finish(document.length());
+
+            assertEquals(4, chapters.size());
+            assertChapter(chapters.get(0), "前言", 0, text.indexOf("第一章"));
+            // 被舍弃的短标题归入上一章
+            int chapter2Start = text.indexOf("第二章 风起云涌");
+            assertChapter(chapters.get(1), "第一章 开端", preface.length(), chapter2Start - 1);
+            assertChapter(chapters.get(2), "第二章 风起云涌之时", chapter2Start,
+                    preface.length() + chapter1.length() + chapter2.trim().length());
+            int epilogueStart = text.indexOf("终章");
+            assertChapter(chapters.get(3), "终章 尾声", epilogueStart, text.trim().length());
+        }
+    }
+
+    @Test
+    public void wholeBookIsOneChapterWithoutTitles() throws Exception {
+        String text = paragraph(1000);
+        File file = write(text, StandardCharsets.UTF_8, null);
+        try (NovelDocument document = NovelDocument.open(file.getPath(), StandardCharsets.UTF_8, tmp.getRoot())) {
+            ChapterParser parser = new ChapterParser();
+            document.scan(parser);
+            List<ChapterParser.Chapter> chapters = parser.finish(document.length());
+            assertEquals(1, chapters.size());
+            assertChapter(chapters.get(0), "全文", 0, text.length());
+        }
+    }
+
+    private static void assertChapter(ChapterParser.Chapter chapter, String title, int start, int end) {
+        assertEquals(title, chapter.title);
+        assertEquals(start, chapter.start);
+        assertEquals(end, chapter.end);
+    }
+
+    private File write(String text, Charset charset, String name) throws IOException {
+        File file = name == null ? tmp.newFile() : tmp.newFile(name);
+        Files.write(file.toPath(), text.getBytes(charset));
+        return file;
+    }
+
+    private File writeZip(String name, String text) throws IOException {
+        File zip = tmp.newFile("books.zip");
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zip))) {
+            out.putNextEntry(new ZipEntry(name));
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+        }
+        return zip;
+    }
+
+    private static String novel(int chapters) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 1; i <= chapters; i++) {
+            sb.append("第").append(i).append("章 标题").append(i).append('\n');
+            sb.append(paragraph(100 + i % 50)).append("\n\n");
+        }
+        return sb.toString();
+    }
+
+    private static String paragraph(int length) {
+        StringBuilder sb = new StringBuilder();
+        String words = "天地玄黄宇宙洪荒日月盈昃辰宿列张，寒来暑往秋收冬藏。abc 123";
+        for (int i = 0; i < length; i++) {
+            sb.append(words.charAt(i % words.length()));
+            if (i % 80 == 79) sb.append('\n');
+        }
+        return sb.toString();
+    }
+}
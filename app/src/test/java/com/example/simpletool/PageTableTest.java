@@ -0,0 +1,168 @@
+package com.example.simpletool;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+public class PageTableTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private static final int CHARS_PER_PAGE = 500;
+
+    // 原来的页：文字是全文的 substring
+    private static final class SubstringPage {
+        final String text;
+        final int start;
+        final int end;
+
+        SubstringPage(String text, int start, int end) {
+            this.text = text;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    @Test
+    public void prependAndAppendChapters() {
+        String text = "0123456789abcdefghij";
+        PageTable pages = new PageTable(text);
+        assertEquals(0, pages.find(5));
+        assertFalse(pages.contains(0));
+
+        pages.append(new int[]{10, 13}, 15);
+        pages.prepend(new int[]{0, 4}, 8);
+        pages.append(new int[]{16}, 20);
+
+        assertEquals(5, pages.size());
+        assertEquals("0123", pages.text(0).toString());
+        assertEquals("4567", pages.text(1).toString());
+        assertEquals("abc", pages.text(2).toString());
+        assertEquals("de", pages.text(3).toString());
+        assertEquals("ghij", pages.text(4).toString());
+
+        assertEquals(1, pages.find(7));
+        // 章节之间的空白算在前一页
+        assertEquals(1, pages.find(9));
+        assertEquals(3, pages.find(15));
+        assertEquals(4, pages.find(19));
+        assertTrue(pages.contains(0));
+        assertTrue(pages.contains(19));
+        assertFalse(pages.contains(20));
+    }
+
+    @Test
+    public void manyPrependsKeepOrder() {
+        PageTable pages = new PageTable(new String(new char[100_000]));
+        for (int chapter = 999; chapter >= 0; chapter--) {
+            pages.prepend(new int[]{chapter * 100, chapter * 100 + 50}, chapter * 100 + 100);
+        }
+        assertEquals(2000, pages.size());
+        for (int i = 0; i < pages.size(); i++) {
+            assertEquals(i * 50, pages.start(i));
+            assertEquals(i * 50 + 50, pages.end(i));
+            assertEquals(i, pages.find(i * 50 + 10));
+        }
+    }
+
+    /**
+     * 同一本书以 substring 页和偏移页保存时的堆占用。
+     */
+    @Test
+    public void benchmarkHeapForLargeBook() throws Exception {
+        File book = writeBook(4_000_000);
+
+        // 原来的做法：全文读成字符串，每页再复制一份
+        long substringBytes = retainedBytes(() -> {
+            String content = readAll(book);
+            List<SubstringPage> pages = new ArrayList<>();
+            for (int start = 0; start < content.length(); start += CHARS_PER_PAGE) {
+                int end = Math.min(content.length(), start + CHARS_PER_PAGE);
+                pages.add(new SubstringPage(content.substring(start, end), start, end));
+            }
+            return new Object[]{content, pages};
+        });
+
+        // 现在的做法：映射文件 + 块索引 + 偏移数组，显示一页时才解码附近的块
+        long offsetBytes = retainedBytes(() -> {
+            try {
+                NovelDocument document = NovelDocument.open(book.getPath(), StandardCharsets.UTF_8, tmp.getRoot());
+                document.scan(null);
+                PageTable pages = new PageTable(document);
+                int[] starts = new int[(document.length() + CHARS_PER_PAGE - 1) / CHARS_PER_PAGE];
+                for (int i = 0; i < starts.length; i++) starts[i] = i * CHARS_PER_PAGE;
+                pages.append(starts, document.length());
+                assertEquals(CHARS_PER_PAGE, pages.text(pages.size() / 2).length());
+                return pages;
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+        });
+
+        assertTrue(offsetBytes < substringBytes / 4);
+    }
+
+    private File writeBook(int chars) throws IOException {
+        File file = tmp.newFile("book.txt");
+        String line = "天地玄黄，宇宙洪荒。日月盈昃，辰宿列张。寒来暑往，秋收冬藏。\n";
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            for (int written = 0; written < chars; written += line.length()) {
+                out.write(line);
+            }
+        }
+        return file;
+    }
+
+    private static String readAll(File file) {
+        StringBuilder sb = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                sb.append(line).append("\n");
+            }
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return sb.toString();
+    }
+
+    // 构造出的对象在 GC 之后仍占用的堆大小
+    private static long retainedBytes(Supplier<Object> factory) {
+        long before = usedHeap();
+        Object retained = factory.get();
+        long after = usedHeap();
+        assertNotNull(retained);
+        return after - before;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.simpletool;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class PaginationCacheTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private static final PaginationCache.LayoutKey KEY = new PaginationCache.LayoutKey(42f, 1000, 1800, 1.2f);
+
+    // 按固定行宽折行、固定行数分页，逐字遍历，耗时与真正排版一样随字数增长
+    private static final class LineBreaker implements IncrementalPaginator.PageBreaker {
+        final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public int[] pageStarts(CharSequence text) {
+            calls.incrementAndGet();
+            List<Integer> starts = new ArrayList<>();
+            int lines = 0;
+            int column = 0;
+            starts.add(0);
+            for (int i = 0; i < text.length(); i++) {
+                boolean newline = text.charAt(i) == '\n';
+                if (newline || ++column == 24) {
+                    column = 0;
+                    if (++lines == 30 && i + 1 < text.length()) {
+                        starts.add(i + 1);
+                        lines = 0;
+                    }
+                }
+            }
+            int[] result = new int[starts.size()];
+            for (int i = 0; i < result.length; i++) result[i] = starts.get(i);
+            return result;
+        }
+    }
+
+    // 一次打开：读缓存或扫描，再从头分完全书，返回所有页起点
+    private static final class OpenResult {
+        List<ChapterParser.Chapter> chapters;
+        final List<Integer> pages = new ArrayList<>();
+        boolean indexFromCache;
+    }
+
+    @Test
+    public void warmOpenOf20MbBookSkipsLayout() throws Exception {
+        File book = writeBook(20 * 1024 * 1024, StandardCharsets.UTF_8);
+        File cacheDir = tmp.newFolder("pagination");
+
+        LineBreaker coldBreaker = new LineBreaker();
+        OpenResult cold = open(book, cacheDir, StandardCharsets.UTF_8, KEY, coldBreaker);
+        assertFalse(cold.indexFromCache);
+        assertEquals(cold.chapters.size(), coldBreaker.calls.get());
+
+        LineBreaker warmBreaker = new LineBreaker();
+        OpenResult warm = open(book, cacheDir, StandardCharsets.UTF_8, KEY, warmBreaker);
+        assertTrue(warm.indexFromCache);
+        // 同样的参数不再排版，结果与冷启动完全一致
+        assertEquals(0, warmBreaker.calls.get());
+        assertEquals(cold.pages, warm.pages);
+        assertEquals(cold.chapters.size(), warm.chapters.size());
+    }
+
+    @Test
+    public void otherLayoutReusesIndexButLaysOutAgain() throws Exception {
+        File book = writeBook(512 * 1024, StandardCharsets.UTF_8);
+        File cacheDir = tmp.newFolder("pagination");
+        open(book, cacheDir, StandardCharsets.UTF_8, KEY, new LineBreaker());
+
+        LineBreaker breaker = new LineBreaker();
+        PaginationCache.LayoutKey larger = new PaginationCache.LayoutKey(48f, 1000, 1800, 1.2f);
+        OpenResult result = open(book, cacheDir, StandardCharsets.UTF_8, larger, breaker);
+        assertTrue(result.indexFromCache);
+        assertEquals(result.chapters.size(), breaker.calls.get());
+
+        // 两组参数都保留着，切回原来的字号不再排版
+        LineBreaker again = new LineBreaker();
+        open(book, cacheDir, StandardCharsets.UTF_8, KEY, again);
+        assertEquals(0, again.calls.get());
+    }
+
+    @Test
+    public void changedFileOrEncodingInvalidatesCache() throws Exception {
+        File book = writeBook(256 * 1024, StandardCharsets.UTF_8);
+        File cacheDir = tmp.newFolder("pagination");
+        open(book, cacheDir, StandardCharsets.UTF_8, KEY, new LineBreaker());
+
+        // 同一个文件换了字符集，字符偏移不同，不能用旧的索引
+        assertFalse(open(book, cacheDir, Charset.forName("GBK"), KEY, new LineBreaker()).indexFromCache);
+
+        writeBook(book, 300 * 1024, StandardCharsets.UTF_8);
+        assertTrue(book.setLastModified(book.lastModified() + 10_000));
+        LineBreaker breaker = new LineBreaker();
+        OpenResult result = open(book, cacheDir, StandardCharsets.UTF_8, KEY, breaker);
+        assertFalse(result.indexFromCache);
+        assertEquals(result.chapters.size(), breaker.calls.get());
+    }
+
+    private OpenResult open(File book, File cacheDir, Charset charset, PaginationCache.LayoutKey key,
+                            IncrementalPaginator.PageBreaker breaker) throws Exception {
+        OpenResult result = new OpenResult();
+        PaginationCache cache = PaginationCache.open(cacheDir, book.getPath());
+        try (NovelDocument document = NovelDocument.open(book.getPath(), charset, tmp.getRoot())) {
+            List<ChapterParser.Chapter> chapters = cache.restore(document);
+            result.indexFromCache = chapters != null;
+            if (chapters == null) {
+                ChapterParser parser = new ChapterParser();
+                document.scan(parser);
+                chapters = parser.finish(document.length());
+                cache.putIndex(document, chapters);
+            }
+            result.chapters = chapters;
+
+            IncrementalPaginator paginator = new IncrementalPaginator(Runnable::run);
+            CountDownLatch done = new CountDownLatch(1);
+            paginator.start(chapters, document, breaker, cache.pages(key), 0, new IncrementalPaginator.Callback() {
+                @Override
+                public void onChapter(int chapterIndex, int[] pageStarts, boolean before) {
+                    for (int start : pageStarts) result.pages.add(start);
+                }
+
+                @Override
+                public void onComplete() {
+                    done.countDown();
+                }
+            });
+            assertTrue(done.await(60, TimeUnit.SECONDS));
+            paginator.shutdown();
+            cache.save();
+        }
+        return result;
+    }
+
+    private File writeBook(int bytes, Charset charset) throws IOException {
+        return writeBook(tmp.newFile(), bytes, charset);
+    }
+
+    private static File writeBook(File file, int bytes, Charset charset) throws IOException {
+        String line = "天地玄黄，宇宙洪荒。日月盈昃，辰宿列张。寒来暑往，秋收冬藏。闰余成岁，律吕调阳。\n";
+        int lineBytes = line.getBytes(charset).length;
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), charset))) {
+            int written = 0;
+            int chapter = 0;
+            while (written < bytes) {
+                String title = "第" + (++chapter) + "章 标题\n";
+                out.write(title);
+                written += title.getBytes(charset).length;
+                for (int i = 0; i < 200 && written < bytes; i++) {
+                    out.write(line);
+                    written += lineBytes;
+                }
+            }
+        }
+        return file;
+    }
+}
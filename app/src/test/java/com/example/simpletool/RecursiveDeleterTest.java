@@ -0,0 +1,142 @@
+package com.example.simpletool;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class RecursiveDeleterTest {
+
+    private static final int FILE_COUNT = 50_000;
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void deletesLargeTreeWithBatchedCallbacks() throws Exception {
+        File cache = tmp.newFolder("cache");
+        for (int i = 0; i < FILE_COUNT; i++) {
+            File dir = new File(cache, "d" + (i % 50) + "/e" + (i % 10));
+            assertTrue(dir.isDirectory() || dir.mkdirs());
+            assertTrue(new File(dir, "f" + i).createNewFile());
+        }
+        File single = tmp.newFile("single.txt");
+        File keep = tmp.newFile("keep.txt");
+
+        Recorder recorder = new Recorder();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        RecursiveDeleter deleter = new RecursiveDeleter(pool, Runnable::run);
+        try {
+            deleter.delete(Arrays.asList(cache, single), recorder);
+            recorder.await();
+
+            assertFalse(cache.exists());
+            assertFalse(single.exists());
+            assertTrue(keep.exists());
+            // 文件 + 二级目录 + 一级目录 + 根目录 + 单个文件
+            assertEquals(FILE_COUNT + 50 + 50 + 1 + 1, recorder.deleted);
+            assertEquals(0, recorder.failed);
+            assertFalse(recorder.cancelled);
+            assertEquals(2, recorder.removed.size());
+            assertTrue(recorder.removed.contains(cache.getPath()));
+            // 界面刷新次数远小于删除的条目数
+            assertTrue(recorder.progressCalls.get() < 100);
+        } finally {
+            deleter.shutdown();
+        }
+    }
+
+    @Test
+    public void symlinkedDirectoryIsUnlinkedNotEmptied() throws Exception {
+        File outside = tmp.newFolder("outside");
+        File precious = new File(outside, "precious.txt");
+        assertTrue(precious.createNewFile());
+        File victim = tmp.newFolder("victim");
+        Files.createSymbolicLink(new File(victim, "link").toPath(), outside.toPath());
+
+        Recorder recorder = new Recorder();
+        RecursiveDeleter deleter = new RecursiveDeleter(new ForkJoinPool(2), Runnable::run);
+        try {
+            deleter.delete(Arrays.asList(victim), recorder);
+            recorder.await();
+            assertFalse(victim.exists());
+            assertTrue(precious.exists());
+        } finally {
+            deleter.shutdown();
+        }
+    }
+
+    @Test
+    public void cancelledBatchDeletesNothingFurther() throws Exception {
+        File cache = tmp.newFolder("cache");
+        for (int i = 0; i < 100; i++) {
+            assertTrue(new File(cache, "f" + i).createNewFile());
+        }
+
+        // 先占住唯一的工作线程，保证取消发生在删除开始之前
+        ForkJoinPool pool = new ForkJoinPool(1);
+        CountDownLatch release = new CountDownLatch(1);
+        pool.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException ignored) {
+            }
+        });
+
+        Recorder recorder = new Recorder();
+        RecursiveDeleter deleter = new RecursiveDeleter(pool, Runnable::run);
+        try {
+            deleter.delete(Arrays.asList(cache), recorder);
+            deleter.cancel();
+            release.countDown();
+            recorder.await();
+            assertTrue(cache.exists());
+            assertEquals(100, cache.list().length);
+            assertTrue(recorder.removed.isEmpty());
+            assertEquals(0, recorder.deleted);
+            assertTrue(recorder.cancelled);
+        } finally {
+            deleter.shutdown();
+        }
+    }
+
+    private static class Recorder implements RecursiveDeleter.Listener {
+        final CountDownLatch done = new CountDownLatch(1);
+        final AtomicInteger progressCalls = new AtomicInteger();
+        final List<String> removed = new ArrayList<>();
+        volatile int deleted;
+        volatile int failed;
+        volatile boolean cancelled;
+
+        @Override
+        public synchronized void onProgress(int deletedCount, List<String> removedPaths) {
+            progressCalls.incrementAndGet();
+            removed.addAll(removedPaths);
+        }
+
+        @Override
+        public synchronized void onComplete(int deletedCount, int failedCount, boolean cancelled,
+                                            List<String> removedPaths) {
+            deleted = deletedCount;
+            failed = failedCount;
+            this.cancelled = cancelled;
+            removed.addAll(removedPaths);
+            done.countDown();
+        }
+
+        void await() throws InterruptedException {
+            assertTrue(done.await(2, TimeUnit.MINUTES));
+        }
+    }
+}
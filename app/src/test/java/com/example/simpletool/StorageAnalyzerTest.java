@@ -0,0 +1,117 @@
+package com.example.simpletool;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class StorageAnalyzerTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void findsLargestFilesAndAggregatesExtensions() throws Exception {
+        File root = tmp.newFolder("root");
+        Random random = new Random(7);
+        String[] extensions = {"jpg", "JPG", "png", "txt", "mp4", ""};
+        List<Long> sizes = new ArrayList<>();
+        Map<String, Long> bytesByExt = new HashMap<>();
+        for (int i = 0; i < 2000; i++) {
+            File dir = new File(root, "d" + (i % 37) + "/e" + (i % 5));
+            String ext = extensions[i % extensions.length];
+            long size = random.nextInt(1 << 20);
+            file(dir, "f" + i + (ext.isEmpty() ? "" : "." + ext), size);
+            sizes.add(size);
+            bytesByExt.merge(ext.toLowerCase(), size, Long::sum);
+        }
+
+        StorageAnalyzer.Report report = new StorageAnalyzer(50, 64).analyze(root, null);
+        assertNotNull(report);
+        assertEquals(2000, report.fileCount);
+        assertEquals(1 + 37 + 37 * 5, report.dirCount);
+
+        Collections.sort(sizes, Collections.reverseOrder());
+        assertEquals(50, report.largestFiles.size());
+        for (int i = 0; i < 50; i++) {
+            StorageAnalyzer.LargeFile largeFile = report.largestFiles.get(i);
+            assertEquals((long) sizes.get(i), largeFile.size);
+            assertEquals(largeFile.size, new File(largeFile.path).length());
+        }
+
+        // 扩展名不区分大小写合并，图片按 IMAGE_EXTENSIONS 归类
+        assertEquals(5, report.extensions.size());
+        long imageBytes = 0;
+        for (StorageAnalyzer.ExtensionStat stat : report.extensions) {
+            assertEquals((long) bytesByExt.get(stat.extension), stat.bytes);
+            assertEquals(stat.extension.equals("jpg") || stat.extension.equals("png"), stat.image);
+            if (stat.image) imageBytes += stat.bytes;
+        }
+        assertEquals(imageBytes, report.imageBytes);
+        assertEquals(2000 / 6 * 3 + 2, report.imageCount);
+    }
+
+    @Test
+    public void extensionTableOverflowGoesToOther() {
+        StorageAnalyzer.ExtensionCounters counters = new StorageAnalyzer.ExtensionCounters(4);
+        for (int i = 0; i < 10; i++) {
+            counters.add("file.e" + i, 10);
+            counters.add("again.E" + i, 1);
+        }
+        // 过长的扩展名按无扩展名统计
+        counters.add("archive.verylongextension", 5);
+
+        List<StorageAnalyzer.ExtensionStat> stats = counters.toList();
+        assertEquals(5, stats.size());
+        long total = 0;
+        StorageAnalyzer.ExtensionStat other = null;
+        for (StorageAnalyzer.ExtensionStat stat : stats) {
+            total += stat.bytes;
+            if (stat.extension == null) other = stat;
+        }
+        assertEquals(10 * 11 + 5, total);
+        assertNotNull(other);
+        assertEquals(13, other.count);
+    }
+
+    @Test
+    public void heapKeepsOnlyCapacity() {
+        StorageAnalyzer.TopFiles top = new StorageAnalyzer.TopFiles(3);
+        long[] sizes = {5, 1, 9, 3, 7, 9, 2};
+        for (int i = 0; i < sizes.length; i++) {
+            top.offer(sizes[i], "/d", "f" + i);
+        }
+        assertEquals(3, top.size());
+        List<StorageAnalyzer.LargeFile> list = top.toList();
+        assertEquals(9, list.get(0).size);
+        assertEquals(9, list.get(1).size);
+        assertEquals(7, list.get(2).size);
+        assertEquals("/d/f4", list.get(2).path);
+    }
+
+    @Test
+    public void cancelledScanReturnsNull() throws Exception {
+        File root = tmp.newFolder("root");
+        file(root, "a.txt", 1);
+        StorageAnalyzer analyzer = new StorageAnalyzer();
+        analyzer.cancel();
+        assertNull(analyzer.analyze(root, null));
+    }
+
+    private static void file(File dir, String name, long length) throws Exception {
+        assertTrue(dir.isDirectory() || dir.mkdirs());
+        try (RandomAccessFile raf = new RandomAccessFile(new File(dir, name), "rw")) {
+            raf.setLength(length);
+        }
+    }
+}
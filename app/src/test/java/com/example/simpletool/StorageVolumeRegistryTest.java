@@ -0,0 +1,133 @@
+package com.example.simpletool;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class StorageVolumeRegistryTest {
+
+    private static final File INTERNAL = new File("/storage/emulated/0");
+    private static final File SD_CARD = new File("/storage/1234-5678");
+
+    private final List<StorageVolumeRegistry.Volume> mounted = Collections.synchronizedList(new ArrayList<>());
+    private final Map<File, long[]> usage = Collections.synchronizedMap(new HashMap<>());
+    private final AtomicInteger usageReads = new AtomicInteger();
+    private final BlockingQueue<List<StorageVolumeRegistry.Volume>> notifications = new LinkedBlockingQueue<>();
+    private StorageVolumeRegistry registry;
+
+    @After
+    public void tearDown() {
+        if (registry != null) registry.shutdown();
+    }
+
+    @Test
+    public void showsInitialVolumesBeforeFirstEnumeration() {
+        registry = create(60_000);
+        assertEquals(1, registry.getVolumes().size());
+        assertEquals(INTERNAL, registry.getVolumes().get(0).root);
+        assertFalse(registry.getVolumes().get(0).hasUsage());
+    }
+
+    @Test
+    public void mountAndUnmountUpdateIncrementally() throws Exception {
+        registry = create(60_000);
+        mounted.add(volume(INTERNAL, "内部存储", false));
+        usage.put(INTERNAL, new long[]{1000, 250});
+        usage.put(SD_CARD, new long[]{4000, 4000});
+
+        // 卷列表没变，只补上容量
+        registry.refresh();
+        List<StorageVolumeRegistry.Volume> volumes = next();
+        assertEquals(1, volumes.size());
+        assertEquals(750, volumes.get(0).usedPermille());
+
+        // 再次枚举没有任何变化时不通知，也不重新读容量
+        int reads = usageReads.get();
+        registry.refresh();
+        assertNull(notifications.poll(200, TimeUnit.MILLISECONDS));
+        assertEquals(reads, usageReads.get());
+
+        // 插入存储卡：先以未知容量出现，读完后再通知；内部存储沿用已知容量
+        mounted.add(volume(SD_CARD, "SD卡 - 闪迪", true));
+        registry.refresh();
+        volumes = next();
+        assertEquals(2, volumes.size());
+        assertTrue(volumes.get(0).hasUsage());
+        assertFalse(volumes.get(1).hasUsage());
+        volumes = next();
+        assertEquals(4000, volumes.get(1).totalBytes);
+        assertSame(volumes, registry.getVolumes());
+
+        mounted.remove(1);
+        registry.refresh();
+        volumes = next();
+        assertEquals(Collections.singletonList(INTERNAL), roots(volumes));
+    }
+
+    @Test
+    public void usageRefreshIsThrottled() throws Exception {
+        registry = create(60_000);
+        mounted.add(volume(INTERNAL, "内部存储", false));
+        usage.put(INTERNAL, new long[]{1000, 500});
+        registry.refresh();
+        assertEquals(500, next().get(0).freeBytes);
+
+        usage.put(INTERNAL, new long[]{1000, 100});
+        registry.refreshUsage();
+        assertNull(notifications.poll(200, TimeUnit.MILLISECONDS));
+
+        registry.shutdown();
+        registry = create(0);
+        registry.refresh();
+        next();
+        usage.put(INTERNAL, new long[]{1000, 50});
+        registry.refreshUsage();
+        assertEquals(50, next().get(0).freeBytes);
+    }
+
+    private StorageVolumeRegistry create(long maxUsageAgeMs) {
+        StorageVolumeRegistry registry = new StorageVolumeRegistry(
+                () -> new ArrayList<>(mounted),
+                root -> {
+                    usageReads.incrementAndGet();
+                    long[] value = usage.get(root);
+                    return value == null ? null : value.clone();
+                },
+                Runnable::run,
+                Arrays.asList(volume(INTERNAL, "内部存储", false)),
+                maxUsageAgeMs);
+        registry.setListener(notifications::add);
+        return registry;
+    }
+
+    private List<StorageVolumeRegistry.Volume> next() throws InterruptedException {
+        List<StorageVolumeRegistry.Volume> volumes = notifications.poll(5, TimeUnit.SECONDS);
+        assertNotNull("等待通知超时", volumes);
+        return volumes;
+    }
+
+    private static StorageVolumeRegistry.Volume volume(File root, String name, boolean removable) {
+        return new StorageVolumeRegistry.Volume(root, name, removable);
+    }
+
+    private static List<File> roots(List<StorageVolumeRegistry.Volume> volumes) {
+        List<File> roots = new ArrayList<>();
+        for (StorageVolumeRegistry.Volume volume : volumes) {
+            roots.add(volume.root);
+        }
+        return roots;
+    }
+}
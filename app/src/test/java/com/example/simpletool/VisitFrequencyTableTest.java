@@ -0,0 +1,81 @@
+package com.example.simpletool;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class VisitFrequencyTableTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void ranksDirectChildrenByVisits() {
+        VisitFrequencyTable table = new VisitFrequencyTable(null, 100);
+        visit(table, "/sdcard/DCIM", 3);
+        visit(table, "/sdcard/Download", 5);
+        visit(table, "/sdcard/Music", 1);
+        visit(table, "/sdcard/DCIM/Camera", 9);
+        visit(table, "/sdcard", 20);
+
+        assertEquals(Arrays.asList("/sdcard/Download", "/sdcard/DCIM"), table.topChildren("/sdcard", 2));
+        assertEquals(Collections.singletonList("/sdcard/DCIM/Camera"), table.topChildren("/sdcard/DCIM", 5));
+        assertTrue(table.topChildren("/other", 5).isEmpty());
+    }
+
+    @Test
+    public void evictsLeastVisitedButKeepsNewEntry() {
+        VisitFrequencyTable table = new VisitFrequencyTable(null, 3);
+        visit(table, "/a", 5);
+        visit(table, "/b", 2);
+        visit(table, "/c", 4);
+        visit(table, "/d", 1);
+
+        assertEquals(0, table.getCount("/b"));
+        assertEquals(1, table.getCount("/d"));
+        assertEquals(5, table.getCount("/a"));
+    }
+
+    @Test
+    public void decaysSoOldHabitsFade() {
+        VisitFrequencyTable table = new VisitFrequencyTable(null, 100);
+        visit(table, "/old", 63);
+        visit(table, "/rare", 1);
+        visit(table, "/old", 1);
+
+        // 达到上限后全部减半，只访问过一次的被清掉
+        assertEquals(32, table.getCount("/old"));
+        assertEquals(0, table.getCount("/rare"));
+    }
+
+    @Test
+    public void persistsAcrossInstances() throws Exception {
+        File file = new File(tmp.getRoot(), "visits/table.bin");
+        VisitFrequencyTable table = new VisitFrequencyTable(file, 100);
+        visit(table, "/sdcard/Books", 4);
+        visit(table, "/sdcard/漫画", 2);
+        table.save();
+        assertTrue(file.isFile());
+
+        VisitFrequencyTable reloaded = new VisitFrequencyTable(file, 100);
+        assertEquals(4, reloaded.getCount("/sdcard/Books"));
+        assertEquals(2, reloaded.getCount("/sdcard/漫画"));
+
+        // 损坏的文件当作空表
+        Files.write(file.toPath(), new byte[]{1, 2, 3});
+        assertEquals(0, new VisitFrequencyTable(file, 100).getCount("/sdcard/Books"));
+    }
+
+    private static void visit(VisitFrequencyTable table, String path, int times) {
+        for (int i = 0; i < times; i++) {
+            table.recordVisit(path);
+        }
+    }
+}
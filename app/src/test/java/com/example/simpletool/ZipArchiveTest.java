@@ -0,0 +1,218 @@
+package com.example.simpletool;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.*;
+
+public class ZipArchiveTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void listsVirtualDirectoriesFromCentralDirectory() throws Exception {
+        File zip = new File(tmp.getRoot(), "漫画.cbz");
+        Map<String, byte[]> contents = new HashMap<>();
+        contents.put("第1话/001.jpg", randomBytes(1, 5000));
+        contents.put("第1话/002.jpg", randomBytes(2, 7000));
+        contents.put("第2话/彩页/cover.png", randomBytes(3, 300));
+        contents.put("readme.txt", "简介".getBytes(StandardCharsets.UTF_8));
+        writeZip(zip, StandardCharsets.UTF_8, contents, "空目录/");
+
+        ZipArchive archive = ZipArchive.open(zip);
+        assertEquals(4, archive.getEntryCount());
+        assertSame(archive, ZipArchive.open(zip));
+
+        Map<String, FileEntry> root = byName(archive.list(""));
+        assertEquals(4, root.size());
+        assertTrue(root.get("第1话").isDirectory);
+        assertEquals(12000, root.get("第1话").size);
+        // 只有隐式的上级目录
+        assertTrue(root.get("第2话").isDirectory);
+        assertEquals(300, root.get("第2话").size);
+        assertTrue(root.get("空目录").isDirectory);
+        assertEquals(zip.getPath(), root.get("readme.txt").parentPath);
+        assertEquals(6, root.get("readme.txt").size);
+
+        Map<String, FileEntry> chapter = byName(archive.list("第2话/彩页"));
+        assertEquals(1, chapter.size());
+        assertEquals(new File(zip, "第2话/彩页/cover.png").getPath(), chapter.get("cover.png").getPath());
+        assertNull(archive.list("不存在"));
+
+        // 时间与 JDK 解析的一致
+        try (ZipFile reference = new ZipFile(zip)) {
+            assertEquals(reference.getEntry("readme.txt").getTime(), root.get("readme.txt").lastModified);
+        }
+    }
+
+    @Test
+    public void streamsStoredAndDeflatedEntries() throws Exception {
+        File zip = new File(tmp.getRoot(), "book.zip");
+        Map<String, byte[]> contents = new HashMap<>();
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            text.append("第").append(i).append("章 正文内容\n");
+        }
+        contents.put("novel.txt", text.toString().getBytes(StandardCharsets.UTF_8));
+        contents.put("image.jpg", randomBytes(4, 100_000));
+        contents.put("empty.txt", new byte[0]);
+        writeZip(zip, StandardCharsets.UTF_8, contents);
+
+        ZipArchive archive = ZipArchive.open(zip);
+        for (Map.Entry<String, byte[]> entry : contents.entrySet()) {
+            try (InputStream in = archive.openStream(entry.getKey())) {
+                assertArrayEquals(entry.getKey(), entry.getValue(), readAll(in));
+            }
+        }
+        // 包内路径和普通文件路径用同一个入口打开
+        try (InputStream in = ZipArchive.openPath(new File(zip, "novel.txt").getPath())) {
+            assertArrayEquals(contents.get("novel.txt"), readAll(in));
+        }
+        try (InputStream in = ZipArchive.openPath(zip.getPath())) {
+            assertEquals(zip.length(), readAll(in).length);
+        }
+        try {
+            archive.openStream("missing.txt");
+            fail();
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void locateSplitsArchivePathsOnly() throws Exception {
+        File zip = new File(tmp.getRoot(), "a.ZIP");
+        writeZip(zip, StandardCharsets.UTF_8, new HashMap<>());
+        // 名字像压缩包的目录不算
+        File dirNamedZip = tmp.newFolder("fake.zip");
+
+        ZipArchive.Location root = ZipArchive.locate(zip.getPath());
+        assertNotNull(root);
+        assertEquals(zip, root.archive);
+        assertEquals("", root.entry);
+
+        ZipArchive.Location inner = ZipArchive.locate(zip.getPath() + "/x/y.txt");
+        assertEquals("x/y.txt", inner.entry);
+        assertEquals(inner, ZipArchive.locate(zip.getPath() + "/x/y.txt"));
+
+        assertNull(ZipArchive.locate(new File(dirNamedZip, "file.txt").getPath()));
+        assertNull(ZipArchive.locate(tmp.getRoot().getPath()));
+        assertTrue(ZipArchive.isArchiveName("Book.EPUB"));
+        assertFalse(ZipArchive.isArchiveName("app.apk"));
+    }
+
+    @Test
+    public void decodesLegacyGbkNames() throws Exception {
+        File zip = new File(tmp.getRoot(), "gbk.zip");
+        Map<String, byte[]> contents = new HashMap<>();
+        contents.put("中文目录/文件.txt", new byte[]{1, 2, 3});
+        writeZip(zip, Charset.forName("GBK"), contents);
+
+        ZipArchive archive = ZipArchive.open(zip);
+        assertTrue(byName(archive.list("")).containsKey("中文目录"));
+        try (InputStream in = archive.openStream("中文目录/文件.txt")) {
+            assertArrayEquals(new byte[]{1, 2, 3}, readAll(in));
+        }
+    }
+
+    @Test
+    public void rejectsEntryCountLargerThanCentralDirectory() throws Exception {
+        File zip = new File(tmp.getRoot(), "bogus.zip");
+        Map<String, byte[]> contents = new HashMap<>();
+        contents.put("a.txt", new byte[]{1});
+        writeZip(zip, StandardCharsets.UTF_8, contents);
+
+        // 把普通的目录结尾记录换成 ZIP64 记录，声称有 20 多亿个条目
+        byte[] bytes = Files.readAllBytes(zip.toPath());
+        ByteBuffer eocd = ByteBuffer.wrap(bytes, bytes.length - 22, 22).slice().order(ByteOrder.LITTLE_ENDIAN);
+        long centralSize = eocd.getInt(12) & 0xFFFFFFFFL;
+        long centralOffset = eocd.getInt(16) & 0xFFFFFFFFL;
+        int zip64Offset = bytes.length - 22;
+        ByteBuffer tail = ByteBuffer.allocate(56 + 20 + 22).order(ByteOrder.LITTLE_ENDIAN);
+        tail.putInt(0x06064b50).putLong(44).putShort((short) 45).putShort((short) 45).putInt(0).putInt(0)
+                .putLong(Integer.MAX_VALUE).putLong(Integer.MAX_VALUE).putLong(centralSize).putLong(centralOffset);
+        tail.putInt(0x07064b50).putInt(0).putLong(zip64Offset).putInt(1);
+        tail.putInt(0x06054b50).putShort((short) 0).putShort((short) 0).putShort((short) -1).putShort((short) -1)
+                .putInt(-1).putInt(-1).putShort((short) 0);
+        try (FileOutputStream out = new FileOutputStream(zip)) {
+            out.write(bytes, 0, zip64Offset);
+            out.write(tail.array());
+        }
+
+        try {
+            ZipArchive.open(zip);
+            fail("条目数超过中央目录容量的压缩包应该打开失败");
+        } catch (IOException expected) {
+        }
+    }
+
+    private static void writeZip(File file, Charset charset, Map<String, byte[]> contents, String... dirs)
+            throws IOException {
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file), charset)) {
+            for (String dir : dirs) {
+                out.putNextEntry(new ZipEntry(dir));
+                out.closeEntry();
+            }
+            int i = 0;
+            for (Map.Entry<String, byte[]> entry : contents.entrySet()) {
+                ZipEntry zipEntry = new ZipEntry(entry.getKey());
+                // 交替使用不压缩和 deflate
+                if (i++ % 2 == 0) {
+                    CRC32 crc = new CRC32();
+                    crc.update(entry.getValue());
+                    zipEntry.setMethod(ZipEntry.STORED);
+                    zipEntry.setSize(entry.getValue().length);
+                    zipEntry.setCrc(crc.getValue());
+                }
+                out.putNextEntry(zipEntry);
+                out.write(entry.getValue());
+                out.closeEntry();
+            }
+        }
+    }
+
+    private static Map<String, FileEntry> byName(List<FileEntry> entries) {
+        Map<String, FileEntry> map = new HashMap<>();
+        for (FileEntry entry : new ArrayList<>(entries)) {
+            map.put(entry.name, entry);
+        }
+        return map;
+    }
+
+    private static byte[] randomBytes(long seed, int length) {
+        byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[3000];
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+}